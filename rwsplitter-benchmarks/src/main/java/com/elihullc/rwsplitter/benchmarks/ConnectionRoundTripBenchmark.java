@@ -0,0 +1,63 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a {@code getConnection}/{@code releaseConnection} round trip through the multi-tenant provider and HikariCP against an
+ * in-memory H2 database
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConnectionRoundTripBenchmark {
+
+    private static final String TENANT = "benchmark";
+
+    private final H2MultiTenantConnectionProvider provider = new H2MultiTenantConnectionProvider();
+
+    @Setup
+    public void setup() throws SQLException {
+        this.provider.releaseConnection(TENANT, this.provider.getConnection(TENANT));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    @Benchmark
+    public Connection writer() throws SQLException {
+        final Connection connection = this.provider.getConnection(TENANT);
+        this.provider.releaseConnection(TENANT, connection);
+        return connection;
+    }
+
+    @Benchmark
+    public Connection reader() throws SQLException {
+        return ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> {
+            final Connection connection = this.provider.getConnection(TENANT);
+            this.provider.releaseConnection(TENANT, connection);
+            return connection;
+        });
+    }
+}
@@ -0,0 +1,69 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariCPDataSourceConnectionProvider;
+
+import java.io.Serial;
+
+/**
+ * {@link HikariCPDataSourceConnectionProvider} backed by an in-memory H2 database per tenant, standing in for MySQL
+ */
+public class H2ConnectionProvider extends HikariCPDataSourceConnectionProvider {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private String url;
+
+    public H2ConnectionProvider(final String tenantIdentifier) {
+        super(tenantIdentifier);
+    }
+
+    @Override
+    protected void beforeConfiguration(final String tenantIdentifier) {
+        super.beforeConfiguration(tenantIdentifier);
+        this.url = "jdbc:h2:mem:" + tenantIdentifier + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Override
+    protected String getDatabasePassword() {
+        return "";
+    }
+
+    @Override
+    protected String getDatabaseUser() {
+        return "sa";
+    }
+
+    @Override
+    protected String getDatabaseURL() {
+        return this.url;
+    }
+
+    @Override
+    protected String getDataSourceClassName() {
+        return "org.h2.jdbcx.JdbcDataSource";
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return false;
+    }
+
+    /**
+     * Read-only variant of {@link H2ConnectionProvider} pointing at the same in-memory database
+     */
+    public static class Reader extends H2ConnectionProvider {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        public Reader(final String tenantIdentifier) {
+            super(tenantIdentifier);
+        }
+
+        @Override
+        public boolean isReadOnly() {
+            return true;
+        }
+    }
+}
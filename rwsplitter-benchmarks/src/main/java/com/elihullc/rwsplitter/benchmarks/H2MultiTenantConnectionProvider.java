@@ -0,0 +1,26 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+
+import java.io.Serial;
+
+public class H2MultiTenantConnectionProvider extends SpringMultiTenantConnectionProvider<H2ConnectionProvider> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public H2MultiTenantConnectionProvider() {
+        super(new SpringTenantIdentifierResolver());
+    }
+
+    @Override
+    protected H2ConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+        return new H2ConnectionProvider(tenantIdentifier);
+    }
+
+    @Override
+    protected H2ConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+        return new H2ConnectionProvider.Reader(tenantIdentifier);
+    }
+}
@@ -0,0 +1,85 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.aop.DatabaseRoleInterceptor;
+import com.elihullc.rwsplitter.jpa.hibernate.aop.CurrentTenant;
+import com.elihullc.rwsplitter.jpa.hibernate.aop.TenantSettingInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Measures the overhead of the {@link DatabaseRoleInterceptor} and {@link TenantSettingInterceptor} advice compared to proceeding
+ * directly
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterceptorBenchmark {
+
+    private final DatabaseRoleInterceptor databaseRoleInterceptor = new DatabaseRoleInterceptor();
+    private final TenantSettingInterceptor tenantSettingInterceptor = new TenantSettingInterceptor();
+
+    private ProceedingJoinPoint joinPoint;
+    private ProceedingJoinPoint classLevelJoinPoint;
+    private CurrentTenant currentTenant;
+
+    @Transactional(readOnly = true)
+    @CurrentTenant("tenant")
+    public Object annotated() {
+        return this;
+    }
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        this.joinPoint = new StubProceedingJoinPoint(this, new StubMethodSignature(getClass().getMethod("annotated")));
+        this.classLevelJoinPoint = new StubProceedingJoinPoint(new ClassLevel(),
+          new StubMethodSignature(ClassLevel.class.getMethod("unannotated")));
+        this.currentTenant = getClass().getMethod("annotated").getAnnotation(CurrentTenant.class);
+    }
+
+    @Benchmark
+    public Object baseline() throws Throwable {
+        return this.joinPoint.proceed();
+    }
+
+    @Benchmark
+    public Object databaseRole() throws Throwable {
+        return this.databaseRoleInterceptor.around(this.joinPoint);
+    }
+
+    @Benchmark
+    public Object databaseRoleClassLevel() throws Throwable {
+        return this.databaseRoleInterceptor.around(this.classLevelJoinPoint);
+    }
+
+    @Benchmark
+    public Object tenantSetting() throws Throwable {
+        return this.tenantSettingInterceptor.around(this.joinPoint, this.currentTenant);
+    }
+
+    /**
+     * Target whose routing is only declared at the type level
+     */
+    @Transactional(readOnly = true)
+    public static class ClassLevel {
+
+        public Object unannotated() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+
+/**
+ * {@link StoppableConnectionProvider} handing out a connection that does nothing, used to measure routing overhead in isolation
+ */
+public class NoopConnectionProvider implements StoppableConnectionProvider {
+
+    private static final Connection NOOP_CONNECTION = (Connection)Proxy.newProxyInstance(
+      NoopConnectionProvider.class.getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+              case "equals":
+                  return proxy == args[0];
+              case "hashCode":
+                  return System.identityHashCode(proxy);
+              case "toString":
+                  return "NoopConnection";
+              default:
+                  final Class<?> type = method.getReturnType();
+                  if (type == boolean.class) {
+                      return Boolean.FALSE;
+                  }
+                  return type == int.class ? 0 : type == long.class ? 0L : null;
+          }
+      });
+
+    private final boolean readOnly;
+
+    public NoopConnectionProvider(final boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    @Override
+    public Connection getConnection() {
+        return NOOP_CONNECTION;
+    }
+
+    @Override
+    public void closeConnection(final Connection connection) {
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public boolean isUnwrappableAs(final Class<?> unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> unwrapType) {
+        return unwrapType.isInstance(this) ? unwrapType.cast(this) : null;
+    }
+}
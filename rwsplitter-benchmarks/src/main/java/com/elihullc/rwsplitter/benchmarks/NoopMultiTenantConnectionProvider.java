@@ -0,0 +1,26 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+
+import java.io.Serial;
+
+public class NoopMultiTenantConnectionProvider extends SpringMultiTenantConnectionProvider<NoopConnectionProvider> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public NoopMultiTenantConnectionProvider() {
+        super(new SpringTenantIdentifierResolver());
+    }
+
+    @Override
+    protected NoopConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+        return new NoopConnectionProvider(false);
+    }
+
+    @Override
+    protected NoopConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+        return new NoopConnectionProvider(true);
+    }
+}
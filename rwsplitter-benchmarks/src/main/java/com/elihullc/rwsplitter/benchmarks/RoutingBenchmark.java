@@ -0,0 +1,82 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SpringMultiTenantConnectionProvider#getConnectionProvider(String)} for a single hot tenant and for thousands of
+ * tenants, routed to the writer and to the reader.  Connection providers are created up front so only the lookup is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Tenants {
+
+        @Param({"1", "5000"})
+        public int tenantCount;
+
+        final NoopMultiTenantConnectionProvider provider = new NoopMultiTenantConnectionProvider();
+        String[] tenants;
+
+        @Setup
+        public void setup() {
+            this.tenants = new String[this.tenantCount];
+            for (int i = 0; i < this.tenantCount; i++) {
+                this.tenants[i] = "tenant" + i;
+                final String tenant = this.tenants[i];
+                this.provider.getConnectionProvider(tenant);
+                ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> this.provider.getConnectionProvider(tenant));
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            this.provider.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+        String nextTenant(final Tenants tenants) {
+            final String tenant = tenants.tenants[this.next];
+            this.next = this.next + 1 == tenants.tenants.length ? 0 : this.next + 1;
+            return tenant;
+        }
+    }
+
+    @Benchmark
+    public StoppableConnectionProvider writer(final Tenants tenants, final Cursor cursor) {
+        return tenants.provider.getConnectionProvider(cursor.nextTenant(tenants));
+    }
+
+    @Benchmark
+    public StoppableConnectionProvider reader(final Tenants tenants, final Cursor cursor) {
+        final String tenant = cursor.nextTenant(tenants);
+        return ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> tenants.provider.getConnectionProvider(tenant));
+    }
+}
@@ -0,0 +1,72 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import java.lang.reflect.Method;
+
+import org.aspectj.lang.reflect.MethodSignature;
+
+/**
+ * Minimal {@link MethodSignature} describing a given method, used with {@link StubProceedingJoinPoint}
+ */
+public class StubMethodSignature implements MethodSignature {
+
+    private final Method method;
+
+    public StubMethodSignature(final Method method) {
+        this.method = method;
+    }
+
+    @Override
+    public Class<?> getReturnType() {
+        return this.method.getReturnType();
+    }
+
+    @Override
+    public Method getMethod() {
+        return this.method;
+    }
+
+    @Override
+    public Class<?>[] getParameterTypes() {
+        return this.method.getParameterTypes();
+    }
+
+    @Override
+    public String[] getParameterNames() {
+        return new String[this.method.getParameterCount()];
+    }
+
+    @Override
+    public Class<?>[] getExceptionTypes() {
+        return this.method.getExceptionTypes();
+    }
+
+    @Override
+    public String toShortString() {
+        return this.method.getName();
+    }
+
+    @Override
+    public String toLongString() {
+        return this.method.toString();
+    }
+
+    @Override
+    public String getName() {
+        return this.method.getName();
+    }
+
+    @Override
+    public int getModifiers() {
+        return this.method.getModifiers();
+    }
+
+    @Override
+    public Class<?> getDeclaringType() {
+        return this.method.getDeclaringClass();
+    }
+
+    @Override
+    public String getDeclaringTypeName() {
+        return this.method.getDeclaringClass().getName();
+    }
+}
@@ -0,0 +1,79 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+
+/**
+ * Minimal {@link ProceedingJoinPoint} that returns a constant when proceeding, used to invoke advice directly
+ */
+public class StubProceedingJoinPoint implements ProceedingJoinPoint {
+
+    private final Object target;
+    private final Signature signature;
+
+    public StubProceedingJoinPoint(final Object target, final Signature signature) {
+        this.target = target;
+        this.signature = signature;
+    }
+
+    @Override
+    public void set$AroundClosure(final AroundClosure arc) {
+    }
+
+    @Override
+    public Object proceed() {
+        return this.target;
+    }
+
+    @Override
+    public Object proceed(final Object[] args) {
+        return this.target;
+    }
+
+    @Override
+    public String toShortString() {
+        return "stub";
+    }
+
+    @Override
+    public String toLongString() {
+        return "stub";
+    }
+
+    @Override
+    public Object getThis() {
+        return this.target;
+    }
+
+    @Override
+    public Object getTarget() {
+        return this.target;
+    }
+
+    @Override
+    public Object[] getArgs() {
+        return new Object[0];
+    }
+
+    @Override
+    public Signature getSignature() {
+        return this.signature;
+    }
+
+    @Override
+    public SourceLocation getSourceLocation() {
+        return null;
+    }
+
+    @Override
+    public String getKind() {
+        return METHOD_EXECUTION;
+    }
+
+    @Override
+    public StaticPart getStaticPart() {
+        return null;
+    }
+}
@@ -0,0 +1,95 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures binding a tenant with the current {@link com.elihullc.rwsplitter.jpa.context.ContextEngine}, reading it through
+ * {@link SpringTenantIdentifierResolver} and unbinding it, with a growing number of threads, both scoped and imperatively through
+ * {@link SpringTenantIdentifierResolver#setCurrentTenant(String)} and {@link SpringTenantIdentifierResolver#resetCurrentTenant()}.
+ * Since every thread only touches its own tenants the throughput per thread should stay flat as threads are added.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TenantContextBenchmark {
+
+    private final SpringTenantIdentifierResolver resolver = new SpringTenantIdentifierResolver();
+
+    private String pushPeekPop() {
+        return ContextEngines.getEngine().withTenant("tenant", this.resolver::getCurrentTenant);
+    }
+
+    private String setGetReset() {
+        SpringTenantIdentifierResolver.setCurrentTenant("tenant");
+        try {
+            return this.resolver.getCurrentTenant();
+        } finally {
+            SpringTenantIdentifierResolver.resetCurrentTenant();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String threads01() {
+        return this.pushPeekPop();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String threads04() {
+        return this.pushPeekPop();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String threads16() {
+        return this.pushPeekPop();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String threads64() {
+        return this.pushPeekPop();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String imperativeThreads01() {
+        return this.setGetReset();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String imperativeThreads04() {
+        return this.setGetReset();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String imperativeThreads16() {
+        return this.setGetReset();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public String imperativeThreads64() {
+        return this.setGetReset();
+    }
+}
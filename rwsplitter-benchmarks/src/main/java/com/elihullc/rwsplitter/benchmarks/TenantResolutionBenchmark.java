@@ -0,0 +1,58 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SpringTenantIdentifierResolver#resolveCurrentTenantIdentifier()} when the tenant is bound by the current
+ * {@link com.elihullc.rwsplitter.jpa.context.ContextEngine}, including the binding, comes from the tenant supplier and from the
+ * default tenant
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantResolutionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Resolvers {
+
+        final SpringTenantIdentifierResolver supplied = new SpringTenantIdentifierResolver();
+        final SpringTenantIdentifierResolver fallback = new SpringTenantIdentifierResolver();
+
+        @Setup
+        public void setup() {
+            this.supplied.setTenantSupplier(() -> "supplied");
+            this.fallback.setTenantSupplier(() -> null);
+        }
+    }
+
+    @Benchmark
+    public String bound(final Resolvers resolvers) {
+        return ContextEngines.getEngine().withTenant("tenant", resolvers.fallback::resolveCurrentTenantIdentifier);
+    }
+
+    @Benchmark
+    public String supplier(final Resolvers resolvers) {
+        return resolvers.supplied.resolveCurrentTenantIdentifier();
+    }
+
+    @Benchmark
+    public String defaultTenant(final Resolvers resolvers) {
+        return resolvers.fallback.resolveCurrentTenantIdentifier();
+    }
+}
@@ -0,0 +1,37 @@
+package com.elihullc.rwsplitter.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the selected benchmarks once per thread count, doubling from 1 up to the value of the system property
+ * {@code benchmark.maxThreads} (default is the number of available processors).  Any arguments are passed on to JMH, e.g. a regular
+ * expression selecting the benchmarks to run.
+ */
+public final class ThreadScalingRunner {
+
+    private ThreadScalingRunner() {
+    }
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        final int maxThreads = Integer.getInteger("benchmark.maxThreads", Runtime.getRuntime().availableProcessors());
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+        int threads = 1;
+        while (true) {
+            new Runner(new OptionsBuilder()
+              .parent(commandLine)
+              .threads(threads)
+              .resultFormat(ResultFormatType.JSON)
+              .result("jmh-result-" + threads + "-threads.json")
+              .build()).run();
+            if (threads >= maxThreads) {
+                break;
+            }
+            threads = Math.min(threads << 1, maxThreads);
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package com.elihullc.rwsplitter.jpa;
 
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.context.RoleBinding;
+
 /**
- * Utility class for holding the inheritable thread-local value for the current {@link DatabaseRole}.  The initial value of the
- * thread-local is {@link DatabaseRole#WRITER}.
+ * Utility class for accessing the current {@link DatabaseRole} held by the selected
+ * {@link com.elihullc.rwsplitter.jpa.context.ContextEngine}.  The initial value is {@link DatabaseRole#WRITER}.
  */
 public final class CurrentDatabaseRole {
 
-    private static final ThreadLocal<DatabaseRole> CURRENT_ROLE = ThreadLocal.withInitial(() -> DatabaseRole.WRITER);
-
     private CurrentDatabaseRole() {
     }
 
@@ -16,21 +17,31 @@ public final class CurrentDatabaseRole {
      * @return current {@link DatabaseRole}
      */
     public static DatabaseRole getCurrentRole() {
-        return CURRENT_ROLE.get();
+        return ContextEngines.getEngine().getRole();
+    }
+
+    /**
+     * Returns the {@link RoleBinding} for the current thread, including any routing constraints bound with the role
+     * @return current {@link RoleBinding}
+     */
+    public static RoleBinding getCurrentBinding() {
+        return ContextEngines.getEngine().getRoleBinding();
     }
 
     /**
-     * Sets the {@link DatabaseRole} for the current thread
+     * Sets the {@link DatabaseRole} for the current thread, replacing the current one, until {@link #resetCurrentRole()}.  Calls do
+     * not nest; use {@code withRole} of {@link ContextEngines#getEngine()} to set a role for a scope and restore the enclosing one
+     * afterwards.
      * @param role new {@link DatabaseRole} for the current thread
      */
     public static void setCurrentRole(DatabaseRole role) {
-        CURRENT_ROLE.set(role);
+        ContextEngines.getEngine().setRole(role);
     }
 
     /**
      * Resets the {@link DatabaseRole} for the current thread to {@link DatabaseRole#WRITER}
      */
     public static void resetCurrentRole() {
-        CURRENT_ROLE.set(DatabaseRole.WRITER);
+        ContextEngines.getEngine().resetRole();
     }
 }
@@ -1,37 +1,102 @@
 package com.elihullc.rwsplitter.jpa.aop;
 
-import com.elihullc.rwsplitter.jpa.CurrentDatabaseRole;
 import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.context.RoleBinding;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
 import org.springframework.core.PriorityOrdered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Aspect that intercepts all public {@link Transactional} methods and sets the {@link DatabaseRole} on the current thread based on
- * the value of {@link Transactional#readOnly()}.
+ * Aspect that intercepts all public methods annotated with, or declared by a class annotated with, {@link Transactional} or
+ * {@link RoutingHint} and binds the {@link DatabaseRole} for their duration.  {@link RoutingHint} takes precedence over
+ * {@link Transactional} and method-level annotations over class-level ones; otherwise the role follows
+ * {@link Transactional#readOnly()}.  Nested invocations restore the enclosing role when they return.
+ *
+ * Annotations are resolved once per method and target class, so only a map lookup happens on each invocation.
  */
 @Aspect
 @Component
 public class DatabaseRoleInterceptor implements PriorityOrdered {
 
+    private static final RoleBinding UNBOUND = RoleBinding.reader(Long.MAX_VALUE);
+
+    private final ConcurrentMap<MethodClassKey, RoleBinding> bindings = new ConcurrentHashMap<>();
     private int order = 20;
 
     @Pointcut(value = "execution(public * *(..))")
     public void anyPublicMethod() { }
 
-    @Around(value = "anyPublicMethod() && @annotation(txAnnotation)", argNames = "txAnnotation")
-    public Object around(final ProceedingJoinPoint joinPoint, final Transactional txAnnotation) throws Throwable {
-        CurrentDatabaseRole.setCurrentRole(txAnnotation.readOnly() ? DatabaseRole.READER : DatabaseRole.WRITER);
-        try {
-            return joinPoint.proceed();
-        } finally {
-            CurrentDatabaseRole.resetCurrentRole();
+    @Pointcut(value = "@annotation(org.springframework.transaction.annotation.Transactional) "
+      + "|| @within(org.springframework.transaction.annotation.Transactional) "
+      + "|| @annotation(com.elihullc.rwsplitter.jpa.aop.RoutingHint) || @within(com.elihullc.rwsplitter.jpa.aop.RoutingHint)")
+    public void routingAnnotated() { }
+
+    @Around(value = "anyPublicMethod() && routingAnnotated()")
+    public Object around(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final RoleBinding binding = this.getRoleBinding(joinPoint);
+        return binding == null ? joinPoint.proceed() : ContextEngines.getEngine().withRole(binding, joinPoint::proceed);
+    }
+
+    /**
+     * Returns the role binding for the method invoked by the given join point
+     * @param joinPoint the join point
+     * @return the role binding or null if the method is not annotated
+     */
+    protected RoleBinding getRoleBinding(final ProceedingJoinPoint joinPoint) {
+        if (!(joinPoint.getSignature() instanceof MethodSignature signature)) {
+            return null;
+        }
+        final Method method = signature.getMethod();
+        final Object target = joinPoint.getTarget();
+        final Class<?> targetClass = target == null ? method.getDeclaringClass() : AopUtils.getTargetClass(target);
+        final RoleBinding binding = this.bindings.computeIfAbsent(new MethodClassKey(method, targetClass),
+          key -> {
+              final RoleBinding resolved = this.resolveRoleBinding(method, targetClass);
+              return resolved == null ? UNBOUND : resolved;
+          });
+        return binding == UNBOUND ? null : binding;
+    }
+
+    /**
+     * Resolves the role binding of the given method from its annotations and those of the given target class
+     * @param method the invoked method
+     * @param targetClass the class of the invoked object
+     * @return the role binding or null if neither the method nor the class is annotated
+     */
+    protected RoleBinding resolveRoleBinding(final Method method, final Class<?> targetClass) {
+        final Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        RoleBinding binding = toRoleBinding(AnnotatedElementUtils.findMergedAnnotation(specificMethod, RoutingHint.class),
+          AnnotatedElementUtils.findMergedAnnotation(specificMethod, Transactional.class));
+        if (binding == null) {
+            binding = toRoleBinding(AnnotatedElementUtils.findMergedAnnotation(targetClass, RoutingHint.class),
+              AnnotatedElementUtils.findMergedAnnotation(targetClass, Transactional.class));
+        }
+        return binding;
+    }
+
+    private static RoleBinding toRoleBinding(final RoutingHint hint, final Transactional txAnnotation) {
+        if (hint != null) {
+            return hint.value() == RoutingHint.Preference.WRITER_REQUIRED
+              ? RoleBinding.WRITER_REQUIRED : RoleBinding.reader(hint.maxLagMillis());
+        }
+        if (txAnnotation != null) {
+            return txAnnotation.readOnly() ? RoleBinding.READER : RoleBinding.WRITER;
         }
+        return null;
     }
 
     /**
@@ -0,0 +1,48 @@
+package com.elihullc.rwsplitter.jpa.aop;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation used to specify how database access of a class or method is routed, taking precedence over {@code @Transactional} at
+ * the same level.  Method-level annotations take precedence over class-level ones.
+ *
+ * @see DatabaseRoleInterceptor
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RoutingHint {
+
+    /**
+     * Returns the routing preference. Defaults to {@link Preference#READER_PREFERRED}.
+     * @return The routing preference
+     */
+    Preference value() default Preference.READER_PREFERRED;
+
+    /**
+     * Returns the maximum replication lag in milliseconds a reader may have to serve reads, which requires a replication lag monitor
+     * on the connection provider.  Negative values tolerate any lag. Defaults to -1.
+     * @return The maximum replication lag in milliseconds
+     */
+    long maxLagMillis() default -1L;
+
+    /**
+     * Routing preferences
+     */
+    enum Preference {
+
+        /**
+         * Use a reader when one is available and, if bounded, within the lag tolerance; otherwise use the writer
+         */
+        READER_PREFERRED,
+
+        /**
+         * Use the writer, even within a read-only transaction
+         */
+        WRITER_REQUIRED
+    }
+}
@@ -0,0 +1,115 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import java.util.List;
+
+/**
+ * Holds the current tenant stack and {@link DatabaseRole}.  Tenants and roles are bound for the duration of an action with
+ * {@link #withTenant(String, ScopedAction)} and {@link #withRole(RoleBinding, ScopedAction)}, after which the previous values are
+ * visible again.  The imperative methods exist for the static accessors of {@link com.elihullc.rwsplitter.jpa.CurrentDatabaseRole}
+ * and {@link com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver} and may not be supported by every engine.
+ *
+ * @see ContextEngines
+ */
+public interface ContextEngine {
+
+    /**
+     * Returns the current {@link RoleBinding}, {@link RoleBinding#WRITER} if none is bound
+     * @return the current {@link RoleBinding}
+     */
+    RoleBinding getRoleBinding();
+
+    /**
+     * Returns the current {@link DatabaseRole}, {@link DatabaseRole#WRITER} if none is bound
+     * @return the current {@link DatabaseRole}
+     */
+    default DatabaseRole getRole() {
+        return this.getRoleBinding().getRole();
+    }
+
+    /**
+     * Returns the innermost bound tenant or null if none is bound
+     * @return the innermost bound tenant
+     */
+    String getTenant();
+
+    /**
+     * Returns all bound tenants from outermost to innermost
+     * @return all bound tenants
+     */
+    List<String> getAllTenants();
+
+    /**
+     * Invokes the given action with the given role bound
+     * @param role the role
+     * @param action the action
+     * @return the result of the action
+     * @throws X if the action fails
+     */
+    default <T, X extends Throwable> T withRole(final DatabaseRole role, final ScopedAction<T, X> action) throws X {
+        return this.withRole(RoleBinding.of(role), action);
+    }
+
+    /**
+     * Invokes the given action with the given role binding, after which the previous binding is restored
+     * @param binding the role binding
+     * @param action the action
+     * @return the result of the action
+     * @throws X if the action fails
+     */
+    <T, X extends Throwable> T withRole(RoleBinding binding, ScopedAction<T, X> action) throws X;
+
+    /**
+     * Invokes the given action with the given tenant bound on top of the current tenants
+     * @param tenantIdentifier the tenant identifier
+     * @param action the action
+     * @return the result of the action
+     * @throws X if the action fails
+     */
+    <T, X extends Throwable> T withTenant(String tenantIdentifier, ScopedAction<T, X> action) throws X;
+
+    /**
+     * Sets the current role, replacing the role set by a previous call or bound by the innermost
+     * {@link #withRole(RoleBinding, ScopedAction)}, until {@link #resetRole()} is invoked or that scope ends.  Calls do not nest;
+     * use {@link #withRole(RoleBinding, ScopedAction)} to bind a role for a scope and restore the enclosing one afterwards.
+     * @param role the role
+     * @throws UnsupportedOperationException if the engine only supports scoped binding
+     */
+    void setRole(DatabaseRole role);
+
+    /**
+     * Resets the current role to {@link DatabaseRole#WRITER}.  Outside of any scoped binding this releases the per-thread state of
+     * the role.
+     * @throws UnsupportedOperationException if the engine only supports scoped binding
+     */
+    void resetRole();
+
+    /**
+     * Pushes a tenant on top of the current tenants until {@link #popTenant()} is invoked
+     * @param tenantIdentifier the tenant identifier
+     * @throws UnsupportedOperationException if the engine only supports scoped binding
+     */
+    void pushTenant(String tenantIdentifier);
+
+    /**
+     * Removes the innermost tenant pushed by {@link #pushTenant(String)}
+     * @throws UnsupportedOperationException if the engine only supports scoped binding
+     */
+    void popTenant();
+
+    /**
+     * Removes all tenants pushed by {@link #pushTenant(String)}
+     * @throws UnsupportedOperationException if the engine only supports scoped binding
+     */
+    void clearTenants();
+
+    /**
+     * Action invoked with a tenant or role bound
+     */
+    @FunctionalInterface
+    interface ScopedAction<T, X extends Throwable> {
+
+        T call() throws X;
+    }
+}
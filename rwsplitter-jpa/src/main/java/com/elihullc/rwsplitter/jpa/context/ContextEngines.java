@@ -0,0 +1,67 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the {@link ContextEngine} used by the interceptors, the tenant-setting tasks and the static accessors of
+ * {@link com.elihullc.rwsplitter.jpa.CurrentDatabaseRole} and
+ * {@link com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver}.
+ *
+ * The engine is selected at startup via either the environment variable RWSPLITTER_CONTEXT_ENGINE or the system property
+ * rwsplitter.context.engine, set to {@code threadLocal} (default), {@code scopedValue} or the class name of a
+ * {@link ContextEngine} with a public no-arg constructor, or programmatically with {@link #setEngine(ContextEngine)} before any
+ * tenant or role is bound.
+ */
+public final class ContextEngines {
+
+    public static final String CONTEXT_ENGINE_ENV = "RWSPLITTER_CONTEXT_ENGINE";
+    public static final String CONTEXT_ENGINE_PROPERTY = "rwsplitter.context.engine";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContextEngines.class);
+
+    private static volatile ContextEngine engine = createEngine();
+
+    private ContextEngines() {
+    }
+
+    /**
+     * Returns the selected engine
+     * @return the selected engine
+     */
+    public static ContextEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Replaces the selected engine.  Values bound with the previous engine are no longer visible, so this should only be invoked
+     * during startup.
+     * @param contextEngine the engine
+     */
+    public static void setEngine(final ContextEngine contextEngine) {
+        LOGGER.info("Using context engine {}", contextEngine.getClass().getName());
+        engine = contextEngine;
+    }
+
+    private static ContextEngine createEngine() {
+        String name = System.getenv(CONTEXT_ENGINE_ENV);
+        if (name == null || name.isBlank()) {
+            name = System.getProperty(CONTEXT_ENGINE_PROPERTY, "threadLocal");
+        }
+        switch (name.trim()) {
+            case "threadLocal":
+                return new ThreadLocalContextEngine();
+            case "scopedValue":
+                LOGGER.info("Using context engine {}", ScopedValueContextEngine.class.getName());
+                return new ScopedValueContextEngine();
+            default:
+                try {
+                    final ContextEngine created = (ContextEngine)Class.forName(name.trim()).getDeclaredConstructor().newInstance();
+                    LOGGER.info("Using context engine {}", name);
+                    return created;
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Error instantiating context engine " + name, e);
+                }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Executor} decorator running every task with the tenants and {@link com.elihullc.rwsplitter.jpa.DatabaseRole} of the
+ * thread submitting it, see {@link ContextSnapshot}.  Note that {@link java.util.concurrent.CompletableFuture} submits dependent
+ * async stages from the thread completing the previous stage; wrap the stage functions with {@link ContextSnapshot#wrapFunction(java.util.function.Function)} and its siblings instead.
+ */
+public class ContextPropagatingExecutor implements Executor {
+
+    private final Executor delegate;
+
+    public ContextPropagatingExecutor(final Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        this.delegate.execute(ContextSnapshot.capture().wrap(command));
+    }
+}
@@ -0,0 +1,96 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * {@link ExecutorService} decorator running every task with the tenants and {@link com.elihullc.rwsplitter.jpa.DatabaseRole} of
+ * the thread submitting it, see {@link ContextSnapshot}.  Works with any executor service, including a
+ * {@link java.util.concurrent.ForkJoinPool}.
+ */
+public class ContextPropagatingExecutorService implements ExecutorService {
+
+    private final ExecutorService delegate;
+
+    public ContextPropagatingExecutorService(final ExecutorService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        this.delegate.execute(ContextSnapshot.capture().wrap(command));
+    }
+
+    @Override
+    public <T> Future<T> submit(final Callable<T> task) {
+        return this.delegate.submit(ContextSnapshot.capture().wrap(task));
+    }
+
+    @Override
+    public <T> Future<T> submit(final Runnable task, final T result) {
+        return this.delegate.submit(ContextSnapshot.capture().wrap(task), result);
+    }
+
+    @Override
+    public Future<?> submit(final Runnable task) {
+        return this.delegate.submit(ContextSnapshot.capture().wrap(task));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks) throws InterruptedException {
+        return this.delegate.invokeAll(wrap(tasks));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit)
+      throws InterruptedException {
+        return this.delegate.invokeAll(wrap(tasks), timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(final Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
+        return this.delegate.invokeAny(wrap(tasks));
+    }
+
+    @Override
+    public <T> T invokeAny(final Collection<? extends Callable<T>> tasks, final long timeout, final TimeUnit unit)
+      throws InterruptedException, ExecutionException, TimeoutException {
+        return this.delegate.invokeAny(wrap(tasks), timeout, unit);
+    }
+
+    private static <T> List<Callable<T>> wrap(final Collection<? extends Callable<T>> tasks) {
+        final ContextSnapshot snapshot = ContextSnapshot.capture();
+        return tasks.stream().map(snapshot::wrap).toList();
+    }
+
+    @Override
+    public void shutdown() {
+        this.delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return this.delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return this.delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return this.delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return this.delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,15 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Spring {@link TaskDecorator} running every task with the tenants and {@link com.elihullc.rwsplitter.jpa.DatabaseRole} of the
+ * thread submitting it, e.g. for {@code ThreadPoolTaskExecutor} backing {@code @Async} methods.
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(final Runnable runnable) {
+        return ContextSnapshot.capture().wrap(runnable);
+    }
+}
@@ -0,0 +1,177 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Immutable copy of all bound tenants and the {@link DatabaseRole} of the current thread, taken with {@link #capture()} and
+ * re-bound around work running elsewhere, e.g. on an executor or in a {@link CompletableFuture} stage, so that read-only work keeps
+ * being routed to readers of the same tenant.
+ *
+ * <pre>
+ * ContextSnapshot snapshot = ContextSnapshot.capture();
+ * future.thenApplyAsync(snapshot.wrapFunction(this::load), executor);
+ * </pre>
+ *
+ * @see ContextPropagatingExecutorService
+ * @see ContextPropagatingTaskDecorator
+ */
+public final class ContextSnapshot {
+
+    private final String[] tenants;
+    private final RoleBinding role;
+
+    private ContextSnapshot(final String[] tenants, final RoleBinding role) {
+        this.tenants = tenants;
+        this.role = role;
+    }
+
+    /**
+     * Captures the tenants and role of the current thread
+     * @return the captured snapshot
+     */
+    public static ContextSnapshot capture() {
+        final ContextEngine engine = ContextEngines.getEngine();
+        return new ContextSnapshot(engine.getAllTenants().toArray(new String[0]), engine.getRoleBinding());
+    }
+
+    /**
+     * Returns the captured tenants from outermost to innermost
+     * @return the captured tenants
+     */
+    public List<String> getTenants() {
+        return List.of(this.tenants);
+    }
+
+    /**
+     * Returns the captured role
+     * @return the captured role
+     */
+    public DatabaseRole getRole() {
+        return this.role.getRole();
+    }
+
+    /**
+     * Returns the captured role binding
+     * @return the captured role binding
+     */
+    public RoleBinding getRoleBinding() {
+        return this.role;
+    }
+
+    /**
+     * Invokes the given action with the captured tenants and role bound
+     * @param action the action
+     * @return the result of the action
+     * @throws X if the action fails
+     */
+    public <T, X extends Throwable> T call(final ContextEngine.ScopedAction<T, X> action) throws X {
+        return this.bind(ContextEngines.getEngine(), 0, action);
+    }
+
+    private <T, X extends Throwable> T bind(final ContextEngine engine, final int index, final ContextEngine.ScopedAction<T, X> action)
+      throws X {
+        if (index == this.tenants.length) {
+            return engine.withRole(this.role, action);
+        }
+        return engine.withTenant(this.tenants[index], () -> this.bind(engine, index + 1, action));
+    }
+
+    /**
+     * Returns a {@link Runnable} running the given one with the captured tenants and role bound
+     * @param runnable the runnable
+     * @return the wrapped runnable
+     */
+    public Runnable wrap(final Runnable runnable) {
+        return () -> this.call(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns a {@link Callable} calling the given one with the captured tenants and role bound
+     * @param callable the callable
+     * @return the wrapped callable
+     */
+    public <T> Callable<T> wrap(final Callable<T> callable) {
+        return () -> this.call(callable::call);
+    }
+
+    /**
+     * Returns a {@link Supplier} invoking the given one with the captured tenants and role bound
+     * @param supplier the supplier
+     * @return the wrapped supplier
+     */
+    public <T> Supplier<T> wrapSupplier(final Supplier<T> supplier) {
+        return () -> this.call(supplier::get);
+    }
+
+    /**
+     * Returns a {@link Function} applying the given one with the captured tenants and role bound
+     * @param function the function
+     * @return the wrapped function
+     */
+    public <T, R> Function<T, R> wrapFunction(final Function<T, R> function) {
+        return t -> this.call(() -> function.apply(t));
+    }
+
+    /**
+     * Returns a {@link BiFunction} applying the given one with the captured tenants and role bound
+     * @param function the function
+     * @return the wrapped function
+     */
+    public <T, U, R> BiFunction<T, U, R> wrapBiFunction(final BiFunction<T, U, R> function) {
+        return (t, u) -> this.call(() -> function.apply(t, u));
+    }
+
+    /**
+     * Returns a {@link Consumer} invoking the given one with the captured tenants and role bound
+     * @param consumer the consumer
+     * @return the wrapped consumer
+     */
+    public <T> Consumer<T> wrapConsumer(final Consumer<T> consumer) {
+        return t -> this.call(() -> {
+            consumer.accept(t);
+            return null;
+        });
+    }
+
+    /**
+     * Returns a {@link ForkJoinTask} invoking the given task with the captured tenants and role bound
+     * @param task the task
+     * @return the wrapped task
+     */
+    public <T> ForkJoinTask<T> wrapTask(final ForkJoinTask<T> task) {
+        return ForkJoinTask.adapt(this.wrap((Callable<T>)task::invoke));
+    }
+
+    /**
+     * Runs the given supplier asynchronously on the given executor with the tenants and role of the current thread bound
+     * @param supplier the supplier
+     * @param executor the executor
+     * @return the new {@link CompletableFuture}
+     */
+    public static <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier, final Executor executor) {
+        return CompletableFuture.supplyAsync(capture().wrapSupplier(supplier), executor);
+    }
+
+    /**
+     * Runs the given runnable asynchronously on the given executor with the tenants and role of the current thread bound
+     * @param runnable the runnable
+     * @param executor the executor
+     * @return the new {@link CompletableFuture}
+     */
+    public static CompletableFuture<Void> runAsync(final Runnable runnable, final Executor executor) {
+        return CompletableFuture.runAsync(capture().wrap(runnable), executor);
+    }
+}
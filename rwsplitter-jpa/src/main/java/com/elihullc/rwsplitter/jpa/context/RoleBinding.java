@@ -0,0 +1,88 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+/**
+ * {@link DatabaseRole} bound by a {@link ContextEngine} together with the routing constraints that came with it, e.g. from a
+ * {@link com.elihullc.rwsplitter.jpa.aop.RoutingHint}.  Instances are immutable.
+ */
+public final class RoleBinding {
+
+    /**
+     * Value of {@link #getMaxLagMillis()} tolerating any replication lag
+     */
+    public static final long ANY_LAG = -1L;
+
+    /**
+     * Plain reader binding
+     */
+    public static final RoleBinding READER = new RoleBinding(DatabaseRole.READER, false, ANY_LAG);
+
+    /**
+     * Plain writer binding, also used when nothing is bound
+     */
+    public static final RoleBinding WRITER = new RoleBinding(DatabaseRole.WRITER, false, ANY_LAG);
+
+    /**
+     * Writer binding that overrides read-only transactions
+     */
+    public static final RoleBinding WRITER_REQUIRED = new RoleBinding(DatabaseRole.WRITER, true, ANY_LAG);
+
+    private final DatabaseRole role;
+    private final boolean writerRequired;
+    private final long maxLagMillis;
+
+    private RoleBinding(final DatabaseRole role, final boolean writerRequired, final long maxLagMillis) {
+        this.role = role;
+        this.writerRequired = writerRequired;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    /**
+     * Returns the plain binding of the given role
+     * @param role the role
+     * @return {@link #READER} or {@link #WRITER}
+     */
+    public static RoleBinding of(final DatabaseRole role) {
+        return role == DatabaseRole.READER ? READER : WRITER;
+    }
+
+    /**
+     * Returns a reader binding tolerating at most the given replication lag
+     * @param maxLagMillis the maximum replication lag in milliseconds or {@link #ANY_LAG}
+     * @return the reader binding
+     */
+    public static RoleBinding reader(final long maxLagMillis) {
+        return maxLagMillis < 0 ? READER : new RoleBinding(DatabaseRole.READER, false, maxLagMillis);
+    }
+
+    /**
+     * Returns the bound role
+     * @return the bound role
+     */
+    public DatabaseRole getRole() {
+        return this.role;
+    }
+
+    /**
+     * Whether the writer must be used even within a read-only transaction
+     * @return true if the writer must be used, false otherwise
+     */
+    public boolean isWriterRequired() {
+        return this.writerRequired;
+    }
+
+    /**
+     * Returns the maximum replication lag a reader may have to serve reads
+     * @return the maximum replication lag in milliseconds or {@link #ANY_LAG}
+     */
+    public long getMaxLagMillis() {
+        return this.maxLagMillis;
+    }
+
+    @Override
+    public String toString() {
+        return this.role + (this.writerRequired ? " (required)" : "") + (this.maxLagMillis >= 0 ? " (max lag " + this.maxLagMillis
+          + "ms)" : "");
+    }
+}
@@ -0,0 +1,48 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import java.util.Arrays;
+
+/**
+ * Array-backed stack of {@link RoleBinding}s confined to a single thread, whose top is the current binding.  Instances are not
+ * thread-safe and must only be used by the thread owning them.
+ */
+final class RoleStack {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private RoleBinding[] bindings = new RoleBinding[INITIAL_CAPACITY];
+    private int size;
+
+    void push(final RoleBinding binding) {
+        if (this.size == this.bindings.length) {
+            this.bindings = Arrays.copyOf(this.bindings, this.size << 1);
+        }
+        this.bindings[this.size++] = binding;
+    }
+
+    void set(final RoleBinding binding) {
+        if (this.size == 0) {
+            this.push(binding);
+        } else {
+            this.bindings[this.size - 1] = binding;
+        }
+    }
+
+    void pop() {
+        if (this.size > 0) {
+            this.bindings[--this.size] = null;
+        }
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    RoleBinding peek() {
+        return this.size == 0 ? RoleBinding.WRITER : this.bindings[this.size - 1];
+    }
+}
@@ -0,0 +1,214 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link ContextEngine} binding the role and tenants with {@code java.lang.ScopedValue}, which keeps no per-thread state and is
+ * therefore suited to virtual threads.  Tenants are bound as immutable frames linked to the enclosing frame, so nesting allocates
+ * one frame per binding and nothing per thread.
+ *
+ * {@code ScopedValue} is accessed through method handles so that this class compiles on releases without it; use
+ * {@link #isAvailable()} to check whether the running JVM provides it.  Only scoped binding is supported, so code using the
+ * imperative accessors of {@link com.elihullc.rwsplitter.jpa.CurrentDatabaseRole} or
+ * {@link com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver} must move to the interceptors,
+ * {@link com.elihullc.rwsplitter.jpa.hibernate.TenantSettingRunnable} and
+ * {@link com.elihullc.rwsplitter.jpa.hibernate.TenantSettingCallable}.
+ */
+public class ScopedValueContextEngine implements ContextEngine {
+
+    private static final MethodHandle NEW_INSTANCE;
+    private static final MethodHandle WHERE;
+    private static final MethodHandle RUN;
+    private static final MethodHandle IS_BOUND;
+    private static final MethodHandle GET;
+    private static final Throwable UNAVAILABLE;
+
+    static {
+        MethodHandle newInstance = null;
+        MethodHandle where = null;
+        MethodHandle run = null;
+        MethodHandle isBound = null;
+        MethodHandle get = null;
+        Throwable unavailable = null;
+        try {
+            final Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+            final Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            newInstance = lookup.findStatic(scopedValue, "newInstance", MethodType.methodType(scopedValue))
+              .asType(MethodType.methodType(Object.class));
+            where = lookup.findStatic(scopedValue, "where", MethodType.methodType(carrier, scopedValue, Object.class))
+              .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            run = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class))
+              .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+            isBound = lookup.findVirtual(scopedValue, "isBound", MethodType.methodType(boolean.class))
+              .asType(MethodType.methodType(boolean.class, Object.class));
+            get = lookup.findVirtual(scopedValue, "get", MethodType.methodType(Object.class))
+              .asType(MethodType.methodType(Object.class, Object.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            unavailable = e;
+        }
+        NEW_INSTANCE = newInstance;
+        WHERE = where;
+        RUN = run;
+        IS_BOUND = isBound;
+        GET = get;
+        UNAVAILABLE = unavailable;
+    }
+
+    private final Object role;
+    private final Object tenant;
+
+    /**
+     * @throws IllegalStateException if the running JVM does not provide {@code java.lang.ScopedValue}
+     */
+    public ScopedValueContextEngine() {
+        if (UNAVAILABLE != null) {
+            throw new IllegalStateException("java.lang.ScopedValue is not available", UNAVAILABLE);
+        }
+        try {
+            this.role = (Object)NEW_INSTANCE.invokeExact();
+            this.tenant = (Object)NEW_INSTANCE.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to create scoped values", e);
+        }
+    }
+
+    /**
+     * Returns whether the running JVM provides {@code java.lang.ScopedValue}
+     * @return true if the running JVM provides {@code java.lang.ScopedValue}
+     */
+    public static boolean isAvailable() {
+        return UNAVAILABLE == null;
+    }
+
+    @Override
+    public RoleBinding getRoleBinding() {
+        return (RoleBinding)get(this.role, RoleBinding.WRITER);
+    }
+
+    @Override
+    public String getTenant() {
+        final TenantFrame frame = (TenantFrame)get(this.tenant, null);
+        return frame == null ? null : frame.tenantIdentifier;
+    }
+
+    @Override
+    public List<String> getAllTenants() {
+        final List<String> tenants = new ArrayList<>();
+        for (TenantFrame frame = (TenantFrame)get(this.tenant, null); frame != null; frame = frame.parent) {
+            tenants.add(frame.tenantIdentifier);
+        }
+        Collections.reverse(tenants);
+        return tenants;
+    }
+
+    @Override
+    public <T, X extends Throwable> T withRole(final RoleBinding binding, final ScopedAction<T, X> action) throws X {
+        return bind(this.role, binding, action);
+    }
+
+    @Override
+    public <T, X extends Throwable> T withTenant(final String tenantIdentifier, final ScopedAction<T, X> action) throws X {
+        return bind(this.tenant, new TenantFrame(tenantIdentifier, (TenantFrame)get(this.tenant, null)), action);
+    }
+
+    /**
+     * Returns the value bound to the given key or the given default if unbound.  {@code ScopedValue.orElse} is not used as it
+     * rejects a null default on recent releases.
+     */
+    private static Object get(final Object key, final Object defaultValue) {
+        try {
+            return (boolean)IS_BOUND.invokeExact(key) ? (Object)GET.invokeExact(key) : defaultValue;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to read scoped value", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, X extends Throwable> T bind(final Object key, final Object value, final ScopedAction<T, X> action) throws X {
+        final Invocation<T, X> invocation = new Invocation<>(action);
+        try {
+            final Object carrier = (Object)WHERE.invokeExact(key, value);
+            RUN.invokeExact(carrier, (Runnable)invocation);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to bind scoped value", e);
+        }
+        if (invocation.failure != null) {
+            throw (X)invocation.failure;
+        }
+        return invocation.result;
+    }
+
+    @Override
+    public void setRole(final DatabaseRole role) {
+        throw unsupported();
+    }
+
+    @Override
+    public void resetRole() {
+        throw unsupported();
+    }
+
+    @Override
+    public void pushTenant(final String tenantIdentifier) {
+        throw unsupported();
+    }
+
+    @Override
+    public void popTenant() {
+        throw unsupported();
+    }
+
+    @Override
+    public void clearTenants() {
+        throw unsupported();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Scoped values can only be bound for the duration of an action");
+    }
+
+    /**
+     * Tenant bound on top of the enclosing tenants
+     */
+    private static final class TenantFrame {
+
+        private final String tenantIdentifier;
+        private final TenantFrame parent;
+
+        private TenantFrame(final String tenantIdentifier, final TenantFrame parent) {
+            this.tenantIdentifier = tenantIdentifier;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Runs an action within a carrier and keeps its outcome
+     */
+    private static final class Invocation<T, X extends Throwable> implements Runnable {
+
+        private final ScopedAction<T, X> action;
+        private T result;
+        private Throwable failure;
+
+        private Invocation(final ScopedAction<T, X> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            try {
+                this.result = this.action.call();
+            } catch (Throwable e) {
+                this.failure = e;
+            }
+        }
+    }
+}
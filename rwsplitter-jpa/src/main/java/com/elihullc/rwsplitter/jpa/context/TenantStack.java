@@ -0,0 +1,59 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Array-backed stack of tenant identifiers confined to a single thread.  The backing array only grows when nesting exceeds its
+ * current capacity, so pushing and popping tenants does not allocate in the steady state.  Instances are not thread-safe and must
+ * only be used by the thread owning them.
+ */
+final class TenantStack {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] tenants = new String[INITIAL_CAPACITY];
+    private int size;
+    private int generation;
+
+    void push(final String tenantIdentifier) {
+        if (this.size == this.tenants.length) {
+            this.tenants = Arrays.copyOf(this.tenants, this.size << 1);
+        }
+        this.tenants[this.size++] = tenantIdentifier;
+    }
+
+    void pop() {
+        if (this.size > 0) {
+            this.tenants[--this.size] = null;
+        }
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    String peek() {
+        return this.size == 0 ? null : this.tenants[this.size - 1];
+    }
+
+    /**
+     * Removes all tenants and starts a new generation, so that scopes begun before can tell their tenant has been cleared
+     */
+    void clear() {
+        Arrays.fill(this.tenants, 0, this.size, null);
+        this.size = 0;
+        this.generation++;
+    }
+
+    int getGeneration() {
+        return this.generation;
+    }
+
+    List<String> toList() {
+        final List<String> list = new ArrayList<>(this.size);
+        list.addAll(Arrays.asList(this.tenants).subList(0, this.size));
+        return list;
+    }
+}
@@ -0,0 +1,100 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ContextEngine} keeping a {@link RoleStack} and a {@link TenantStack} in thread-locals.  This is the default engine and
+ * supports both scoped and imperative binding.  Ending a scoped binding restores the one it replaced, while setting a role
+ * replaces the innermost one and resetting it returns to {@link DatabaseRole#WRITER}.  Every thread keeps one stack of each kind
+ * for its lifetime, an empty stack meaning unbound, so binding and unbinding neither allocate nor touch the thread-local map.
+ * Popped entries are cleared, so pooled threads do not retain any tenant or binding once all bindings have ended or been reset.
+ */
+public class ThreadLocalContextEngine implements ContextEngine {
+
+    private final ThreadLocal<RoleStack> currentRole = ThreadLocal.withInitial(RoleStack::new);
+    private final ThreadLocal<TenantStack> currentTenant = ThreadLocal.withInitial(TenantStack::new);
+
+    @Override
+    public RoleBinding getRoleBinding() {
+        return this.currentRole.get().peek();
+    }
+
+    @Override
+    public String getTenant() {
+        return this.currentTenant.get().peek();
+    }
+
+    @Override
+    public List<String> getAllTenants() {
+        return this.currentTenant.get().toList();
+    }
+
+    @Override
+    public <T, X extends Throwable> T withRole(final RoleBinding binding, final ScopedAction<T, X> action) throws X {
+        final RoleStack stack = this.currentRole.get();
+        stack.push(binding);
+        try {
+            return action.call();
+        } finally {
+            stack.pop();
+        }
+    }
+
+    /**
+     * {@inheritDoc}  If the tenants are cleared while the action runs, ending the binding leaves the tenants pushed since in place.
+     */
+    @Override
+    public <T, X extends Throwable> T withTenant(final String tenantIdentifier, final ScopedAction<T, X> action) throws X {
+        final TenantStack stack = this.currentTenant.get();
+        stack.push(tenantIdentifier);
+        final int generation = stack.getGeneration();
+        try {
+            return action.call();
+        } finally {
+            if (stack.getGeneration() == generation) {
+                stack.pop();
+            }
+        }
+    }
+
+    @Override
+    public void setRole(final DatabaseRole role) {
+        this.currentRole.get().set(RoleBinding.of(role));
+    }
+
+    @Override
+    public void resetRole() {
+        final RoleStack stack = this.currentRole.get();
+        if (stack.size() > 1) {
+            stack.set(RoleBinding.WRITER);
+        } else {
+            stack.pop();
+        }
+    }
+
+    @Override
+    public void pushTenant(final String tenantIdentifier) {
+        this.currentTenant.get().push(tenantIdentifier);
+    }
+
+    @Override
+    public void popTenant() {
+        this.currentTenant.get().pop();
+    }
+
+    @Override
+    public void clearTenants() {
+        this.currentTenant.get().clear();
+    }
+
+    /**
+     * Whether no tenant or role is bound on the current thread, i.e. every binding has ended
+     * @return true if no tenant or role is bound on the current thread
+     */
+    boolean isUnbound() {
+        return this.currentRole.get().isEmpty() && this.currentTenant.get().isEmpty();
+    }
+}
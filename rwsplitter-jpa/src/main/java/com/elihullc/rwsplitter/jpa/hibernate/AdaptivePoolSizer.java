@@ -0,0 +1,349 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically resizes the HikariCP pools of all live connection providers of a {@link SpringMultiTenantConnectionProvider} to
+ * follow their load.  On every run each pool's active connections and threads awaiting a connection are sampled:
+ * <ul>
+ *     <li>a pool with waiting threads or whose demand reaches {@link #getGrowThreshold()} of its maximum size for
+ *     {@link #getGrowAfter()} consecutive runs grows by at least a quarter, or by the number of waiting threads</li>
+ *     <li>a pool whose demand stays at or below {@link #getShrinkThreshold()} of its maximum size for {@link #getShrinkAfter()}
+ *     consecutive runs shrinks by a quarter, but not below the size its peak demand needs under the grow threshold</li>
+ * </ul>
+ * The gap between both thresholds and the consecutive runs required provide hysteresis, so that sizes do not oscillate.  Sizes
+ * stay within the floor and ceiling of the pool's {@link DatabaseRole}, and the sum of the maximum sizes of all pools stays within
+ * {@link #getMaxTotalConnections()}: pools shrink first, then the pools with the most waiting threads grow first.  Every decision
+ * is logged.
+ *
+ * Pools are resized through {@link HikariConfigMXBean#setMaximumPoolSize(int)}; connections above a reduced maximum are retired by
+ * HikariCP once idle.
+ */
+public class AdaptivePoolSizer implements Closeable {
+
+    private final SpringMultiTenantConnectionProvider<?> provider;
+    private final ScheduledExecutorService scheduler;
+    private final Map<HikariConfigMXBean, PoolState> states = new IdentityHashMap<>();
+    private final Map<DatabaseRole, Integer> floors = new EnumMap<>(DatabaseRole.class);
+    private final Map<DatabaseRole, Integer> ceilings = new EnumMap<>(DatabaseRole.class);
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private volatile int maxTotalConnections = Integer.MAX_VALUE;
+    private volatile double growThreshold = 0.9;
+    private volatile double shrinkThreshold = 0.5;
+    private volatile int growAfter = 2;
+    private volatile int shrinkAfter = 6;
+
+    public AdaptivePoolSizer(final SpringMultiTenantConnectionProvider<?> provider) {
+        this(provider, Duration.ofSeconds(10));
+    }
+
+    public AdaptivePoolSizer(final SpringMultiTenantConnectionProvider<?> provider, final Duration interval) {
+        this.provider = provider;
+        for (DatabaseRole role : DatabaseRole.values()) {
+            this.floors.put(role, 2);
+            this.ceilings.put(role, 50);
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-pool-sizer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::resize, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Samples all pools and resizes those whose load has been outside the thresholds long enough
+     */
+    public synchronized void resize() {
+        try {
+            this.resize(this.provider);
+        } catch (RuntimeException e) {
+            this.logger.warn("Unable to resize connection pools", e);
+        }
+    }
+
+    private <T extends StoppableConnectionProvider> void resize(final SpringMultiTenantConnectionProvider<T> provider) {
+        final List<Sample> samples = new ArrayList<>();
+        final Map<HikariConfigMXBean, PoolState> live = new IdentityHashMap<>();
+        int totalConnections = 0;
+        for (String tenant : provider.getTenantIdentifiers()) {
+            for (T p : provider.getConnectionProviders(tenant)) {
+                final HikariConfigMXBean config = HikariPools.getConfigMXBean(p);
+                final HikariPoolMXBean pool = HikariPools.getPoolMXBean(p);
+                if (config == null || pool == null || live.containsKey(config)) {
+                    continue;
+                }
+                final PoolState state = this.states.computeIfAbsent(config, c -> new PoolState());
+                live.put(config, state);
+                final Sample sample = new Sample(tenant, p.isReadOnly() ? DatabaseRole.READER : DatabaseRole.WRITER, config, state,
+                  pool.getActiveConnections(), pool.getIdleConnections(), pool.getThreadsAwaitingConnection());
+                state.record(sample.getDemand(), sample.pending, sample.maximum, this.growThreshold, this.shrinkThreshold);
+                samples.add(sample);
+                totalConnections += sample.maximum;
+            }
+        }
+        this.states.keySet().retainAll(live.keySet());
+        for (Sample sample : samples) {
+            final int ceiling = this.ceilings.get(sample.role);
+            if (sample.maximum > ceiling) {
+                totalConnections -= this.apply(sample, ceiling, "above ceiling");
+            } else if (sample.state.slack >= this.shrinkAfter) {
+                final int step = Math.max(1, (int)Math.ceil(sample.maximum * 0.25));
+                final int needed = (int)Math.ceil(sample.state.peakDemand / this.growThreshold);
+                final int target = Math.max(this.floors.get(sample.role), Math.max(needed, sample.maximum - step));
+                if (target < sample.maximum) {
+                    totalConnections -= this.apply(sample, target, "idle");
+                } else {
+                    sample.state.reset();
+                }
+            }
+        }
+        samples.sort(Comparator.comparingInt((Sample sample) -> sample.pending).thenComparingInt(Sample::getDemand).reversed());
+        for (Sample sample : samples) {
+            final int floor = this.floors.get(sample.role);
+            final boolean belowFloor = sample.maximum < floor;
+            if (!belowFloor && sample.state.pressure < this.growAfter) {
+                continue;
+            }
+            final int step = Math.max(1, (int)Math.ceil(sample.maximum * 0.25));
+            final int desired = Math.max(floor, Math.min(this.ceilings.get(sample.role), sample.maximum + Math.max(sample.pending, step)));
+            final int target = (int)Math.min(desired, (long)sample.maximum + Math.max(0, this.maxTotalConnections - totalConnections));
+            if (target > sample.maximum) {
+                totalConnections -= this.apply(sample, target, belowFloor ? "below floor" : "under pressure");
+            } else if (desired > sample.maximum) {
+                this.logger.info("Not growing {} pool of tenant {} beyond {} (active {}, idle {}, waiting {}): budget of {} connections "
+                    + "exhausted", sample.role, sample.tenant, sample.maximum, sample.active, sample.idle, sample.pending,
+                  this.maxTotalConnections);
+                sample.state.reset();
+            } else {
+                sample.state.reset();
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum size of the sampled pool
+     * @param sample the sampled pool
+     * @param target the new maximum size
+     * @param reason the reason logged
+     * @return the number of connections the maximum size was reduced by, negative if it grew
+     */
+    private int apply(final Sample sample, final int target, final String reason) {
+        this.logger.info("Resizing {} pool of tenant {} from {} to {} ({}: active {}, idle {}, waiting {})", sample.role, sample.tenant,
+          sample.maximum, target, reason, sample.active, sample.idle, sample.pending);
+        if (sample.config.getMinimumIdle() > target) {
+            sample.config.setMinimumIdle(target);
+        }
+        sample.config.setMaximumPoolSize(target);
+        sample.state.reset();
+        return sample.maximum - target;
+    }
+
+    /**
+     * Stops resizing pools
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns the smallest maximum pool size for the given role. Default is 2
+     * @param role the role
+     * @return the smallest maximum pool size
+     */
+    public int getFloor(final DatabaseRole role) {
+        return this.floors.get(role);
+    }
+
+    /**
+     * Sets the smallest maximum pool size for the given role
+     * @param role the role
+     * @param floor the smallest maximum pool size, at least 1
+     */
+    public synchronized void setFloor(final DatabaseRole role, final int floor) {
+        if (floor < 1) {
+            throw new IllegalArgumentException("floor must be at least 1");
+        }
+        this.floors.put(role, floor);
+    }
+
+    /**
+     * Returns the largest maximum pool size for the given role. Default is 50
+     * @param role the role
+     * @return the largest maximum pool size
+     */
+    public int getCeiling(final DatabaseRole role) {
+        return this.ceilings.get(role);
+    }
+
+    /**
+     * Sets the largest maximum pool size for the given role
+     * @param role the role
+     * @param ceiling the largest maximum pool size
+     */
+    public synchronized void setCeiling(final DatabaseRole role, final int ceiling) {
+        this.ceilings.put(role, ceiling);
+    }
+
+    /**
+     * Returns the maximum sum of the maximum pool sizes of all pools. Default is unlimited
+     * @return the maximum sum of the maximum pool sizes of all pools
+     */
+    public int getMaxTotalConnections() {
+        return this.maxTotalConnections;
+    }
+
+    /**
+     * Sets the maximum sum of the maximum pool sizes of all pools on this node, which pools only grow within
+     * @param maxTotalConnections the maximum sum of the maximum pool sizes of all pools
+     */
+    public void setMaxTotalConnections(final int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    /**
+     * Returns the fraction of the maximum pool size in use above which a pool is under pressure. Default is 0.9
+     * @return the grow threshold
+     */
+    public double getGrowThreshold() {
+        return this.growThreshold;
+    }
+
+    /**
+     * Sets the fraction of the maximum pool size in use above which a pool is under pressure
+     * @param growThreshold the grow threshold
+     */
+    public void setGrowThreshold(final double growThreshold) {
+        this.growThreshold = growThreshold;
+    }
+
+    /**
+     * Returns the fraction of the maximum pool size in use below which a pool is idle. Default is 0.5
+     * @return the shrink threshold
+     */
+    public double getShrinkThreshold() {
+        return this.shrinkThreshold;
+    }
+
+    /**
+     * Sets the fraction of the maximum pool size in use below which a pool is idle, which must be lower than the grow threshold
+     * @param shrinkThreshold the shrink threshold
+     */
+    public void setShrinkThreshold(final double shrinkThreshold) {
+        this.shrinkThreshold = shrinkThreshold;
+    }
+
+    /**
+     * Returns the number of consecutive runs a pool must be under pressure before growing. Default is 2
+     * @return the number of runs before growing
+     */
+    public int getGrowAfter() {
+        return this.growAfter;
+    }
+
+    /**
+     * Sets the number of consecutive runs a pool must be under pressure before growing
+     * @param growAfter the number of runs before growing
+     */
+    public void setGrowAfter(final int growAfter) {
+        this.growAfter = growAfter;
+    }
+
+    /**
+     * Returns the number of consecutive runs a pool must be idle before shrinking. Default is 6
+     * @return the number of runs before shrinking
+     */
+    public int getShrinkAfter() {
+        return this.shrinkAfter;
+    }
+
+    /**
+     * Sets the number of consecutive runs a pool must be idle before shrinking
+     * @param shrinkAfter the number of runs before shrinking
+     */
+    public void setShrinkAfter(final int shrinkAfter) {
+        this.shrinkAfter = shrinkAfter;
+    }
+
+    /**
+     * Consecutive runs a pool has been under pressure or idle and its peak demand since it was last resized
+     */
+    private static final class PoolState {
+
+        private int pressure;
+        private int slack;
+        private int peakDemand;
+
+        private void record(final int demand, final int pending, final int maximum, final double growThreshold,
+          final double shrinkThreshold) {
+            this.peakDemand = Math.max(this.peakDemand, demand);
+            if (pending > 0 || demand >= growThreshold * maximum) {
+                this.pressure++;
+                this.slack = 0;
+            } else if (demand <= shrinkThreshold * maximum) {
+                this.slack++;
+                this.pressure = 0;
+            } else {
+                this.pressure = 0;
+                this.slack = 0;
+            }
+        }
+
+        private void reset() {
+            this.pressure = 0;
+            this.slack = 0;
+            this.peakDemand = 0;
+        }
+    }
+
+    /**
+     * Pool sampled on the current run
+     */
+    private static final class Sample {
+
+        private final String tenant;
+        private final DatabaseRole role;
+        private final HikariConfigMXBean config;
+        private final PoolState state;
+        private final int active;
+        private final int idle;
+        private final int pending;
+        private final int maximum;
+
+        private Sample(final String tenant, final DatabaseRole role, final HikariConfigMXBean config, final PoolState state,
+          final int active, final int idle, final int pending) {
+            this.tenant = tenant;
+            this.role = role;
+            this.config = config;
+            this.state = state;
+            this.active = active;
+            this.idle = idle;
+            this.pending = pending;
+            this.maximum = config.getMaximumPoolSize();
+        }
+
+        private int getDemand() {
+            return this.active + this.pending;
+        }
+    }
+}
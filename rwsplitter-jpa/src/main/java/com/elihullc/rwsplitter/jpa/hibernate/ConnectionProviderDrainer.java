@@ -0,0 +1,123 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stops connection providers that have been removed from service once their in-flight connections have been returned.  An instance
+ * drains in the background on a single thread, started on first use, however many providers are draining.  Providers that do not
+ * own their pool, see {@link StoppableConnectionProvider#isPoolOwner()}, are stopped on the next poll since the active connections
+ * of the pool they borrow from are not theirs.
+ */
+final class ConnectionProviderDrainer implements Closeable {
+
+    private static final long DRAIN_POLL_INTERVAL = 100L;
+
+    private final Consumer<StoppableConnectionProvider> stopper;
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Queue<Draining> draining = new ConcurrentLinkedQueue<>();
+
+    private ScheduledExecutorService scheduler;
+    private boolean closed;
+
+    /**
+     * @param stopper the action stopping a connection provider
+     */
+    ConnectionProviderDrainer(final Consumer<StoppableConnectionProvider> stopper) {
+        this.stopper = stopper;
+    }
+
+    /**
+     * Stops every given connection provider in the background as soon as it has no active connections or the timeout has passed.
+     * Once this drainer is closed providers are stopped right away.
+     * @param providers the connection providers removed from service
+     * @param timeout the maximum time to wait for in-flight connections
+     */
+    void drainAsync(final List<? extends StoppableConnectionProvider> providers, final Duration timeout) {
+        final long deadline = System.currentTimeMillis() + timeout.toMillis();
+        providers.forEach(p -> this.draining.add(new Draining(p, deadline)));
+        if (!this.start()) {
+            this.stopAll();
+        }
+    }
+
+    private synchronized boolean start() {
+        if (this.closed) {
+            return false;
+        }
+        if (this.scheduler == null) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "rwsplitter-drain");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::poll, DRAIN_POLL_INTERVAL, DRAIN_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private void poll() {
+        final long now = System.currentTimeMillis();
+        this.draining.removeIf(d -> {
+            if (isDrained(d.provider) || now >= d.deadline) {
+                try {
+                    this.stopper.accept(d.provider);
+                } catch (RuntimeException e) {
+                    this.logger.warn("Unable to stop drained connection provider", e);
+                }
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void stopAll() {
+        for (Draining d = this.draining.poll(); d != null; d = this.draining.poll()) {
+            this.stopper.accept(d.provider);
+        }
+    }
+
+    /**
+     * Returns the number of connection providers waiting for their in-flight connections
+     * @return the number of connection providers waiting for their in-flight connections
+     */
+    int getDrainingCount() {
+        return this.draining.size();
+    }
+
+    /**
+     * Stops draining and stops every connection provider still waiting for its in-flight connections
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+            if (this.scheduler != null) {
+                this.scheduler.shutdownNow();
+            }
+        }
+        this.stopAll();
+    }
+
+    private static boolean isDrained(final StoppableConnectionProvider provider) {
+        return !provider.isPoolOwner() || HikariPools.getActiveConnections(provider) == 0;
+    }
+
+    /**
+     * Connection provider waiting for its in-flight connections
+     */
+    private record Draining(StoppableConnectionProvider provider, long deadline) {
+    }
+}
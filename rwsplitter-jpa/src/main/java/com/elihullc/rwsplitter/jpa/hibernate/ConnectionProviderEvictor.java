@@ -0,0 +1,191 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+import com.zaxxer.hikari.HikariConfigMXBean;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically stops and removes the connection providers of cold tenants of a {@link SpringMultiTenantConnectionProvider}.  On
+ * every run tenants are evicted, least recently used first, when
+ * <ul>
+ *     <li>they have not been used for longer than {@link #getIdleTimeout()}</li>
+ *     <li>more than {@link #getMaxTenants()} tenants have live connection providers</li>
+ *     <li>the sum of the maximum pool sizes of all live connection providers exceeds {@link #getMaxTotalConnections()}</li>
+ * </ul>
+ * Each pool counts once towards the connection budget however many tenants borrow from it, and pools not owned by a tenant's
+ * connection providers, see {@link StoppableConnectionProvider#isPoolOwner()}, are not counted nor freed by evicting it.
+ * Evicted connection providers are removed first, so new requests create fresh ones, and then drained in the background by the
+ * provider, see {@link SpringMultiTenantConnectionProvider#drain(List)}: they are only stopped once their in-flight connections
+ * have been returned or {@link #getDrainTimeout()} has passed, or when the provider is closed.  Eviction runs never wait for them.
+ */
+public class ConnectionProviderEvictor implements Closeable {
+
+    private final SpringMultiTenantConnectionProvider<?> provider;
+    private final ScheduledExecutorService scheduler;
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private volatile Duration idleTimeout = Duration.ofMinutes(30);
+    private volatile int maxTenants = Integer.MAX_VALUE;
+    private volatile int maxTotalConnections = Integer.MAX_VALUE;
+    private volatile Duration drainTimeout = Duration.ofSeconds(30);
+
+    public ConnectionProviderEvictor(final SpringMultiTenantConnectionProvider<?> provider) {
+        this(provider, Duration.ofSeconds(30));
+    }
+
+    public ConnectionProviderEvictor(final SpringMultiTenantConnectionProvider<?> provider, final Duration interval) {
+        this.provider = provider;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::evict, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Evicts all tenants exceeding the configured limits and drains their connection providers
+     */
+    public void evict() {
+        try {
+            this.drain(this.removeColdTenants(this.provider));
+        } catch (RuntimeException e) {
+            this.logger.warn("Unable to evict connection providers", e);
+        }
+    }
+
+    private <T extends StoppableConnectionProvider> List<T> removeColdTenants(final SpringMultiTenantConnectionProvider<T> provider) {
+        final long now = System.currentTimeMillis();
+        final Map<String, Long> lastAccess = new HashMap<>();
+        provider.getTenantIdentifiers().forEach(tenant -> lastAccess.put(tenant, provider.getLastAccess(tenant)));
+        final List<String> tenants = new ArrayList<>(lastAccess.keySet());
+        tenants.sort(Comparator.comparing(lastAccess::get));
+        final Set<HikariConfigMXBean> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+        int totalConnections = 0;
+        for (String tenant : tenants) {
+            for (T p : provider.getConnectionProviders(tenant)) {
+                final HikariConfigMXBean pool = HikariPools.getConfigMXBean(p);
+                if (p.isPoolOwner() && pool != null && pools.add(pool)) {
+                    totalConnections += pool.getMaximumPoolSize();
+                }
+            }
+        }
+        final List<T> evicted = new ArrayList<>();
+        int remaining = tenants.size();
+        for (String tenant : tenants) {
+            final boolean idle = now - lastAccess.get(tenant) > this.idleTimeout.toMillis();
+            if (!idle && remaining <= this.maxTenants) {
+                if (totalConnections <= this.maxTotalConnections) {
+                    break;
+                }
+                if (provider.getConnectionProviders(tenant).stream().noneMatch(StoppableConnectionProvider::isPoolOwner)) {
+                    // evicting a tenant that only borrows from shared pools frees no connections
+                    continue;
+                }
+            }
+            final List<T> removed = provider.removeConnectionProviders(tenant);
+            for (T p : removed) {
+                final HikariConfigMXBean pool = HikariPools.getConfigMXBean(p);
+                if (p.isPoolOwner() && pool != null && pools.remove(pool)) {
+                    totalConnections -= pool.getMaximumPoolSize();
+                }
+            }
+            remaining--;
+            evicted.addAll(removed);
+            this.logger.info("Evicted {} connection providers of tenant {} ({})", removed.size(), tenant, idle ? "idle" : "over limit");
+        }
+        return evicted;
+    }
+
+    private void drain(final List<? extends StoppableConnectionProvider> evicted) {
+        this.provider.drain(evicted, this.drainTimeout);
+    }
+
+    /**
+     * Stops evicting connection providers
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns the time after which an unused tenant is evicted. Default is 30 minutes
+     * @return the time after which an unused tenant is evicted
+     */
+    public Duration getIdleTimeout() {
+        return this.idleTimeout;
+    }
+
+    /**
+     * Sets the time after which an unused tenant is evicted
+     * @param idleTimeout the time after which an unused tenant is evicted
+     */
+    public void setIdleTimeout(final Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns the maximum number of tenants with live connection providers. Default is unlimited
+     * @return the maximum number of tenants with live connection providers
+     */
+    public int getMaxTenants() {
+        return this.maxTenants;
+    }
+
+    /**
+     * Sets the maximum number of tenants with live connection providers
+     * @param maxTenants the maximum number of tenants with live connection providers
+     */
+    public void setMaxTenants(final int maxTenants) {
+        this.maxTenants = maxTenants;
+    }
+
+    /**
+     * Returns the maximum sum of the maximum pool sizes of all live connection providers. Default is unlimited
+     * @return the maximum sum of the maximum pool sizes of all live connection providers
+     */
+    public int getMaxTotalConnections() {
+        return this.maxTotalConnections;
+    }
+
+    /**
+     * Sets the maximum sum of the maximum pool sizes of all live connection providers
+     * @param maxTotalConnections the maximum sum of the maximum pool sizes of all live connection providers
+     */
+    public void setMaxTotalConnections(final int maxTotalConnections) {
+        this.maxTotalConnections = maxTotalConnections;
+    }
+
+    /**
+     * Returns the maximum time to wait for in-flight connections of an evicted connection provider. Default is 30 seconds
+     * @return the maximum time to wait for in-flight connections of an evicted connection provider
+     */
+    public Duration getDrainTimeout() {
+        return this.drainTimeout;
+    }
+
+    /**
+     * Sets the maximum time to wait for in-flight connections of an evicted connection provider
+     * @param drainTimeout the maximum time to wait for in-flight connections of an evicted connection provider
+     */
+    public void setDrainTimeout(final Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+}
@@ -0,0 +1,248 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * Creates the writer and reader connection providers of a known list of tenants in parallel at startup so the first request of
+ * each tenant does not pay for fetching configuration and initializing pools.  The tenants are taken from a list, a callback or
+ * {@link #migratedTenants()}.  Their configuration is first prefetched in bulk, see
+ * {@link SpringMultiTenantConnectionProvider#prefetch(Collection)}.  Warm-up runs on a bounded pool of {@link #getParallelism()}
+ * threads and, unless disabled, opens as many connections from every provider as its pool keeps idle, at least one.
+ *
+ * The warm-up is ready, see {@link #isReady()}, once every provider has been created or the {@link #getDeadline()} has passed,
+ * whichever comes first.  As a {@link SmartLifecycle} it starts with the Spring context; with {@link #setBlockStartup(boolean)}
+ * the context does not finish starting, and so does not report readiness, until the warm-up is ready.
+ */
+public class ConnectionProviderWarmUp implements SmartLifecycle {
+
+    /**
+     * Environment variable holding a CSV of tenant identifiers
+     */
+    public static final String MIGRATED_TENANTS_ENV = "MIGRATED_TENANTS";
+
+    /**
+     * System property holding a CSV of tenant identifiers
+     */
+    public static final String MIGRATED_TENANTS_PROPERTY = "migrated.tenants";
+
+    private final SpringMultiTenantConnectionProvider<?> provider;
+    private final Supplier<? extends Collection<String>> tenantsSupplier;
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private int parallelism = 8;
+    private Duration deadline = Duration.ofMinutes(2);
+    private boolean openConnections = true;
+    private boolean blockStartup;
+
+    private volatile CompletableFuture<Void> completion;
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    public ConnectionProviderWarmUp(final SpringMultiTenantConnectionProvider<?> provider, final Collection<String> tenants) {
+        this(provider, () -> tenants);
+    }
+
+    public ConnectionProviderWarmUp(final SpringMultiTenantConnectionProvider<?> provider,
+      final Supplier<? extends Collection<String>> tenantsSupplier) {
+        this.provider = provider;
+        this.tenantsSupplier = tenantsSupplier;
+    }
+
+    /**
+     * Returns a supplier of the tenants listed in the environment variable {@value #MIGRATED_TENANTS_ENV} or, if absent, the system
+     * property {@value #MIGRATED_TENANTS_PROPERTY}
+     * @return a supplier of the migrated tenants
+     */
+    public static Supplier<Collection<String>> migratedTenants() {
+        return () -> Optional.ofNullable(System.getenv(MIGRATED_TENANTS_ENV))
+          .or(() -> Optional.ofNullable(System.getProperty(MIGRATED_TENANTS_PROPERTY)))
+          .map(csv -> Arrays.stream(csv.split(","))
+            .map(String::trim)
+            .filter(tenant -> !tenant.isEmpty())
+            .toList())
+          .orElse(List.of());
+    }
+
+    /**
+     * Starts warming up the connection providers of all tenants
+     */
+    @Override
+    public synchronized void start() {
+        this.running = true;
+        if (this.completion != null) {
+            return;
+        }
+        final Collection<String> tenants = this.tenantsSupplier.get();
+        this.logger.info("Warming up connection providers of {} tenants", tenants.size());
+        final long start = System.nanoTime();
+        final AtomicInteger threads = new AtomicInteger();
+        final ExecutorService executor = this.executor = Executors.newFixedThreadPool(this.parallelism, r -> {
+            final Thread thread = new Thread(r, "rwsplitter-warm-up-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final AtomicInteger failures = new AtomicInteger();
+        final CompletableFuture<Void> prefetched = CompletableFuture.runAsync(() -> this.provider.prefetch(tenants), executor)
+          .exceptionally(e -> {
+              this.logger.warn("Unable to prefetch configuration of {} tenants", tenants.size(), e);
+              return null;
+          });
+        final List<CompletableFuture<Void>> tasks = new ArrayList<>(tenants.size() * 2);
+        for (String tenant : tenants) {
+            for (DatabaseRole role : DatabaseRole.values()) {
+                tasks.add(prefetched.thenRunAsync(() -> this.warmUp(tenant, role), executor)
+                  .whenComplete((result, e) -> {
+                      if (e != null) {
+                          failures.incrementAndGet();
+                          this.logger.warn("Unable to warm up {} connection provider of tenant {}", role, tenant, e);
+                      }
+                  }));
+            }
+        }
+        this.completion = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0]))
+          .orTimeout(this.deadline.toMillis(), TimeUnit.MILLISECONDS)
+          .whenComplete((result, e) -> {
+              executor.shutdownNow();
+              final long pending = tasks.stream().filter(task -> !task.isDone()).count();
+              this.logger.info("Warmed up connection providers of {} tenants in {}ms with {} failures and {} unfinished", tenants.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failures.get(), pending);
+              this.ready.countDown();
+          });
+        if (this.blockStartup) {
+            this.awaitReady();
+        }
+    }
+
+    private void warmUp(final String tenantIdentifier, final DatabaseRole role) {
+        try {
+            this.provider.warmUp(tenantIdentifier, role, this.openConnections);
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Cancels any unfinished warm-up and releases threads waiting for it to be ready
+     */
+    @Override
+    public synchronized void stop() {
+        this.running = false;
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+        this.ready.countDown();
+    }
+
+    /**
+     * Whether the warm-up has been started and not stopped since
+     * @return true if the warm-up has been started and not stopped, false otherwise
+     */
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Whether the warm-up has finished or its deadline has passed
+     * @return true if the warm-up is ready, false otherwise
+     */
+    public boolean isReady() {
+        return this.ready.getCount() == 0;
+    }
+
+    /**
+     * Blocks until the warm-up has finished or its deadline has passed
+     */
+    public void awaitReady() {
+        try {
+            this.ready.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of threads creating connection providers. Default is 8
+     * @return the number of threads creating connection providers
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Sets the number of threads creating connection providers
+     * @param parallelism the number of threads creating connection providers
+     */
+    public void setParallelism(final int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns the time after which the warm-up reports ready even if unfinished. Default is two minutes
+     * @return the time after which the warm-up reports ready even if unfinished
+     */
+    public Duration getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * Sets the time after which the warm-up reports ready even if unfinished
+     * @param deadline the time after which the warm-up reports ready even if unfinished
+     */
+    public void setDeadline(final Duration deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Whether the minimum idle connections of every connection provider are opened. Default is true
+     * @return true if connections are opened from every connection provider, false otherwise
+     */
+    public boolean isOpenConnections() {
+        return this.openConnections;
+    }
+
+    /**
+     * Sets whether the minimum idle connections of every connection provider are opened
+     * @param openConnections true to open connections from every connection provider
+     */
+    public void setOpenConnections(final boolean openConnections) {
+        this.openConnections = openConnections;
+    }
+
+    /**
+     * Whether {@link #start()} blocks until the warm-up is ready. Default is false
+     * @return true if {@link #start()} blocks until the warm-up is ready, false otherwise
+     */
+    public boolean isBlockStartup() {
+        return this.blockStartup;
+    }
+
+    /**
+     * Sets whether {@link #start()} blocks until the warm-up is ready
+     * @param blockStartup true to block until the warm-up is ready
+     */
+    public void setBlockStartup(final boolean blockStartup) {
+        this.blockStartup = blockStartup;
+    }
+}
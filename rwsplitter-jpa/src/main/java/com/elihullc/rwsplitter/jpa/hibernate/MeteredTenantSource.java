@@ -0,0 +1,71 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link TenantSource} decorator recording how often a source is consulted, how often it supplies the tenant and the time spent
+ * consulting it
+ */
+public class MeteredTenantSource implements TenantSource {
+
+    private final TenantSource delegate;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    public MeteredTenantSource(final TenantSource delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getTenant() {
+        final long start = System.nanoTime();
+        final String tenant = this.delegate.getTenant();
+        this.totalNanos.add(System.nanoTime() - start);
+        this.invocations.increment();
+        if (tenant != null) {
+            this.hits.increment();
+        }
+        return tenant;
+    }
+
+    @Override
+    public String getName() {
+        return this.delegate.getName();
+    }
+
+    /**
+     * Returns the number of times the source has been consulted
+     * @return the number of times the source has been consulted
+     */
+    public long getInvocations() {
+        return this.invocations.sum();
+    }
+
+    /**
+     * Returns the number of times the source supplied the tenant
+     * @return the number of times the source supplied the tenant
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the total time spent consulting the source
+     * @param unit the time unit of the returned value
+     * @return the total time spent consulting the source
+     */
+    public long getTotalTime(final TimeUnit unit) {
+        return unit.convert(this.totalNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the mean time spent per consultation of the source in nanoseconds
+     * @return the mean time spent per consultation of the source in nanoseconds
+     */
+    public double getMeanNanos() {
+        final long count = this.invocations.sum();
+        return count == 0 ? 0D : (double)this.totalNanos.sum() / count;
+    }
+}
@@ -0,0 +1,296 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.hibernate.HibernateException;
+
+/**
+ * Registry of connection providers keyed by tenant that creates missing values outside of any map lock.  The first thread asking
+ * for an absent key creates the value while other threads asking for the same key wait on the memoised in-flight creation for at
+ * most the creation timeout.  Failed creations are remembered and fail fast until their backoff, doubling with every failed
+ * attempt, has passed, and are dropped by the next failing creation once it has passed without a retry.  Lookups of other keys
+ * are never blocked.  The time of the last lookup of every key is tracked with a resolution of {@value #ACCESS_RESOLUTION}
+ * milliseconds so idle values can be evicted.
+ * @param <V> the type of value
+ */
+public final class ProviderRegistry<V> {
+
+    private static final long ACCESS_RESOLUTION = 1000L;
+
+    private final ConcurrentHashMap<String, Slot<V>> slots = new ConcurrentHashMap<>();
+
+    private volatile long creationTimeoutMillis = 30_000L;
+    private volatile long initialBackoffMillis = 1_000L;
+    private volatile long maxBackoffMillis = 60_000L;
+    private volatile Consumer<V> detachedValueHandler;
+
+    /**
+     * Returns the value for the given key, creating it with the given factory if absent
+     * @param key the key
+     * @param factory the factory creating the value
+     * @return the value
+     * @throws HibernateException if the creation failed, is backing off or did not finish within the creation timeout
+     */
+    public V get(final String key, final Function<String, V> factory) {
+        final Slot<V> slot = this.slots.get(key);
+        if (slot != null) {
+            final V value = slot.value;
+            if (value != null) {
+                touch(slot);
+                return value;
+            }
+        }
+        return this.getOrCreate(key, factory);
+    }
+
+    private static void touch(final Slot<?> slot) {
+        final long now = System.currentTimeMillis();
+        if (now - slot.lastAccess >= ACCESS_RESOLUTION) {
+            slot.lastAccess = now;
+        }
+    }
+
+    private V getOrCreate(final String key, final Function<String, V> factory) {
+        while (true) {
+            Slot<V> slot = this.slots.get(key);
+            if (slot == null) {
+                final Slot<V> created = new Slot<>(1);
+                slot = this.slots.putIfAbsent(key, created);
+                if (slot == null) {
+                    return this.create(key, created, factory);
+                }
+            }
+            if (slot.value != null) {
+                return slot.value;
+            }
+            if (!slot.future.isDone()) {
+                return this.await(key, slot);
+            }
+            if (System.currentTimeMillis() < slot.retryAt) {
+                throw new HibernateException("Creation of connection provider for " + key + " failed, retrying after backoff",
+                  slot.failure);
+            }
+            final Slot<V> retry = new Slot<>(slot.attempts + 1);
+            if (this.slots.replace(key, slot, retry)) {
+                return this.create(key, retry, factory);
+            }
+        }
+    }
+
+    private V create(final String key, final Slot<V> slot, final Function<String, V> factory) {
+        try {
+            final V value = factory.apply(key);
+            slot.value = value;
+            slot.future.complete(value);
+            final Consumer<V> handler = this.detachedValueHandler;
+            if (handler != null && this.slots.get(key) != slot && slot.claim()) {
+                handler.accept(value);
+            }
+            return value;
+        } catch (RuntimeException | Error e) {
+            final long now = System.currentTimeMillis();
+            final long backoff = Math.min(this.maxBackoffMillis, this.initialBackoffMillis << Math.min(slot.attempts - 1, 20));
+            slot.retryAt = now + backoff;
+            slot.failure = e;
+            slot.future.completeExceptionally(e);
+            this.pruneFailed(now);
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the failed creations whose backoff has passed without a retry, e.g. of tenants deleted since
+     * @param now the current time in epoch milliseconds
+     */
+    private void pruneFailed(final long now) {
+        this.slots.forEach((key, slot) -> {
+            if (slot.failure != null && now >= slot.retryAt) {
+                this.slots.remove(key, slot);
+            }
+        });
+    }
+
+    private V await(final String key, final Slot<V> slot) {
+        try {
+            return slot.future.get(this.creationTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new HibernateException("Timed out waiting for creation of connection provider for " + key, e);
+        } catch (ExecutionException e) {
+            throw new HibernateException("Creation of connection provider for " + key + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HibernateException("Interrupted waiting for creation of connection provider for " + key, e);
+        }
+    }
+
+    /**
+     * Returns the value for the given key if it has been created successfully, without creating it or counting as a lookup
+     * @param key the key
+     * @return the value or null if absent, in-flight or failed
+     */
+    public V getIfPresent(final String key) {
+        final Slot<V> slot = this.slots.get(key);
+        return slot == null ? null : slot.value;
+    }
+
+    /**
+     * Returns the time of the last lookup of the given key
+     * @param key the key
+     * @return the time of the last lookup in epoch milliseconds or 0 if the key is absent
+     */
+    public long getLastAccess(final String key) {
+        final Slot<V> slot = this.slots.get(key);
+        return slot == null ? 0L : slot.lastAccess;
+    }
+
+    /**
+     * Returns all keys whose value has been created successfully
+     * @return all keys whose value has been created successfully
+     */
+    public List<String> keys() {
+        final List<String> keys = new ArrayList<>(this.slots.size());
+        this.slots.forEach((key, slot) -> {
+            if (slot.value != null) {
+                keys.add(key);
+            }
+        });
+        return keys;
+    }
+
+    /**
+     * Removes the given key if its value has been created successfully
+     * @param key the key
+     * @return the removed value or null if the key was absent, in-flight or failed
+     */
+    public V remove(final String key) {
+        final Slot<V> slot = this.slots.get(key);
+        if (slot == null || slot.value == null || !this.slots.remove(key, slot) || !slot.claim()) {
+            return null;
+        }
+        return slot.value;
+    }
+
+    /**
+     * Returns all values created successfully
+     * @return all values created successfully
+     */
+    public List<V> values() {
+        final List<V> values = new ArrayList<>(this.slots.size());
+        this.slots.values().forEach(slot -> {
+            final V value = slot.value;
+            if (value != null) {
+                values.add(value);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Returns the number of values created successfully
+     * @return the number of values created successfully
+     */
+    public int size() {
+        int size = 0;
+        for (Slot<V> slot : this.slots.values()) {
+            if (slot.value != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Replaces the value of the given key with the given value, which is visible to lookups as soon as this method returns
+     * @param key the key
+     * @param value the new value
+     * @return the replaced value or null if the key was absent, in-flight or failed
+     */
+    public V put(final String key, final V value) {
+        final Slot<V> slot = new Slot<>(1);
+        slot.value = value;
+        slot.future.complete(value);
+        final Slot<V> previous = this.slots.put(key, slot);
+        return previous == null || previous.value == null || !previous.claim() ? null : previous.value;
+    }
+
+    /**
+     * Removes all values.  Values still being created are passed to the detached value handler once created.
+     * @return the removed values
+     */
+    public List<V> clear() {
+        final List<V> removed = new ArrayList<>(this.slots.size());
+        this.slots.forEach((key, slot) -> {
+            if (this.slots.remove(key, slot) && slot.value != null && slot.claim()) {
+                removed.add(slot.value);
+            }
+        });
+        return removed;
+    }
+
+    /**
+     * Returns the number of keys, including those whose value is being created or failed to be created
+     * @return the number of keys
+     */
+    int getSlotCount() {
+        return this.slots.size();
+    }
+
+    /**
+     * Sets the handler receiving values whose creation finished after their key was removed, replaced or cleared, which would
+     * otherwise never be released
+     * @param detachedValueHandler the handler receiving detached values
+     */
+    public void setDetachedValueHandler(final Consumer<V> detachedValueHandler) {
+        this.detachedValueHandler = detachedValueHandler;
+    }
+
+    /**
+     * Sets the maximum time to wait for a value being created by another thread
+     * @param creationTimeoutMillis the maximum time to wait in milliseconds
+     */
+    public void setCreationTimeoutMillis(final long creationTimeoutMillis) {
+        this.creationTimeoutMillis = creationTimeoutMillis;
+    }
+
+    /**
+     * Sets the backoff after a failed creation, doubling with every consecutive failure up to the maximum
+     * @param initialBackoffMillis the initial backoff in milliseconds
+     * @param maxBackoffMillis the maximum backoff in milliseconds
+     */
+    public void setBackoffMillis(final long initialBackoffMillis, final long maxBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Holder of a value that is being, has been or failed to be created.  Once the slot is out of the registry its value is released
+     * by whoever claims it first: the caller removing it, or the creating thread handing it to the detached value handler.
+     */
+    private static final class Slot<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final int attempts;
+        private volatile V value;
+        private volatile Throwable failure;
+        private volatile long retryAt;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Slot(final int attempts) {
+            this.attempts = attempts;
+        }
+
+        private boolean claim() {
+            return this.claimed.compareAndSet(false, true);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Consumer;
+
+/**
+ * Dynamic proxy of a {@link Connection}, and of the {@link Statement}s it creates, passing every {@link SQLException} thrown by the
+ * driver to a listener before rethrowing it
+ */
+final class ReadOnlyErrorDetectingConnection implements InvocationHandler {
+
+    private final Object delegate;
+    private final Consumer<SQLException> listener;
+
+    private ReadOnlyErrorDetectingConnection(final Object delegate, final Consumer<SQLException> listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    /**
+     * Returns a proxy of the given connection reporting exceptions to the given listener
+     * @param connection the connection
+     * @param listener the listener receiving exceptions
+     * @return the proxy
+     */
+    static Connection wrap(final Connection connection, final Consumer<SQLException> listener) {
+        return (Connection)proxy(Connection.class, connection, listener);
+    }
+
+    private static Object proxy(final Class<?> type, final Object delegate, final Consumer<SQLException> listener) {
+        return Proxy.newProxyInstance(ReadOnlyErrorDetectingConnection.class.getClassLoader(), new Class<?>[] { type },
+          new ReadOnlyErrorDetectingConnection(delegate, listener));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        final Object result;
+        try {
+            result = method.invoke(this.delegate, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                this.listener.accept(sqlException);
+            }
+            throw e.getCause();
+        }
+        if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+            return proxy(method.getReturnType(), result, this.listener);
+        }
+        return result;
+    }
+}
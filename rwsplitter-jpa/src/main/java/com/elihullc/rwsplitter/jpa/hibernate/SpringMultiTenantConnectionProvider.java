@@ -2,17 +2,49 @@ package com.elihullc.rwsplitter.jpa.hibernate;
 
 import com.elihullc.rwsplitter.jpa.CurrentDatabaseRole;
 import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.RoleBinding;
+import com.elihullc.rwsplitter.jpa.hibernate.cache.QueryResultCache;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+import com.elihullc.rwsplitter.jpa.hibernate.jfr.ConnectionWaitEvent;
+import com.elihullc.rwsplitter.jpa.hibernate.jfr.ProviderCreationEvent;
+import com.elihullc.rwsplitter.jpa.hibernate.jfr.ProviderShutdownEvent;
+import com.elihullc.rwsplitter.jpa.hibernate.jfr.RoutingEvent;
+import com.elihullc.rwsplitter.jpa.hibernate.metrics.RoutingMetrics;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ConsistencyMode;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderFailoverPolicy;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderHealthMonitor;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderSelectionStrategy;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReplicationLagMonitor;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReplicationLagProbe;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.RoundRobinReaderSelectionStrategy;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.RoutingReason;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.StatementClassifier;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.WriteMarkerTracker;
 
 import java.io.Closeable;
-import java.util.concurrent.ConcurrentHashMap;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
+import org.hibernate.HibernateException;
 import org.hibernate.engine.jdbc.connections.spi.AbstractMultiTenantConnectionProvider;
 import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
 import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedOperationParameter;
+import org.springframework.jmx.export.annotation.ManagedOperationParameters;
 import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
@@ -26,7 +58,29 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
  * from a single database hosting multiple tenants into multiple databases/schemas so that migrations can be done incrementally.
  *
  * Additionally, this class supports read/write splitting by checking {@link CurrentDatabaseRole#getCurrentRole()}'s thread-local
- * value or the value returned by {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}.
+ * value or the value returned by {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}.  Each tenant may have
+ * several readers, see {@link #createReaderConnectionProviders(String)}, in which case the configured
+ * {@link ReaderSelectionStrategy} decides which reader serves each request.
+ *
+ * With {@link ConsistencyMode#READ_YOUR_WRITES} the commit time of every writer transaction is recorded by a
+ * {@link WriteMarkerTracker} and read-only work is only routed to readers that the {@link ReplicationLagMonitor} has seen catch up
+ * with the last recorded write; otherwise it falls back to the writer.  A lag tolerance bound with the role, see
+ * {@link RoleBinding#getMaxLagMillis()}, likewise restricts reads to readers the monitor has seen within that lag.  A writer
+ * binding with {@link RoleBinding#isWriterRequired()} uses the writer even within a read-only transaction.
+ *
+ * With a {@link ReaderHealthMonitor} readers whose circuit breaker is open are skipped, falling back to the remaining readers or
+ * the writer as defined by the {@link ReaderFailoverPolicy}.
+ *
+ * With a {@link QueryResultCache} repeated read-only queries of the tables it allows, routed to readers, are served from memory
+ * without checking out a reader connection, until writes through the writer connections of the tenant invalidate them.  The
+ * cached results of a tenant are dropped when its connection providers are removed.
+ *
+ * Routing decisions, connection acquisition and connection provider creation are reported to the configured
+ * {@link RoutingMetrics}, which by default records nothing.
+ *
+ * Connection providers are created outside of any map lock by the first thread requesting them; concurrent requests for the same
+ * tenant and role wait for at most {@link #setProviderCreationTimeout(Duration)}, failed creations fail fast until their backoff
+ * has passed and requests for other tenants are never blocked.
  *
  * @author Mark Thomas
  */
@@ -34,25 +88,137 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 public abstract class SpringMultiTenantConnectionProvider<T extends StoppableConnectionProvider>
   extends AbstractMultiTenantConnectionProvider<String> implements Closeable {
 
-    private final ConcurrentHashMap<String, T> connectionProviders = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, T> readOnlyConnectionProviders = new ConcurrentHashMap<>();
+    private final ProviderRegistry<T> connectionProviders = new ProviderRegistry<>();
+    private final ProviderRegistry<List<T>> readOnlyConnectionProviders = new ProviderRegistry<>();
+    private final transient Function<String, T> masterFactory =
+      tenant -> this.create(tenant, DatabaseRole.WRITER, this::createMasterConnectionProvider);
+    private final transient Function<String, List<T>> readerFactory = this::createAndRegisterReaderConnectionProviders;
 
     private final transient SpringTenantIdentifierResolver tenantIdentifierResolver;
     private final transient Logger logger = LoggerFactory.getLogger(getClass());
 
+    private transient ReaderSelectionStrategy readerSelectionStrategy = new RoundRobinReaderSelectionStrategy();
+    private transient ConsistencyMode consistencyMode = ConsistencyMode.EVENTUAL;
+    private transient WriteMarkerTracker writeMarkerTracker = new WriteMarkerTracker();
+    private transient ReplicationLagMonitor replicationLagMonitor;
+    private transient boolean replicationLagMonitorCreated;
+    private transient RoutingMetrics routingMetrics = RoutingMetrics.NOOP;
+    private transient volatile ReaderHealthMonitor readerHealthMonitor;
+    private transient volatile Duration drainTimeout = Duration.ofSeconds(30);
+    private final transient ConnectionProviderDrainer drainer = new ConnectionProviderDrainer(this::stop);
+    private transient volatile WriterFailoverDetector writerFailoverDetector;
+    private transient volatile StatementClassifier statementClassifier;
+    private transient volatile QueryResultCache queryResultCache;
+    private transient ReaderFailoverPolicy readerFailoverPolicy = ReaderFailoverPolicy.READERS_THEN_WRITER;
+
     protected SpringMultiTenantConnectionProvider(final SpringTenantIdentifierResolver tenantIdentifierResolver) {
         this.tenantIdentifierResolver = tenantIdentifierResolver;
+        this.connectionProviders.setDetachedValueHandler(provider -> this.drain(List.of(provider)));
+        this.readOnlyConnectionProviders.setDetachedValueHandler(this::drain);
     }
 
     /**
      * Clears and closes all connection providers. Useful fo requiring a re-initialization of connection providers after a specific
-     * event requires it (e.g. Failover ov writer to a read-replica)
+     * event requires it (e.g. Failover ov writer to a read-replica).  Providers are removed first, so new requests create fresh
+     * ones, and then drained, see {@link #drain(List)}.  Prefer {@link #rebuild(String, DatabaseRole)} when only one tenant is
+     * affected.
      */
     @ManagedOperation(description = "Clears and closes all connection providers")
     public void clearAll() {
-        this.close();
-        this.connectionProviders.clear();
-        this.readOnlyConnectionProviders.clear();
+        final ProviderShutdownEvent event = new ProviderShutdownEvent();
+        event.begin();
+        final List<T> removed = new ArrayList<>(this.connectionProviders.clear());
+        this.readOnlyConnectionProviders.clear().forEach(removed::addAll);
+        if (this.queryResultCache != null) {
+            this.queryResultCache.clear();
+        }
+        this.drain(removed);
+        event.commit("clearAll", removed.size());
+    }
+
+    /**
+     * Replaces the writer connection provider of the given tenant, see {@link #rebuild(String, DatabaseRole)}
+     * @param tenantIdentifier the tenant identifier
+     * @throws SQLException if the new connection provider cannot open a connection
+     */
+    @ManagedOperation(description = "Replaces the writer connection provider of a tenant")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "tenantIdentifier", description = "The tenant identifier"))
+    public void rebuildWriter(final String tenantIdentifier) throws SQLException {
+        this.rebuild(tenantIdentifier, DatabaseRole.WRITER);
+    }
+
+    /**
+     * Replaces the reader connection providers of the given tenant, see {@link #rebuild(String, DatabaseRole)}
+     * @param tenantIdentifier the tenant identifier
+     * @throws SQLException if a new connection provider cannot open a connection
+     */
+    @ManagedOperation(description = "Replaces the reader connection providers of a tenant")
+    @ManagedOperationParameters(@ManagedOperationParameter(name = "tenantIdentifier", description = "The tenant identifier"))
+    public void rebuildReaders(final String tenantIdentifier) throws SQLException {
+        this.rebuild(tenantIdentifier, DatabaseRole.READER);
+    }
+
+    /**
+     * Replaces the connection providers of the given tenant and role without affecting other tenants.  New connection providers are
+     * created and warmed up by opening a connection from each of them, then swapped in atomically, after which the replaced ones
+     * are drained.  If warming up fails the new connection providers are stopped and the current ones remain in service.
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role of the connection providers
+     * @throws SQLException if a new connection provider cannot open a connection
+     */
+    public void rebuild(final String tenantIdentifier, final DatabaseRole role) throws SQLException {
+        final List<T> replaced;
+        if (role == DatabaseRole.WRITER) {
+            final T created = this.create(tenantIdentifier, DatabaseRole.WRITER, this::createMasterConnectionProvider);
+            this.openConnections(List.of(created));
+            final T previous = this.connectionProviders.put(tenantIdentifier, created);
+            replaced = previous == null ? List.of() : List.of(previous);
+        } else {
+            final List<T> created = this.createAndRegisterReaderConnectionProviders(tenantIdentifier);
+            this.openConnections(created);
+            final List<T> previous = this.readOnlyConnectionProviders.put(tenantIdentifier, created);
+            replaced = previous == null ? List.of() : previous;
+        }
+        if (this.queryResultCache != null) {
+            this.queryResultCache.invalidate(tenantIdentifier);
+        }
+        this.logger.info("Rebuilt {} connection providers of tenant {}, draining {} replaced", role, tenantIdentifier,
+          replaced.size());
+        this.drain(replaced);
+    }
+
+    private void openConnections(final List<T> providers) throws SQLException {
+        try {
+            for (T provider : providers) {
+                provider.closeConnection(provider.getConnection());
+            }
+        } catch (SQLException | RuntimeException e) {
+            providers.forEach(this::stop);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the given connection providers, which must already be out of service, on the background drain thread shared by all
+     * drained providers once their in-flight connections have been returned or {@link #getDrainTimeout()} has passed.  Once this
+     * provider is closed they are stopped right away.
+     * @param providers the connection providers to drain
+     */
+    protected void drain(final List<? extends StoppableConnectionProvider> providers) {
+        this.drain(providers, this.drainTimeout);
+    }
+
+    /**
+     * Stops the given connection providers on the background drain thread, see {@link #drain(List)}, waiting at most the given
+     * timeout for their in-flight connections
+     * @param providers the connection providers to drain
+     * @param timeout the maximum time to wait for in-flight connections
+     */
+    void drain(final List<? extends StoppableConnectionProvider> providers, final Duration timeout) {
+        if (providers.isEmpty()) {
+            return;
+        }
+        this.drainer.drainAsync(providers, timeout);
     }
 
     /**
@@ -78,32 +244,481 @@ public abstract class SpringMultiTenantConnectionProvider<T extends StoppableCon
         return this.getConnectionProvider(tenantIdentifier);
     }
 
+    /**
+     * Returns the {@link StoppableConnectionProvider} serving the current role of the specified tenant without recording the routing
+     * decision, see {@link #getConnection(String)}
+     * @param tenantIdentifier the tenant identifier
+     * @return a {@link StoppableConnectionProvider}
+     */
     public StoppableConnectionProvider getConnectionProvider(final String tenantIdentifier) {
-        if (CurrentDatabaseRole.getCurrentRole() == DatabaseRole.READER
-          || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
-            this.logger.trace("Fetching reader connection provider for tenant {}", tenantIdentifier);
-            return this.getOrCreateReaderConnectionProvider(tenantIdentifier);
+        return this.getConnectionProvider(tenantIdentifier, false);
+    }
+
+    /**
+     * Returns the {@link StoppableConnectionProvider} serving the current role of the specified tenant
+     * @param tenantIdentifier the tenant identifier
+     * @param checkout whether a connection is being checked out, in which case the routing decision is recorded and, with
+     * {@link ConsistencyMode#READ_YOUR_WRITES}, a write marker is registered for writer connections
+     * @return a {@link StoppableConnectionProvider}
+     */
+    private StoppableConnectionProvider getConnectionProvider(final String tenantIdentifier, final boolean checkout) {
+        final RoleBinding binding = CurrentDatabaseRole.getCurrentBinding();
+        final RoutingReason readReason = getReadReason(binding);
+        if (readReason != null) {
+            final List<T> readers = this.getAvailableReaderConnectionProviders(tenantIdentifier);
+            if (readers.isEmpty()) {
+                if (this.getOrCreateReaderConnectionProviders(tenantIdentifier).isEmpty()) {
+                    this.logger.trace("Tenant {} has no reader, falling back to writer", tenantIdentifier);
+                    this.routed(checkout, tenantIdentifier, DatabaseRole.WRITER, RoutingReason.NO_READER);
+                    return this.getOrCreateMasterConnectionProvider(tenantIdentifier);
+                }
+                if (this.readerFailoverPolicy == ReaderFailoverPolicy.READERS_ONLY) {
+                    throw new HibernateException("No reader of tenant " + tenantIdentifier + " is available");
+                }
+                this.logger.trace("Readers of tenant {} unavailable, falling back to writer", tenantIdentifier);
+                this.routed(checkout, tenantIdentifier, DatabaseRole.WRITER, RoutingReason.READER_UNAVAILABLE);
+                return this.getOrCreateMasterConnectionProvider(tenantIdentifier);
+            }
+            final long readMarker = this.getReadMarker(tenantIdentifier, binding);
+            if (readMarker == 0L) {
+                this.logger.trace("Fetching reader connection provider for tenant {}", tenantIdentifier);
+                this.routed(checkout, tenantIdentifier, DatabaseRole.READER, readReason);
+                return this.selectReader(tenantIdentifier, readers);
+            }
+            final T reader = this.selectCaughtUpReader(tenantIdentifier, readers, readMarker);
+            if (reader != null) {
+                this.logger.trace("Fetching consistent reader connection provider for tenant {}", tenantIdentifier);
+                this.routed(checkout, tenantIdentifier, DatabaseRole.READER, readReason);
+                return reader;
+            }
+            this.logger.trace("No reader caught up for tenant {}, falling back to writer", tenantIdentifier);
+            this.routed(checkout, tenantIdentifier, DatabaseRole.WRITER, RoutingReason.REPLICATION_LAG);
+            return this.getOrCreateMasterConnectionProvider(tenantIdentifier);
         }
         this.logger.trace("Fetching writer connection provider for tenant {}", tenantIdentifier);
+        if (checkout && this.consistencyMode == ConsistencyMode.READ_YOUR_WRITES) {
+            this.registerWriteMarker(tenantIdentifier);
+        }
+        this.routed(checkout, tenantIdentifier, DatabaseRole.WRITER, RoutingReason.DEFAULT);
         return this.getOrCreateMasterConnectionProvider(tenantIdentifier);
     }
 
+    private void routed(final boolean checkout, final String tenantIdentifier, final DatabaseRole role, final RoutingReason reason) {
+        if (checkout) {
+            this.routed(tenantIdentifier, role, reason);
+        }
+    }
+
+    private void routed(final String tenantIdentifier, final DatabaseRole role, final RoutingReason reason) {
+        this.routingMetrics.routed(tenantIdentifier, role, reason);
+        RoutingEvent.commit(tenantIdentifier, role, reason);
+    }
+
+    /**
+     * Returns the signal requesting a reader for the current thread, if any
+     * @param binding the current role binding
+     * @return the signal requesting a reader or null if the writer should be used
+     */
+    private static RoutingReason getReadReason(final RoleBinding binding) {
+        if (binding.getRole() == DatabaseRole.READER) {
+            return RoutingReason.DATABASE_ROLE;
+        }
+        if (!binding.isWriterRequired() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return RoutingReason.READ_ONLY_TRANSACTION;
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Connection getConnection(final String tenantIdentifier) throws SQLException {
+        final StoppableConnectionProvider provider = this.getConnectionProvider(tenantIdentifier, true);
+        final WriterFailoverDetector failoverDetector = this.writerFailoverDetector;
+        final StatementClassifier classifier = this.statementClassifier;
+        final QueryResultCache cache = this.queryResultCache;
+        if ((failoverDetector != null || classifier != null || cache != null)
+          && provider == this.connectionProviders.getIfPresent(tenantIdentifier)) {
+            Connection connection = this.getConnection(tenantIdentifier, provider);
+            if (failoverDetector != null) {
+                connection = ReadOnlyErrorDetectingConnection.wrap(connection, e -> failoverDetector.reportError(tenantIdentifier, e));
+            }
+            if (cache != null) {
+                connection = cache.wrapWriterConnection(tenantIdentifier, connection);
+            }
+            if (classifier != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+                connection = StatementRoutingConnection.wrap(connection, classifier,
+                  () -> this.getStatementReaderConnection(tenantIdentifier));
+            }
+            return connection;
+        }
+        if (cache != null) {
+            return cache.wrapReaderConnection(tenantIdentifier, () -> this.getReaderConnection(tenantIdentifier, provider));
+        }
+        return this.getReaderConnection(tenantIdentifier, provider);
+    }
+
+    /**
+     * Closes the given connection, returning it to the pool it was acquired from.  Unlike the default implementation this does not
+     * route again: the current role may have changed, or every reader become unavailable, since the connection was acquired.
+     * @param tenantIdentifier the tenant identifier
+     * @param connection the connection
+     * @throws SQLException if the connection cannot be closed
+     */
+    @Override
+    public void releaseConnection(final String tenantIdentifier, final Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Closes the given connection, returning it to the pool it was acquired from, without routing again
+     * @param connection the connection
+     * @throws SQLException if the connection cannot be closed
+     */
+    @Override
+    public void releaseAnyConnection(final Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Acquires a connection of the given reader, recording the outcome with the {@link ReaderHealthMonitor} if set.  Failures due to
+     * an exhausted pool are not recorded as the reader itself is healthy.
+     * @param tenantIdentifier then tenant identifier
+     * @param provider the reader connection provider
+     * @return a reader connection
+     * @throws SQLException if a connection cannot be acquired
+     */
+    private Connection getReaderConnection(final String tenantIdentifier, final StoppableConnectionProvider provider)
+      throws SQLException {
+        final ReaderHealthMonitor healthMonitor = this.readerHealthMonitor;
+        if (healthMonitor == null) {
+            return this.getConnection(tenantIdentifier, provider);
+        }
+        try {
+            final Connection connection = this.getConnection(tenantIdentifier, provider);
+            healthMonitor.recordSuccess(provider);
+            return connection;
+        } catch (SQLException e) {
+            if (!ReaderHealthMonitor.isPoolExhausted(e)) {
+                healthMonitor.recordFailure(provider);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a connection of an available reader of the specified tenant for a statement routed by statement-level routing.  The
+     * connection is acquired right away, even with a {@link QueryResultCache}, so that a failure to acquire it is recorded as
+     * {@link RoutingReason#STATEMENT_FALLBACK} and the statement can run on the writer instead.
+     * @param tenantIdentifier then tenant identifier
+     * @return a reader connection or null if no reader is available or, with {@link ConsistencyMode#READ_YOUR_WRITES}, caught up
+     * @throws SQLException if a connection cannot be acquired
+     */
+    private Connection getStatementReaderConnection(final String tenantIdentifier) throws SQLException {
+        final List<T> readers = this.getAvailableReaderConnectionProviders(tenantIdentifier);
+        if (readers.isEmpty()) {
+            return null;
+        }
+        final T reader = this.consistencyMode == ConsistencyMode.EVENTUAL
+          ? this.selectReader(tenantIdentifier, readers)
+          : this.getConsistentReaderConnectionProvider(tenantIdentifier, readers);
+        if (reader == null) {
+            return null;
+        }
+        final Connection connection;
+        try {
+            connection = this.getReaderConnection(tenantIdentifier, reader);
+        } catch (SQLException e) {
+            this.routed(tenantIdentifier, DatabaseRole.WRITER, RoutingReason.STATEMENT_FALLBACK);
+            throw e;
+        }
+        this.routed(tenantIdentifier, DatabaseRole.READER, RoutingReason.STATEMENT);
+        final QueryResultCache cache = this.queryResultCache;
+        return cache == null ? connection : cache.wrapReaderConnection(tenantIdentifier, connection);
+    }
+
+    private Connection getConnection(final String tenantIdentifier, final StoppableConnectionProvider provider) throws SQLException {
+        final ConnectionWaitEvent event = new ConnectionWaitEvent();
+        event.begin();
+        final DatabaseRole role = provider.isReadOnly() ? DatabaseRole.READER : DatabaseRole.WRITER;
+        final long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            final Connection connection = provider.getConnection();
+            failed = false;
+            if (this.routingMetrics.isEnabled()) {
+                this.routingMetrics.connectionAcquired(tenantIdentifier, role, System.nanoTime() - start);
+            }
+            return connection;
+        } finally {
+            event.commit(tenantIdentifier, role, failed);
+        }
+    }
+
+    /**
+     * Selects a reader of the specified tenant that has caught up with the last write recorded for the tenant
+     * @param tenantIdentifier then tenant identifier
+     * @return a reader that has caught up or null if no reader has caught up
+     */
+    protected T getConsistentReaderConnectionProvider(final String tenantIdentifier) {
+        return this.getConsistentReaderConnectionProvider(tenantIdentifier,
+          this.getOrCreateReaderConnectionProviders(tenantIdentifier));
+    }
+
+    /**
+     * Selects one of the given readers of the specified tenant that has caught up with the last write recorded for the tenant
+     * @param tenantIdentifier then tenant identifier
+     * @param readers the candidate readers
+     * @return a reader that has caught up or null if no reader has caught up
+     */
+    protected T getConsistentReaderConnectionProvider(final String tenantIdentifier, final List<T> readers) {
+        return this.selectCaughtUpReader(tenantIdentifier, readers, this.writeMarkerTracker.getLastWrite(tenantIdentifier));
+    }
+
+    /**
+     * Returns the marker readers must have caught up with to serve the current read: the last write of the tenant with
+     * {@link ConsistencyMode#READ_YOUR_WRITES} and, if a {@link ReplicationLagMonitor} is set, the oldest point tolerated by
+     * {@link RoleBinding#getMaxLagMillis()}, whichever is later
+     * @param tenantIdentifier then tenant identifier
+     * @param binding the current role binding
+     * @return the marker in epoch milliseconds or 0 if any reader may serve the read
+     */
+    private long getReadMarker(final String tenantIdentifier, final RoleBinding binding) {
+        long readMarker = this.consistencyMode == ConsistencyMode.READ_YOUR_WRITES
+          ? this.writeMarkerTracker.getLastWrite(tenantIdentifier) : 0L;
+        if (binding.getMaxLagMillis() >= 0 && this.replicationLagMonitor != null) {
+            readMarker = Math.max(readMarker, System.currentTimeMillis() - binding.getMaxLagMillis());
+        }
+        return readMarker;
+    }
+
+    private T selectCaughtUpReader(final String tenantIdentifier, final List<T> readers, final long readMarker) {
+        if (readMarker == 0L) {
+            return this.selectReader(tenantIdentifier, readers);
+        }
+        int caughtUp = 0;
+        for (T reader : readers) {
+            if (this.replicationLagMonitor.isCaughtUp(reader, readMarker)) {
+                caughtUp++;
+            }
+        }
+        if (caughtUp == readers.size()) {
+            return this.selectReader(tenantIdentifier, readers);
+        }
+        if (caughtUp == 0) {
+            return null;
+        }
+        final List<T> candidates = new ArrayList<>(caughtUp);
+        for (T reader : readers) {
+            if (this.replicationLagMonitor.isCaughtUp(reader, readMarker)) {
+                candidates.add(reader);
+            }
+        }
+        return this.selectReader(tenantIdentifier, candidates);
+    }
+
+    /**
+     * Records a write for the specified tenant once the current transaction commits.  Writes outside of a Spring managed
+     * transaction are not tracked automatically; use {@link #recordWrite(String)} for those.
+     * @param tenantIdentifier then tenant identifier
+     */
+    protected void registerWriteMarker(final String tenantIdentifier) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+          || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        final WriteMarkerSynchronization synchronization = new WriteMarkerSynchronization(this.writeMarkerTracker, tenantIdentifier);
+        if (!TransactionSynchronizationManager.getSynchronizations().contains(synchronization)) {
+            TransactionSynchronizationManager.registerSynchronization(synchronization);
+        }
+    }
+
+    /**
+     * Records a write for the specified tenant committed now so that subsequent reads honor {@link ConsistencyMode#READ_YOUR_WRITES}
+     * @param tenantIdentifier then tenant identifier
+     */
+    public void recordWrite(final String tenantIdentifier) {
+        this.writeMarkerTracker.recordWrite(tenantIdentifier);
+    }
+
+    /**
+     * Loads the configuration of the given tenants ahead of the creation of their connection providers, e.g. in as few requests to a
+     * remote configuration store as possible.  Invoked by {@link ConnectionProviderWarmUp} before warming up. Default does nothing
+     * @param tenantIdentifiers the tenant identifiers
+     */
+    public void prefetch(final Collection<String> tenantIdentifiers) {
+    }
+
+    /**
+     * Creates the connection providers of the specified tenant and role, if absent, and optionally fills their pools.  Used to warm
+     * up pools before the first request, see {@link ConnectionProviderWarmUp}.
+     * @param tenantIdentifier then tenant identifier
+     * @param role the role of the connection providers
+     * @param openConnections whether to open, then close, as many connections from each connection provider as its pool keeps idle,
+     * at least one
+     * @throws SQLException if a connection cannot be opened
+     */
+    public void warmUp(final String tenantIdentifier, final DatabaseRole role, final boolean openConnections) throws SQLException {
+        final List<T> providers = role == DatabaseRole.WRITER
+          ? List.of(this.getOrCreateMasterConnectionProvider(tenantIdentifier))
+          : this.getOrCreateReaderConnectionProviders(tenantIdentifier);
+        if (openConnections) {
+            for (T provider : providers) {
+                this.openConnections(provider, Math.max(1, HikariPools.getMinimumIdle(provider)));
+            }
+        }
+    }
+
+    /**
+     * Opens the given number of connections from the given provider at once, then closes them
+     * @param provider the connection provider
+     * @param count the number of connections
+     * @throws SQLException if a connection cannot be opened or closed
+     */
+    private void openConnections(final T provider, final int count) throws SQLException {
+        final List<Connection> connections = new ArrayList<>(count);
+        SQLException failure = null;
+        try {
+            for (int i = 0; i < count; i++) {
+                connections.add(provider.getConnection());
+            }
+        } catch (SQLException e) {
+            failure = e;
+        }
+        for (Connection connection : connections) {
+            try {
+                provider.closeConnection(connection);
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     /**
      * Retrieves a {@link StoppableConnectionProvider} for the specified tenant and, if null, creates a new one
      * @param tenantIdentifier then tenant identifier
      * @return a {@link StoppableConnectionProvider} for the specified tenant
      */
     protected T getOrCreateMasterConnectionProvider(final String tenantIdentifier) {
-        return this.connectionProviders.computeIfAbsent(tenantIdentifier, this::createMasterConnectionProvider);
+        return this.connectionProviders.get(tenantIdentifier, this.masterFactory);
     }
 
     /**
-     * Retrieves a {@link StoppableConnectionProvider} for the specified tenant and, if null, creates a new one
+     * Retrieves the reader {@link StoppableConnectionProvider}s for the specified tenant, creating them if absent, and selects one
+     * using the configured {@link ReaderSelectionStrategy}
      * @param tenantIdentifier then tenant identifier
      * @return a {@link StoppableConnectionProvider} for the specified tenant
      */
     protected T getOrCreateReaderConnectionProvider(final String tenantIdentifier) {
-        return this.readOnlyConnectionProviders.computeIfAbsent(tenantIdentifier, this::createReaderConnectionProvider);
+        return this.selectReader(tenantIdentifier, this.getOrCreateReaderConnectionProviders(tenantIdentifier));
+    }
+
+    /**
+     * Returns the writer {@link StoppableConnectionProvider} of the specified tenant without creating it
+     * @param tenantIdentifier then tenant identifier
+     * @return the writer {@link StoppableConnectionProvider} or null if none has been created
+     */
+    protected T getMasterConnectionProviderIfPresent(final String tenantIdentifier) {
+        return this.connectionProviders.getIfPresent(tenantIdentifier);
+    }
+
+    /**
+     * Returns the reader {@link StoppableConnectionProvider}s of the specified tenant without creating them
+     * @param tenantIdentifier then tenant identifier
+     * @return the reader {@link StoppableConnectionProvider}s or null if none have been created
+     */
+    protected List<T> getReaderConnectionProvidersIfPresent(final String tenantIdentifier) {
+        return this.readOnlyConnectionProviders.getIfPresent(tenantIdentifier);
+    }
+
+    /**
+     * Retrieves all reader {@link StoppableConnectionProvider}s for the specified tenant and, if absent, creates them
+     * @param tenantIdentifier then tenant identifier
+     * @return the reader {@link StoppableConnectionProvider}s for the specified tenant
+     */
+    protected List<T> getOrCreateReaderConnectionProviders(final String tenantIdentifier) {
+        return this.readOnlyConnectionProviders.get(tenantIdentifier, this.readerFactory);
+    }
+
+    /**
+     * Retrieves the reader {@link StoppableConnectionProvider}s for the specified tenant whose circuit breaker is closed, creating
+     * them if absent.  Without a {@link ReaderHealthMonitor} all readers are returned.
+     * @param tenantIdentifier then tenant identifier
+     * @return the available readers, empty if read-only work should not be routed to any reader per the
+     * {@link ReaderFailoverPolicy}
+     */
+    protected List<T> getAvailableReaderConnectionProviders(final String tenantIdentifier) {
+        final List<T> readers = this.getOrCreateReaderConnectionProviders(tenantIdentifier);
+        final ReaderHealthMonitor healthMonitor = this.readerHealthMonitor;
+        if (healthMonitor == null) {
+            return readers;
+        }
+        int available = 0;
+        for (T reader : readers) {
+            if (healthMonitor.isAvailable(reader)) {
+                available++;
+            }
+        }
+        if (available == readers.size()) {
+            return readers;
+        }
+        if (available == 0 || this.readerFailoverPolicy == ReaderFailoverPolicy.WRITER) {
+            return List.of();
+        }
+        final List<T> candidates = new ArrayList<>(available);
+        for (T reader : readers) {
+            if (healthMonitor.isAvailable(reader)) {
+                candidates.add(reader);
+            }
+        }
+        return candidates;
+    }
+
+    private List<T> createAndRegisterReaderConnectionProviders(final String tenantIdentifier) {
+        final List<T> readers = this.create(tenantIdentifier, DatabaseRole.READER, this::createReaderConnectionProviders);
+        if (this.replicationLagMonitor != null) {
+            readers.forEach(this.replicationLagMonitor::register);
+        }
+        if (this.readerHealthMonitor != null) {
+            readers.forEach(this.readerHealthMonitor::register);
+        }
+        return readers;
+    }
+
+    private <R> R create(final String tenantIdentifier, final DatabaseRole role, final Function<String, R> factory) {
+        final ProviderCreationEvent event = new ProviderCreationEvent();
+        event.begin();
+        if (!this.routingMetrics.isEnabled()) {
+            final R created = factory.apply(tenantIdentifier);
+            event.commit(tenantIdentifier, role);
+            return created;
+        }
+        final long start = System.nanoTime();
+        final R created = factory.apply(tenantIdentifier);
+        this.routingMetrics.providerCreated(tenantIdentifier, role, System.nanoTime() - start);
+        event.commit(tenantIdentifier, role);
+        return created;
+    }
+
+    /**
+     * Selects one of the given readers of the specified tenant, or the writer if there is none
+     * @param tenantIdentifier then tenant identifier
+     * @param readers the candidate readers
+     * @return the selected reader or the writer if there is no reader
+     */
+    private T selectReader(final String tenantIdentifier, final List<T> readers) {
+        if (readers.isEmpty()) {
+            return this.getOrCreateMasterConnectionProvider(tenantIdentifier);
+        }
+        return readers.size() == 1 ? readers.get(0) : this.readerSelectionStrategy.select(tenantIdentifier, readers);
     }
 
     /**
@@ -121,11 +736,413 @@ public abstract class SpringMultiTenantConnectionProvider<T extends StoppableCon
     protected abstract T createReaderConnectionProvider(final String tenantIdentifier);
 
     /**
-     * Closes all connection providers
+     * Returns new instances of {@link StoppableConnectionProvider} for every reader of the given tenant identifier.  The default
+     * implementation returns a single reader created by {@link #createReaderConnectionProvider(String)}.  Override to spread read
+     * traffic of a tenant across several replicas, or return an empty list for tenants without replicas, whose read-only work is
+     * then served by the writer.
+     * @param tenantIdentifier then tenant identifier
+     * @return a list of new {@link StoppableConnectionProvider} instances for the given tenant identifier
+     */
+    protected List<T> createReaderConnectionProviders(final String tenantIdentifier) {
+        return List.of(this.createReaderConnectionProvider(tenantIdentifier));
+    }
+
+    /**
+     * Returns the strategy used to select among several readers of a tenant. Default is {@link RoundRobinReaderSelectionStrategy}
+     * @return the strategy used to select among several readers of a tenant
+     */
+    public ReaderSelectionStrategy getReaderSelectionStrategy() {
+        return this.readerSelectionStrategy;
+    }
+
+    /**
+     * Sets the strategy used to select among several readers of a tenant
+     * @param readerSelectionStrategy the strategy used to select among several readers of a tenant
+     */
+    public void setReaderSelectionStrategy(final ReaderSelectionStrategy readerSelectionStrategy) {
+        this.readerSelectionStrategy = readerSelectionStrategy;
+    }
+
+    /**
+     * Returns the number of live connection providers for the given role
+     * @param role the role of the connection providers
+     * @return the number of live connection providers for the given role
+     */
+    public int getConnectionProviderCount(final DatabaseRole role) {
+        if (role == DatabaseRole.WRITER) {
+            return this.connectionProviders.size();
+        }
+        int count = 0;
+        for (List<T> readers : this.readOnlyConnectionProviders.values()) {
+            count += readers.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of live writer connection providers
+     * @return the number of live writer connection providers
+     */
+    @ManagedAttribute(description = "Number of live writer connection providers")
+    public int getWriterConnectionProviderCount() {
+        return this.getConnectionProviderCount(DatabaseRole.WRITER);
+    }
+
+    /**
+     * Returns the number of live reader connection providers
+     * @return the number of live reader connection providers
+     */
+    @ManagedAttribute(description = "Number of live reader connection providers")
+    public int getReaderConnectionProviderCount() {
+        return this.getConnectionProviderCount(DatabaseRole.READER);
+    }
+
+    /**
+     * Sets the maximum time to wait for a connection provider being created by another thread. Default is 30 seconds
+     * @param timeout the maximum time to wait for a connection provider being created by another thread
+     */
+    public void setProviderCreationTimeout(final Duration timeout) {
+        this.connectionProviders.setCreationTimeoutMillis(timeout.toMillis());
+        this.readOnlyConnectionProviders.setCreationTimeoutMillis(timeout.toMillis());
+    }
+
+    /**
+     * Sets the backoff after a failed creation of a connection provider during which requests for the same tenant and role fail
+     * fast.  The backoff starts at the initial value and doubles with every consecutive failure up to the maximum value. Default
+     * is 1 second up to 60 seconds
+     * @param initial the initial backoff
+     * @param max the maximum backoff
+     */
+    public void setProviderCreationBackoff(final Duration initial, final Duration max) {
+        this.connectionProviders.setBackoffMillis(initial.toMillis(), max.toMillis());
+        this.readOnlyConnectionProviders.setBackoffMillis(initial.toMillis(), max.toMillis());
+    }
+
+    /**
+     * Returns the identifiers of all tenants with at least one live connection provider
+     * @return the identifiers of all tenants with at least one live connection provider
+     */
+    public Set<String> getTenantIdentifiers() {
+        final Set<String> tenants = new HashSet<>(this.connectionProviders.keys());
+        tenants.addAll(this.readOnlyConnectionProviders.keys());
+        return tenants;
+    }
+
+    /**
+     * Returns the time the connection providers of the given tenant were last used
+     * @param tenantIdentifier the tenant identifier
+     * @return the time of last use in epoch milliseconds or 0 if the tenant has no live connection providers
+     */
+    public long getLastAccess(final String tenantIdentifier) {
+        return Math.max(this.connectionProviders.getLastAccess(tenantIdentifier),
+          this.readOnlyConnectionProviders.getLastAccess(tenantIdentifier));
+    }
+
+    /**
+     * Returns all live connection providers of the given tenant
+     * @param tenantIdentifier the tenant identifier
+     * @return the live writer and reader connection providers of the tenant
+     */
+    protected List<T> getConnectionProviders(final String tenantIdentifier) {
+        final List<T> providers = new ArrayList<>();
+        final T writer = this.connectionProviders.getIfPresent(tenantIdentifier);
+        if (writer != null) {
+            providers.add(writer);
+        }
+        final List<T> readers = this.readOnlyConnectionProviders.getIfPresent(tenantIdentifier);
+        if (readers != null) {
+            providers.addAll(readers);
+        }
+        return providers;
+    }
+
+    /**
+     * Removes all connection providers of the given tenant without stopping them, so that subsequent requests create new ones
+     * @param tenantIdentifier the tenant identifier
+     * @return the removed connection providers, which the caller is responsible for stopping via {@link #stop(StoppableConnectionProvider)}
+     */
+    protected List<T> removeConnectionProviders(final String tenantIdentifier) {
+        final List<T> removed = new ArrayList<>();
+        final T writer = this.connectionProviders.remove(tenantIdentifier);
+        if (writer != null) {
+            removed.add(writer);
+        }
+        final List<T> readers = this.readOnlyConnectionProviders.remove(tenantIdentifier);
+        if (readers != null) {
+            removed.addAll(readers);
+        }
+        if (this.queryResultCache != null) {
+            this.queryResultCache.remove(tenantIdentifier);
+        }
+        return removed;
+    }
+
+    /**
+     * Stops the given connection provider and, if it owns its pool, stops sampling its replication lag and probing its health
+     * @param provider the connection provider
+     */
+    protected void stop(final StoppableConnectionProvider provider) {
+        if (provider.isPoolOwner()) {
+            if (this.replicationLagMonitor != null) {
+                this.replicationLagMonitor.unregister(provider);
+            }
+            if (this.readerHealthMonitor != null) {
+                this.readerHealthMonitor.unregister(provider);
+            }
+        }
+        provider.stop();
+    }
+
+    /**
+     * Returns the metrics receiving routing measurements. Default is {@link RoutingMetrics#NOOP}
+     * @return the metrics receiving routing measurements
+     */
+    public RoutingMetrics getRoutingMetrics() {
+        return this.routingMetrics;
+    }
+
+    /**
+     * Sets the metrics receiving routing measurements, e.g.
+     * {@link com.elihullc.rwsplitter.jpa.hibernate.metrics.MicrometerRoutingMetrics}
+     * @param routingMetrics the metrics receiving routing measurements or null to disable metrics
+     */
+    public void setRoutingMetrics(final RoutingMetrics routingMetrics) {
+        this.routingMetrics = routingMetrics == null ? RoutingMetrics.NOOP : routingMetrics;
+        this.routingMetrics.bindTo(this);
+    }
+
+    /**
+     * Returns the consistency mode used when routing read-only work. Default is {@link ConsistencyMode#EVENTUAL}
+     * @return the consistency mode used when routing read-only work
+     */
+    public ConsistencyMode getConsistencyMode() {
+        return this.consistencyMode;
+    }
+
+    /**
+     * Sets the consistency mode used when routing read-only work.  If {@link ConsistencyMode#READ_YOUR_WRITES} is requested and no
+     * {@link ReplicationLagMonitor} has been set, one using {@link ReplicationLagProbe#MYSQL} is created, which is closed when
+     * replaced, when switching back to {@link ConsistencyMode#EVENTUAL} or when this provider is closed.
+     * @param consistencyMode the consistency mode used when routing read-only work
+     */
+    public void setConsistencyMode(final ConsistencyMode consistencyMode) {
+        if (consistencyMode == ConsistencyMode.READ_YOUR_WRITES && this.replicationLagMonitor == null) {
+            this.setReplicationLagMonitor(new ReplicationLagMonitor(ReplicationLagProbe.MYSQL));
+            this.replicationLagMonitorCreated = true;
+        } else if (consistencyMode == ConsistencyMode.EVENTUAL && this.replicationLagMonitorCreated) {
+            this.setReplicationLagMonitor(null);
+        }
+        this.consistencyMode = consistencyMode;
+    }
+
+    /**
+     * Returns the tracker of write markers used by {@link ConsistencyMode#READ_YOUR_WRITES}
+     * @return the tracker of write markers
+     */
+    public WriteMarkerTracker getWriteMarkerTracker() {
+        return this.writeMarkerTracker;
+    }
+
+    /**
+     * Sets the tracker of write markers used by {@link ConsistencyMode#READ_YOUR_WRITES}
+     * @param writeMarkerTracker the tracker of write markers
+     */
+    public void setWriteMarkerTracker(final WriteMarkerTracker writeMarkerTracker) {
+        this.writeMarkerTracker = writeMarkerTracker;
+    }
+
+    /**
+     * Returns the monitor sampling the replication lag of readers or null if none is set
+     * @return the monitor sampling the replication lag of readers
+     */
+    public ReplicationLagMonitor getReplicationLagMonitor() {
+        return this.replicationLagMonitor;
+    }
+
+    /**
+     * Sets the monitor sampling the replication lag of readers.  All readers created so far are registered with the monitor, which
+     * is closed when this provider is closed.  The replaced monitor stops sampling them; it is closed as well if it was created by
+     * {@link #setConsistencyMode(ConsistencyMode)}.
+     * @param replicationLagMonitor the monitor sampling the replication lag of readers or null to stop sampling
+     */
+    public void setReplicationLagMonitor(final ReplicationLagMonitor replicationLagMonitor) {
+        final ReplicationLagMonitor previous = this.replicationLagMonitor;
+        if (previous == replicationLagMonitor) {
+            return;
+        }
+        if (previous != null) {
+            if (this.replicationLagMonitorCreated) {
+                previous.close();
+            } else {
+                this.readOnlyConnectionProviders.values().forEach(readers -> readers.forEach(previous::unregister));
+            }
+        }
+        this.replicationLagMonitorCreated = false;
+        this.replicationLagMonitor = replicationLagMonitor;
+        if (replicationLagMonitor != null) {
+            this.readOnlyConnectionProviders.values().forEach(readers -> readers.forEach(replicationLagMonitor::register));
+        }
+    }
+
+    /**
+     * Whether statement-level routing is enabled. Default is false
+     * @return true if statement-level routing is enabled, false otherwise
+     */
+    public boolean isStatementRoutingEnabled() {
+        return this.statementClassifier != null;
+    }
+
+    /**
+     * Sets whether statement-level routing is enabled.  If enabled, writer connections acquired outside of a Spring transaction
+     * prepare statements classified as reads by the {@link StatementClassifier} on a reader connection while in auto-commit mode.
+     * @param statementRoutingEnabled true to enable statement-level routing
+     */
+    public void setStatementRoutingEnabled(final boolean statementRoutingEnabled) {
+        this.statementClassifier = statementRoutingEnabled ? new StatementClassifier() : null;
+    }
+
+    /**
+     * Sets the classifier used by statement-level routing and enables it
+     * @param statementClassifier the classifier of statements or null to disable statement-level routing
+     */
+    public void setStatementClassifier(final StatementClassifier statementClassifier) {
+        this.statementClassifier = statementClassifier;
+    }
+
+    /**
+     * Returns the cache of reader query results or null if none is set
+     * @return the cache of reader query results
+     */
+    public QueryResultCache getQueryResultCache() {
+        return this.queryResultCache;
+    }
+
+    /**
+     * Sets the cache serving repeated read-only queries routed to readers and invalidated by writes through writer connections
+     * @param queryResultCache the cache of reader query results or null to disable caching
+     */
+    public void setQueryResultCache(final QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    /**
+     * Returns the detector of demoted writers or null if none is set
+     * @return the detector of demoted writers
+     */
+    public WriterFailoverDetector getWriterFailoverDetector() {
+        return this.writerFailoverDetector;
+    }
+
+    /**
+     * Sets the detector of demoted writers.  Writer connections are then wrapped to report their exceptions to the detector, which
+     * is closed when this provider is closed.
+     * @param writerFailoverDetector the detector of demoted writers
+     */
+    public void setWriterFailoverDetector(final WriterFailoverDetector writerFailoverDetector) {
+        this.writerFailoverDetector = writerFailoverDetector;
+    }
+
+    /**
+     * Returns the maximum time replaced connection providers wait for in-flight connections before being stopped. Default is 30
+     * seconds
+     * @return the maximum time replaced connection providers wait for in-flight connections
+     */
+    public Duration getDrainTimeout() {
+        return this.drainTimeout;
+    }
+
+    /**
+     * Sets the maximum time replaced connection providers wait for in-flight connections before being stopped
+     * @param drainTimeout the maximum time replaced connection providers wait for in-flight connections
+     */
+    public void setDrainTimeout(final Duration drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Returns the monitor keeping the circuit breakers of readers or null if none is set
+     * @return the monitor keeping the circuit breakers of readers
+     */
+    public ReaderHealthMonitor getReaderHealthMonitor() {
+        return this.readerHealthMonitor;
+    }
+
+    /**
+     * Sets the monitor keeping the circuit breakers of readers.  All readers created so far are registered with the monitor, which
+     * is closed when this provider is closed.
+     * @param readerHealthMonitor the monitor keeping the circuit breakers of readers
+     */
+    public void setReaderHealthMonitor(final ReaderHealthMonitor readerHealthMonitor) {
+        this.readerHealthMonitor = readerHealthMonitor;
+        this.readOnlyConnectionProviders.values().forEach(readers -> readers.forEach(readerHealthMonitor::register));
+    }
+
+    /**
+     * Returns how read-only work is routed when readers are unavailable. Default is {@link ReaderFailoverPolicy#READERS_THEN_WRITER}
+     * @return how read-only work is routed when readers are unavailable
+     */
+    public ReaderFailoverPolicy getReaderFailoverPolicy() {
+        return this.readerFailoverPolicy;
+    }
+
+    /**
+     * Sets how read-only work is routed when readers are unavailable, see {@link ReaderHealthMonitor}
+     * @param readerFailoverPolicy how read-only work is routed when readers are unavailable
+     */
+    public void setReaderFailoverPolicy(final ReaderFailoverPolicy readerFailoverPolicy) {
+        this.readerFailoverPolicy = readerFailoverPolicy;
+    }
+
+    /**
+     * Closes all connection providers, including those still draining, and the monitors set on this provider, stopping their threads
      */
     @Override
     public void close() {
-        this.connectionProviders.values().forEach(StoppableConnectionProvider::stop);
-        this.readOnlyConnectionProviders.values().forEach(StoppableConnectionProvider::stop);
+        final ProviderShutdownEvent event = new ProviderShutdownEvent();
+        event.begin();
+        if (this.writerFailoverDetector != null) {
+            this.writerFailoverDetector.close();
+        }
+        if (this.readerHealthMonitor != null) {
+            this.readerHealthMonitor.close();
+        }
+        if (this.replicationLagMonitor != null) {
+            this.replicationLagMonitor.close();
+        }
+        final List<T> stopped = new ArrayList<>(this.connectionProviders.values());
+        this.readOnlyConnectionProviders.values().forEach(stopped::addAll);
+        stopped.forEach(this::stop);
+        this.drainer.close();
+        event.commit("close", stopped.size());
+    }
+
+    /**
+     * Records a write marker for a tenant after the transaction it is registered with commits
+     */
+    private static final class WriteMarkerSynchronization implements TransactionSynchronization {
+
+        private final WriteMarkerTracker tracker;
+        private final String tenantIdentifier;
+
+        private WriteMarkerSynchronization(final WriteMarkerTracker tracker, final String tenantIdentifier) {
+            this.tracker = tracker;
+            this.tenantIdentifier = tenantIdentifier;
+        }
+
+        @Override
+        public void afterCommit() {
+            this.tracker.recordWrite(this.tenantIdentifier);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof WriteMarkerSynchronization other && this.tracker == other.tracker
+              && this.tenantIdentifier.equals(other.tenantIdentifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(this.tracker), this.tenantIdentifier);
+        }
     }
 }
@@ -1,10 +1,11 @@
 package com.elihullc.rwsplitter.jpa.hibernate;
 
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+
 import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.function.Supplier;
 
 import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
@@ -15,7 +16,12 @@ import org.slf4j.LoggerFactory;
  * Class implementing {@link CurrentTenantIdentifierResolver} that returns the tenant for the current thread.  First the
  * thread-local value of {@link #getCurrentTenant()} is used, if present.  Second, an attempt is made to retrieve the tenant
  * from either the default or supplied {@link Supplier<String>}.  Finally, if both of the previous values are null the value
- * of {@link #getDefaultTenant()} is used.
+ * of {@link #getDefaultTenant()} is used.  This order is made up of {@link TenantSource}s that can be replaced or extended using
+ * {@link #setTenantSources(List)}.  The chain of sources is assembled once, on first use or whenever the configuration changes,
+ * so resolving the tenant does not allocate.
+ *
+ * The thread-local tenants are held by the selected {@link com.elihullc.rwsplitter.jpa.context.ContextEngine}, by default in a
+ * stack confined to the current thread so none of the static accessors need to synchronize.
  */
 public class SpringTenantIdentifierResolver implements CurrentTenantIdentifierResolver<String>, Serializable {
 
@@ -24,35 +30,121 @@ public class SpringTenantIdentifierResolver implements CurrentTenantIdentifierRe
 
     public static final String DEFAULT_TENANT = "master";
 
-    private static final ThreadLocal<List<String>> CURRENT_TENANT = new ThreadLocal<>();
-
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private String defaultTenant = DEFAULT_TENANT;
     private Supplier<String> tenantSupplier;
+    private List<TenantSource> tenantSources;
+    private boolean tenantSourceMetricsEnabled;
+
+    private transient volatile TenantSource[] chain;
 
     /**
      * {@inheritDoc}
      */
     @Override
     public String resolveCurrentTenantIdentifier() {
-        final String tenantId = Optional.ofNullable(getCurrentTenant())
-          .orElseGet(() -> Optional.ofNullable(
-            Optional.ofNullable(this.tenantSupplier).orElse(this.instantiateDefaultTenantSupplier()).get())
-              .orElse(getDefaultTenant()));
+        TenantSource[] sources = this.chain;
+        if (sources == null) {
+            sources = this.buildChain();
+        }
+        String tenantId = null;
+        for (TenantSource source : sources) {
+            tenantId = source.getTenant();
+            if (tenantId != null) {
+                break;
+            }
+        }
+        if (tenantId == null) {
+            tenantId = getDefaultTenant();
+        }
         this.logger.trace("Resolved current tenant identifier to {}", tenantId);
         return tenantId;
     }
 
+    private synchronized TenantSource[] buildChain() {
+        if (this.chain == null) {
+            if (this.tenantSupplier == null) {
+                this.tenantSupplier = this.instantiateDefaultTenantSupplier();
+            }
+            final List<TenantSource> sources = this.tenantSources == null ? this.getDefaultTenantSources() : this.tenantSources;
+            final TenantSource[] built = new TenantSource[sources.size()];
+            for (int i = 0; i < built.length; i++) {
+                built[i] = this.tenantSourceMetricsEnabled ? new MeteredTenantSource(sources.get(i)) : sources.get(i);
+            }
+            this.chain = built;
+        }
+        return this.chain;
+    }
+
     @SuppressWarnings("unchecked")
     private Supplier<String> instantiateDefaultTenantSupplier() {
         try {
             final Class<?> klass = Class.forName("com.elihullc.rwsplitter.jpa.hibernate.SpringMVCTenantSupplier");
-            this.tenantSupplier = (Supplier<String>)klass.newInstance();
-        } catch (IllegalAccessException | InstantiationException | ClassNotFoundException e) {
+            return (Supplier<String>)klass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
             throw new RuntimeException("Error instantiating default tenant supplier", e);
         }
-        return this.tenantSupplier;
+    }
+
+    /**
+     * Returns the built-in chain of tenant sources: the thread-local tenant, the tenant supplier and the default tenant
+     * @return the built-in chain of tenant sources
+     */
+    public List<TenantSource> getDefaultTenantSources() {
+        return List.of(new ThreadLocalTenantSource(this), new SupplierTenantSource(this), new DefaultTenantSource(this));
+    }
+
+    /**
+     * Returns the configured chain of tenant sources or null if the built-in chain is used
+     * @return the configured chain of tenant sources
+     */
+    public List<TenantSource> getTenantSources() {
+        return this.tenantSources;
+    }
+
+    /**
+     * Sets the ordered chain of tenant sources. If none of the sources supplies a tenant {@link #getDefaultTenant()} is used.
+     * @param tenantSources the ordered chain of tenant sources or null to use {@link #getDefaultTenantSources()}
+     */
+    public synchronized void setTenantSources(final List<TenantSource> tenantSources) {
+        this.tenantSources = tenantSources == null ? null : List.copyOf(tenantSources);
+        this.chain = null;
+    }
+
+    /**
+     * Whether the time spent in each tenant source is measured. Default is false
+     * @return true if the time spent in each tenant source is measured, false otherwise
+     */
+    public boolean isTenantSourceMetricsEnabled() {
+        return this.tenantSourceMetricsEnabled;
+    }
+
+    /**
+     * Sets whether the time spent in each tenant source is measured, see {@link #getTenantSourceMetrics()}
+     * @param tenantSourceMetricsEnabled true to measure the time spent in each tenant source
+     */
+    public synchronized void setTenantSourceMetricsEnabled(final boolean tenantSourceMetricsEnabled) {
+        this.tenantSourceMetricsEnabled = tenantSourceMetricsEnabled;
+        this.chain = null;
+    }
+
+    /**
+     * Returns the metrics of each tenant source in chain order, or an empty list if metrics are disabled
+     * @return the metrics of each tenant source
+     */
+    public List<MeteredTenantSource> getTenantSourceMetrics() {
+        TenantSource[] sources = this.chain;
+        if (sources == null) {
+            sources = this.buildChain();
+        }
+        final List<MeteredTenantSource> metrics = new ArrayList<>(sources.length);
+        for (TenantSource source : sources) {
+            if (source instanceof MeteredTenantSource metered) {
+                metrics.add(metered);
+            }
+        }
+        return metrics;
     }
 
     /**
@@ -83,8 +175,9 @@ public class SpringTenantIdentifierResolver implements CurrentTenantIdentifierRe
      * Sets the current tenant supplier
      * @param tenantSupplier the tenant supplier
      */
-    public void setTenantSupplier(Supplier<String> tenantSupplier) {
+    public synchronized void setTenantSupplier(Supplier<String> tenantSupplier) {
         this.tenantSupplier = tenantSupplier;
+        this.chain = null;
     }
 
     /**
@@ -99,61 +192,95 @@ public class SpringTenantIdentifierResolver implements CurrentTenantIdentifierRe
      * Returns all tenants that are queued within this thread
      * @return all tenants that are queued within this thread
      */
-    public static synchronized List<String> getAllTenants() {
-        List<String> tenants = CURRENT_TENANT.get();
-        if (tenants == null) {
-            tenants = new ArrayList<>();
-        } else {
-            tenants = new ArrayList<>(tenants);
-        }
-        return tenants;
+    public static List<String> getAllTenants() {
+        return ContextEngines.getEngine().getAllTenants();
     }
 
     /**
      * Gets the value of the current tenant thread-local
      * @return the value of the current tenant thread-local
      */
-    public synchronized String getCurrentTenant() {
-        List<String> tenants = CURRENT_TENANT.get();
-        if (tenants == null) {
-            return null;
-        }
-        return tenants.get(tenants.size() - 1);
+    public String getCurrentTenant() {
+        return ContextEngines.getEngine().getTenant();
     }
 
     /**
      * Sets the value of the current tenant thread-local to the provided tenant identifier
      * @param tenantIdentifier the tenant identifier
      */
-    public static synchronized void setCurrentTenant(final String tenantIdentifier) {
-        List<String> tenants = CURRENT_TENANT.get();
-        if (tenants == null) {
-            tenants = new ArrayList<>();
-        }
-        tenants.add(tenantIdentifier);
-        CURRENT_TENANT.set(tenants);
+    public static void setCurrentTenant(final String tenantIdentifier) {
+        ContextEngines.getEngine().pushTenant(tenantIdentifier);
     }
 
     /**
      * Resets the current tenant thread-local value to the previous value or removes it if none exists
      */
-    public static synchronized void resetCurrentTenant() {
-        List<String> tenants = CURRENT_TENANT.get();
-        if (tenants == null) {
-            return;
-        }
-        tenants.remove(tenants.size() - 1);
-        if (tenants.isEmpty()) {
-            CURRENT_TENANT.remove();
-        } else {
-            CURRENT_TENANT.set(tenants);
-        }
+    public static void resetCurrentTenant() {
+        ContextEngines.getEngine().popTenant();
     }
 
     /**
      * Removes all tenants from current thread
      */
-    public static synchronized void clearAllTenants() {
-        CURRENT_TENANT.set(new ArrayList<>());
+    public static void clearAllTenants() {
+        ContextEngines.getEngine().clearTenants();
+    }
+
+    private static final class ThreadLocalTenantSource implements TenantSource {
+
+        private final SpringTenantIdentifierResolver resolver;
+
+        private ThreadLocalTenantSource(final SpringTenantIdentifierResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public String getTenant() {
+            return this.resolver.getCurrentTenant();
+        }
+
+        @Override
+        public String getName() {
+            return "threadLocal";
+        }
+    }
+
+    private static final class SupplierTenantSource implements TenantSource {
+
+        private final SpringTenantIdentifierResolver resolver;
+
+        private SupplierTenantSource(final SpringTenantIdentifierResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public String getTenant() {
+            final Supplier<String> supplier = this.resolver.getTenantSupplier();
+            return supplier == null ? null : supplier.get();
+        }
+
+        @Override
+        public String getName() {
+            return "supplier";
+        }
+    }
+
+    private static final class DefaultTenantSource implements TenantSource {
+
+        private final SpringTenantIdentifierResolver resolver;
+
+        private DefaultTenantSource(final SpringTenantIdentifierResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public String getTenant() {
+            return this.resolver.getDefaultTenant();
+        }
+
+        @Override
+        public String getName() {
+            return "default";
+        }
     }
 }
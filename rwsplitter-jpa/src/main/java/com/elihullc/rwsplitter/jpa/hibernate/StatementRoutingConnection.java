@@ -0,0 +1,147 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.routing.StatementClassifier;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dynamic proxy of a writer {@link Connection} that, while in auto-commit mode, prepares statements classified as reads by a
+ * {@link StatementClassifier} on a reader connection instead.  The reader connection is acquired on the first routed statement and
+ * closed together with the writer connection.  If no reader is available or acquiring its connection fails, e.g. because its pool
+ * timed out, reads stay on the writer for the rest of the connection's use.  Statements created with
+ * {@link Connection#createStatement()} and everything else run on the writer.
+ */
+final class StatementRoutingConnection implements InvocationHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementRoutingConnection.class);
+
+    private final Connection writer;
+    private final StatementClassifier classifier;
+    private final ReaderConnectionFactory readerFactory;
+    private boolean autoCommit;
+    private Connection reader;
+    private boolean readerUnavailable;
+
+    private StatementRoutingConnection(final Connection writer, final StatementClassifier classifier,
+      final ReaderConnectionFactory readerFactory) throws SQLException {
+        this.writer = writer;
+        this.classifier = classifier;
+        this.readerFactory = readerFactory;
+        this.autoCommit = writer.getAutoCommit();
+    }
+
+    /**
+     * Returns a proxy of the given writer connection routing reads to connections from the given factory
+     * @param writer the writer connection
+     * @param classifier the classifier of statements
+     * @param readerFactory the factory of reader connections
+     * @return the proxy
+     * @throws SQLException if the auto-commit mode of the writer connection cannot be determined
+     */
+    static Connection wrap(final Connection writer, final StatementClassifier classifier, final ReaderConnectionFactory readerFactory)
+      throws SQLException {
+        return (Connection)Proxy.newProxyInstance(StatementRoutingConnection.class.getClassLoader(),
+          new Class<?>[] { Connection.class }, new StatementRoutingConnection(writer, classifier, readerFactory));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "setAutoCommit":
+                this.autoCommit = (Boolean)args[0];
+                break;
+            case "prepareStatement":
+                if (this.autoCommit && this.classifier.isRead((String)args[0])) {
+                    final Connection readerConnection = this.getReader();
+                    if (readerConnection != null) {
+                        return invoke(readerConnection, method, args);
+                    }
+                }
+                break;
+            case "close":
+                return this.close(method, args);
+            default:
+                break;
+        }
+        return invoke(this.writer, method, args);
+    }
+
+    private static Object invoke(final Connection target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Closes the reader connection, if any, and the writer connection even if closing the reader fails.  A failure to close the
+     * writer is thrown with the failure to close the reader suppressed.
+     */
+    private Object close(final Method method, final Object[] args) throws Throwable {
+        Throwable readerFailure = null;
+        try {
+            this.closeReader();
+        } catch (Throwable e) {
+            readerFailure = e;
+        }
+        try {
+            invoke(this.writer, method, args);
+        } catch (Throwable e) {
+            if (readerFailure != null) {
+                e.addSuppressed(readerFailure);
+            }
+            throw e;
+        }
+        if (readerFailure != null) {
+            throw readerFailure;
+        }
+        return null;
+    }
+
+    private Connection getReader() {
+        if (this.reader == null && !this.readerUnavailable) {
+            try {
+                this.reader = this.readerFactory.getConnection();
+            } catch (SQLException e) {
+                LOGGER.warn("Unable to acquire a reader connection, running reads on the writer", e);
+            }
+            this.readerUnavailable = this.reader == null;
+        }
+        return this.reader;
+    }
+
+    private void closeReader() throws SQLException {
+        if (this.reader != null) {
+            final Connection readerConnection = this.reader;
+            this.reader = null;
+            readerConnection.close();
+        }
+    }
+
+    /**
+     * Factory of the reader connection statements are routed to
+     */
+    @FunctionalInterface
+    interface ReaderConnectionFactory {
+
+        /**
+         * Returns a reader connection
+         * @return a reader connection or null if no reader is available, in which case reads stay on the writer
+         * @throws SQLException if a connection cannot be acquired, in which case reads stay on the writer as well
+         */
+        Connection getConnection() throws SQLException;
+    }
+}
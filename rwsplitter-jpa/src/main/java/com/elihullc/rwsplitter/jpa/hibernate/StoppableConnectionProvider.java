@@ -13,4 +13,41 @@ public interface StoppableConnectionProvider extends ConnectionProvider, Stoppab
      * @return true if read-only, false otherwise
      */
     boolean isReadOnly();
+
+    /**
+     * The relative weight of this connection provider when selecting among several readers. Default is 1.
+     * @return the relative weight of this connection provider
+     */
+    default int getWeight() {
+        return 1;
+    }
+
+    /**
+     * The availability zone of the database this connection provider connects to, used to prefer nearby readers. Default is null,
+     * i.e. unknown.
+     * @return the availability zone or null if unknown
+     */
+    default String getZone() {
+        return null;
+    }
+
+    /**
+     * Returns the connection provider owning the pool this connection provider's connections come from.  Providers borrowing from a
+     * pool owned by another provider return that provider, so that per-pool state such as replication lag and circuit breakers is
+     * kept once per pool rather than once per tenant. Default is this connection provider
+     * @return the connection provider owning the pool
+     */
+    default StoppableConnectionProvider getPoolOwner() {
+        return this;
+    }
+
+    /**
+     * Whether this connection provider owns the pool its connections come from, so that stopping it closes the pool. Providers
+     * borrowing from a pool owned by another provider return false: they hold no connections of their own, need not be drained
+     * before being stopped, and do not count towards connection budgets.
+     * @return true if this connection provider owns its pool, false otherwise
+     */
+    default boolean isPoolOwner() {
+        return this.getPoolOwner() == this;
+    }
 }
@@ -1,9 +1,13 @@
 package com.elihullc.rwsplitter.jpa.hibernate;
 
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+
 import java.util.concurrent.Callable;
 
 /**
  * A {@link Callable} that sets the tenant on the current thread before invocation and resets it after invocation
+ * To carry all tenants and the {@link com.elihullc.rwsplitter.jpa.DatabaseRole} of the submitting thread use
+ * {@link com.elihullc.rwsplitter.jpa.context.ContextSnapshot} instead.
  */
 public class TenantSettingCallable<T> implements Callable<T> {
 
@@ -17,11 +21,6 @@ public class TenantSettingCallable<T> implements Callable<T> {
 
     @Override
     public T call() throws Exception {
-        SpringTenantIdentifierResolver.setCurrentTenant(this.tenantIdentifier);
-        try {
-            return this.delegate.call();
-        } finally {
-            SpringTenantIdentifierResolver.resetCurrentTenant();
-        }
+        return ContextEngines.getEngine().withTenant(this.tenantIdentifier, this.delegate::call);
     }
 }
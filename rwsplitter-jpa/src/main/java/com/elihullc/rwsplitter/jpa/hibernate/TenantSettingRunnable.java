@@ -1,7 +1,11 @@
 package com.elihullc.rwsplitter.jpa.hibernate;
 
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+
 /**
  * A {@link Runnable} that sets the tenant on the current thread before invocation and resets it after invocation
+ * To carry all tenants and the {@link com.elihullc.rwsplitter.jpa.DatabaseRole} of the submitting thread use
+ * {@link com.elihullc.rwsplitter.jpa.context.ContextSnapshot} instead.
  */
 public class TenantSettingRunnable implements Runnable {
 
@@ -15,11 +19,9 @@ public class TenantSettingRunnable implements Runnable {
 
     @Override
     public void run() {
-        SpringTenantIdentifierResolver.setCurrentTenant(this.tenantIdentifier);
-        try {
+        ContextEngines.getEngine().withTenant(this.tenantIdentifier, () -> {
             this.delegate.run();
-        } finally {
-            SpringTenantIdentifierResolver.resetCurrentTenant();
-        }
+            return null;
+        });
     }
 }
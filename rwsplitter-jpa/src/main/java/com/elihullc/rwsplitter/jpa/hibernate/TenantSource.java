@@ -0,0 +1,24 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+/**
+ * A source of the current tenant identifier consulted by {@link SpringTenantIdentifierResolver}.  Sources are consulted in order
+ * and the first non-null tenant identifier wins.  Implementations are invoked on every session open and should neither block nor
+ * allocate.
+ */
+@FunctionalInterface
+public interface TenantSource {
+
+    /**
+     * Returns the current tenant identifier
+     * @return the current tenant identifier or null if this source has none
+     */
+    String getTenant();
+
+    /**
+     * Returns the name of this source used when reporting metrics. Default is the simple class name
+     * @return the name of this source
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,201 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.WriterRoleProbe;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects writers of a {@link SpringMultiTenantConnectionProvider} that have been demoted to read-only instances, as happens to
+ * the old writer endpoint after an Aurora failover, and rebuilds only the writer pool of the affected tenant, see
+ * {@link SpringMultiTenantConnectionProvider#rebuild(String, DatabaseRole)}.
+ *
+ * Once set on the provider, writer connections report every {@link SQLException} to {@link #reportError(String, SQLException)}.
+ * Errors classified by {@link #isReadOnlyError(SQLException)} schedule a check of the writer with the {@link WriterRoleProbe}.
+ * Checks of a tenant run at most once per {@link #getMinCheckInterval()}, so bursts of failing writes cost one probe query.
+ *
+ * Since a demoted writer is only noticed on the next write otherwise, which may never come for a tenant that mostly reads, the
+ * writers of all live tenants are also checked every {@link #DEFAULT_CHECK_INTERVAL} milliseconds, or the interval given to the
+ * constructor.  Such a round probes each pool once, see {@link StoppableConnectionProvider#getPoolOwner()}, however many tenants
+ * borrow from it, one probe at a time on this detector's thread.
+ */
+public class WriterFailoverDetector implements Closeable {
+
+    /**
+     * MySQL error code of ER_OPTION_PREVENTS_STATEMENT, e.g. "The MySQL server is running with the --read-only option"
+     */
+    public static final int ER_OPTION_PREVENTS_STATEMENT = 1290;
+
+    /**
+     * MySQL error code of ER_READ_ONLY_MODE
+     */
+    public static final int ER_READ_ONLY_MODE = 1836;
+
+    /**
+     * Default interval between two rounds of checks of all writers in milliseconds
+     */
+    public static final long DEFAULT_CHECK_INTERVAL = 30000L;
+
+    private final SpringMultiTenantConnectionProvider<?> provider;
+    private final WriterRoleProbe probe;
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Long> lastCheck = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private volatile Duration minCheckInterval = Duration.ofSeconds(2);
+
+    public WriterFailoverDetector(final SpringMultiTenantConnectionProvider<?> provider) {
+        this(provider, WriterRoleProbe.INNODB_READ_ONLY);
+    }
+
+    public WriterFailoverDetector(final SpringMultiTenantConnectionProvider<?> provider, final WriterRoleProbe probe) {
+        this(provider, probe, DEFAULT_CHECK_INTERVAL);
+    }
+
+    public WriterFailoverDetector(final SpringMultiTenantConnectionProvider<?> provider, final WriterRoleProbe probe,
+      final long checkIntervalMillis) {
+        this.provider = provider;
+        this.probe = probe;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-writer-failover");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::checkAll, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether the given exception, or one of its causes, reports that the server rejected a write because it is read-only
+     * @param e the exception
+     * @return true if the server is read-only, false otherwise
+     */
+    public static boolean isReadOnlyError(final SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sqlException) {
+                final int errorCode = sqlException.getErrorCode();
+                if (errorCode == ER_OPTION_PREVENTS_STATEMENT || errorCode == ER_READ_ONLY_MODE) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports an exception thrown by a writer connection of the given tenant, scheduling a check if it is a read-only error
+     * @param tenantIdentifier the tenant identifier
+     * @param e the exception
+     */
+    public void reportError(final String tenantIdentifier, final SQLException e) {
+        if (isReadOnlyError(e)) {
+            this.logger.debug("Writer of tenant {} rejected a write as read-only", tenantIdentifier);
+            this.requestCheck(tenantIdentifier);
+        }
+    }
+
+    /**
+     * Schedules a check of the writer of the given tenant, no sooner than {@link #getMinCheckInterval()} after the previous one
+     * @param tenantIdentifier the tenant identifier
+     */
+    public void requestCheck(final String tenantIdentifier) {
+        if (!this.pending.add(tenantIdentifier)) {
+            return;
+        }
+        final long previous = this.lastCheck.getOrDefault(tenantIdentifier, 0L);
+        final long delay = Math.max(0L, previous + this.minCheckInterval.toMillis() - System.currentTimeMillis());
+        this.scheduler.schedule(() -> this.check(tenantIdentifier), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules a check of the writer of every live tenant, once per pool, and forgets the tenants that are gone
+     */
+    protected void checkAll() {
+        final Set<String> tenantIdentifiers = this.provider.getTenantIdentifiers();
+        this.lastCheck.keySet().retainAll(tenantIdentifiers);
+        this.pending.retainAll(tenantIdentifiers);
+        final Set<StoppableConnectionProvider> pools = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String tenantIdentifier : tenantIdentifiers) {
+            final StoppableConnectionProvider writer = this.provider.getMasterConnectionProviderIfPresent(tenantIdentifier);
+            if (writer != null && pools.add(writer.getPoolOwner())) {
+                this.requestCheck(tenantIdentifier);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the writer of the given tenant is read-only and, if so, rebuilds it
+     * @param tenantIdentifier the tenant identifier
+     */
+    protected void check(final String tenantIdentifier) {
+        this.pending.remove(tenantIdentifier);
+        final StoppableConnectionProvider writer = this.provider.getMasterConnectionProviderIfPresent(tenantIdentifier);
+        if (writer == null) {
+            this.lastCheck.remove(tenantIdentifier);
+            return;
+        }
+        this.lastCheck.put(tenantIdentifier, System.currentTimeMillis());
+        try {
+            final boolean readOnly;
+            final Connection connection = writer.getConnection();
+            try {
+                readOnly = this.probe.isReadOnly(connection);
+            } finally {
+                writer.closeConnection(connection);
+            }
+            if (!readOnly) {
+                return;
+            }
+            this.logger.warn("Writer of tenant {} has been demoted to read-only, rebuilding it", tenantIdentifier);
+            this.provider.rebuild(tenantIdentifier, DatabaseRole.WRITER);
+        } catch (SQLException | RuntimeException e) {
+            this.logger.warn("Unable to check or rebuild writer of tenant {}, retrying", tenantIdentifier, e);
+            this.requestCheck(tenantIdentifier);
+        }
+    }
+
+    /**
+     * Returns the tenants whose last check is remembered
+     * @return the tenant identifiers
+     */
+    Set<String> getCheckedTenants() {
+        return this.lastCheck.keySet();
+    }
+
+    /**
+     * Stops checking writers
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Returns the minimum time between two checks of the same tenant. Default is 2 seconds
+     * @return the minimum time between two checks of the same tenant
+     */
+    public Duration getMinCheckInterval() {
+        return this.minCheckInterval;
+    }
+
+    /**
+     * Sets the minimum time between two checks of the same tenant
+     * @param minCheckInterval the minimum time between two checks of the same tenant
+     */
+    public void setMinCheckInterval(final Duration minCheckInterval) {
+        this.minCheckInterval = minCheckInterval;
+    }
+}
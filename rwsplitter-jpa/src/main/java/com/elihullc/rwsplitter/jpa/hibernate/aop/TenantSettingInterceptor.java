@@ -1,6 +1,6 @@
 package com.elihullc.rwsplitter.jpa.hibernate.aop;
 
-import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
@@ -10,7 +10,7 @@ import org.springframework.core.PriorityOrdered;
 import org.springframework.stereotype.Component;
 
 /**
- * Aspect that intercepts all public methods annotated with {@link CurrentTenant} and sets the tenant on the current thread based on
+ * Aspect that intercepts all public methods annotated with {@link CurrentTenant} and binds the tenant for their duration based on
  * the value of {@link CurrentTenant#value()}.
  */
 @Aspect
@@ -24,12 +24,7 @@ public class TenantSettingInterceptor implements PriorityOrdered {
 
     @Around(value = "anyPublicMethod() && @annotation(currentTenant)", argNames = "currentTenant")
     public Object around(final ProceedingJoinPoint joinPoint, final CurrentTenant currentTenant) throws Throwable {
-        SpringTenantIdentifierResolver.setCurrentTenant(currentTenant.value());
-        try {
-            return joinPoint.proceed();
-        } finally {
-            SpringTenantIdentifierResolver.resetCurrentTenant();
-        }
+        return ContextEngines.getEngine().withTenant(currentTenant.value(), joinPoint::proceed);
     }
 
     /**
@@ -0,0 +1,135 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+
+/**
+ * Immutable, disconnected copy of the rows and metadata of a query result.  Values are kept as captured by
+ * {@link ResultValues#toCacheable(Object)} and copied again when read, so a result can be read by many threads at once.
+ */
+final class CachedResult {
+
+    private final ResultSetMetaData metaData;
+    private final int columnCount;
+    private final Map<String, Integer> columns;
+    private final List<Object[]> rows;
+    private final long size;
+
+    private CachedResult(final ResultSetMetaData metaData, final int columnCount, final Map<String, Integer> columns,
+      final List<Object[]> rows, final long size) {
+        this.metaData = metaData;
+        this.columnCount = columnCount;
+        this.columns = columns;
+        this.rows = rows;
+        this.size = size;
+    }
+
+    /**
+     * Reads the given result into memory.  Reading stops at the first value that cannot be cached or once the estimated size
+     * exceeds the given maximum, in which case the returned view serves the rows read so far and then continues with the rest of
+     * the given result.
+     * @param live the result to read
+     * @param statement the statement returned by {@link ResultSet#getStatement()}
+     * @param maxSize the maximum estimated size in bytes
+     * @return the view of the captured result, see {@link CachedResultSet#getCompleteResult()}
+     * @throws SQLException if the result cannot be read
+     */
+    static CachedResultSet capture(final ResultSet live, final Statement statement, final long maxSize) throws SQLException {
+        final ResultSetMetaData liveMetaData = live.getMetaData();
+        final int columnCount = liveMetaData.getColumnCount();
+        final RowSetMetaDataImpl metaData = copyMetaData(liveMetaData, columnCount);
+        if (metaData == null) {
+            return new CachedResultSet(new CachedResult(null, columnCount, Map.of(), List.of(), 0L), statement, live, false);
+        }
+        final Map<String, Integer> columns = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int column = 1; column <= columnCount; column++) {
+            columns.putIfAbsent(liveMetaData.getColumnLabel(column), column);
+        }
+        for (int column = 1; column <= columnCount; column++) {
+            columns.putIfAbsent(liveMetaData.getColumnName(column), column);
+        }
+        final List<Object[]> rows = new ArrayList<>();
+        long size = 128L + 256L * columnCount;
+        while (live.next()) {
+            final Object[] row = new Object[columnCount];
+            long rowSize = 16L + 8L * columnCount;
+            for (int column = 0; column < columnCount; column++) {
+                final Object value = ResultValues.toCacheable(live.getObject(column + 1));
+                if (value == ResultValues.UNCACHEABLE) {
+                    return new CachedResultSet(new CachedResult(metaData, columnCount, columns, rows, size), statement, live, true);
+                }
+                row[column] = value;
+                rowSize += ResultValues.estimateSize(value);
+            }
+            rows.add(row);
+            size += rowSize;
+            if (size > maxSize) {
+                return new CachedResultSet(new CachedResult(metaData, columnCount, columns, rows, size), statement, live, false);
+            }
+        }
+        live.close();
+        final CachedResult result = new CachedResult(metaData, columnCount, columns, Collections.unmodifiableList(rows), size);
+        return new CachedResultSet(result, statement, null, false);
+    }
+
+    private static RowSetMetaDataImpl copyMetaData(final ResultSetMetaData source, final int columnCount) {
+        try {
+            final RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+            metaData.setColumnCount(columnCount);
+            for (int column = 1; column <= columnCount; column++) {
+                metaData.setColumnLabel(column, source.getColumnLabel(column));
+                metaData.setColumnName(column, source.getColumnName(column));
+                metaData.setColumnType(column, source.getColumnType(column));
+                metaData.setColumnTypeName(column, source.getColumnTypeName(column));
+                metaData.setPrecision(column, Math.max(0, source.getPrecision(column)));
+                metaData.setScale(column, Math.max(0, source.getScale(column)));
+                metaData.setNullable(column, source.isNullable(column));
+                metaData.setSigned(column, source.isSigned(column));
+                metaData.setAutoIncrement(column, source.isAutoIncrement(column));
+                metaData.setCaseSensitive(column, source.isCaseSensitive(column));
+                metaData.setCurrency(column, source.isCurrency(column));
+                metaData.setSearchable(column, source.isSearchable(column));
+                metaData.setColumnDisplaySize(column, Math.max(0, source.getColumnDisplaySize(column)));
+                metaData.setCatalogName(column, source.getCatalogName(column));
+                metaData.setSchemaName(column, source.getSchemaName(column));
+                metaData.setTableName(column, source.getTableName(column));
+            }
+            return metaData;
+        } catch (SQLException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    ResultSetMetaData getMetaData() {
+        return this.metaData;
+    }
+
+    Integer getColumn(final String label) {
+        return this.columns.get(label);
+    }
+
+    int getColumnCount() {
+        return this.columnCount;
+    }
+
+    List<Object[]> getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns an estimate of the memory retained by this result in bytes
+     * @return the estimated size in bytes
+     */
+    long getSize() {
+        return this.size;
+    }
+}
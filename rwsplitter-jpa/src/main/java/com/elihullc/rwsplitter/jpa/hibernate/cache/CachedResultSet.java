@@ -0,0 +1,252 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Forward-only, read-only {@link ResultSet} over a {@link CachedResult}, created as a dynamic proxy.  A view created while capturing
+ * a result that could not be cached completely continues with the remaining rows of the live result once the captured rows have
+ * been read, delegating to it from then on.
+ */
+final class CachedResultSet implements InvocationHandler {
+
+    private final CachedResult result;
+    private final List<Object[]> rows;
+    private final Statement statement;
+    private final ResultSet remainder;
+    private boolean remainderPositioned;
+    private boolean remainderMode;
+    private int index = -1;
+    private boolean wasNull;
+    private boolean closed;
+
+    CachedResultSet(final CachedResult result, final Statement statement, final ResultSet remainder,
+      final boolean remainderPositioned) {
+        this.result = result;
+        this.rows = result.getRows();
+        this.statement = statement;
+        this.remainder = remainder;
+        this.remainderPositioned = remainderPositioned;
+        this.remainderMode = remainder != null && result.getMetaData() == null;
+    }
+
+    /**
+     * Returns the captured result if all of its rows were captured
+     * @return the captured result or null if the view continues with a live result
+     */
+    CachedResult getCompleteResult() {
+        return this.remainder == null ? this.result : null;
+    }
+
+    /**
+     * Returns a proxy reading the given result from the start
+     * @param result the cached result
+     * @param statement the statement returned by {@link ResultSet#getStatement()}
+     * @return the proxy
+     */
+    static ResultSet view(final CachedResult result, final Statement statement) {
+        return new CachedResultSet(result, statement, null, false).toResultSet();
+    }
+
+    /**
+     * Returns a proxy reading this view
+     * @return the proxy
+     */
+    ResultSet toResultSet() {
+        return (ResultSet)Proxy.newProxyInstance(CachedResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class }, this);
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "CachedResultSet[" + this.rows.size() + " rows" + (this.remainder == null ? "]" : " and more]");
+            case "close":
+                this.close();
+                return null;
+            case "isClosed":
+                return this.closed;
+            case "getStatement":
+                return this.statement;
+            case "unwrap":
+                if (((Class<?>)args[0]).isInstance(proxy)) {
+                    return proxy;
+                }
+                if (this.remainder != null) {
+                    return this.remainder.unwrap((Class<?>)args[0]);
+                }
+                throw new SQLException("Not a wrapper for " + args[0]);
+            case "isWrapperFor":
+                return ((Class<?>)args[0]).isInstance(proxy) || this.remainder != null && this.remainder.isWrapperFor((Class<?>)args[0]);
+            default:
+                break;
+        }
+        if (this.closed) {
+            throw new SQLException("Result set is closed");
+        }
+        if (name.equals("next")) {
+            return this.next();
+        }
+        if (this.remainderMode) {
+            try {
+                return method.invoke(this.remainder, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        switch (name) {
+            case "getMetaData":
+                return this.result.getMetaData();
+            case "findColumn":
+                return this.findColumn((String)args[0]);
+            case "wasNull":
+                return this.wasNull;
+            case "getRow":
+                return this.isOnRow() ? this.index + 1 : 0;
+            case "isBeforeFirst":
+                return this.index < 0 && (!this.rows.isEmpty() || this.remainder != null);
+            case "isAfterLast":
+                return this.index >= this.rows.size() && !this.rows.isEmpty();
+            case "isFirst":
+                return this.index == 0 && !this.rows.isEmpty();
+            case "isLast":
+                return this.remainder == null && this.index == this.rows.size() - 1 && !this.rows.isEmpty();
+            case "getType":
+                return ResultSet.TYPE_FORWARD_ONLY;
+            case "getConcurrency":
+                return ResultSet.CONCUR_READ_ONLY;
+            case "getHoldability":
+                return ResultSet.CLOSE_CURSORS_AT_COMMIT;
+            case "getFetchDirection":
+                return ResultSet.FETCH_FORWARD;
+            case "getFetchSize":
+                return 0;
+            case "rowUpdated":
+            case "rowInserted":
+            case "rowDeleted":
+                return false;
+            case "setFetchSize":
+            case "setFetchDirection":
+            case "clearWarnings":
+            case "getWarnings":
+                return null;
+            default:
+                if (name.startsWith("get") && args != null && args.length > 0) {
+                    return this.get(name, args);
+                }
+                throw new SQLFeatureNotSupportedException(name + " is not supported by cached results");
+        }
+    }
+
+    private boolean next() throws SQLException {
+        if (!this.remainderMode) {
+            if (this.index + 1 < this.rows.size()) {
+                this.index++;
+                return true;
+            }
+            this.index = this.rows.size();
+            if (this.remainder == null) {
+                return false;
+            }
+            this.remainderMode = true;
+            if (this.remainderPositioned) {
+                this.remainderPositioned = false;
+                return true;
+            }
+        }
+        return this.remainder.next();
+    }
+
+    private void close() throws SQLException {
+        if (!this.closed) {
+            this.closed = true;
+            if (this.remainder != null) {
+                this.remainder.close();
+            }
+        }
+    }
+
+    private boolean isOnRow() {
+        return this.index >= 0 && this.index < this.rows.size();
+    }
+
+    private int findColumn(final String label) throws SQLException {
+        final Integer column = this.result.getColumn(label);
+        if (column == null) {
+            throw new SQLException("Column '" + label + "' not found", "42S22");
+        }
+        return column;
+    }
+
+    private Object get(final String name, final Object[] args) throws SQLException {
+        final int column = args[0] instanceof String label ? this.findColumn(label) : (Integer)args[0];
+        if (!this.isOnRow()) {
+            throw new SQLException("No current row");
+        }
+        if (column < 1 || column > this.result.getColumnCount()) {
+            throw new SQLException("Invalid column index " + column);
+        }
+        final Object value = this.rows.get(this.index)[column - 1];
+        this.wasNull = value == null;
+        final Calendar calendar = args.length > 1 && args[1] instanceof Calendar c ? c : null;
+        switch (name) {
+            case "getObject":
+                return args.length > 1 && args[1] instanceof Class<?> type ? ResultValues.convert(value, type) : ResultValues.copy(value);
+            case "getString":
+            case "getNString":
+                return ResultValues.toString(value);
+            case "getBoolean":
+                return ResultValues.toBoolean(value);
+            case "getByte":
+                return ResultValues.toNumber(value).byteValue();
+            case "getShort":
+                return ResultValues.toNumber(value).shortValue();
+            case "getInt":
+                return ResultValues.toNumber(value).intValue();
+            case "getLong":
+                return ResultValues.toNumber(value).longValue();
+            case "getFloat":
+                return ResultValues.toNumber(value).floatValue();
+            case "getDouble":
+                return ResultValues.toNumber(value).doubleValue();
+            case "getBigDecimal":
+                return args.length > 1 ? ResultValues.toBigDecimal(value, (Integer)args[1]) : ResultValues.toBigDecimal(value);
+            case "getBytes":
+                return ResultValues.toBytes(value);
+            case "getDate":
+                return ResultValues.toDate(value, calendar);
+            case "getTime":
+                return ResultValues.toTime(value, calendar);
+            case "getTimestamp":
+                return ResultValues.toTimestamp(value, calendar);
+            case "getCharacterStream":
+            case "getNCharacterStream":
+                return ResultValues.toReader(value);
+            case "getAsciiStream":
+            case "getBinaryStream":
+            case "getUnicodeStream":
+                return ResultValues.toInputStream(value);
+            case "getClob":
+                return ResultValues.toClob(value);
+            case "getBlob":
+                return ResultValues.toBlob(value);
+            case "getURL":
+                return ResultValues.toURL(value);
+            default:
+                throw new SQLFeatureNotSupportedException(name + " is not supported by cached results");
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dynamic proxy of a reader {@link Connection} that is only checked out of its pool when a statement misses the
+ * {@link QueryResultCache}.  Until then, connection settings such as the auto-commit mode or read-only flag are recorded and
+ * replayed on the connection once it has been acquired, and transaction demarcation is a no-op.  Forward-only, read-only
+ * {@link PreparedStatement}s of cacheable queries are served by {@link CachingPreparedStatement}; everything else acquires the
+ * connection and runs on it.
+ */
+final class CachingConnection implements InvocationHandler {
+
+    private final QueryResultCache cache;
+    private final String tenantIdentifier;
+    private final QueryResultCache.ConnectionSupplier supplier;
+    private final Map<String, Invocation> settings = new LinkedHashMap<>();
+    private Connection target;
+    private boolean closed;
+
+    private CachingConnection(final QueryResultCache cache, final String tenantIdentifier,
+      final QueryResultCache.ConnectionSupplier supplier) {
+        this.cache = cache;
+        this.tenantIdentifier = tenantIdentifier;
+        this.supplier = supplier;
+    }
+
+    /**
+     * Returns a proxy acquiring its connection from the given supplier on first use
+     * @param cache the cache
+     * @param tenantIdentifier the tenant identifier
+     * @param supplier the supplier of the reader connection
+     * @return the proxy
+     */
+    static Connection wrap(final QueryResultCache cache, final String tenantIdentifier,
+      final QueryResultCache.ConnectionSupplier supplier) {
+        return (Connection)Proxy.newProxyInstance(CachingConnection.class.getClassLoader(), new Class<?>[] { Connection.class },
+          new CachingConnection(cache, tenantIdentifier, supplier));
+    }
+
+    /**
+     * Returns a proxy of the given, already acquired connection
+     * @param cache the cache
+     * @param tenantIdentifier the tenant identifier
+     * @param connection the reader connection
+     * @return the proxy
+     */
+    static Connection wrap(final QueryResultCache cache, final String tenantIdentifier, final Connection connection) {
+        final CachingConnection handler = new CachingConnection(cache, tenantIdentifier, () -> connection);
+        handler.target = connection;
+        return (Connection)Proxy.newProxyInstance(CachingConnection.class.getClassLoader(), new Class<?>[] { Connection.class },
+          handler);
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "CachingConnection[" + this.tenantIdentifier + ", " + (this.target == null ? "not acquired" : this.target) + "]";
+            case "close":
+                this.closed = true;
+                if (this.target != null) {
+                    this.target.close();
+                }
+                return null;
+            case "isClosed":
+                return this.closed;
+            default:
+                break;
+        }
+        if (this.target != null) {
+            if (name.equals("prepareStatement") && !this.closed) {
+                final PreparedStatement cached = this.prepareCached(proxy, method, args);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+            return Invocation.invoke(this.target, method, args);
+        }
+        if (this.closed) {
+            throw new SQLException("Connection is closed", "08003");
+        }
+        switch (name) {
+            case "setAutoCommit":
+            case "setReadOnly":
+            case "setTransactionIsolation":
+            case "setCatalog":
+            case "setSchema":
+            case "setHoldability":
+            case "setTypeMap":
+            case "setNetworkTimeout":
+                this.settings.put(name, new Invocation(method, args));
+                return null;
+            case "setClientInfo":
+                this.settings.put(name + (args.length == 2 ? args[0] : ""), new Invocation(method, args));
+                return null;
+            case "getAutoCommit":
+                return this.getSetting("setAutoCommit", Boolean.TRUE);
+            case "isReadOnly":
+                return this.getSetting("setReadOnly", Boolean.FALSE);
+            case "isValid":
+                return Boolean.TRUE;
+            case "commit":
+            case "rollback":
+            case "clearWarnings":
+            case "getWarnings":
+                return null;
+            case "prepareStatement":
+                final PreparedStatement cached = this.prepareCached(proxy, method, args);
+                if (cached != null) {
+                    return cached;
+                }
+                break;
+            default:
+                break;
+        }
+        return Invocation.invoke(this.getTarget(), method, args);
+    }
+
+    private Object getSetting(final String setter, final Object defaultValue) {
+        final Invocation invocation = this.settings.get(setter);
+        return invocation == null ? defaultValue : invocation.getArgs()[0];
+    }
+
+    private PreparedStatement prepareCached(final Object proxy, final Method method, final Object[] args) {
+        final boolean forwardOnly = args.length == 1 || args.length >= 3 && args[1] instanceof Integer type
+          && type == ResultSet.TYPE_FORWARD_ONLY && args[2] instanceof Integer concurrency && concurrency == ResultSet.CONCUR_READ_ONLY;
+        if (!forwardOnly) {
+            return null;
+        }
+        final String sql = (String)args[0];
+        final Set<String> tables = this.cache.getCacheableTables(sql);
+        if (tables == null) {
+            return null;
+        }
+        return CachingPreparedStatement.wrap(this.cache, this.tenantIdentifier, (Connection)proxy, sql, tables,
+          () -> (PreparedStatement)Invocation.invoke(this.getTarget(), method, args));
+    }
+
+    /**
+     * Returns the reader connection, acquiring it and replaying the recorded settings on first use
+     * @return the reader connection
+     * @throws SQLException if the connection cannot be acquired or configured
+     */
+    Connection getTarget() throws SQLException {
+        if (this.closed) {
+            throw new SQLException("Connection is closed", "08003");
+        }
+        if (this.target == null) {
+            final Connection connection = this.supplier.getConnection();
+            try {
+                for (Invocation setting : this.settings.values()) {
+                    setting.replay(connection);
+                }
+            } catch (Throwable e) {
+                connection.close();
+                if (e instanceof SQLException sqlException) {
+                    throw sqlException;
+                }
+                throw new SQLException("Unable to configure reader connection", e);
+            }
+            this.settings.clear();
+            this.target = connection;
+        }
+        return this.target;
+    }
+}
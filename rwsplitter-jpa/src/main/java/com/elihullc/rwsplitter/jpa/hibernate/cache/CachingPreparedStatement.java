@@ -0,0 +1,197 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Dynamic proxy of a {@link PreparedStatement} of a cacheable query.  Bind parameters and statement settings are recorded so that
+ * {@link PreparedStatement#executeQuery()} can look the result up in the {@link QueryResultCache} before the statement is
+ * actually prepared; only a miss prepares it on the reader connection, replays the recordings, executes it and caches its result.
+ * Any other use of the statement prepares it as well and runs on it.
+ */
+final class CachingPreparedStatement implements InvocationHandler {
+
+    private final QueryResultCache cache;
+    private final String tenantIdentifier;
+    private final Connection connection;
+    private final String sql;
+    private final Set<String> tables;
+    private final StatementFactory factory;
+    private final Map<Integer, Invocation> parameters = new TreeMap<>();
+    private final Map<String, Invocation> settings = new LinkedHashMap<>();
+    private long maxRows;
+    private PreparedStatement target;
+    private boolean closed;
+
+    private CachingPreparedStatement(final QueryResultCache cache, final String tenantIdentifier, final Connection connection,
+      final String sql, final Set<String> tables, final StatementFactory factory) {
+        this.cache = cache;
+        this.tenantIdentifier = tenantIdentifier;
+        this.connection = connection;
+        this.sql = sql;
+        this.tables = tables;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns a proxy of a statement prepared by the given factory on first use
+     * @param cache the cache
+     * @param tenantIdentifier the tenant identifier
+     * @param connection the connection returned by {@link Statement#getConnection()}
+     * @param sql the query
+     * @param tables the tables read by the query
+     * @param factory the factory preparing the statement
+     * @return the proxy
+     */
+    static PreparedStatement wrap(final QueryResultCache cache, final String tenantIdentifier, final Connection connection,
+      final String sql, final Set<String> tables, final StatementFactory factory) {
+        return (PreparedStatement)Proxy.newProxyInstance(CachingPreparedStatement.class.getClassLoader(),
+          new Class<?>[] { PreparedStatement.class },
+          new CachingPreparedStatement(cache, tenantIdentifier, connection, sql, tables, factory));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "CachingPreparedStatement[" + this.sql + "]";
+            case "getConnection":
+                return this.connection;
+            case "close":
+                this.closed = true;
+                if (this.target != null) {
+                    this.target.close();
+                }
+                return null;
+            case "isClosed":
+                return this.closed;
+            case "executeQuery":
+                if (args == null) {
+                    return this.executeQuery((Statement)proxy);
+                }
+                break;
+            case "clearParameters":
+                this.parameters.clear();
+                if (this.target != null) {
+                    this.target.clearParameters();
+                }
+                return null;
+            default:
+                if (name.startsWith("set") && args != null && this.record(name, method, args)) {
+                    if (this.target != null) {
+                        Invocation.invoke(this.target, method, args);
+                    }
+                    return null;
+                }
+                break;
+        }
+        return Invocation.invoke(this.getTarget(), method, args);
+    }
+
+    private boolean record(final String name, final Method method, final Object[] args) {
+        if (args.length >= 2 && method.getParameterTypes()[0] == int.class) {
+            this.parameters.put((Integer)args[0], new Invocation(method, args));
+            return true;
+        }
+        if (args.length == 1) {
+            this.settings.put(name, new Invocation(method, args));
+            if (name.equals("setMaxRows") || name.equals("setLargeMaxRows")) {
+                this.maxRows = ((Number)args[0]).longValue();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private ResultSet executeQuery(final Statement proxy) throws Throwable {
+        if (this.closed) {
+            throw new SQLException("Statement is closed");
+        }
+        final Object[] key = this.getKeyParameters();
+        if (key == null) {
+            return this.getTarget().executeQuery();
+        }
+        final QueryKey queryKey = new QueryKey(this.sql, key, this.maxRows);
+        final CachedResult cached = this.cache.get(this.tenantIdentifier, queryKey);
+        if (cached != null) {
+            return CachedResultSet.view(cached, proxy);
+        }
+        final long start = System.nanoTime();
+        final CachedResultSet capture = CachedResult.capture(this.getTarget().executeQuery(), proxy, this.cache.getMaxEntrySize());
+        final CachedResult complete = capture.getCompleteResult();
+        if (complete != null) {
+            this.cache.put(this.tenantIdentifier, queryKey, this.tables, complete, start);
+        }
+        return capture.toResultSet();
+    }
+
+    /**
+     * Returns the recorded bind parameters as a flat array of index, setter name and arguments
+     * @return the bind parameters or null if one of them cannot be cached
+     * @throws SQLException if a large object cannot be read
+     */
+    private Object[] getKeyParameters() throws SQLException {
+        final List<Object> key = new ArrayList<>(this.parameters.size() * 3);
+        for (Map.Entry<Integer, Invocation> parameter : this.parameters.entrySet()) {
+            final Object[] args = parameter.getValue().getArgs();
+            key.add(parameter.getKey());
+            key.add(parameter.getValue().getMethodName());
+            for (int i = 1; i < args.length; i++) {
+                final Object value = ResultValues.toCacheable(args[i]);
+                if (value == ResultValues.UNCACHEABLE) {
+                    return null;
+                }
+                key.add(value);
+            }
+        }
+        return key.toArray();
+    }
+
+    private PreparedStatement getTarget() throws Throwable {
+        if (this.closed) {
+            throw new SQLException("Statement is closed");
+        }
+        if (this.target == null) {
+            final PreparedStatement statement = this.factory.prepare();
+            try {
+                for (Invocation setting : this.settings.values()) {
+                    setting.replay(statement);
+                }
+                for (Invocation parameter : this.parameters.values()) {
+                    parameter.replay(statement);
+                }
+            } catch (Throwable e) {
+                statement.close();
+                throw e;
+            }
+            this.target = statement;
+        }
+        return this.target;
+    }
+
+    /**
+     * Prepares the statement on the reader connection
+     */
+    @FunctionalInterface
+    interface StatementFactory {
+
+        PreparedStatement prepare() throws Throwable;
+    }
+}
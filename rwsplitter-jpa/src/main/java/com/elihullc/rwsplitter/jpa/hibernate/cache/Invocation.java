@@ -0,0 +1,52 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Method invocation recorded by a proxy to be replayed on, or forwarded to, its target
+ */
+final class Invocation {
+
+    private final Method method;
+    private final Object[] args;
+
+    Invocation(final Method method, final Object[] args) {
+        this.method = method;
+        this.args = args;
+    }
+
+    String getMethodName() {
+        return this.method.getName();
+    }
+
+    Object[] getArgs() {
+        return this.args;
+    }
+
+    /**
+     * Replays this invocation on the given target
+     * @param target the target
+     * @return the result of the invocation
+     * @throws Throwable if the invocation fails
+     */
+    Object replay(final Object target) throws Throwable {
+        return invoke(target, this.method, this.args);
+    }
+
+    /**
+     * Invokes the given method on the given target, unwrapping the exception thrown by it
+     * @param target the target
+     * @param method the method
+     * @param args the arguments
+     * @return the result of the invocation
+     * @throws Throwable if the invocation fails
+     */
+    static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.util.Arrays;
+
+/**
+ * Key of a cached result within a tenant: the SQL, the bind parameters as pairs of setter name and value, and the maximum number
+ * of rows requested
+ */
+final class QueryKey {
+
+    private final String sql;
+    private final Object[] parameters;
+    private final long maxRows;
+    private final int hash;
+
+    QueryKey(final String sql, final Object[] parameters, final long maxRows) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.maxRows = maxRows;
+        this.hash = 31 * (31 * sql.hashCode() + Arrays.deepHashCode(parameters)) + Long.hashCode(maxRows);
+    }
+
+    String getSql() {
+        return this.sql;
+    }
+
+    /**
+     * Returns an estimate of the memory retained by this key in bytes
+     * @return the estimated size in bytes
+     */
+    long estimateSize() {
+        long size = 64 + 2L * this.sql.length() + 16 + 8L * this.parameters.length;
+        for (Object parameter : this.parameters) {
+            size += ResultValues.estimateSize(parameter);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof QueryKey other)) {
+            return false;
+        }
+        return this.hash == other.hash && this.maxRows == other.maxRows && this.sql.equals(other.sql)
+          && Arrays.deepEquals(this.parameters, other.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return this.sql + " " + Arrays.deepToString(this.parameters);
+    }
+}
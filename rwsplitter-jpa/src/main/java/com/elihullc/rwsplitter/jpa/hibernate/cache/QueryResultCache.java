@@ -0,0 +1,558 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import com.elihullc.rwsplitter.jpa.hibernate.routing.StatementClassifier;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Tenant-aware cache of the results of read-only queries served by reader connections of a
+ * {@link com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider}.  Results are keyed by tenant, SQL and bind
+ * parameters; a hit is served from memory without checking a connection out of the pool, see
+ * {@link #wrapReaderConnection(String, ConnectionSupplier)}.
+ *
+ * Caching is opt-in per table: only forward-only, read-only prepared statements classified as reads by the
+ * {@link StatementClassifier} and reading only tables allowed with {@link #setTables(Collection)} are cached.  Results larger than
+ * {@link #getMaxEntrySize()} are not cached.  The estimated size of all results is bounded by {@link #getMaxSize()} and that of
+ * each tenant by {@link #getMaxTenantSize()}, evicting least recently used results first, and every result expires after
+ * {@link #getTimeToLive()}.
+ *
+ * Writes committed through writer connections wrapped by {@link #wrapWriterConnection(String, Connection)} invalidate the cached
+ * results of the tables they touch; writes whose tables cannot be determined invalidate all results of the tenant.  Results of
+ * queries started before, or within {@link #getWriteQuietPeriod()} after, an invalidation of one of their tables are not cached,
+ * giving readers time to replicate the write.  Writes made by other applications or nodes are only picked up on expiry, so the
+ * time to live bounds the staleness of results.
+ *
+ * Invalidation only knows the tables named by the statements it sees.  Rows changed by cascading foreign keys
+ * ({@code ON DELETE CASCADE}, {@code ON UPDATE SET NULL}...), by triggers or by stored procedures do not invalidate the tables
+ * they change, and writes through a view do not invalidate the view's base tables nor reads of a view its base tables.  Only
+ * allow tables that no such side effect writes to, and views only along with their base tables if they are written directly.
+ *
+ * The results of a tenant are dropped, rather than only invalidated, when its connection providers are removed, see
+ * {@link #remove(String)}, so that tenants no longer served by this node do not leave state behind.
+ */
+public class QueryResultCache {
+
+    private final ConcurrentHashMap<String, TenantCache> tenants = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final TableReferences tableReferences = new TableReferences();
+
+    private volatile StatementClassifier statementClassifier = new StatementClassifier();
+    private volatile Set<String> tables = Set.of();
+    private volatile long maxSize = 64L << 20;
+    private volatile long maxTenantSize = 8L << 20;
+    private volatile long maxEntrySize = 256L << 10;
+    private volatile Duration timeToLive = Duration.ofMinutes(5);
+    private volatile Duration writeQuietPeriod = Duration.ofSeconds(1);
+    private volatile boolean removed;
+    private volatile long removedAt;
+
+    /**
+     * Returns a reader connection serving cacheable queries from this cache and only acquiring a connection from the given supplier
+     * when a query misses or something else requires it
+     * @param tenantIdentifier the tenant identifier
+     * @param supplier the supplier of the reader connection
+     * @return the caching connection
+     */
+    public Connection wrapReaderConnection(final String tenantIdentifier, final ConnectionSupplier supplier) {
+        return CachingConnection.wrap(this, tenantIdentifier, supplier);
+    }
+
+    /**
+     * Returns the given, already acquired reader connection serving cacheable queries from this cache
+     * @param tenantIdentifier the tenant identifier
+     * @param connection the reader connection
+     * @return the caching connection
+     */
+    public Connection wrapReaderConnection(final String tenantIdentifier, final Connection connection) {
+        return CachingConnection.wrap(this, tenantIdentifier, connection);
+    }
+
+    /**
+     * Returns the given writer connection tracking the tables its committed writes touch and invalidating their cached results
+     * @param tenantIdentifier the tenant identifier
+     * @param connection the writer connection
+     * @return the tracking connection
+     * @throws SQLException if the auto-commit mode of the connection cannot be determined
+     */
+    public Connection wrapWriterConnection(final String tenantIdentifier, final Connection connection) throws SQLException {
+        return WriteTrackingConnection.wrap(this, tenantIdentifier, connection);
+    }
+
+    /**
+     * Invalidates the cached results of the given tenant that read any of the given tables
+     * @param tenantIdentifier the tenant identifier
+     * @param tableNames the unqualified table names
+     */
+    public void invalidate(final String tenantIdentifier, final Collection<String> tableNames) {
+        this.getTenantCache(tenantIdentifier).invalidate(normalize(tableNames), System.nanoTime());
+    }
+
+    /**
+     * Invalidates all cached results of the given tenant
+     * @param tenantIdentifier the tenant identifier
+     */
+    public void invalidate(final String tenantIdentifier) {
+        this.getTenantCache(tenantIdentifier).invalidateAll(System.nanoTime());
+    }
+
+    /**
+     * Drops all cached results of the given tenant, e.g. once its connection providers are evicted.  Results of queries started
+     * before, or within {@link #getWriteQuietPeriod()} after, the removal of any tenant are not cached.
+     * @param tenantIdentifier the tenant identifier
+     */
+    public void remove(final String tenantIdentifier) {
+        final long now = System.nanoTime();
+        this.removedAt = now;
+        this.removed = true;
+        final TenantCache cache = this.tenants.remove(tenantIdentifier);
+        if (cache != null) {
+            cache.detach(now);
+        }
+    }
+
+    /**
+     * Drops all cached results of all tenants
+     */
+    public void clear() {
+        this.tenants.keySet().forEach(this::remove);
+    }
+
+    /**
+     * Returns the tables read by the given query if its results may be cached
+     * @param sql the query
+     * @return the tables read or null if the results of the query may not be cached
+     */
+    Set<String> getCacheableTables(final String sql) {
+        if (!this.statementClassifier.isRead(sql)) {
+            return null;
+        }
+        final Set<String> referenced = this.tableReferences.getReadTables(sql);
+        if (referenced == TableReferences.UNKNOWN) {
+            return null;
+        }
+        return this.tables.containsAll(referenced) ? referenced : null;
+    }
+
+    /**
+     * Returns the tables the given statement may write to
+     * @param sql the statement
+     * @return the tables written, empty if the statement does not write or {@link TableReferences#UNKNOWN}
+     */
+    Set<String> getWrittenTables(final String sql) {
+        return this.statementClassifier.isRead(sql) ? Set.of() : this.tableReferences.getWrittenTables(sql);
+    }
+
+    /**
+     * Returns the cached result of the given query of the given tenant
+     * @param tenantIdentifier the tenant identifier
+     * @param key the query
+     * @return the cached result or null if none is cached
+     */
+    CachedResult get(final String tenantIdentifier, final QueryKey key) {
+        final TenantCache cache = this.tenants.get(tenantIdentifier);
+        final CachedResult result = cache == null ? null : cache.get(key, System.nanoTime());
+        (result == null ? this.misses : this.hits).increment();
+        return result;
+    }
+
+    /**
+     * Caches the result of the given query of the given tenant unless one of its tables was invalidated since the query started
+     * @param tenantIdentifier the tenant identifier
+     * @param key the query
+     * @param tableNames the tables read by the query
+     * @param result the result
+     * @param startNanos the {@link System#nanoTime()} at which the query started
+     */
+    void put(final String tenantIdentifier, final QueryKey key, final Set<String> tableNames, final CachedResult result,
+      final long startNanos) {
+        final long entrySize = result.getSize() + key.estimateSize();
+        if (entrySize > this.maxEntrySize) {
+            return;
+        }
+        final long now = System.nanoTime();
+        final Entry entry = new Entry(key, tableNames, result, entrySize, now + this.timeToLive.toNanos());
+        final TenantCache tenantCache = this.getTenantCache(tenantIdentifier);
+        final long notInvalidatedSince = startNanos - this.writeQuietPeriod.toNanos();
+        if (this.removed && this.removedAt - notInvalidatedSince >= 0L) {
+            return;
+        }
+        tenantCache.put(entry, notInvalidatedSince);
+        while (this.size.get() > this.maxSize) {
+            TenantCache largest = null;
+            long largestSize = 0L;
+            for (TenantCache cache : this.tenants.values()) {
+                final long cacheSize = cache.getSize();
+                if (cacheSize > largestSize) {
+                    largest = cache;
+                    largestSize = cacheSize;
+                }
+            }
+            if (largest == null || !largest.evictEldest()) {
+                break;
+            }
+        }
+    }
+
+    private TenantCache getTenantCache(final String tenantIdentifier) {
+        return this.tenants.computeIfAbsent(tenantIdentifier, tenant -> new TenantCache());
+    }
+
+    private static Set<String> normalize(final Collection<String> tableNames) {
+        return tableNames.stream().map(table -> table.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the number of queries served from the cache
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of cacheable queries not found in the cache
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of results evicted because of the size bounds or their expiry
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the number of results removed because of writes
+     * @return the number of invalidations
+     */
+    public long getInvalidationCount() {
+        return this.invalidations.sum();
+    }
+
+    /**
+     * Returns the estimated size of all cached results in bytes
+     * @return the estimated size in bytes
+     */
+    public long getSize() {
+        return this.size.get();
+    }
+
+    /**
+     * Returns the estimated size of the cached results of the given tenant in bytes
+     * @param tenantIdentifier the tenant identifier
+     * @return the estimated size in bytes
+     */
+    public long getSize(final String tenantIdentifier) {
+        final TenantCache cache = this.tenants.get(tenantIdentifier);
+        return cache == null ? 0L : cache.getSize();
+    }
+
+    /**
+     * Returns the number of tenants with cached results or invalidations
+     * @return the number of tenants
+     */
+    public int getTenantCount() {
+        return this.tenants.size();
+    }
+
+    /**
+     * Returns the number of cached results
+     * @return the number of cached results
+     */
+    public int getEntryCount() {
+        return this.tenants.values().stream().mapToInt(TenantCache::getEntryCount).sum();
+    }
+
+    /**
+     * Returns the classifier deciding which queries are reads
+     * @return the classifier of statements
+     */
+    public StatementClassifier getStatementClassifier() {
+        return this.statementClassifier;
+    }
+
+    /**
+     * Sets the classifier deciding which queries are reads
+     * @param statementClassifier the classifier of statements
+     */
+    public void setStatementClassifier(final StatementClassifier statementClassifier) {
+        this.statementClassifier = statementClassifier;
+    }
+
+    /**
+     * Returns the tables whose queries may be cached. Default is empty, caching nothing
+     * @return the unqualified, lower-case table names
+     */
+    public Set<String> getTables() {
+        return this.tables;
+    }
+
+    /**
+     * Allows caching the results of queries reading only the given tables, e.g. settings or catalogs.  Tables written by cascading
+     * foreign keys, triggers or through views should not be allowed since such writes do not invalidate them.
+     * @param tableNames the unqualified table names
+     */
+    public void setTables(final Collection<String> tableNames) {
+        this.tables = Set.copyOf(normalize(tableNames));
+    }
+
+    /**
+     * Returns the maximum estimated size of all cached results in bytes. Default is 64 MiB
+     * @return the maximum size in bytes
+     */
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Sets the maximum estimated size of all cached results in bytes, beyond which the results of the largest tenant are evicted
+     * @param maxSize the maximum size in bytes
+     */
+    public void setMaxSize(final long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the maximum estimated size of the cached results of each tenant in bytes. Default is 8 MiB
+     * @return the maximum size per tenant in bytes
+     */
+    public long getMaxTenantSize() {
+        return this.maxTenantSize;
+    }
+
+    /**
+     * Sets the maximum estimated size of the cached results of each tenant in bytes
+     * @param maxTenantSize the maximum size per tenant in bytes
+     */
+    public void setMaxTenantSize(final long maxTenantSize) {
+        this.maxTenantSize = maxTenantSize;
+    }
+
+    /**
+     * Returns the maximum estimated size of a single cached result in bytes. Default is 256 KiB
+     * @return the maximum size per result in bytes
+     */
+    public long getMaxEntrySize() {
+        return this.maxEntrySize;
+    }
+
+    /**
+     * Sets the maximum estimated size of a single cached result in bytes.  Larger results are streamed from the reader and not
+     * cached.
+     * @param maxEntrySize the maximum size per result in bytes
+     */
+    public void setMaxEntrySize(final long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Returns how long results are cached. Default is 5 minutes
+     * @return the time to live of results
+     */
+    public Duration getTimeToLive() {
+        return this.timeToLive;
+    }
+
+    /**
+     * Sets how long results are cached, which bounds the staleness caused by writes this cache does not see
+     * @param timeToLive the time to live of results
+     */
+    public void setTimeToLive(final Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns how long after an invalidation of a table its results are not cached. Default is 1 second
+     * @return the quiet period after writes
+     */
+    public Duration getWriteQuietPeriod() {
+        return this.writeQuietPeriod;
+    }
+
+    /**
+     * Sets how long after an invalidation of a table its results are not cached, which should exceed the usual replication lag of
+     * readers
+     * @param writeQuietPeriod the quiet period after writes
+     */
+    public void setWriteQuietPeriod(final Duration writeQuietPeriod) {
+        this.writeQuietPeriod = writeQuietPeriod;
+    }
+
+    /**
+     * Supplier of the reader connection of a caching connection
+     */
+    @FunctionalInterface
+    public interface ConnectionSupplier {
+
+        /**
+         * Acquires the reader connection
+         * @return the reader connection
+         * @throws SQLException if a connection cannot be acquired
+         */
+        Connection getConnection() throws SQLException;
+    }
+
+    /**
+     * Cached result with its key, tables, estimated size and expiry
+     */
+    private static final class Entry {
+
+        private final QueryKey key;
+        private final Set<String> tables;
+        private final CachedResult result;
+        private final long size;
+        private final long expiresAt;
+
+        private Entry(final QueryKey key, final Set<String> tables, final CachedResult result, final long size, final long expiresAt) {
+            this.key = key;
+            this.tables = tables;
+            this.result = result;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Results of a single tenant in access order, indexed by table, and the time of the last invalidation of each table
+     */
+    private final class TenantCache {
+
+        private final LinkedHashMap<QueryKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final Map<String, Set<QueryKey>> keysByTable = new HashMap<>();
+        private final Map<String, Long> invalidatedAt = new HashMap<>();
+        private boolean allInvalidated;
+        private long allInvalidatedAt;
+        private boolean detached;
+        private long tenantSize;
+
+        synchronized CachedResult get(final QueryKey key, final long now) {
+            final Entry entry = this.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.expiresAt >= 0L) {
+                this.remove(entry);
+                QueryResultCache.this.evictions.increment();
+                return null;
+            }
+            return entry.result;
+        }
+
+        synchronized void put(final Entry entry, final long notInvalidatedSince) {
+            if (this.detached) {
+                return;
+            }
+            if (this.allInvalidated && this.allInvalidatedAt - notInvalidatedSince >= 0L) {
+                return;
+            }
+            for (String table : entry.tables) {
+                final Long invalidated = this.invalidatedAt.get(table);
+                if (invalidated != null && invalidated - notInvalidatedSince >= 0L) {
+                    return;
+                }
+            }
+            final Entry previous = this.entries.get(entry.key);
+            if (previous != null) {
+                this.remove(previous);
+            }
+            this.entries.put(entry.key, entry);
+            for (String table : entry.tables) {
+                this.keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(entry.key);
+            }
+            this.tenantSize += entry.size;
+            QueryResultCache.this.size.addAndGet(entry.size);
+            while (this.tenantSize > QueryResultCache.this.maxTenantSize) {
+                if (!this.evictEldest()) {
+                    break;
+                }
+            }
+        }
+
+        synchronized boolean evictEldest() {
+            final Iterator<Entry> iterator = this.entries.values().iterator();
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            this.remove(iterator.next());
+            QueryResultCache.this.evictions.increment();
+            return true;
+        }
+
+        synchronized void invalidate(final Set<String> tableNames, final long now) {
+            for (String table : tableNames) {
+                this.invalidatedAt.put(table, now);
+                final Set<QueryKey> keys = this.keysByTable.remove(table);
+                if (keys == null) {
+                    continue;
+                }
+                for (QueryKey key : keys) {
+                    final Entry entry = this.entries.get(key);
+                    if (entry != null) {
+                        this.remove(entry);
+                        QueryResultCache.this.invalidations.increment();
+                    }
+                }
+            }
+        }
+
+        synchronized void invalidateAll(final long now) {
+            this.allInvalidated = true;
+            this.allInvalidatedAt = now;
+            QueryResultCache.this.invalidations.add(this.entries.size());
+            QueryResultCache.this.size.addAndGet(-this.tenantSize);
+            this.entries.clear();
+            this.keysByTable.clear();
+            this.tenantSize = 0L;
+        }
+
+        /**
+         * Drops all results once this cache has been removed from the tenants, so that queries still holding it cannot add any
+         */
+        synchronized void detach(final long now) {
+            this.detached = true;
+            this.invalidateAll(now);
+        }
+
+        synchronized long getSize() {
+            return this.tenantSize;
+        }
+
+        synchronized int getEntryCount() {
+            return this.entries.size();
+        }
+
+        private void remove(final Entry entry) {
+            this.entries.remove(entry.key);
+            for (String table : entry.tables) {
+                final Set<QueryKey> keys = this.keysByTable.get(table);
+                if (keys != null && keys.remove(entry.key) && keys.isEmpty()) {
+                    this.keysByTable.remove(table);
+                }
+            }
+            this.tenantSize -= entry.size;
+            QueryResultCache.this.size.addAndGet(-entry.size);
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.UUID;
+
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+
+/**
+ * Conversions between the values of bind parameters and result columns and the immutable values kept by a
+ * {@link QueryResultCache}.  Values are captured with {@link java.sql.ResultSet#getObject(int)} and converted on read following the
+ * usual JDBC conversions, so that cached results can be read with any getter a driver would support for the column.
+ */
+final class ResultValues {
+
+    /**
+     * Returned for values that cannot be cached
+     */
+    static final Object UNCACHEABLE = new Object();
+
+    private ResultValues() {
+    }
+
+    /**
+     * Returns a value of a bind parameter or result column that is safe to keep in the cache
+     * @param value the value
+     * @return the value, a copy of it or {@link #UNCACHEABLE}
+     * @throws SQLException if a large object cannot be read
+     */
+    static Object toCacheable(final Object value) throws SQLException {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        if (value instanceof java.util.Date || value instanceof Calendar || value instanceof byte[]) {
+            return copy(value);
+        }
+        if (value instanceof NClob) {
+            return UNCACHEABLE;
+        }
+        if (value instanceof Clob clob) {
+            return new SerialClob(clob);
+        }
+        if (value instanceof Blob blob) {
+            return new SerialBlob(blob);
+        }
+        return UNCACHEABLE;
+    }
+
+    private static boolean isImmutable(final Object value) {
+        return value instanceof String || value instanceof Number && isImmutableNumber(value) || value instanceof Boolean
+          || value instanceof Character || value instanceof UUID || value instanceof Enum
+          || value.getClass().getPackageName().equals("java.time");
+    }
+
+    private static boolean isImmutableNumber(final Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof BigDecimal || value instanceof Short
+          || value instanceof Byte || value instanceof Double || value instanceof Float || value instanceof BigInteger;
+    }
+
+    /**
+     * Returns a copy of a cached value that callers may modify
+     * @param value the cached value
+     * @return the value itself if immutable, a copy otherwise
+     * @throws SQLException if a large object cannot be copied
+     */
+    static Object copy(final Object value) throws SQLException {
+        if (value instanceof java.util.Date date) {
+            return date.clone();
+        }
+        if (value instanceof Calendar calendar) {
+            return calendar.clone();
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        if (value instanceof SerialClob clob) {
+            return new SerialClob(clob);
+        }
+        if (value instanceof SerialBlob blob) {
+            return new SerialBlob(blob);
+        }
+        return value;
+    }
+
+    /**
+     * Returns an estimate of the memory retained by a cached value in bytes
+     * @param value the cached value
+     * @return the estimated size in bytes
+     */
+    static long estimateSize(final Object value) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof String string) {
+            return 40L + 2L * string.length();
+        }
+        if (value instanceof byte[] bytes) {
+            return 16L + bytes.length;
+        }
+        if (value instanceof BigDecimal || value instanceof BigInteger) {
+            return 64L;
+        }
+        try {
+            if (value instanceof Clob clob) {
+                return 64L + 2L * clob.length();
+            }
+            if (value instanceof Blob blob) {
+                return 64L + blob.length();
+            }
+        } catch (SQLException e) {
+            return 64L;
+        }
+        return 24L;
+    }
+
+    static String toString(final Object value) throws SQLException {
+        if (value == null || value instanceof String) {
+            return (String)value;
+        }
+        if (value instanceof Clob clob) {
+            return clob.getSubString(1L, (int)clob.length());
+        }
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return Timestamp.valueOf(dateTime).toString();
+        }
+        return value.toString();
+    }
+
+    static boolean toBoolean(final Object value) throws SQLException {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        if (value instanceof String || value instanceof Character) {
+            final String string = value.toString().trim();
+            return string.equals("1") || string.equalsIgnoreCase("true") || string.equalsIgnoreCase("y")
+              || string.equalsIgnoreCase("yes");
+        }
+        return toBigDecimal(value).signum() != 0;
+    }
+
+    static Number toNumber(final Object value) throws SQLException {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number number) {
+            return number;
+        }
+        if (value instanceof Boolean bool) {
+            return bool ? 1 : 0;
+        }
+        return toBigDecimal(value);
+    }
+
+    static BigDecimal toBigDecimal(final Object value) throws SQLException {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal)value;
+        }
+        if (value instanceof BigInteger integer) {
+            return new BigDecimal(integer);
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return BigDecimal.valueOf(((Number)value).doubleValue());
+        }
+        if (value instanceof Number number) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        if (value instanceof Boolean bool) {
+            return bool ? BigDecimal.ONE : BigDecimal.ZERO;
+        }
+        if (value instanceof String || value instanceof Character) {
+            try {
+                return new BigDecimal(value.toString().trim());
+            } catch (NumberFormatException e) {
+                throw new SQLException("Cannot convert '" + value + "' to a number", "22018", e);
+            }
+        }
+        throw cannotConvert(value, BigDecimal.class);
+    }
+
+    static BigDecimal toBigDecimal(final Object value, final int scale) throws SQLException {
+        final BigDecimal decimal = toBigDecimal(value);
+        return decimal == null ? null : decimal.setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    static byte[] toBytes(final Object value) throws SQLException {
+        if (value == null || value instanceof byte[]) {
+            return value == null ? null : ((byte[])value).clone();
+        }
+        if (value instanceof Blob blob) {
+            return blob.getBytes(1L, (int)blob.length());
+        }
+        if (value instanceof String string) {
+            return string.getBytes(StandardCharsets.UTF_8);
+        }
+        if (value instanceof UUID uuid) {
+            return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+        }
+        throw cannotConvert(value, byte[].class);
+    }
+
+    static Timestamp toTimestamp(final Object value, final Calendar calendar) throws SQLException {
+        final LocalDateTime dateTime = toLocalDateTime(value);
+        if (dateTime == null) {
+            return null;
+        }
+        if (calendar == null) {
+            return Timestamp.valueOf(dateTime);
+        }
+        return Timestamp.from(dateTime.atZone(calendar.getTimeZone().toZoneId()).toInstant());
+    }
+
+    static Date toDate(final Object value, final Calendar calendar) throws SQLException {
+        final LocalDateTime dateTime = toLocalDateTime(value);
+        if (dateTime == null) {
+            return null;
+        }
+        if (calendar == null) {
+            return Date.valueOf(dateTime.toLocalDate());
+        }
+        return new Date(dateTime.toLocalDate().atStartOfDay(calendar.getTimeZone().toZoneId()).toInstant().toEpochMilli());
+    }
+
+    static Time toTime(final Object value, final Calendar calendar) throws SQLException {
+        final LocalTime time = toLocalTime(value);
+        if (time == null) {
+            return null;
+        }
+        if (calendar == null) {
+            return Time.valueOf(time);
+        }
+        return new Time(time.atDate(LocalDate.of(1970, 1, 1)).atZone(calendar.getTimeZone().toZoneId()).toInstant().toEpochMilli());
+    }
+
+    static Reader toReader(final Object value) throws SQLException {
+        final String string = toString(value);
+        return string == null ? null : new StringReader(string);
+    }
+
+    static InputStream toInputStream(final Object value) throws SQLException {
+        final byte[] bytes = value instanceof String string ? string.getBytes(StandardCharsets.US_ASCII) : toBytes(value);
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
+    static Clob toClob(final Object value) throws SQLException {
+        if (value == null || value instanceof SerialClob) {
+            return (Clob)copy(value);
+        }
+        return new SerialClob(toString(value).toCharArray());
+    }
+
+    static Blob toBlob(final Object value) throws SQLException {
+        if (value == null || value instanceof SerialBlob) {
+            return (Blob)copy(value);
+        }
+        return new SerialBlob(toBytes(value));
+    }
+
+    static URL toURL(final Object value) throws SQLException {
+        final String string = toString(value);
+        try {
+            return string == null ? null : new URL(string);
+        } catch (MalformedURLException e) {
+            throw new SQLException("Cannot convert '" + string + "' to a URL", "22018", e);
+        }
+    }
+
+    /**
+     * Converts a cached value to the given type as {@link java.sql.ResultSet#getObject(int, Class)} would
+     * @param value the cached value
+     * @param type the requested type
+     * @return the converted value
+     * @throws SQLException if the value cannot be converted
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T convert(final Object value, final Class<T> type) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        if (type.isInstance(value)) {
+            return (T)copy(value);
+        }
+        final Object converted;
+        if (type == String.class) {
+            converted = toString(value);
+        } else if (type == Boolean.class) {
+            converted = toBoolean(value);
+        } else if (type == Integer.class) {
+            converted = toNumber(value).intValue();
+        } else if (type == Long.class) {
+            converted = toNumber(value).longValue();
+        } else if (type == Short.class) {
+            converted = toNumber(value).shortValue();
+        } else if (type == Byte.class) {
+            converted = toNumber(value).byteValue();
+        } else if (type == Double.class) {
+            converted = toNumber(value).doubleValue();
+        } else if (type == Float.class) {
+            converted = toNumber(value).floatValue();
+        } else if (type == BigDecimal.class) {
+            converted = toBigDecimal(value);
+        } else if (type == BigInteger.class) {
+            converted = toBigDecimal(value).toBigInteger();
+        } else if (type == byte[].class) {
+            converted = toBytes(value);
+        } else if (type == Timestamp.class || type == java.util.Date.class) {
+            converted = toTimestamp(value, null);
+        } else if (type == Date.class) {
+            converted = toDate(value, null);
+        } else if (type == Time.class) {
+            converted = toTime(value, null);
+        } else if (type == LocalDateTime.class) {
+            converted = toLocalDateTime(value);
+        } else if (type == LocalDate.class) {
+            converted = toLocalDateTime(value).toLocalDate();
+        } else if (type == LocalTime.class) {
+            converted = toLocalTime(value);
+        } else if (type == Instant.class) {
+            converted = toInstant(value);
+        } else if (type == OffsetDateTime.class) {
+            converted = toInstant(value).atZone(ZoneId.systemDefault()).toOffsetDateTime();
+        } else if (type == ZonedDateTime.class) {
+            converted = toInstant(value).atZone(ZoneId.systemDefault());
+        } else if (type == OffsetTime.class) {
+            converted = toLocalTime(value).atOffset(OffsetDateTime.now().getOffset());
+        } else if (type == UUID.class) {
+            converted = toUUID(value);
+        } else if (type == Clob.class) {
+            converted = toClob(value);
+        } else if (type == Blob.class) {
+            converted = toBlob(value);
+        } else if (type == Character.class && value instanceof String string && !string.isEmpty()) {
+            converted = string.charAt(0);
+        } else if (type == Duration.class && value instanceof Number number) {
+            converted = Duration.ofNanos(number.longValue());
+        } else {
+            throw cannotConvert(value, type);
+        }
+        return type.cast(converted);
+    }
+
+    private static LocalDateTime toLocalDateTime(final Object value) throws SQLException {
+        if (value == null || value instanceof LocalDateTime) {
+            return (LocalDateTime)value;
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate().atStartOfDay();
+        }
+        if (value instanceof Time time) {
+            return time.toLocalTime().atDate(LocalDate.of(1970, 1, 1));
+        }
+        if (value instanceof LocalDate date) {
+            return date.atStartOfDay();
+        }
+        if (value instanceof java.util.Date date) {
+            return new Timestamp(date.getTime()).toLocalDateTime();
+        }
+        if (value instanceof OffsetDateTime || value instanceof ZonedDateTime || value instanceof Instant) {
+            return LocalDateTime.ofInstant(toInstant(value), ZoneId.systemDefault());
+        }
+        if (value instanceof String string) {
+            try {
+                return string.length() <= 10 ? LocalDate.parse(string).atStartOfDay() : Timestamp.valueOf(string).toLocalDateTime();
+            } catch (RuntimeException e) {
+                throw new SQLException("Cannot convert '" + value + "' to a timestamp", "22007", e);
+            }
+        }
+        throw cannotConvert(value, LocalDateTime.class);
+    }
+
+    private static LocalTime toLocalTime(final Object value) throws SQLException {
+        if (value == null || value instanceof LocalTime) {
+            return (LocalTime)value;
+        }
+        if (value instanceof Time time) {
+            return time.toLocalTime();
+        }
+        if (value instanceof OffsetTime time) {
+            return time.toLocalTime();
+        }
+        if (value instanceof String string) {
+            try {
+                return LocalTime.parse(string);
+            } catch (RuntimeException e) {
+                throw new SQLException("Cannot convert '" + value + "' to a time", "22007", e);
+            }
+        }
+        return toLocalDateTime(value).toLocalTime();
+    }
+
+    private static Instant toInstant(final Object value) throws SQLException {
+        if (value instanceof Instant instant) {
+            return instant;
+        }
+        if (value instanceof OffsetDateTime dateTime) {
+            return dateTime.toInstant();
+        }
+        if (value instanceof ZonedDateTime dateTime) {
+            return dateTime.toInstant();
+        }
+        return toLocalDateTime(value).atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static UUID toUUID(final Object value) throws SQLException {
+        if (value instanceof byte[] bytes && bytes.length == 16) {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong());
+        }
+        try {
+            return UUID.fromString(toString(value).trim());
+        } catch (IllegalArgumentException e) {
+            throw new SQLException("Cannot convert '" + value + "' to a UUID", "22018", e);
+        }
+    }
+
+    private static SQLException cannotConvert(final Object value, final Class<?> type) {
+        return new SQLException("Cannot convert " + value.getClass().getName() + " to " + type.getName(), "22018");
+    }
+}
@@ -0,0 +1,202 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import com.elihullc.rwsplitter.jpa.hibernate.routing.StatementClassifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the tables referenced by SQL statements: the tables following {@code FROM} and {@code JOIN} for reads and, for writes,
+ * additionally those following {@code INTO}, {@code UPDATE} and {@code TABLE}.  Names are reduced to their last, unquoted segment in
+ * lower case, so {@code app.ORDERS} and {@code orders} are the same table.  Only the statement text is considered: tables written
+ * as a side effect, by cascading foreign keys or triggers, and the base tables of views are not found.  Results are cached per SQL
+ * string, up to {@link #getMaxCacheSize()} statements.
+ */
+final class TableReferences {
+
+    /**
+     * Returned when the tables of a statement cannot be determined
+     */
+    static final Set<String> UNKNOWN = Collections.unmodifiableSet(new HashSet<>());
+
+    private static final Pattern TOKEN = Pattern.compile(
+      "(?:`[^`]*`|\\[[^\\]]*\\]|[A-Z_][A-Z0-9_$#]*)(?:\\s*\\.\\s*(?:`[^`]*`|\\[[^\\]]*\\]|[A-Z_][A-Z0-9_$#]*))*|\\S");
+    private static final Set<String> READ_KEYWORDS = Set.of("FROM", "JOIN");
+    private static final Set<String> WRITE_KEYWORDS = Set.of("FROM", "JOIN", "INTO", "UPDATE", "TABLE");
+    private static final Set<String> SESSION_STATEMENTS = Set.of("SET", "SHOW", "USE", "SAVEPOINT", "RELEASE", "COMMIT", "ROLLBACK",
+      "START", "BEGIN", "SELECT", "VALUES");
+    private static final Set<String> CLAUSE_END_KEYWORDS = Set.of("WHERE", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH",
+      "FOR", "UNION", "EXCEPT", "INTERSECT", "MINUS", "WINDOW", "SET", "VALUES", "RETURNING", "SELECT");
+    private static final Set<String> CLAUSE_KEYWORDS = Set.of("WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "OUTER",
+      "NATURAL", "STRAIGHT_JOIN", "ON", "USING", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "FOR", "UNION", "EXCEPT",
+      "INTERSECT", "MINUS", "WINDOW", "SET", "VALUES", "SELECT", "WITH", "LOCK", "RETURNING", "AS", "PARTITION", "USE", "FORCE",
+      "IGNORE", "LOW_PRIORITY", "QUICK", "ONLY", "TABLESAMPLE");
+
+    private final ConcurrentHashMap<String, Set<String>> readTables = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> writtenTables = new ConcurrentHashMap<>();
+
+    private volatile int maxCacheSize = 10_000;
+
+    /**
+     * Returns the tables read by the given query
+     * @param sql the query
+     * @return the tables read or {@link #UNKNOWN} if none could be found
+     */
+    Set<String> getReadTables(final String sql) {
+        return this.cached(this.readTables, sql, this::extractReadTables);
+    }
+
+    /**
+     * Returns the tables the given statement may write to
+     * @param sql the statement
+     * @return the tables written, empty if the statement does not write or {@link #UNKNOWN} if they cannot be determined
+     */
+    Set<String> getWrittenTables(final String sql) {
+        return this.cached(this.writtenTables, sql, this::extractWrittenTables);
+    }
+
+    int getMaxCacheSize() {
+        return this.maxCacheSize;
+    }
+
+    void setMaxCacheSize(final int maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    private Set<String> cached(final ConcurrentHashMap<String, Set<String>> cache, final String sql,
+      final Function<String, Set<String>> extractor) {
+        final Set<String> cached = cache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        final Set<String> tables = extractor.apply(sql);
+        if (cache.size() < this.maxCacheSize) {
+            cache.put(sql, tables);
+        }
+        return tables;
+    }
+
+    private Set<String> extractReadTables(final String sql) {
+        final Set<String> tables = extract(tokenize(sql), READ_KEYWORDS);
+        return tables.isEmpty() ? UNKNOWN : tables;
+    }
+
+    private Set<String> extractWrittenTables(final String sql) {
+        final List<String> tokens = tokenize(sql);
+        if (tokens.isEmpty()) {
+            return Set.of();
+        }
+        final String first = tokens.get(0).equals("(") && tokens.size() > 1 ? tokens.get(1) : tokens.get(0);
+        if (SESSION_STATEMENTS.contains(first) || first.equals("WITH") && !containsDml(tokens)) {
+            return Set.of();
+        }
+        final Set<String> tables = extract(tokens, WRITE_KEYWORDS);
+        return tables.isEmpty() ? UNKNOWN : tables;
+    }
+
+    private static boolean containsDml(final List<String> tokens) {
+        return tokens.contains("INSERT") || tokens.contains("UPDATE") || tokens.contains("DELETE") || tokens.contains("MERGE");
+    }
+
+    private static List<String> tokenize(final String sql) {
+        final Matcher matcher = TOKEN.matcher(StatementClassifier.normalize(sql));
+        final List<String> tokens = new ArrayList<>();
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    private static Set<String> extract(final List<String> tokens, final Set<String> keywords) {
+        final Set<String> tables = new HashSet<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            final String token = tokens.get(i);
+            if (!keywords.contains(token)) {
+                continue;
+            }
+            if (token.equals("FROM") || token.equals("UPDATE")) {
+                extractList(tokens, i + 1, tables);
+            } else {
+                extractName(tokens, i + 1, tables);
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * Adds the tables of a {@code FROM} or {@code UPDATE} clause starting at the given token: the first one and those following
+     * {@code JOIN} or a comma outside of parentheses, up to the end of the clause
+     */
+    private static void extractList(final List<String> tokens, final int start, final Set<String> tables) {
+        extractName(tokens, start, tables);
+        int depth = 0;
+        for (int i = start; i < tokens.size(); i++) {
+            final String token = tokens.get(i);
+            if (token.equals("(")) {
+                depth++;
+            } else if (token.equals(")")) {
+                if (--depth < 0) {
+                    return;
+                }
+            } else if (depth == 0) {
+                if (CLAUSE_END_KEYWORDS.contains(token)) {
+                    return;
+                }
+                if (token.equals(",") || token.equals("JOIN")) {
+                    extractName(tokens, i + 1, tables);
+                }
+            }
+        }
+    }
+
+    private static void extractName(final List<String> tokens, final int index, final Set<String> tables) {
+        if (index < tokens.size()) {
+            final String name = tokens.get(index);
+            if (isIdentifier(name) && !CLAUSE_KEYWORDS.contains(name)) {
+                tables.add(toTableName(name));
+            }
+        }
+    }
+
+    private static boolean isIdentifier(final String token) {
+        final char first = token.charAt(0);
+        return first == '`' || first == '[' || first == '_' || Character.isLetter(first);
+    }
+
+    private static String toTableName(final String name) {
+        final int dot = lastSeparator(name);
+        String table = name.substring(dot + 1).trim();
+        if (table.startsWith("`") || table.startsWith("[")) {
+            table = table.substring(1, table.length() - 1);
+        }
+        return table.toLowerCase(Locale.ROOT);
+    }
+
+    private static int lastSeparator(final String name) {
+        char quote = 0;
+        int separator = -1;
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '`') {
+                quote = '`';
+            } else if (c == '[') {
+                quote = ']';
+            } else if (c == '.') {
+                separator = i;
+            }
+        }
+        return separator;
+    }
+}
@@ -0,0 +1,178 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Dynamic proxy of a writer {@link Connection} and the statements created from it that collects the tables written by executed
+ * statements and invalidates their cached results in the {@link QueryResultCache} once the writes are committed: on
+ * {@link Connection#commit()}, when auto-commit is enabled again or, in auto-commit mode, right after execution.  Rolled back
+ * writes are discarded.
+ */
+final class WriteTrackingConnection implements InvocationHandler {
+
+    private final QueryResultCache cache;
+    private final String tenantIdentifier;
+    private final Connection target;
+    private final Set<String> pendingTables = new HashSet<>();
+    private boolean pendingAll;
+    private boolean autoCommit;
+
+    private WriteTrackingConnection(final QueryResultCache cache, final String tenantIdentifier, final Connection target)
+      throws SQLException {
+        this.cache = cache;
+        this.tenantIdentifier = tenantIdentifier;
+        this.target = target;
+        this.autoCommit = target.getAutoCommit();
+    }
+
+    /**
+     * Returns a proxy of the given writer connection tracking its writes
+     * @param cache the cache
+     * @param tenantIdentifier the tenant identifier
+     * @param target the writer connection
+     * @return the proxy
+     * @throws SQLException if the auto-commit mode of the connection cannot be determined
+     */
+    static Connection wrap(final QueryResultCache cache, final String tenantIdentifier, final Connection target) throws SQLException {
+        return (Connection)Proxy.newProxyInstance(WriteTrackingConnection.class.getClassLoader(), new Class<?>[] { Connection.class },
+          new WriteTrackingConnection(cache, tenantIdentifier, target));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "setAutoCommit": {
+                final Object result = Invocation.invoke(this.target, method, args);
+                final boolean enabled = (Boolean)args[0];
+                if (enabled && !this.autoCommit) {
+                    this.flush();
+                }
+                this.autoCommit = enabled;
+                return result;
+            }
+            case "commit": {
+                final Object result = Invocation.invoke(this.target, method, args);
+                this.flush();
+                return result;
+            }
+            case "rollback":
+                if (args == null) {
+                    this.discard();
+                }
+                break;
+            case "close":
+                this.discard();
+                break;
+            case "createStatement":
+                return this.wrapStatement(proxy, method.getReturnType(), Invocation.invoke(this.target, method, args), null);
+            case "prepareStatement":
+            case "prepareCall":
+                return this.wrapStatement(proxy, method.getReturnType(), Invocation.invoke(this.target, method, args),
+                  (String)args[0]);
+            default:
+                break;
+        }
+        return Invocation.invoke(this.target, method, args);
+    }
+
+    private Object wrapStatement(final Object connection, final Class<?> type, final Object statement, final String sql) {
+        return Proxy.newProxyInstance(WriteTrackingConnection.class.getClassLoader(), new Class<?>[] { type },
+          new StatementHandler(connection, statement, sql));
+    }
+
+    private void executed(final String sql) {
+        final Set<String> tables = this.cache.getWrittenTables(sql);
+        if (tables == TableReferences.UNKNOWN) {
+            this.pendingAll = true;
+        } else if (!tables.isEmpty()) {
+            this.pendingTables.addAll(tables);
+        } else {
+            return;
+        }
+        if (this.autoCommit) {
+            this.flush();
+        }
+    }
+
+    private void flush() {
+        if (this.pendingAll) {
+            this.cache.invalidate(this.tenantIdentifier);
+        } else if (!this.pendingTables.isEmpty()) {
+            this.cache.invalidate(this.tenantIdentifier, this.pendingTables);
+        }
+        this.discard();
+    }
+
+    private void discard() {
+        this.pendingAll = false;
+        this.pendingTables.clear();
+    }
+
+    /**
+     * Tracks the statements executed by a statement created from the connection
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Object connection;
+        private final Object target;
+        private final String sql;
+        private final List<String> batch = new ArrayList<>();
+
+        private StatementHandler(final Object connection, final Object target, final String sql) {
+            this.connection = connection;
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return this.connection;
+                case "addBatch":
+                    if (args != null && args[0] instanceof String batchSql) {
+                        this.batch.add(batchSql);
+                    }
+                    break;
+                case "clearBatch":
+                    this.batch.clear();
+                    break;
+                default:
+                    break;
+            }
+            if (!name.startsWith("execute")) {
+                return Invocation.invoke(this.target, method, args);
+            }
+            try {
+                return Invocation.invoke(this.target, method, args);
+            } finally {
+                if (args != null && args.length > 0 && args[0] instanceof String executedSql) {
+                    WriteTrackingConnection.this.executed(executedSql);
+                } else if (this.sql != null) {
+                    WriteTrackingConnection.this.executed(this.sql);
+                }
+                if (name.endsWith("Batch")) {
+                    this.batch.forEach(WriteTrackingConnection.this::executed);
+                    this.batch.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Source of the properties used to configure the connection provider(s) of a tenant, e.g. {@code database.url},
+ * {@code database.user}, {@code database.password}, {@code database.dataSourceClassName} and {@code database.readOnly}
+ */
+public interface DataSourceConfigurationSource {
+
+    /**
+     * Returns the properties of the given tenant.  The returned instance is owned by the caller.
+     * @param tenantIdentifier the tenant identifier
+     * @return the properties of the given tenant
+     */
+    Properties getProperties(String tenantIdentifier);
+
+    /**
+     * Loads the properties of the given tenants ahead of their first use.  The default implementation does nothing.
+     * @param tenantIdentifiers the tenant identifiers
+     */
+    default void prefetch(Collection<String> tenantIdentifiers) {
+    }
+}
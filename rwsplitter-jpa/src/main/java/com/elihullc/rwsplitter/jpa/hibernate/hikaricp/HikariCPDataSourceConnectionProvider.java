@@ -1,26 +1,60 @@
 package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
 
 import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.jfr.ProviderConfigurationEvent;
 import com.zaxxer.hikari.hibernate.HikariConfigurationUtil;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.hikaricp.internal.HikariCPConnectionProvider;
 
 /**
  * Abstract class implementing {@link StoppableConnectionProvider} that configures a {@link HikariCPConnectionProvider} using a
- * {@link javax.sql.DataSource} class name
+ * {@link javax.sql.DataSource} class name.  Pools are named after {@link #getDataSourceName(String)}; a pool created while another
+ * pool of the same name is still open, e.g. when a tenant is rebuilt while its previous pool drains, gets its generation appended,
+ * see {@link HikariPools#GENERATION_SEPARATOR}, so that its MBeans do not collide with those of the previous pool.
  */
 public abstract class HikariCPDataSourceConnectionProvider extends HikariCPConnectionProvider
   implements StoppableConnectionProvider {
 
+    private static final Set<String> POOL_NAMES = ConcurrentHashMap.newKeySet();
+
+    private String poolName;
+
     protected HikariCPDataSourceConnectionProvider(final String tenantIdentifier) {
+        this.initialize(tenantIdentifier);
+    }
+
+    /**
+     * Constructor for subclasses that need to set their own fields before the connection provider is configured.  Such subclasses
+     * must invoke {@link #initialize(String)} once their fields are set.
+     */
+    protected HikariCPDataSourceConnectionProvider() {
+    }
+
+    /**
+     * Configures the connection provider for the given tenant
+     * @param tenantIdentifier the tenant identifier
+     */
+    protected final void initialize(final String tenantIdentifier) {
+        final ProviderConfigurationEvent event = new ProviderConfigurationEvent();
+        event.begin();
+        final long start = event.isEnabled() ? System.nanoTime() : 0L;
         this.beforeConfiguration(tenantIdentifier);
-        final Map<String, Object> dbProps = this.getDataSourceProperties(tenantIdentifier);
-        this.configure(dbProps);
+        final long fetchNanos = event.isEnabled() ? System.nanoTime() - start : 0L;
+        try {
+            final Map<String, Object> dbProps = this.getDataSourceProperties(tenantIdentifier);
+            this.configure(dbProps);
+        } catch (RuntimeException e) {
+            this.releasePoolName();
+            throw e;
+        }
         this.afterConfiguration(tenantIdentifier);
+        event.commit(tenantIdentifier, this.isReadOnly(), fetchNanos);
     }
 
     /**
@@ -40,7 +74,7 @@ public abstract class HikariCPDataSourceConnectionProvider extends HikariCPConne
         props.put(pre + "dataSource.password", getDatabasePassword());
         props.put(AvailableSettings.PASS, getDatabasePassword());
         props.put(pre + "transactionIsolation", getIsolationLevel());
-        props.put(pre + "poolName", getDataSourceName(tenantIdentifier));
+        props.put(pre + "poolName", this.reservePoolName(getDataSourceName(tenantIdentifier)));
         props.put(pre + "maximumPoolSize", String.valueOf(getMaximumPoolSize()));
         props.put(pre + "minimumIdle", String.valueOf(getMinimumPoolSize()));
         if (this.isReadOnly()) {
@@ -51,6 +85,35 @@ public abstract class HikariCPDataSourceConnectionProvider extends HikariCPConne
         return props;
     }
 
+    private synchronized String reservePoolName(final String name) {
+        this.releasePoolName();
+        String candidate = name;
+        for (int generation = 2; !POOL_NAMES.add(candidate); generation++) {
+            candidate = name + HikariPools.GENERATION_SEPARATOR + generation;
+        }
+        this.poolName = candidate;
+        return candidate;
+    }
+
+    private synchronized void releasePoolName() {
+        if (this.poolName != null) {
+            POOL_NAMES.remove(this.poolName);
+            this.poolName = null;
+        }
+    }
+
+    /**
+     * Closes the pool and frees its name for the next pool of the same data source
+     */
+    @Override
+    public void stop() {
+        try {
+            super.stop();
+        } finally {
+            this.releasePoolName();
+        }
+    }
+
     /**
      * Returns a distinct name for the configured data source.  The default implementation returns the string consisting of the
      * tenant identifier + "Reader/Master Data Source" depending on the value of {@link #isReadOnly()}
@@ -0,0 +1,102 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Utility methods for accessing the HikariCP pool backing a {@link StoppableConnectionProvider}
+ */
+public final class HikariPools {
+
+    /**
+     * Separator between a pool name and the generation of a pool sharing its name with a pool still open, e.g. a rebuilt pool
+     */
+    public static final String GENERATION_SEPARATOR = " #";
+
+    private HikariPools() {
+    }
+
+    /**
+     * Returns the pool statistics of the HikariCP pool backing the given provider
+     * @param provider the connection provider
+     * @return the pool statistics or null if the provider is not backed by a started HikariCP pool
+     */
+    public static HikariPoolMXBean getPoolMXBean(final StoppableConnectionProvider provider) {
+        return provider.isUnwrappableAs(HikariDataSource.class) ? provider.unwrap(HikariDataSource.class).getHikariPoolMXBean() : null;
+    }
+
+    /**
+     * Returns the runtime configuration of the HikariCP pool backing the given provider
+     * @param provider the connection provider
+     * @return the runtime configuration or null if the provider is not backed by HikariCP
+     */
+    public static HikariConfigMXBean getConfigMXBean(final StoppableConnectionProvider provider) {
+        return provider.isUnwrappableAs(HikariDataSource.class) ? provider.unwrap(HikariDataSource.class).getHikariConfigMXBean() : null;
+    }
+
+    /**
+     * Returns the name of the pool backing the given provider without its generation, which is stable across rebuilds of the pool
+     * @param provider the connection provider
+     * @return the pool name without its generation or null if the provider is not backed by HikariCP
+     */
+    public static String getBasePoolName(final StoppableConnectionProvider provider) {
+        final HikariConfigMXBean config = getConfigMXBean(provider);
+        if (config == null || config.getPoolName() == null) {
+            return null;
+        }
+        final String poolName = config.getPoolName();
+        final int separator = poolName.lastIndexOf(GENERATION_SEPARATOR);
+        if (separator < 0 || separator + GENERATION_SEPARATOR.length() == poolName.length()) {
+            return poolName;
+        }
+        for (int i = separator + GENERATION_SEPARATOR.length(); i < poolName.length(); i++) {
+            if (!Character.isDigit(poolName.charAt(i))) {
+                return poolName;
+            }
+        }
+        return poolName.substring(0, separator);
+    }
+
+    /**
+     * Returns the number of active connections of the pool backing the given provider
+     * @param provider the connection provider
+     * @return the number of active connections or 0 if the provider is not backed by HikariCP
+     */
+    public static int getActiveConnections(final StoppableConnectionProvider provider) {
+        final HikariPoolMXBean pool = getPoolMXBean(provider);
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+
+    /**
+     * Whether the pool backing the given provider has no idle connection left and cannot grow, so that a checkout has to wait for a
+     * connection to be returned
+     * @param provider the connection provider
+     * @return true if the pool is saturated, false otherwise or if the provider is not backed by a started HikariCP pool
+     */
+    public static boolean isSaturated(final StoppableConnectionProvider provider) {
+        final HikariPoolMXBean pool = getPoolMXBean(provider);
+        return pool != null && pool.getIdleConnections() == 0 && pool.getTotalConnections() >= getMaximumPoolSize(provider);
+    }
+
+    /**
+     * Returns the minimum number of idle connections of the pool backing the given provider
+     * @param provider the connection provider
+     * @return the minimum number of idle connections or 0 if the provider is not backed by HikariCP
+     */
+    public static int getMinimumIdle(final StoppableConnectionProvider provider) {
+        final HikariConfigMXBean config = getConfigMXBean(provider);
+        return config == null ? 0 : config.getMinimumIdle();
+    }
+
+    /**
+     * Returns the maximum size of the pool backing the given provider
+     * @param provider the connection provider
+     * @return the maximum pool size or 0 if the provider is not backed by HikariCP
+     */
+    public static int getMaximumPoolSize(final StoppableConnectionProvider provider) {
+        final HikariConfigMXBean config = getConfigMXBean(provider);
+        return config == null ? 0 : config.getMaximumPoolSize();
+    }
+}
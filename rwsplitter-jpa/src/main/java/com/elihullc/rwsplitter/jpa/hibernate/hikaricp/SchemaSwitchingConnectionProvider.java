@@ -0,0 +1,115 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.io.Serial;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * {@link StoppableConnectionProvider} for a single tenant that borrows connections from a pool shared by all tenants of a host and
+ * switches them to the tenant's catalog (or schema) on checkout.  The switch is skipped when the connection already points at the
+ * tenant's catalog, which is common since the shared pool must not configure a default catalog that HikariCP would restore on
+ * return.  Stopping this provider does not stop the shared pool.
+ */
+public class SchemaSwitchingConnectionProvider implements StoppableConnectionProvider {
+
+    @Serial
+    private static final long serialVersionUID = 778949278892879281L;
+
+    private final StoppableConnectionProvider sharedProvider;
+    private final String schema;
+    private final boolean useCatalog;
+
+    public SchemaSwitchingConnectionProvider(final StoppableConnectionProvider sharedProvider, final String schema,
+      final boolean useCatalog) {
+        this.sharedProvider = sharedProvider;
+        this.schema = schema;
+        this.useCatalog = useCatalog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Connection connection = this.sharedProvider.getConnection();
+        try {
+            if (this.useCatalog) {
+                if (!this.schema.equals(connection.getCatalog())) {
+                    connection.setCatalog(this.schema);
+                }
+            } else if (!this.schema.equals(connection.getSchema())) {
+                connection.setSchema(this.schema);
+            }
+        } catch (SQLException | RuntimeException e) {
+            this.sharedProvider.closeConnection(connection);
+            throw e;
+        }
+        return connection;
+    }
+
+    @Override
+    public void closeConnection(final Connection connection) throws SQLException {
+        this.sharedProvider.closeConnection(connection);
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return this.sharedProvider.supportsAggressiveRelease();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return this.sharedProvider.isReadOnly();
+    }
+
+    @Override
+    public int getWeight() {
+        return this.sharedProvider.getWeight();
+    }
+
+    @Override
+    public String getZone() {
+        return this.sharedProvider.getZone();
+    }
+
+    /**
+     * Returns the owner of the shared pool of the host
+     * @return the owner of the shared pool of the host
+     */
+    @Override
+    public StoppableConnectionProvider getPoolOwner() {
+        return this.sharedProvider.getPoolOwner();
+    }
+
+    /**
+     * Does nothing as the shared pool outlives the tenants using it
+     */
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public boolean isUnwrappableAs(final Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || this.sharedProvider.isUnwrappableAs(unwrapType);
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> unwrapType) {
+        return unwrapType.isInstance(this) ? unwrapType.cast(this) : this.sharedProvider.unwrap(unwrapType);
+    }
+
+    /**
+     * Returns the shared connection provider of the host
+     * @return the shared connection provider of the host
+     */
+    public StoppableConnectionProvider getSharedProvider() {
+        return this.sharedProvider;
+    }
+
+    /**
+     * Returns the catalog or schema of the tenant
+     * @return the catalog or schema of the tenant
+     */
+    public String getSchema() {
+        return this.schema;
+    }
+}
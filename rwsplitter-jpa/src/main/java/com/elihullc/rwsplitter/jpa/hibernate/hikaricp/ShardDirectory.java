@@ -0,0 +1,113 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TenantHostDirectory} assigning tenants to shards with a {@link ShardMap}, the shard being the host key of the shared pool.
+ * Every lookup is answered from the current map, so no per-tenant state is kept however many tenants are looked up.  The map is
+ * reloaded from its source by {@link #refresh()}, optionally on a schedule, and replaces the current map only if its version is
+ * newer, after which every listener added with {@link #addChangeListener(Runnable)} is notified.
+ * {@link SharedPoolMultiTenantConnectionProvider} listens to move the tenants whose shard changed to their new shard's pool without
+ * a restart.
+ */
+public class ShardDirectory implements TenantHostDirectory, Closeable {
+
+    private final Supplier<ShardMap> source;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private volatile ShardMap map;
+
+    /**
+     * Creates a directory loading its map once from the given source.  Use {@link #refresh()} to reload it.
+     * @param source the source of the shard map
+     */
+    public ShardDirectory(final Supplier<ShardMap> source) {
+        this.source = source;
+        this.map = source.get();
+        this.scheduler = null;
+    }
+
+    /**
+     * Creates a directory reloading its map from the given source every refresh interval
+     * @param source the source of the shard map
+     * @param refreshInterval the interval between reloads
+     */
+    public ShardDirectory(final Supplier<ShardMap> source, final Duration refreshInterval) {
+        this.source = source;
+        this.map = source.get();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-shard-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                this.refresh();
+            } catch (RuntimeException e) {
+                this.logger.warn("Unable to refresh shard map", e);
+            }
+        }, refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getHost(final String tenantIdentifier) {
+        return this.map.getShard(tenantIdentifier);
+    }
+
+    @Override
+    public boolean isHost(final String host) {
+        return this.map.getShards().contains(host);
+    }
+
+    @Override
+    public void addChangeListener(final Runnable listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Reloads the shard map and, if its version is newer than the current one, replaces the current map and notifies the
+     * listeners
+     * @return true if the current map was replaced, false otherwise
+     */
+    public synchronized boolean refresh() {
+        final ShardMap loaded = this.source.get();
+        final ShardMap previous = this.map;
+        if (loaded == null || loaded.getVersion() <= previous.getVersion()) {
+            return false;
+        }
+        this.map = loaded;
+        this.logger.info("Shard map updated from version {} to {}", previous.getVersion(), loaded.getVersion());
+        this.listeners.forEach(Runnable::run);
+        return true;
+    }
+
+    /**
+     * Returns the current shard map
+     * @return the current shard map
+     */
+    public ShardMap getShardMap() {
+        return this.map;
+    }
+
+    /**
+     * Stops refreshing
+     */
+    @Override
+    public void close() {
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Immutable, versioned assignment of tenants to shards, i.e. database clusters.  Tenants with an explicit override are assigned to
+ * their override's shard; all others are assigned by a consistent-hash ring on which every shard owns
+ * {@code weight * virtualNodes} points, so that adding or removing a shard only moves the tenants of the ring segments it gains
+ * or loses.  Shards with a weight of zero are only used by overrides.  Hashes are stable across JVMs.
+ */
+public final class ShardMap {
+
+    /**
+     * Default number of points per unit of weight
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final long version;
+    private final Map<String, Integer> shards;
+    private final Map<String, String> overrides;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * Creates a shard map with {@link #DEFAULT_VIRTUAL_NODES}
+     * @param version the version of this map, increasing with every change
+     * @param shards the weight of every shard, keyed by shard
+     * @param overrides the shard of tenants that are not assigned by the ring, keyed by tenant
+     */
+    public ShardMap(final long version, final Map<String, Integer> shards, final Map<String, String> overrides) {
+        this(version, shards, overrides, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates a shard map
+     * @param version the version of this map, increasing with every change
+     * @param shards the weight of every shard, keyed by shard
+     * @param overrides the shard of tenants that are not assigned by the ring, keyed by tenant
+     * @param virtualNodes the number of points per unit of weight
+     * @throws IllegalArgumentException if no shard has a positive weight or an override refers to an unknown shard
+     */
+    public ShardMap(final long version, final Map<String, Integer> shards, final Map<String, String> overrides,
+      final int virtualNodes) {
+        this.version = version;
+        this.shards = Map.copyOf(shards);
+        this.overrides = Map.copyOf(overrides);
+        this.overrides.forEach((tenant, shard) -> {
+            if (!this.shards.containsKey(shard)) {
+                throw new IllegalArgumentException("Tenant " + tenant + " is overridden to unknown shard " + shard);
+            }
+        });
+        final List<Point> ring = new ArrayList<>();
+        this.shards.forEach((shard, weight) -> {
+            for (int i = 0; i < weight * virtualNodes; i++) {
+                ring.add(new Point(hash(shard + "#" + i), shard));
+            }
+        });
+        if (ring.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard must have a positive weight");
+        }
+        ring.sort(Comparator.comparingLong((Point point) -> point.hash).thenComparing(point -> point.shard));
+        this.points = new long[ring.size()];
+        this.owners = new String[ring.size()];
+        for (int i = 0; i < ring.size(); i++) {
+            this.points[i] = ring.get(i).hash;
+            this.owners[i] = ring.get(i).shard;
+        }
+    }
+
+    /**
+     * Parses a shard map from properties: {@code version}, {@code shard.[shard]=[weight]} for every shard and
+     * {@code override.[tenant]=[shard]} for every override
+     * @param properties the properties
+     * @return the parsed shard map
+     * @throws IllegalArgumentException if the properties do not describe a valid shard map
+     */
+    public static ShardMap fromProperties(final Properties properties) {
+        final Map<String, Integer> shards = new HashMap<>();
+        final Map<String, String> overrides = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            final String value = properties.getProperty(name).trim();
+            if (name.startsWith("shard.")) {
+                shards.put(name.substring("shard.".length()), Integer.parseInt(value));
+            } else if (name.startsWith("override.")) {
+                overrides.put(name.substring("override.".length()), value);
+            }
+        }
+        return new ShardMap(Long.parseLong(properties.getProperty("version", "0").trim()), shards, overrides);
+    }
+
+    /**
+     * Returns the shard of the given tenant
+     * @param tenantIdentifier the tenant identifier
+     * @return the shard of the tenant
+     */
+    public String getShard(final String tenantIdentifier) {
+        final String override = this.overrides.get(tenantIdentifier);
+        if (override != null) {
+            return override;
+        }
+        final int index = Arrays.binarySearch(this.points, hash(tenantIdentifier));
+        final int position = index >= 0 ? index : -index - 1;
+        return this.owners[position == this.points.length ? 0 : position];
+    }
+
+    /**
+     * Returns the version of this map
+     * @return the version of this map
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns all shards, including those only used by overrides
+     * @return all shards
+     */
+    public Set<String> getShards() {
+        return this.shards.keySet();
+    }
+
+    /**
+     * Returns the explicit overrides, keyed by tenant
+     * @return the explicit overrides
+     */
+    public Map<String, String> getOverrides() {
+        return this.overrides;
+    }
+
+    /**
+     * Returns a 64-bit FNV-1a hash of the given string followed by the MurmurHash3 finalizer
+     * @param value the string
+     * @return the hash of the string
+     */
+    private static long hash(final String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardMap[version=" + this.version + ", shards=" + this.shards + ", overrides=" + this.overrides.size() + "]";
+    }
+
+    /**
+     * Point of a shard on the ring
+     */
+    private static final class Point {
+
+        private final long hash;
+        private final String shard;
+
+        private Point(final long hash, final String shard) {
+            this.hash = hash;
+            this.shard = shard;
+        }
+    }
+}
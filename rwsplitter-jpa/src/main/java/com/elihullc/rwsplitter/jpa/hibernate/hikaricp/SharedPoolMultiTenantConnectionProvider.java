@@ -0,0 +1,266 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.ProviderRegistry;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.io.Serial;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.service.spi.Startable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SpringMultiTenantConnectionProvider} for tenants that are schemas on a shared database server.  Instead of a pool per
+ * tenant, one {@link HikariCPDataSourceConnectionProvider} is created per host and role, using the host key returned by the
+ * {@link TenantHostDirectory} as its identifier, and every tenant borrows connections from its host's pool through a
+ * {@link SchemaSwitchingConnectionProvider}.  The number of pools therefore grows with the number of hosts, not tenants, and so does
+ * the number of replication lag samples and health probes since monitors track readers by the pool they borrow from.
+ *
+ * The host pools must not configure a default catalog (or schema) as HikariCP would otherwise reset it on every return to the
+ * pool, forcing a switch on every checkout.
+ *
+ * Once started, see {@link #start()}, the provider listens to its directory.  When the directory reports that hosts may have
+ * changed, e.g. a {@link ShardDirectory} rebalancing tenants across shards, the connection providers of the tenants whose host
+ * changed are removed so that they borrow from their new host's pool on next use, and the pools of hosts no longer in the
+ * directory are drained.  Hibernate starts the provider as a service; when used outside of Hibernate call {@link #start()}.
+ *
+ * Rebuilding a tenant, e.g. once a {@link com.elihullc.rwsplitter.jpa.hibernate.WriterFailoverDetector} finds its writer demoted,
+ * rebuilds its host's pool for every tenant of the host, see {@link #rebuild(String, DatabaseRole)}.
+ * @param <P> the type of connection provider of a host
+ */
+public abstract class SharedPoolMultiTenantConnectionProvider<P extends HikariCPDataSourceConnectionProvider>
+  extends SpringMultiTenantConnectionProvider<SchemaSwitchingConnectionProvider> implements Startable {
+
+    @Serial
+    private static final long serialVersionUID = -3188472734580167244L;
+
+    private final transient ProviderRegistry<P> masterHostProviders = new ProviderRegistry<>();
+    private final transient ProviderRegistry<P> readerHostProviders = new ProviderRegistry<>();
+    private final transient TenantHostDirectory hostDirectory;
+    private final transient ReadWriteLock hostLock = new ReentrantReadWriteLock();
+    private final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private boolean useCatalog = true;
+    private boolean started;
+
+    protected SharedPoolMultiTenantConnectionProvider(final SpringTenantIdentifierResolver tenantIdentifierResolver,
+      final TenantHostDirectory hostDirectory) {
+        super(tenantIdentifierResolver);
+        this.hostDirectory = hostDirectory;
+        this.masterHostProviders.setDetachedValueHandler(provider -> this.drain(List.of(provider)));
+        this.readerHostProviders.setDetachedValueHandler(provider -> this.drain(List.of(provider)));
+    }
+
+    /**
+     * Starts listening to the changes of the directory.  Called by Hibernate once the provider is registered as a service; further
+     * calls do nothing.
+     */
+    @Override
+    public synchronized void start() {
+        if (!this.started) {
+            this.started = true;
+            this.hostDirectory.addChangeListener(this::rebalance);
+        }
+    }
+
+    /**
+     * Retrieves the writer of the given tenant, creating it under the host lock so that it is either created with the host the
+     * directory returns after a change or seen by the following {@link #rebalance()}
+     * @param tenantIdentifier the tenant identifier
+     * @return the writer of the tenant
+     */
+    @Override
+    protected SchemaSwitchingConnectionProvider getOrCreateMasterConnectionProvider(final String tenantIdentifier) {
+        if (this.getMasterConnectionProviderIfPresent(tenantIdentifier) != null) {
+            return super.getOrCreateMasterConnectionProvider(tenantIdentifier);
+        }
+        this.hostLock.readLock().lock();
+        try {
+            return super.getOrCreateMasterConnectionProvider(tenantIdentifier);
+        } finally {
+            this.hostLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retrieves the readers of the given tenant, creating them under the host lock, see
+     * {@link #getOrCreateMasterConnectionProvider(String)}
+     * @param tenantIdentifier the tenant identifier
+     * @return the readers of the tenant
+     */
+    @Override
+    protected List<SchemaSwitchingConnectionProvider> getOrCreateReaderConnectionProviders(final String tenantIdentifier) {
+        if (this.getReaderConnectionProvidersIfPresent(tenantIdentifier) != null) {
+            return super.getOrCreateReaderConnectionProviders(tenantIdentifier);
+        }
+        this.hostLock.readLock().lock();
+        try {
+            return super.getOrCreateReaderConnectionProviders(tenantIdentifier);
+        } finally {
+            this.hostLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected SchemaSwitchingConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+        final P host = this.masterHostProviders.get(this.hostDirectory.getHost(tenantIdentifier),
+          this::createMasterHostConnectionProvider);
+        return new SchemaSwitchingConnectionProvider(host, this.hostDirectory.getSchema(tenantIdentifier), this.useCatalog);
+    }
+
+    @Override
+    protected SchemaSwitchingConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+        final P host = this.readerHostProviders.get(this.hostDirectory.getHost(tenantIdentifier),
+          this::createReaderHostConnectionProvider);
+        return new SchemaSwitchingConnectionProvider(host, this.hostDirectory.getSchema(tenantIdentifier), this.useCatalog);
+    }
+
+    /**
+     * Replaces the pool of the given tenant's host for the given role, since the tenant's connection provider only borrows from it.
+     * The new pool is created and warmed up by opening a connection, then swapped in.  The replaced pool is soft-evicted, closing
+     * its idle connections right away and its in-flight ones as they are returned, and drained.  Every tenant borrowing from the
+     * replaced pool gets a connection provider borrowing from the new pool on next use.  If warming up fails the new pool is stopped
+     * and the current one remains in service.
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role of the pool
+     * @throws SQLException if the new pool cannot open a connection
+     */
+    @Override
+    public void rebuild(final String tenantIdentifier, final DatabaseRole role) throws SQLException {
+        final String host = this.hostDirectory.getHost(tenantIdentifier);
+        final boolean writer = role == DatabaseRole.WRITER;
+        final P created = writer ? this.createMasterHostConnectionProvider(host) : this.createReaderHostConnectionProvider(host);
+        try {
+            created.closeConnection(created.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            this.stop(created);
+            throw e;
+        }
+        final P previous = (writer ? this.masterHostProviders : this.readerHostProviders).put(host, created);
+        if (previous == null) {
+            return;
+        }
+        final HikariPoolMXBean pool = HikariPools.getPoolMXBean(previous);
+        if (pool != null) {
+            pool.softEvictConnections();
+        }
+        int moved = 0;
+        for (String tenant : this.getTenantIdentifiers()) {
+            if (this.getConnectionProviders(tenant).stream().anyMatch(p -> p.getSharedProvider() == previous)) {
+                this.removeConnectionProviders(tenant).forEach(this::stop);
+                moved++;
+            }
+        }
+        this.logger.info("Rebuilt {} pool of host {}, draining replaced pool shared by {} tenants", role, host, moved);
+        this.drain(List.of(previous));
+    }
+
+    /**
+     * Removes the connection providers of every tenant whose host changed, which only borrow from their host's pool, and drains in
+     * one batch the pools of hosts no longer in the directory.  Runs under the host lock, waiting for connection providers being
+     * created with the previous hosts.
+     */
+    protected void rebalance() {
+        final List<P> removed = new ArrayList<>();
+        int moved = 0;
+        this.hostLock.writeLock().lock();
+        try {
+            for (String tenantIdentifier : this.getTenantIdentifiers()) {
+                final String host = this.hostDirectory.getHost(tenantIdentifier);
+                final P master = this.masterHostProviders.getIfPresent(host);
+                final P reader = this.readerHostProviders.getIfPresent(host);
+                if (this.getConnectionProviders(tenantIdentifier).stream()
+                  .anyMatch(p -> p.getSharedProvider() != (p.isReadOnly() ? reader : master))) {
+                    this.removeConnectionProviders(tenantIdentifier).forEach(this::stop);
+                    moved++;
+                }
+            }
+            this.removeHosts(this.masterHostProviders, removed);
+            this.removeHosts(this.readerHostProviders, removed);
+        } finally {
+            this.hostLock.writeLock().unlock();
+        }
+        this.logger.info("Moved {} tenants to their new host, draining {} pools of hosts no longer in the directory", moved,
+          removed.size());
+        this.drain(removed);
+    }
+
+    private void removeHosts(final ProviderRegistry<P> hostProviders, final List<P> removed) {
+        for (String host : hostProviders.keys()) {
+            if (!this.hostDirectory.isHost(host)) {
+                final P provider = hostProviders.remove(host);
+                if (provider != null) {
+                    removed.add(provider);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a new writer connection provider for the given host
+     * @param host the host key as returned by {@link TenantHostDirectory#getHost(String)}
+     * @return a new writer connection provider for the given host
+     */
+    protected abstract P createMasterHostConnectionProvider(String host);
+
+    /**
+     * Returns a new reader connection provider for the given host
+     * @param host the host key as returned by {@link TenantHostDirectory#getHost(String)}
+     * @return a new reader connection provider for the given host
+     */
+    protected abstract P createReaderHostConnectionProvider(String host);
+
+    /**
+     * Whether tenants are switched using {@link java.sql.Connection#setCatalog(String)}, as required by MySQL, or otherwise
+     * {@link java.sql.Connection#setSchema(String)}. Default is true
+     * @return true if tenants are switched using the catalog, false if using the schema
+     */
+    public boolean isUseCatalog() {
+        return this.useCatalog;
+    }
+
+    /**
+     * Sets whether tenants are switched using {@link java.sql.Connection#setCatalog(String)} or
+     * {@link java.sql.Connection#setSchema(String)}
+     * @param useCatalog true to switch tenants using the catalog, false to use the schema
+     */
+    public void setUseCatalog(final boolean useCatalog) {
+        this.useCatalog = useCatalog;
+    }
+
+    /**
+     * Returns the number of shared pools
+     * @return the number of shared pools
+     */
+    public int getHostConnectionProviderCount() {
+        return this.masterHostProviders.size() + this.readerHostProviders.size();
+    }
+
+    /**
+     * Closes all tenant and host connection providers
+     */
+    @Override
+    public void close() {
+        super.close();
+        this.masterHostProviders.values().forEach(this::stop);
+        this.readerHostProviders.values().forEach(this::stop);
+    }
+
+    /**
+     * Clears and closes all tenant and host connection providers
+     */
+    @Override
+    public void clearAll() {
+        super.clearAll();
+        this.drain(this.masterHostProviders.clear());
+        this.drain(this.readerHostProviders.clear());
+    }
+}
@@ -0,0 +1,42 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+/**
+ * Directory mapping tenants to the database host, and the schema on that host, holding their data
+ */
+@FunctionalInterface
+public interface TenantHostDirectory {
+
+    /**
+     * Returns the key of the host holding the given tenant's schema.  The key is used to configure the shared pool of the host.
+     * @param tenantIdentifier the tenant identifier
+     * @return the key of the host holding the given tenant's schema
+     */
+    String getHost(String tenantIdentifier);
+
+    /**
+     * Returns the name of the given tenant's schema. Default is the tenant identifier
+     * @param tenantIdentifier the tenant identifier
+     * @return the name of the given tenant's schema
+     */
+    default String getSchema(String tenantIdentifier) {
+        return tenantIdentifier;
+    }
+
+    /**
+     * Whether the given host is still part of this directory.  Pools of hosts that are not are drained once their tenants moved.
+     * Default is true
+     * @param host the host key
+     * @return true if the host is part of this directory
+     */
+    default boolean isHost(String host) {
+        return true;
+    }
+
+    /**
+     * Adds a listener notified whenever the host of any tenant may have changed, after which {@link #getHost(String)} returns the
+     * new hosts.  Default does nothing as hosts never change
+     * @param listener the listener
+     */
+    default void addChangeListener(Runnable listener) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp.implementation;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.DataSourceConfigurationSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link DataSourceConfigurationSource} backed by a single properties file holding the configuration of every tenant, with keys
+ * prefixed by the tenant identifier, e.g. {@code tenant1.database.url} or {@code tenant1.database.reader.url}.
+ *
+ * The file is parsed once into an index by tenant.  Once {@link #startWatching()} has been invoked, changes to the file are
+ * re-parsed and the identifiers of the tenants whose properties changed, were added or were removed are passed to every listener
+ * added with {@link #addChangeListener(Consumer)} and not yet removed with {@link #removeChangeListener(Consumer)}.
+ */
+public class PropertiesFileConfigurationSource implements DataSourceConfigurationSource, Closeable {
+
+    private static final String KEY_SEPARATOR = ".database.";
+
+    private final Path file;
+    private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private volatile Map<String, Properties> index;
+    private WatchService watchService;
+
+    public PropertiesFileConfigurationSource(final Path file) {
+        this.file = file.toAbsolutePath();
+        this.index = this.parse();
+    }
+
+    @Override
+    public Properties getProperties(final String tenantIdentifier) {
+        final Properties properties = new Properties();
+        final Properties indexed = this.index.get(tenantIdentifier);
+        if (indexed != null) {
+            properties.putAll(indexed);
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the identifiers of all tenants present in the file
+     * @return the identifiers of all tenants present in the file
+     */
+    public Set<String> getTenantIdentifiers() {
+        return this.index.keySet();
+    }
+
+    /**
+     * Adds a listener receiving the identifiers of the tenants whose properties changed after the file was re-parsed
+     * @param listener the listener
+     */
+    public void addChangeListener(final Consumer<Set<String>> listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #addChangeListener(Consumer)}
+     * @param listener the listener
+     */
+    public void removeChangeListener(final Consumer<Set<String>> listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Re-parses the file and notifies the listeners of the tenants whose properties changed
+     * @return the identifiers of the tenants whose properties changed
+     */
+    public synchronized Set<String> reload() {
+        final Map<String, Properties> previous = this.index;
+        final Map<String, Properties> current = this.parse();
+        final Set<String> changed = new HashSet<>();
+        previous.forEach((tenant, properties) -> {
+            if (!properties.equals(current.get(tenant))) {
+                changed.add(tenant);
+            }
+        });
+        current.keySet().stream().filter(tenant -> !previous.containsKey(tenant)).forEach(changed::add);
+        this.index = current;
+        if (!changed.isEmpty()) {
+            this.logger.info("Configuration of tenants {} changed in {}", changed, this.file);
+            this.listeners.forEach(listener -> listener.accept(changed));
+        }
+        return changed;
+    }
+
+    private Map<String, Properties> parse() {
+        final Properties all = new Properties();
+        try (InputStream is = Files.newInputStream(this.file)) {
+            all.load(is);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final Map<String, Properties> parsed = new HashMap<>();
+        all.stringPropertyNames().forEach(name -> {
+            final int separator = name.indexOf(KEY_SEPARATOR);
+            if (separator > 0) {
+                parsed.computeIfAbsent(name.substring(0, separator), t -> new Properties())
+                  .setProperty(name.substring(separator + 1), all.getProperty(name));
+            }
+        });
+        return Map.copyOf(parsed);
+    }
+
+    /**
+     * Starts watching the file for changes on a daemon thread
+     * @throws IOException if the directory of the file cannot be watched
+     */
+    public synchronized void startWatching() throws IOException {
+        if (this.watchService != null) {
+            return;
+        }
+        final WatchService service = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.watchService = service;
+        final Thread thread = new Thread(() -> this.watch(service), "rwsplitter-config-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch(final WatchService service) {
+        final Path name = this.file.getFileName();
+        try {
+            while (true) {
+                final WatchKey key = service.take();
+                final boolean modified = key.pollEvents().stream().anyMatch(event -> name.equals(event.context()));
+                key.reset();
+                if (modified) {
+                    try {
+                        this.reload();
+                    } catch (RuntimeException e) {
+                        this.logger.warn("Unable to reload {}", this.file, e);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    /**
+     * Stops watching the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.watchService != null) {
+            this.watchService.close();
+            this.watchService = null;
+        }
+    }
+}
@@ -5,6 +5,9 @@ import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariCPDataSourceConnecti
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 public class PropertiesFileDataSourceConnectionProvider extends HikariCPDataSourceConnectionProvider {
@@ -12,21 +15,109 @@ public class PropertiesFileDataSourceConnectionProvider extends HikariCPDataSour
     @Serial
     private static final long serialVersionUID = 4473698965793267295L;
 
-    protected Properties properties = new Properties();
+    protected Properties properties;
+
+    private int weight;
+    private String zone;
 
     public PropertiesFileDataSourceConnectionProvider(final String tenantIdentifier) {
         super(tenantIdentifier);
     }
 
+    /**
+     * Creates a connection provider configured from the given properties instead of {@code /[tenant identifier].properties}
+     * @param tenantIdentifier the tenant identifier
+     * @param properties the properties, e.g. as returned by {@link #getReaderProperties(String, Properties)}
+     */
+    public PropertiesFileDataSourceConnectionProvider(final String tenantIdentifier, final Properties properties) {
+        this.properties = properties;
+        this.initialize(tenantIdentifier);
+    }
+
     @Override
     protected void beforeConfiguration(final String tenantIdentifier) {
         super.beforeConfiguration(tenantIdentifier);
-        this.properties = new Properties();
-        try (InputStream is = this.getClass().getResourceAsStream("/" + tenantIdentifier + ".properties")) {
-            this.properties.load(is);
+        if (this.properties == null) {
+            this.properties = loadProperties(tenantIdentifier);
+        }
+    }
+
+    @Override
+    protected void afterConfiguration(final String tenantIdentifier) {
+        super.afterConfiguration(tenantIdentifier);
+        final String weight = this.properties.getProperty("database.weight");
+        this.weight = weight == null || weight.isBlank() ? 1 : Integer.parseInt(weight.trim());
+        this.zone = this.properties.getProperty("database.zone");
+    }
+
+    /**
+     * Loads {@code /[tenant identifier].properties} from the classpath
+     * @param tenantIdentifier the tenant identifier
+     * @return the loaded properties
+     */
+    public static Properties loadProperties(final String tenantIdentifier) {
+        final Properties properties = new Properties();
+        try (InputStream is = PropertiesFileDataSourceConnectionProvider.class.getResourceAsStream("/" + tenantIdentifier + ".properties")) {
+            properties.load(is);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        return properties;
+    }
+
+    /**
+     * Returns the properties of every reader of a tenant.  If {@code database.reader.url} holds a CSV of URLs each reader gets
+     * one of them, {@code database.readOnly} set to true and, if present, {@code database.reader.user} and
+     * {@code database.reader.password} in place of the writer's credentials.  The CSVs {@code database.reader.zone} and
+     * {@code database.reader.weight}, if present, give the availability zone and weight of the reader at the same position as
+     * {@code database.zone} and {@code database.weight}.  Otherwise the single reader shares the properties of the writer.
+     * @param tenantIdentifier the tenant identifier
+     * @param properties the properties of the tenant
+     * @return the properties of every reader of the tenant
+     */
+    public static List<Properties> getReaderProperties(final String tenantIdentifier, final Properties properties) {
+        final String urls = properties.getProperty("database.reader.url");
+        if (urls == null || urls.isBlank()) {
+            return List.of(properties);
+        }
+        final List<String> readerUrls = Arrays.stream(urls.split(","))
+          .map(String::trim)
+          .filter(url -> !url.isEmpty())
+          .toList();
+        final String[] zones = properties.getProperty("database.reader.zone", "").split(",");
+        final String[] weights = properties.getProperty("database.reader.weight", "").split(",");
+        final List<Properties> readers = new ArrayList<>(readerUrls.size());
+        for (int i = 0; i < readerUrls.size(); i++) {
+            final Properties reader = new Properties();
+            reader.putAll(properties);
+            reader.setProperty("database.url", readerUrls.get(i));
+            setOrRemove(reader, "database.zone", i < zones.length ? zones[i].trim() : "");
+            setOrRemove(reader, "database.weight", i < weights.length ? weights[i].trim() : "");
+            reader.setProperty("database.readOnly", "true");
+            reader.setProperty("database.user", properties.getProperty("database.reader.user",
+              properties.getProperty("database.user")));
+            reader.setProperty("database.password", properties.getProperty("database.reader.password",
+              properties.getProperty("database.password")));
+            if (readerUrls.size() > 1) {
+                reader.setProperty("database.dataSourceName", tenantIdentifier + " Reader " + (i + 1) + " Data Source");
+            }
+            readers.add(reader);
+        }
+        return readers;
+    }
+
+    private static void setOrRemove(final Properties properties, final String key, final String value) {
+        if (value.isEmpty()) {
+            properties.remove(key);
+        } else {
+            properties.setProperty(key, value);
+        }
+    }
+
+    @Override
+    protected String getDataSourceName(final String tenantIdentifier) {
+        final String name = this.properties.getProperty("database.dataSourceName");
+        return name != null ? name : super.getDataSourceName(tenantIdentifier);
     }
 
     @Override
@@ -53,4 +144,22 @@ public class PropertiesFileDataSourceConnectionProvider extends HikariCPDataSour
     public boolean isReadOnly() {
         return Boolean.parseBoolean(this.properties.getProperty("database.readOnly"));
     }
+
+    /**
+     * Returns the weight in {@code database.weight}. Default is 1.
+     * @return the relative weight of this connection provider
+     */
+    @Override
+    public int getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Returns the availability zone in {@code database.zone}
+     * @return the availability zone or null if unknown
+     */
+    @Override
+    public String getZone() {
+        return this.zone;
+    }
 }
@@ -4,24 +4,105 @@ import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider
 import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
 
 import java.io.Serial;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SpringMultiTenantConnectionProvider} configuring tenants from {@code /[tenant identifier].properties} in the classpath
+ * or, if set, from a consolidated {@link PropertiesFileConfigurationSource}.  Readers connect to the URLs in
+ * {@code database.reader.url}, see {@link PropertiesFileDataSourceConnectionProvider#getReaderProperties(String, Properties)}.
+ */
 public class PropertiesFileMultiTenantConnectionProvider
   extends SpringMultiTenantConnectionProvider<PropertiesFileDataSourceConnectionProvider> {
 
     @Serial
     private static final long serialVersionUID = 7706020243181333623L;
 
+    private final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private transient volatile PropertiesFileConfigurationSource configurationSource;
+    private transient Consumer<Set<String>> changeListener;
+
     public PropertiesFileMultiTenantConnectionProvider(final SpringTenantIdentifierResolver tenantIdentifierResolver) {
         super(tenantIdentifierResolver);
     }
 
     @Override
     protected PropertiesFileDataSourceConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
-        return new PropertiesFileDataSourceConnectionProvider(tenantIdentifier);
+        return new PropertiesFileDataSourceConnectionProvider(tenantIdentifier, this.getTenantProperties(tenantIdentifier));
     }
 
     @Override
     protected PropertiesFileDataSourceConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
-        return new PropertiesFileDataSourceConnectionProvider(tenantIdentifier);
+        return this.createReaderConnectionProviders(tenantIdentifier).get(0);
+    }
+
+    @Override
+    protected List<PropertiesFileDataSourceConnectionProvider> createReaderConnectionProviders(final String tenantIdentifier) {
+        return PropertiesFileDataSourceConnectionProvider.getReaderProperties(tenantIdentifier,
+            this.getTenantProperties(tenantIdentifier)).stream()
+          .map(properties -> new PropertiesFileDataSourceConnectionProvider(tenantIdentifier, properties))
+          .toList();
+    }
+
+    /**
+     * Returns the properties of the given tenant from the configuration source, if set, or the classpath otherwise
+     * @param tenantIdentifier the tenant identifier
+     * @return the properties of the given tenant
+     */
+    protected Properties getTenantProperties(final String tenantIdentifier) {
+        final PropertiesFileConfigurationSource source = this.configurationSource;
+        return source != null ? source.getProperties(tenantIdentifier)
+          : PropertiesFileDataSourceConnectionProvider.loadProperties(tenantIdentifier);
+    }
+
+    /**
+     * Removes and drains the connection providers of the given tenants so that they are rebuilt from their new properties on next
+     * use
+     * @param tenantIdentifiers the identifiers of the tenants whose properties changed
+     */
+    protected void rebuild(final Set<String> tenantIdentifiers) {
+        tenantIdentifiers.forEach(tenant -> {
+            final List<PropertiesFileDataSourceConnectionProvider> removed = this.removeConnectionProviders(tenant);
+            if (!removed.isEmpty()) {
+                this.logger.info("Rebuilding {} connection providers of tenant {}", removed.size(), tenant);
+                this.drain(removed);
+            }
+        });
+    }
+
+    /**
+     * Returns the consolidated configuration source. Default is null, i.e. one properties file per tenant
+     * @return the consolidated configuration source
+     */
+    public PropertiesFileConfigurationSource getConfigurationSource() {
+        return this.configurationSource;
+    }
+
+    /**
+     * Sets the consolidated configuration source.  The connection providers of tenants whose properties change in the source are
+     * rebuilt on next use.  Changes of a previously set source are no longer listened to.
+     * @param configurationSource the consolidated configuration source or null to read one properties file per tenant
+     */
+    public synchronized void setConfigurationSource(final PropertiesFileConfigurationSource configurationSource) {
+        final PropertiesFileConfigurationSource previous = this.configurationSource;
+        if (previous == configurationSource) {
+            return;
+        }
+        if (this.changeListener == null) {
+            this.changeListener = this::rebuild;
+        }
+        if (previous != null) {
+            previous.removeChangeListener(this.changeListener);
+        }
+        this.configurationSource = configurationSource;
+        if (configurationSource != null) {
+            configurationSource.addChangeListener(this.changeListener);
+        }
     }
 }
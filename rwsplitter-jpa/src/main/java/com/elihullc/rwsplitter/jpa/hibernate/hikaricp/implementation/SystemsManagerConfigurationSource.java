@@ -0,0 +1,426 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp.implementation;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.DataSourceConfigurationSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+
+/**
+ * {@link DataSourceConfigurationSource} reading from Amazon SSM Parameter Store through a single shared {@link SsmClient}.
+ *
+ * Parameters are named {@code [tenant].[key]}, e.g. {@code tenant1.database.url}, or, if a path prefix is set,
+ * {@code [prefix]/[tenant]/[key]}, e.g. {@code /rwsplitter/tenant1/database.url}, which allows fetching every tenant with
+ * {@code GetParametersByPath} in {@link #prefetchAll()}.  Otherwise {@link #prefetch(Collection)} fetches the parameters of
+ * several tenants per {@code GetParameters} call.  As a call returns at most {@value #MAX_NAMES_PER_REQUEST} parameters, with the
+ * {@link #DEFAULT_PARAMETER_KEYS} that is still one call per tenant: trim {@link #setParameterKeys(List) the keys} or, better,
+ * {@link #setConsolidated(boolean) consolidate} each tenant's properties into a single parameter named {@code [tenant]} (or
+ * {@code [prefix]/[tenant]}) holding them in {@link Properties} format, which fetches {@value #MAX_NAMES_PER_REQUEST} tenants per
+ * call.
+ *
+ * Loaded properties are cached for {@link #getTimeToLive()}.  Entries that have been read or prefetched since they were loaded are
+ * refreshed in the background every {@link #getRefreshInterval()}, so lookups of active tenants never wait for SSM, while entries
+ * that are no longer read expire.  Once {@link #prefetchAll()} has been called, the refresh fetches the whole path again so that
+ * tenants added since are picked up as well.  Concurrent lookups of the same tenant share one request.
+ */
+public class SystemsManagerConfigurationSource implements DataSourceConfigurationSource, Closeable {
+
+    /**
+     * Default parameter keys fetched for every tenant
+     */
+    public static final List<String> DEFAULT_PARAMETER_KEYS = List.of("database.url", "database.user", "database.password",
+      "database.dataSourceClassName", "database.readOnly", "database.zone", "database.weight", "database.reader.url",
+      "database.reader.zone", "database.reader.weight");
+
+    /**
+     * Maximum number of parameters returned by one {@code GetParameters} or {@code GetParametersByPath} call
+     */
+    public static final int MAX_NAMES_PER_REQUEST = 10;
+
+    private static volatile SystemsManagerConfigurationSource sharedInstance;
+
+    private final SsmClient ssm;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Properties>> inFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private volatile List<String> parameterKeys = DEFAULT_PARAMETER_KEYS;
+    private volatile String pathPrefix;
+    private volatile boolean consolidated;
+    private volatile long prefetchedAllAt;
+    private volatile Duration timeToLive = Duration.ofMinutes(15);
+    private volatile Duration refreshInterval = Duration.ofMinutes(5);
+
+    public SystemsManagerConfigurationSource(final SsmClient ssm) {
+        this.ssm = ssm;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-ssm-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::refresh, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Returns the instance shared by all {@link SystemsManagerDataSourceConnectionProvider}s, creating one for the region in the
+     * environment variable AWS_REGION or the system property aws.region (default is us-east-1) if none has been set
+     * @return the shared instance
+     */
+    public static SystemsManagerConfigurationSource getSharedInstance() {
+        SystemsManagerConfigurationSource instance = sharedInstance;
+        if (instance == null) {
+            synchronized (SystemsManagerConfigurationSource.class) {
+                instance = sharedInstance;
+                if (instance == null) {
+                    instance = new SystemsManagerConfigurationSource(SsmClient.builder().region(Region.of(
+                      Optional.ofNullable(System.getenv("AWS_REGION")).orElse(System.getProperty("aws.region", "us-east-1"))
+                    )).build());
+                    sharedInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the instance shared by all {@link SystemsManagerDataSourceConnectionProvider}s, e.g. one with a custom
+     * {@link SsmClient} or a local stand-in for testing
+     * @param instance the shared instance
+     */
+    public static synchronized void setSharedInstance(final SystemsManagerConfigurationSource instance) {
+        sharedInstance = instance;
+    }
+
+    @Override
+    public Properties getProperties(final String tenantIdentifier) {
+        final Entry entry = this.cache.get(tenantIdentifier);
+        if (entry != null && System.currentTimeMillis() - entry.loadedAt < this.timeToLive.toMillis()) {
+            entry.read = true;
+            return copy(entry.properties);
+        }
+        return copy(this.load(tenantIdentifier));
+    }
+
+    private Properties load(final String tenantIdentifier) {
+        final CompletableFuture<Properties> future = new CompletableFuture<>();
+        final CompletableFuture<Properties> existing = this.inFlight.putIfAbsent(tenantIdentifier, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            final Properties properties = this.fetch(List.of(tenantIdentifier)).getOrDefault(tenantIdentifier, new Properties());
+            this.cache.put(tenantIdentifier, new Entry(properties, false));
+            future.complete(properties);
+            return properties;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(tenantIdentifier, future);
+        }
+    }
+
+    /**
+     * Loads the properties of the given tenants using as few {@code GetParameters} calls as possible
+     * @param tenantIdentifiers the tenant identifiers
+     */
+    @Override
+    public void prefetch(final Collection<String> tenantIdentifiers) {
+        this.load(tenantIdentifiers, true);
+        this.logger.info("Prefetched SSM parameters of {} tenants", tenantIdentifiers.size());
+    }
+
+    /**
+     * Loads the properties of every tenant below the path prefix with {@code GetParametersByPath}
+     * @throws IllegalStateException if no path prefix is set
+     */
+    public void prefetchAll() {
+        final String prefix = this.pathPrefix;
+        if (prefix == null) {
+            throw new IllegalStateException("A path prefix is required to prefetch all tenants");
+        }
+        final Map<String, Properties> fetched = new HashMap<>();
+        this.ssm.getParametersByPathPaginator(GetParametersByPathRequest.builder()
+            .path(prefix)
+            .recursive(true)
+            .withDecryption(true)
+            .build())
+          .parameters()
+          .forEach(p -> this.put(fetched, p));
+        fetched.forEach((tenant, properties) -> this.cache.put(tenant, new Entry(properties, true)));
+        this.prefetchedAllAt = System.currentTimeMillis();
+        this.logger.info("Prefetched SSM parameters of {} tenants below {}", fetched.size(), prefix);
+    }
+
+    private void load(final Collection<String> tenantIdentifiers, final boolean prefetched) {
+        final Map<String, Properties> fetched = this.fetch(tenantIdentifiers);
+        tenantIdentifiers.forEach(tenant -> this.cache.put(tenant,
+          new Entry(fetched.getOrDefault(tenant, new Properties()), prefetched)));
+    }
+
+    private Map<String, Properties> fetch(final Collection<String> tenantIdentifiers) {
+        final Map<String, Properties> fetched = new HashMap<>();
+        final List<String> names = new ArrayList<>(MAX_NAMES_PER_REQUEST);
+        for (String tenant : tenantIdentifiers) {
+            for (String name : this.getParameterNames(tenant)) {
+                names.add(name);
+                if (names.size() == MAX_NAMES_PER_REQUEST) {
+                    this.fetch(names, fetched);
+                    names.clear();
+                }
+            }
+        }
+        if (!names.isEmpty()) {
+            this.fetch(names, fetched);
+        }
+        return fetched;
+    }
+
+    private void fetch(final List<String> names, final Map<String, Properties> fetched) {
+        this.ssm.getParameters(GetParametersRequest.builder()
+            .withDecryption(true)
+            .names(names)
+            .build())
+          .parameters()
+          .forEach(p -> this.put(fetched, p));
+    }
+
+    private void put(final Map<String, Properties> fetched, final Parameter parameter) {
+        final String name = parameter.name();
+        if (this.consolidated) {
+            final String tenant = this.pathPrefix == null ? name : name.substring(this.pathPrefix.length()).replaceFirst("^/", "");
+            final Properties properties = fetched.computeIfAbsent(tenant, t -> new Properties());
+            try {
+                properties.load(new StringReader(parameter.value()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to parse SSM parameter " + name, e);
+            }
+            return;
+        }
+        final String tenant;
+        final String key;
+        if (this.pathPrefix == null) {
+            final int separator = this.findTenantSeparator(name);
+            if (separator < 0) {
+                return;
+            }
+            tenant = name.substring(0, separator);
+            key = name.substring(separator + 1);
+        } else {
+            final String relative = name.substring(this.pathPrefix.length()).replaceFirst("^/", "");
+            final int separator = relative.lastIndexOf('/');
+            if (separator < 0) {
+                return;
+            }
+            tenant = relative.substring(0, separator);
+            key = relative.substring(separator + 1);
+        }
+        fetched.computeIfAbsent(tenant, t -> new Properties()).setProperty(key, parameter.value());
+    }
+
+    private int findTenantSeparator(final String name) {
+        for (String key : this.parameterKeys) {
+            if (name.endsWith("." + key)) {
+                return name.length() - key.length() - 1;
+            }
+        }
+        return -1;
+    }
+
+    private List<String> getParameterNames(final String tenantIdentifier) {
+        if (this.consolidated) {
+            return List.of(this.getParameterName(tenantIdentifier));
+        }
+        final List<String> names = new ArrayList<>(this.parameterKeys.size());
+        for (String key : this.parameterKeys) {
+            names.add(this.getParameterName(tenantIdentifier, key));
+        }
+        return names;
+    }
+
+    /**
+     * Returns the name of the parameter holding the given key of the given tenant
+     * @param tenantIdentifier the tenant identifier
+     * @param key the property key, e.g. {@code database.url}
+     * @return the name of the parameter
+     */
+    protected String getParameterName(final String tenantIdentifier, final String key) {
+        return this.pathPrefix == null ? tenantIdentifier + "." + key : this.pathPrefix + "/" + tenantIdentifier + "/" + key;
+    }
+
+    /**
+     * Returns the name of the parameter holding all properties of the given tenant when {@link #isConsolidated() consolidated}
+     * @param tenantIdentifier the tenant identifier
+     * @return the name of the parameter
+     */
+    protected String getParameterName(final String tenantIdentifier) {
+        return this.pathPrefix == null ? tenantIdentifier : this.pathPrefix + "/" + tenantIdentifier;
+    }
+
+    /**
+     * Reloads all entries read, or prefetched and not read yet, since they were last loaded.  If {@link #prefetchAll()} has been
+     * called the whole path is fetched again instead, picking up tenants added since.
+     */
+    protected void refresh() {
+        final long now = System.currentTimeMillis();
+        final long interval = this.refreshInterval.toMillis();
+        final List<String> stale = new ArrayList<>();
+        this.cache.forEach((tenant, entry) -> {
+            if (now - entry.loadedAt >= this.timeToLive.toMillis()) {
+                this.cache.remove(tenant, entry);
+            } else if ((entry.read || entry.prefetched) && now - entry.loadedAt >= interval) {
+                stale.add(tenant);
+            }
+        });
+        final long prefetchedAt = this.prefetchedAllAt;
+        try {
+            if (prefetchedAt != 0L && this.pathPrefix != null) {
+                if (now - prefetchedAt >= interval) {
+                    this.prefetchAll();
+                }
+            } else if (!stale.isEmpty()) {
+                this.load(stale, false);
+                this.logger.debug("Refreshed SSM parameters of {} tenants", stale.size());
+            }
+        } catch (RuntimeException e) {
+            this.logger.warn("Unable to refresh SSM parameters of {} tenants", stale.size(), e);
+        }
+    }
+
+    private static Properties copy(final Properties properties) {
+        final Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    /**
+     * Stops refreshing and closes the {@link SsmClient}
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        this.ssm.close();
+    }
+
+    /**
+     * Returns the parameter keys fetched for every tenant. Default is {@link #DEFAULT_PARAMETER_KEYS}
+     * @return the parameter keys fetched for every tenant
+     */
+    public List<String> getParameterKeys() {
+        return this.parameterKeys;
+    }
+
+    /**
+     * Sets the parameter keys fetched for every tenant
+     * @param parameterKeys the parameter keys fetched for every tenant
+     */
+    public void setParameterKeys(final List<String> parameterKeys) {
+        this.parameterKeys = List.copyOf(parameterKeys);
+    }
+
+    /**
+     * Returns the path prefix of hierarchical parameter names. Default is null, i.e. parameters are named {@code [tenant].[key]}
+     * @return the path prefix of hierarchical parameter names
+     */
+    public String getPathPrefix() {
+        return this.pathPrefix;
+    }
+
+    /**
+     * Sets the path prefix of hierarchical parameter names, e.g. {@code /rwsplitter}
+     * @param pathPrefix the path prefix of hierarchical parameter names
+     */
+    public void setPathPrefix(final String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    /**
+     * Whether each tenant's properties are stored in a single parameter in {@link Properties} format rather than one parameter per
+     * key. Default is false
+     * @return true if each tenant's properties are stored in a single parameter, false otherwise
+     */
+    public boolean isConsolidated() {
+        return this.consolidated;
+    }
+
+    /**
+     * Sets whether each tenant's properties are stored in a single parameter named {@code [tenant]} (or {@code [prefix]/[tenant]})
+     * in {@link Properties} format, e.g. {@code database.url=jdbc:mysql://...} on each line
+     * @param consolidated true if each tenant's properties are stored in a single parameter
+     */
+    public void setConsolidated(final boolean consolidated) {
+        this.consolidated = consolidated;
+    }
+
+    /**
+     * Returns the time after which a cached entry is no longer used. Default is 15 minutes
+     * @return the time after which a cached entry is no longer used
+     */
+    public Duration getTimeToLive() {
+        return this.timeToLive;
+    }
+
+    /**
+     * Sets the time after which a cached entry is no longer used
+     * @param timeToLive the time after which a cached entry is no longer used
+     */
+    public void setTimeToLive(final Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Returns the age after which a cached entry that is still read is refreshed in the background. Default is 5 minutes
+     * @return the age after which a cached entry is refreshed
+     */
+    public Duration getRefreshInterval() {
+        return this.refreshInterval;
+    }
+
+    /**
+     * Sets the age after which a cached entry that is still read is refreshed in the background
+     * @param refreshInterval the age after which a cached entry is refreshed
+     */
+    public void setRefreshInterval(final Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Cached properties of a tenant
+     */
+    private static final class Entry {
+
+        private final Properties properties;
+        private final boolean prefetched;
+        private final long loadedAt = System.currentTimeMillis();
+        private volatile boolean read;
+
+        private Entry(final Properties properties, final boolean prefetched) {
+            this.properties = properties;
+            this.prefetched = prefetched;
+        }
+    }
+}
@@ -1,15 +1,10 @@
 package com.elihullc.rwsplitter.jpa.hibernate.hikaricp.implementation;
 
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.DataSourceConfigurationSource;
+
 import java.io.Serial;
-import java.util.List;
-import java.util.Optional;
 import java.util.Properties;
 
-import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.ssm.SsmClient;
-import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
-import software.amazon.awssdk.services.ssm.model.Parameter;
-
 public class SystemsManagerDataSourceConnectionProvider extends PropertiesFileDataSourceConnectionProvider {
 
     @Serial
@@ -19,28 +14,29 @@ public class SystemsManagerDataSourceConnectionProvider extends PropertiesFileDa
         super(tenantIdentifier);
     }
 
+    /**
+     * Creates a connection provider configured from the given properties instead of fetching them from SSM
+     * @param tenantIdentifier the tenant identifier
+     * @param properties the properties, e.g. as returned by {@link #getReaderProperties(String, Properties)}
+     */
+    public SystemsManagerDataSourceConnectionProvider(final String tenantIdentifier, final Properties properties) {
+        super(tenantIdentifier, properties);
+    }
+
     @Override
     protected void beforeConfiguration(final String tenantIdentifier) {
-        final List<Parameter> parameters;
-        try (SsmClient ssm = SsmClient.builder().region(Region.of(
-          Optional.ofNullable(System.getenv("AWS_REGION")).orElse(System.getProperty("aws.region", "us-east-1"))
-        )).build()) {
-
-            this.properties = new Properties();
-            parameters = ssm.getParameters(GetParametersRequest.builder()
-              .withDecryption(true)
-              .names(
-                tenantIdentifier + ".database.url",
-                tenantIdentifier + ".database.user",
-                tenantIdentifier + ".database.password",
-                tenantIdentifier + ".database.dataSourceClassName",
-                tenantIdentifier + ".database.readOnly"
-              ).build()).parameters();
-            parameters.forEach(p -> {
-                String name = p.name();
-                name = name.substring(name.indexOf('.') + 1);
-                this.properties.setProperty(name, p.value());
-            });
+        if (this.properties == null) {
+            this.properties = this.getConfigurationSource().getProperties(tenantIdentifier);
         }
     }
+
+    /**
+     * Returns the source of the SSM parameters.  Default is {@link SystemsManagerConfigurationSource#getSharedInstance()} so that
+     * all tenants and roles share one client and cache.  As this is invoked during construction, override it rather than relying
+     * on fields of a subclass.
+     * @return the source of the SSM parameters
+     */
+    protected DataSourceConfigurationSource getConfigurationSource() {
+        return SystemsManagerConfigurationSource.getSharedInstance();
+    }
 }
@@ -2,9 +2,17 @@ package com.elihullc.rwsplitter.jpa.hibernate.hikaricp.implementation;
 
 import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
 import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.DataSourceConfigurationSource;
 
 import java.io.Serial;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
 
+/**
+ * {@link SpringMultiTenantConnectionProvider} configuring tenants from SSM parameters.  Readers connect to the URLs in
+ * {@code database.reader.url}, see {@link PropertiesFileDataSourceConnectionProvider#getReaderProperties(String, Properties)}.
+ */
 public class SystemsManagerMultiTenantConnectionProvider
   extends SpringMultiTenantConnectionProvider<SystemsManagerDataSourceConnectionProvider> {
 
@@ -24,4 +32,33 @@ public class SystemsManagerMultiTenantConnectionProvider
     protected SystemsManagerDataSourceConnectionProvider createReaderConnectionProvider(String tenantIdentifier) {
         return new SystemsManagerDataSourceConnectionProvider(tenantIdentifier);
     }
+
+    @Override
+    protected List<SystemsManagerDataSourceConnectionProvider> createReaderConnectionProviders(String tenantIdentifier) {
+        final Properties properties = this.getConfigurationSource().getProperties(tenantIdentifier);
+        if (properties.getProperty("database.reader.url") == null) {
+            return List.of(this.createReaderConnectionProvider(tenantIdentifier));
+        }
+        return PropertiesFileDataSourceConnectionProvider.getReaderProperties(tenantIdentifier, properties).stream()
+          .map(readerProperties -> new SystemsManagerDataSourceConnectionProvider(tenantIdentifier, readerProperties))
+          .toList();
+    }
+
+    /**
+     * Fetches the SSM parameters of the given tenants in batches, see
+     * {@link SystemsManagerConfigurationSource#prefetch(Collection)}
+     * @param tenantIdentifiers the tenant identifiers
+     */
+    @Override
+    public void prefetch(final Collection<String> tenantIdentifiers) {
+        this.getConfigurationSource().prefetch(tenantIdentifiers);
+    }
+
+    /**
+     * Returns the source of the SSM parameters of the readers. Default is {@link SystemsManagerConfigurationSource#getSharedInstance()}
+     * @return the source of the SSM parameters
+     */
+    protected DataSourceConfigurationSource getConfigurationSource() {
+        return SystemsManagerConfigurationSource.getSharedInstance();
+    }
 }
@@ -0,0 +1,48 @@
+package com.elihullc.rwsplitter.jpa.hibernate.jfr;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * JFR event recording a wait for a pooled connection longer than the event's threshold, including waits that ended without a
+ * connection. Default threshold is 10 ms
+ */
+@Name("com.elihullc.rwsplitter.ConnectionWait")
+@Label("Connection Wait")
+@Category("RWSplitter")
+@Description("Time spent acquiring a connection from a tenant's pool")
+@Threshold("10 ms")
+public final class ConnectionWaitEvent extends Event {
+
+    @Label("Tenant")
+    String tenant;
+
+    @Label("Role")
+    String role;
+
+    @Label("Failed")
+    @Description("Whether no connection was acquired")
+    boolean failed;
+
+    /**
+     * Ends this event and commits it if it is enabled and lasted longer than its threshold
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role of the connection
+     * @param failed whether no connection was acquired
+     */
+    public void commit(final String tenantIdentifier, final DatabaseRole role, final boolean failed) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.tenant = tenantIdentifier;
+            this.role = role.name();
+            this.failed = failed;
+            this.commit();
+        }
+    }
+}
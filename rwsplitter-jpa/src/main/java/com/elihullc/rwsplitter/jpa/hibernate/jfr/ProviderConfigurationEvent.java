@@ -0,0 +1,46 @@
+package com.elihullc.rwsplitter.jpa.hibernate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event recording the configuration of a single connection provider, including the time spent fetching its configuration in
+ * {@code beforeConfiguration}
+ */
+@Name("com.elihullc.rwsplitter.ProviderConfiguration")
+@Label("Connection Provider Configuration")
+@Category("RWSplitter")
+@Description("Configuration of a connection provider and its pool")
+public final class ProviderConfigurationEvent extends Event {
+
+    @Label("Tenant")
+    String tenant;
+
+    @Label("Read Only")
+    boolean readOnly;
+
+    @Label("Configuration Fetch Time")
+    @Description("Time spent in beforeConfiguration, e.g. fetching properties")
+    @Timespan(Timespan.NANOSECONDS)
+    long fetchNanos;
+
+    /**
+     * Ends this event and commits it if it is enabled
+     * @param tenantIdentifier the tenant identifier
+     * @param readOnly whether the configured connection provider is read-only
+     * @param fetchNanos the time spent fetching the configuration in nanoseconds
+     */
+    public void commit(final String tenantIdentifier, final boolean readOnly, final long fetchNanos) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.tenant = tenantIdentifier;
+            this.readOnly = readOnly;
+            this.fetchNanos = fetchNanos;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.elihullc.rwsplitter.jpa.hibernate.jfr;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recording the creation of the connection provider(s) of a tenant and role.  The configuration of each created
+ * provider is recorded by a nested {@link ProviderConfigurationEvent}.
+ */
+@Name("com.elihullc.rwsplitter.ProviderCreation")
+@Label("Connection Provider Creation")
+@Category("RWSplitter")
+@Description("Creation of the connection provider(s) of a tenant and role")
+public final class ProviderCreationEvent extends Event {
+
+    @Label("Tenant")
+    String tenant;
+
+    @Label("Role")
+    String role;
+
+    /**
+     * Ends this event and commits it if it is enabled
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role of the created connection provider(s)
+     */
+    public void commit(final String tenantIdentifier, final DatabaseRole role) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.tenant = tenantIdentifier;
+            this.role = role.name();
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.elihullc.rwsplitter.jpa.hibernate.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event recording the removal of all connection providers by {@code clearAll} or {@code close}
+ */
+@Name("com.elihullc.rwsplitter.ProviderShutdown")
+@Label("Connection Providers Shutdown")
+@Category("RWSplitter")
+@Description("Removal of all connection providers")
+public final class ProviderShutdownEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Connection Providers")
+    int providers;
+
+    /**
+     * Ends this event and commits it if it is enabled
+     * @param operation the operation removing the connection providers, e.g. {@code clearAll}
+     * @param providers the number of connection providers removed
+     */
+    public void commit(final String operation, final int providers) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.operation = operation;
+            this.providers = providers;
+            this.commit();
+        }
+    }
+}
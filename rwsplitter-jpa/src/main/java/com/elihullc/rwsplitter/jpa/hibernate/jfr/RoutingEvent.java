@@ -0,0 +1,47 @@
+package com.elihullc.rwsplitter.jpa.hibernate.jfr;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.RoutingReason;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event recording which role a request for a connection provider was routed to and why
+ */
+@Name("com.elihullc.rwsplitter.Routing")
+@Label("Routing Decision")
+@Category("RWSplitter")
+@Description("Role a connection provider request was routed to")
+@StackTrace(false)
+public final class RoutingEvent extends Event {
+
+    @Label("Tenant")
+    String tenant;
+
+    @Label("Role")
+    String role;
+
+    @Label("Reason")
+    String reason;
+
+    /**
+     * Commits an event for the given routing decision if the event is enabled
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role routed to
+     * @param reason the signal that lead to the decision
+     */
+    public static void commit(final String tenantIdentifier, final DatabaseRole role, final RoutingReason reason) {
+        final RoutingEvent event = new RoutingEvent();
+        if (event.shouldCommit()) {
+            event.tenant = tenantIdentifier;
+            event.role = role.name();
+            event.reason = reason.name();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.elihullc.rwsplitter.jpa.hibernate.metrics;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.RoutingReason;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link RoutingMetrics} publishing to a Micrometer {@link MeterRegistry}.  The following meters are tagged by {@code tenant} and
+ * {@code role}:
+ * <ul>
+ *     <li>{@code rwsplitter.routing} - counter of routing decisions, additionally tagged by {@code reason} and registered on the
+ *     first decision of each role and reason</li>
+ *     <li>{@code rwsplitter.connection.acquire} - timer of connection acquisition, publishing a percentile histogram for the
+ *     {@value #OTHER_TENANTS} aggregate and, if enabled with {@link #setPublishPercentileHistogram(boolean)}, every tenant</li>
+ *     <li>{@code rwsplitter.pool.creation} - timer of connection provider creation</li>
+ * </ul>
+ * and {@code rwsplitter.pools} is a gauge of the live connection providers tagged by {@code role}.
+ *
+ * To bound tag cardinality only the first {@link #getMaxTaggedTenants()} tenants seen get their own {@code tenant} tag value; all
+ * others share the value {@value #OTHER_TENANTS}.  Meters are cached so recording does not look up the registry.
+ */
+public class MicrometerRoutingMetrics implements RoutingMetrics {
+
+    /**
+     * Tag value shared by all tenants beyond {@link #getMaxTaggedTenants()}
+     */
+    public static final String OTHER_TENANTS = "other";
+
+    /**
+     * Default number of tenants tagged individually
+     */
+    public static final int DEFAULT_MAX_TAGGED_TENANTS = 100;
+
+    private static final DatabaseRole[] ROLES = DatabaseRole.values();
+    private static final RoutingReason[] REASONS = RoutingReason.values();
+
+    private final MeterRegistry registry;
+    private final int maxTaggedTenants;
+    private final ConcurrentHashMap<String, TenantMeters> tenantMeters = new ConcurrentHashMap<>();
+    private final AtomicInteger taggedTenants = new AtomicInteger();
+
+    private volatile boolean publishPercentileHistogram;
+
+    public MicrometerRoutingMetrics(final MeterRegistry registry) {
+        this(registry, DEFAULT_MAX_TAGGED_TENANTS);
+    }
+
+    public MicrometerRoutingMetrics(final MeterRegistry registry, final int maxTaggedTenants) {
+        this.registry = registry;
+        this.maxTaggedTenants = maxTaggedTenants;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void bindTo(final SpringMultiTenantConnectionProvider<?> provider) {
+        for (DatabaseRole role : ROLES) {
+            Gauge.builder("rwsplitter.pools", provider, p -> p.getConnectionProviderCount(role))
+              .description("Live connection providers")
+              .tag("role", role.name())
+              .register(this.registry);
+        }
+    }
+
+    @Override
+    public void routed(final String tenantIdentifier, final DatabaseRole role, final RoutingReason reason) {
+        this.getTenantMeters(tenantIdentifier).getRouting(role, reason).increment();
+    }
+
+    @Override
+    public void connectionAcquired(final String tenantIdentifier, final DatabaseRole role, final long nanos) {
+        this.getTenantMeters(tenantIdentifier).acquire[role.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void providerCreated(final String tenantIdentifier, final DatabaseRole role, final long nanos) {
+        this.getTenantMeters(tenantIdentifier).creation[role.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of tenants tagged individually
+     * @return the number of tenants tagged individually
+     */
+    public int getMaxTaggedTenants() {
+        return this.maxTaggedTenants;
+    }
+
+    /**
+     * Whether the connection acquisition timers of individually tagged tenants publish a percentile histogram. Default is false
+     * @return true if every tenant's acquisition timer publishes a percentile histogram, false if only the aggregate does
+     */
+    public boolean isPublishPercentileHistogram() {
+        return this.publishPercentileHistogram;
+    }
+
+    /**
+     * Sets whether the connection acquisition timers of individually tagged tenants publish a percentile histogram.  Only applies
+     * to tenants seen afterwards.
+     * @param publishPercentileHistogram true to publish a percentile histogram for every tenant
+     */
+    public void setPublishPercentileHistogram(final boolean publishPercentileHistogram) {
+        this.publishPercentileHistogram = publishPercentileHistogram;
+    }
+
+    private TenantMeters getTenantMeters(final String tenantIdentifier) {
+        TenantMeters meters = this.tenantMeters.get(tenantIdentifier);
+        if (meters != null) {
+            return meters;
+        }
+        // the tenant may be being added by another thread even if all slots are taken, so always compute
+        meters = this.tenantMeters.computeIfAbsent(tenantIdentifier, tenant -> {
+            if (this.taggedTenants.incrementAndGet() <= this.maxTaggedTenants) {
+                return new TenantMeters(tenant, this.publishPercentileHistogram);
+            }
+            this.taggedTenants.decrementAndGet();
+            return null;
+        });
+        if (meters != null) {
+            return meters;
+        }
+        return this.tenantMeters.computeIfAbsent(OTHER_TENANTS, tenant -> new TenantMeters(tenant, true));
+    }
+
+    /**
+     * Meters of a single {@code tenant} tag value, routing counters being indexed by role and reason ordinals
+     */
+    private final class TenantMeters {
+
+        private final String tenant;
+        private final AtomicReferenceArray<Counter> routing = new AtomicReferenceArray<>(ROLES.length * REASONS.length);
+        private final Timer[] acquire = new Timer[ROLES.length];
+        private final Timer[] creation = new Timer[ROLES.length];
+
+        private TenantMeters(final String tenant, final boolean percentileHistogram) {
+            final MeterRegistry registry = MicrometerRoutingMetrics.this.registry;
+            this.tenant = tenant;
+            for (DatabaseRole role : ROLES) {
+                this.acquire[role.ordinal()] = Timer.builder("rwsplitter.connection.acquire")
+                  .description("Connection acquisition latency")
+                  .tag("tenant", tenant)
+                  .tag("role", role.name())
+                  .publishPercentileHistogram(percentileHistogram)
+                  .register(registry);
+                this.creation[role.ordinal()] = Timer.builder("rwsplitter.pool.creation")
+                  .description("Connection provider creation time")
+                  .tag("tenant", tenant)
+                  .tag("role", role.name())
+                  .register(registry);
+            }
+        }
+
+        private Counter getRouting(final DatabaseRole role, final RoutingReason reason) {
+            final int index = role.ordinal() * REASONS.length + reason.ordinal();
+            Counter counter = this.routing.get(index);
+            if (counter == null) {
+                counter = Counter.builder("rwsplitter.routing")
+                  .description("Routing decisions")
+                  .tag("tenant", this.tenant)
+                  .tag("role", role.name())
+                  .tag("reason", reason.name())
+                  .register(MicrometerRoutingMetrics.this.registry);
+                this.routing.set(index, counter);
+            }
+            return counter;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.elihullc.rwsplitter.jpa.hibernate.metrics;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.RoutingReason;
+
+/**
+ * Receives the measurements taken by {@link SpringMultiTenantConnectionProvider}.  The default, {@link #NOOP}, records nothing and
+ * reports itself disabled so the provider skips taking timestamps altogether.
+ */
+public interface RoutingMetrics {
+
+    /**
+     * Metrics implementation that records nothing
+     */
+    RoutingMetrics NOOP = new RoutingMetrics() { };
+
+    /**
+     * Whether measurements should be taken. Default is false
+     * @return true if measurements should be taken, false otherwise
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Invoked once when these metrics are set on a provider, e.g. to register gauges
+     * @param provider the provider publishing to these metrics
+     */
+    default void bindTo(SpringMultiTenantConnectionProvider<?> provider) {
+    }
+
+    /**
+     * Records a routing decision
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role routed to
+     * @param reason the signal that lead to the decision
+     */
+    default void routed(String tenantIdentifier, DatabaseRole role, RoutingReason reason) {
+    }
+
+    /**
+     * Records the time taken to acquire a connection
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role of the connection
+     * @param nanos the time taken in nanoseconds
+     */
+    default void connectionAcquired(String tenantIdentifier, DatabaseRole role, long nanos) {
+    }
+
+    /**
+     * Records the time taken to create the connection provider(s) of a tenant and role
+     * @param tenantIdentifier the tenant identifier
+     * @param role the role of the connection provider(s)
+     * @param nanos the time taken in nanoseconds
+     */
+    default void providerCreated(String tenantIdentifier, DatabaseRole role, long nanos) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+/**
+ * Enum consisting of the consistency guarantees available when routing read-only work to readers
+ */
+public enum ConsistencyMode {
+
+    /**
+     * Read-only work is always routed to a reader regardless of how far behind the reader is
+     */
+    EVENTUAL,
+
+    /**
+     * Read-only work is routed to a reader only once that reader has replicated the last write recorded for the tenant (or the
+     * tenant's session); otherwise it is routed to the writer
+     */
+    READ_YOUR_WRITES
+}
@@ -0,0 +1,45 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ReaderSelectionStrategy} that selects the reader with the fewest outstanding connections, i.e. active connections plus
+ * threads waiting for a connection, as reported by the HikariCP pool backing each reader.  Readers that are not backed by
+ * HikariCP are treated as idle.  Ties are broken in round-robin order so that idle readers share the load.
+ */
+public class LeastOutstandingReaderSelectionStrategy implements ReaderSelectionStrategy {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public <T extends StoppableConnectionProvider> T select(final String tenantIdentifier, final List<T> readers) {
+        final int size = readers.size();
+        final int start = Math.floorMod(this.counter.getAndIncrement(), size);
+        T selected = null;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            final T reader = readers.get((start + i) % size);
+            final int outstanding = getOutstandingConnections(reader);
+            if (outstanding < fewest) {
+                selected = reader;
+                fewest = outstanding;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the number of active connections plus the number of threads awaiting a connection for the given provider
+     * @param provider the connection provider
+     * @return the number of outstanding connections or 0 if the provider is not backed by HikariCP
+     */
+    public static int getOutstandingConnections(final StoppableConnectionProvider provider) {
+        final HikariPoolMXBean pool = HikariPools.getPoolMXBean(provider);
+        return pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+    }
+}
@@ -0,0 +1,23 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+/**
+ * Enum consisting of the ways read-only work is routed when some readers of a tenant are unavailable, see
+ * {@link ReaderHealthMonitor}
+ */
+public enum ReaderFailoverPolicy {
+
+    /**
+     * Route to the available readers and to the writer if none is available
+     */
+    READERS_THEN_WRITER,
+
+    /**
+     * Route to the available readers and fail fast if none is available, keeping all read traffic off the writer
+     */
+    READERS_ONLY,
+
+    /**
+     * Route to the writer as soon as any reader of the tenant is unavailable
+     */
+    WRITER
+}
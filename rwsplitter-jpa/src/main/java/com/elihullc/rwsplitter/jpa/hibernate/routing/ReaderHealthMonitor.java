@@ -0,0 +1,317 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a circuit breaker per registered reader so that read-only work is not sent to a reader that is down and made to wait for
+ * the pool's connection timeout.  A breaker opens after {@link #getFailureThreshold()} consecutive failures, reported either by
+ * {@link #recordFailure(StoppableConnectionProvider)} when acquiring a connection fails or by the background probe that validates a
+ * connection of every reader.  Once open it stays open for {@link #getOpenDuration()}, after which it half-opens and the next
+ * successful probe closes it again; a failed probe re-opens it.  Readers in either state are not {@link #isAvailable available}.
+ *
+ * A reader whose pool is merely exhausted is not down: probes are skipped while its pool has no idle connection left, and probes
+ * that time out on such a pool or fail with {@link #isPoolExhausted(SQLException) pool exhaustion} are inconclusive and neither
+ * open nor close the breaker.
+ */
+public class ReaderHealthMonitor implements Closeable {
+
+    /**
+     * Default probing interval in milliseconds
+     */
+    public static final long DEFAULT_PROBING_INTERVAL = 5000L;
+
+    private final ConcurrentHashMap<StoppableConnectionProvider, Health> health = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService probes;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private volatile int failureThreshold = 3;
+    private volatile Duration openDuration = Duration.ofSeconds(10);
+    private volatile Duration probeTimeout = Duration.ofSeconds(2);
+    private volatile int validationTimeoutSeconds = 1;
+
+    public ReaderHealthMonitor() {
+        this(DEFAULT_PROBING_INTERVAL);
+    }
+
+    public ReaderHealthMonitor(final long probingIntervalMillis) {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-reader-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final AtomicInteger count = new AtomicInteger();
+        this.probes = Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-reader-probe-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::probe, probingIntervalMillis, probingIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts probing the given reader.  Readers borrowing from the same pool, see {@link StoppableConnectionProvider#getPoolOwner()}, are
+     * probed once and share the outcome.
+     * @param reader the reader connection provider
+     */
+    public void register(final StoppableConnectionProvider reader) {
+        this.health.putIfAbsent(reader.getPoolOwner(), new Health());
+    }
+
+    /**
+     * Stops probing the given reader and every reader borrowing from the same pool
+     * @param reader the reader connection provider
+     */
+    public void unregister(final StoppableConnectionProvider reader) {
+        this.health.remove(reader.getPoolOwner());
+    }
+
+    /**
+     * Whether the circuit breaker of the given reader is closed.  Readers that are not registered are always available.
+     * @param reader the reader connection provider
+     * @return true if the reader may serve requests, false otherwise
+     */
+    public boolean isAvailable(final StoppableConnectionProvider reader) {
+        final Health readerHealth = this.health.get(reader.getPoolOwner());
+        return readerHealth == null || readerHealth.state == State.CLOSED;
+    }
+
+    /**
+     * Returns the state of the circuit breaker of the given reader
+     * @param reader the reader connection provider
+     * @return the state of the circuit breaker or null if the reader is not registered
+     */
+    public State getState(final StoppableConnectionProvider reader) {
+        final Health readerHealth = this.health.get(reader.getPoolOwner());
+        return readerHealth == null ? null : readerHealth.state;
+    }
+
+    /**
+     * Records a failure to use the given reader, opening its circuit breaker once the threshold is reached
+     * @param reader the reader connection provider
+     */
+    public void recordFailure(final StoppableConnectionProvider reader) {
+        final Health readerHealth = this.health.get(reader.getPoolOwner());
+        if (readerHealth == null) {
+            return;
+        }
+        if (readerHealth.failures.incrementAndGet() >= this.failureThreshold && readerHealth.state == State.CLOSED) {
+            this.open(reader, readerHealth);
+        }
+    }
+
+    /**
+     * Records a successful use of the given reader, resetting its count of consecutive failures
+     * @param reader the reader connection provider
+     */
+    public void recordSuccess(final StoppableConnectionProvider reader) {
+        final Health readerHealth = this.health.get(reader.getPoolOwner());
+        if (readerHealth != null && readerHealth.failures.get() != 0) {
+            readerHealth.failures.set(0);
+        }
+    }
+
+    private void open(final StoppableConnectionProvider reader, final Health readerHealth) {
+        readerHealth.openedAt = System.currentTimeMillis();
+        readerHealth.state = State.OPEN;
+        this.logger.warn("Circuit breaker of reader {} opened after {} consecutive failures", reader, readerHealth.failures.get());
+    }
+
+    /**
+     * Half-opens the circuit breakers that have been open long enough and probes every reader whose breaker is not open
+     */
+    protected void probe() {
+        final long now = System.currentTimeMillis();
+        this.health.forEach((reader, readerHealth) -> {
+            if (readerHealth.state == State.OPEN) {
+                if (now - readerHealth.openedAt < this.openDuration.toMillis()) {
+                    return;
+                }
+                readerHealth.state = State.HALF_OPEN;
+                this.logger.info("Circuit breaker of reader {} half-opened", reader);
+            }
+            if (HikariPools.isSaturated(reader)) {
+                this.logger.debug("Skipping probe of reader {} as its pool is saturated", reader);
+                return;
+            }
+            if (readerHealth.probing.compareAndSet(false, true)) {
+                CompletableFuture.supplyAsync(() -> {
+                      try {
+                          return this.isValid(reader);
+                      } finally {
+                          readerHealth.probing.set(false);
+                      }
+                  }, this.probes)
+                  .orTimeout(this.probeTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                  .whenComplete((valid, e) -> {
+                      if (e instanceof TimeoutException && HikariPools.isSaturated(reader)) {
+                          this.logger.debug("Probe of reader {} timed out on a saturated pool", reader);
+                      } else if (e != null || valid != null) {
+                          this.probed(reader, readerHealth, e == null && valid);
+                      }
+                  });
+            }
+        });
+    }
+
+    /**
+     * Validates a connection of the given reader
+     * @param reader the reader connection provider
+     * @return whether the connection is valid or null if the reader's pool is exhausted, which is inconclusive
+     */
+    private Boolean isValid(final StoppableConnectionProvider reader) {
+        try {
+            final Connection connection = reader.getConnection();
+            try {
+                return connection.isValid(this.validationTimeoutSeconds);
+            } finally {
+                reader.closeConnection(connection);
+            }
+        } catch (SQLException e) {
+            if (isPoolExhausted(e)) {
+                this.logger.debug("Unable to probe reader {} as its pool is exhausted", reader);
+                return null;
+            }
+            this.logger.debug("Unable to probe reader {}", reader, e);
+            return false;
+        } catch (RuntimeException e) {
+            this.logger.debug("Unable to probe reader {}", reader, e);
+            return false;
+        }
+    }
+
+    /**
+     * Whether the given exception only reports that no pooled connection became available in time, as HikariCP does with a
+     * {@link SQLTransientConnectionException} without cause, rather than a failure to connect to the reader
+     * @param e the exception
+     * @return true if the pool is exhausted, false otherwise
+     */
+    public static boolean isPoolExhausted(final SQLException e) {
+        return e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    private void probed(final StoppableConnectionProvider reader, final Health readerHealth, final boolean valid) {
+        if (valid) {
+            readerHealth.failures.set(0);
+            if (readerHealth.state == State.HALF_OPEN) {
+                readerHealth.state = State.CLOSED;
+                this.logger.info("Circuit breaker of reader {} closed", reader);
+            }
+        } else if (readerHealth.state == State.HALF_OPEN) {
+            this.open(reader, readerHealth);
+        } else {
+            this.recordFailure(reader);
+        }
+    }
+
+    /**
+     * Stops probing all readers
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        this.probes.shutdownNow();
+        this.health.clear();
+    }
+
+    /**
+     * Returns the number of consecutive failures opening a circuit breaker. Default is 3
+     * @return the number of consecutive failures opening a circuit breaker
+     */
+    public int getFailureThreshold() {
+        return this.failureThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive failures opening a circuit breaker
+     * @param failureThreshold the number of consecutive failures opening a circuit breaker
+     */
+    public void setFailureThreshold(final int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Returns how long a circuit breaker stays open before it half-opens. Default is 10 seconds
+     * @return how long a circuit breaker stays open
+     */
+    public Duration getOpenDuration() {
+        return this.openDuration;
+    }
+
+    /**
+     * Sets how long a circuit breaker stays open before it half-opens
+     * @param openDuration how long a circuit breaker stays open
+     */
+    public void setOpenDuration(final Duration openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Returns the time after which a probe counts as failed. Default is 2 seconds
+     * @return the time after which a probe counts as failed
+     */
+    public Duration getProbeTimeout() {
+        return this.probeTimeout;
+    }
+
+    /**
+     * Sets the time after which a probe counts as failed
+     * @param probeTimeout the time after which a probe counts as failed
+     */
+    public void setProbeTimeout(final Duration probeTimeout) {
+        this.probeTimeout = probeTimeout;
+        this.validationTimeoutSeconds = (int)Math.max(1L, probeTimeout.toSeconds());
+    }
+
+    /**
+     * Enum consisting of the states of a circuit breaker
+     */
+    public enum State {
+
+        /**
+         * The reader serves requests
+         */
+        CLOSED,
+
+        /**
+         * The reader does not serve requests until the breaker half-opens
+         */
+        OPEN,
+
+        /**
+         * The reader does not serve requests until the next probe succeeds
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Circuit breaker of a reader
+     */
+    private static final class Health {
+
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicBoolean probing = new AtomicBoolean();
+        private volatile State state = State.CLOSED;
+        private volatile long openedAt;
+    }
+}
@@ -0,0 +1,20 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.util.List;
+
+/**
+ * Strategy used to pick one of the reader {@link StoppableConnectionProvider}s configured for a tenant
+ */
+public interface ReaderSelectionStrategy {
+
+    /**
+     * Selects a reader connection provider for the given tenant
+     * @param tenantIdentifier the tenant identifier
+     * @param readers the non-empty list of reader connection providers available to the tenant
+     * @param <T> the type of connection provider
+     * @return the selected reader connection provider
+     */
+    <T extends StoppableConnectionProvider> T select(String tenantIdentifier, List<T> readers);
+}
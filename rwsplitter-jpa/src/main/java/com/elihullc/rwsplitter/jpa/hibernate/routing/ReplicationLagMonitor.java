@@ -0,0 +1,110 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the replication lag of registered readers in the background so routing decisions never pay for a lag query.  For every
+ * reader the monitor keeps the point in time, in epoch milliseconds, up to which the reader is known to have replicated all writes.
+ * Readers that have not been sampled successfully yet are never considered caught up.
+ */
+public class ReplicationLagMonitor implements Closeable {
+
+    /**
+     * Default sampling interval in milliseconds
+     */
+    public static final long DEFAULT_SAMPLING_INTERVAL = 1000L;
+
+    private final ConcurrentHashMap<StoppableConnectionProvider, Long> caughtUpTo = new ConcurrentHashMap<>();
+    private final ReplicationLagProbe probe;
+    private final ScheduledExecutorService scheduler;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    public ReplicationLagMonitor(final ReplicationLagProbe probe) {
+        this(probe, DEFAULT_SAMPLING_INTERVAL);
+    }
+
+    public ReplicationLagMonitor(final ReplicationLagProbe probe, final long samplingIntervalMillis) {
+        this.probe = probe;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "rwsplitter-replication-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::sample, samplingIntervalMillis, samplingIntervalMillis,
+          TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts sampling the given reader.  Readers borrowing from the same pool, see {@link StoppableConnectionProvider#getPoolOwner()}, are
+     * sampled once and share the outcome.
+     * @param reader the reader connection provider
+     */
+    public void register(final StoppableConnectionProvider reader) {
+        this.caughtUpTo.putIfAbsent(reader.getPoolOwner(), 0L);
+    }
+
+    /**
+     * Stops sampling the given reader and every reader borrowing from the same pool
+     * @param reader the reader connection provider
+     */
+    public void unregister(final StoppableConnectionProvider reader) {
+        this.caughtUpTo.remove(reader.getPoolOwner());
+    }
+
+    /**
+     * Whether the given reader has replicated every write committed up to the given marker
+     * @param reader the reader connection provider
+     * @param writeMarker the commit timestamp of a write, in epoch milliseconds
+     * @return true if the reader is known to have caught up with the write, false otherwise
+     */
+    public boolean isCaughtUp(final StoppableConnectionProvider reader, final long writeMarker) {
+        final Long readerCaughtUpTo = this.caughtUpTo.get(reader.getPoolOwner());
+        return readerCaughtUpTo != null && readerCaughtUpTo >= writeMarker;
+    }
+
+    /**
+     * Samples the lag of every registered reader
+     */
+    protected void sample() {
+        this.caughtUpTo.keySet().forEach(this::sample);
+    }
+
+    private void sample(final StoppableConnectionProvider reader) {
+        final long sampledAt = System.currentTimeMillis();
+        try {
+            final Connection connection = reader.getConnection();
+            final long lag;
+            try {
+                lag = this.probe.getLagMillis(connection);
+            } finally {
+                reader.closeConnection(connection);
+            }
+            if (lag != Long.MAX_VALUE) {
+                this.caughtUpTo.computeIfPresent(reader, (key, previous) -> Math.max(previous, sampledAt - lag));
+            }
+            this.logger.trace("Sampled replication lag of {}ms for reader {}", lag, reader);
+        } catch (Exception e) {
+            this.logger.debug("Unable to sample replication lag for reader {}", reader, e);
+        }
+    }
+
+    /**
+     * Stops sampling all readers
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        this.caughtUpTo.clear();
+    }
+}
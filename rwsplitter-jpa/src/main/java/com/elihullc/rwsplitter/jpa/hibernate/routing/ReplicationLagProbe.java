@@ -0,0 +1,51 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Measures how far a replica is behind its source using a connection to that replica
+ */
+@FunctionalInterface
+public interface ReplicationLagProbe {
+
+    /**
+     * Probe for MySQL 8.0.22+ replicas using {@code SHOW REPLICA STATUS}.  As {@code Seconds_Behind_Source} has a resolution of one
+     * second the reported lag is rounded up to the next full second.  A connection that is not a replica reports no lag.
+     */
+    ReplicationLagProbe MYSQL = connection -> {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+            if (!rs.next()) {
+                return 0L;
+            }
+            final long seconds = rs.getLong("Seconds_Behind_Source");
+            return rs.wasNull() ? Long.MAX_VALUE : (seconds + 1) * 1000L;
+        }
+    };
+
+    /**
+     * Probe for Aurora MySQL readers using {@code information_schema.REPLICA_HOST_STATUS}
+     */
+    ReplicationLagProbe AURORA_MYSQL = connection -> {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT REPLICA_LAG_IN_MILLISECONDS FROM information_schema.REPLICA_HOST_STATUS"
+               + " WHERE SERVER_ID = @@aurora_server_id AND SESSION_ID <> 'MASTER_SESSION_ID'")) {
+            if (!rs.next()) {
+                return 0L;
+            }
+            final double lag = rs.getDouble(1);
+            return rs.wasNull() ? Long.MAX_VALUE : (long)Math.ceil(lag);
+        }
+    };
+
+    /**
+     * Returns the replication lag of the replica the connection points to
+     * @param connection a connection to the replica
+     * @return the replication lag in milliseconds or {@link Long#MAX_VALUE} if replication is not running
+     * @throws SQLException if the lag cannot be determined
+     */
+    long getLagMillis(Connection connection) throws SQLException;
+}
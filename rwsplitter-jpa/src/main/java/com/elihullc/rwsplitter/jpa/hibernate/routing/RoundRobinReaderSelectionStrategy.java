@@ -0,0 +1,19 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link ReaderSelectionStrategy} that cycles through the available readers in order.  This is the default strategy.
+ */
+public class RoundRobinReaderSelectionStrategy implements ReaderSelectionStrategy {
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public <T extends StoppableConnectionProvider> T select(final String tenantIdentifier, final List<T> readers) {
+        return readers.get(Math.floorMod(this.counter.getAndIncrement(), readers.size()));
+    }
+}
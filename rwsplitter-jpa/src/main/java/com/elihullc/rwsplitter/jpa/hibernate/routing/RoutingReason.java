@@ -0,0 +1,48 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+/**
+ * Enum consisting of the signals that lead to a routing decision
+ */
+public enum RoutingReason {
+
+    /**
+     * Routed to a reader because {@link com.elihullc.rwsplitter.jpa.CurrentDatabaseRole} is
+     * {@link com.elihullc.rwsplitter.jpa.DatabaseRole#READER}
+     */
+    DATABASE_ROLE,
+
+    /**
+     * Routed to a reader because the current Spring transaction is read-only
+     */
+    READ_ONLY_TRANSACTION,
+
+    /**
+     * Routed to the writer because no signal requested a reader
+     */
+    DEFAULT,
+
+    /**
+     * Routed to the writer because no reader has caught up with the last write of the tenant
+     */
+    REPLICATION_LAG,
+
+    /**
+     * Routed to the writer because the circuit breaker of the readers of the tenant is open
+     */
+    READER_UNAVAILABLE,
+
+    /**
+     * Routed to the writer because the tenant has no reader
+     */
+    NO_READER,
+
+    /**
+     * Routed an auto-commit statement outside of a transaction to a reader because it was classified as a read
+     */
+    STATEMENT,
+
+    /**
+     * Routed an auto-commit statement classified as a read to the writer because a reader connection could not be acquired
+     */
+    STATEMENT_FALLBACK
+}
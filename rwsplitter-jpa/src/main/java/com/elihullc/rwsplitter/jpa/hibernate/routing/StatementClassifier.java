@@ -0,0 +1,104 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies SQL statements as reads that a replica may serve or as statements that must run on the writer.  Reads are
+ * {@code SELECT}, {@code SHOW}, {@code DESCRIBE}/{@code DESC}, {@code EXPLAIN} and {@code WITH} queries that neither lock rows
+ * ({@code FOR UPDATE}, {@code FOR SHARE}, {@code LOCK IN SHARE MODE}, PostgreSQL's {@code FOR NO KEY UPDATE} and
+ * {@code FOR KEY SHARE}), write ({@code INTO}, DML in a {@code WITH} query) nor depend on session state of the writer
+ * ({@code LAST_INSERT_ID()}, {@code FOUND_ROWS()}, {@code NEXTVAL}, locking functions).  String literals and comments are ignored.
+ * Anything else, including statements that cannot be recognized, is classified as a write.
+ *
+ * Results are cached per SQL string, up to {@link #getMaxCacheSize()} statements, so that the parsing cost is paid once per
+ * distinct statement.
+ */
+public class StatementClassifier {
+
+    private static final Pattern LITERALS_AND_COMMENTS = Pattern.compile(
+      "'(?:[^'\\\\]|\\\\.)*'|\"(?:[^\"\\\\]|\\\\.)*\"|/\\*.*?\\*/|--[^\\n]*", Pattern.DOTALL);
+    private static final Pattern WRITER_ONLY = Pattern.compile(
+      "\\bFOR\\s+(?:NO\\s+KEY\\s+)?UPDATE\\b|\\bFOR\\s+(?:KEY\\s+)?SHARE\\b|\\bLOCK\\s+IN\\s+SHARE\\s+MODE\\b|\\bINTO\\b"
+        + "|\\bLAST_INSERT_ID\\s*\\(|\\bFOUND_ROWS\\s*\\(|\\bNEXTVAL\\b|\\bGET_LOCK\\s*\\(|\\bRELEASE_LOCK\\s*\\("
+        + "|\\bIS_USED_LOCK\\s*\\(|\\bIS_FREE_LOCK\\s*\\(|@@\\w*IDENTITY\\b");
+    private static final Pattern DML = Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE|REPLACE)\\b");
+
+    private final ConcurrentHashMap<String, Boolean> cache = new ConcurrentHashMap<>();
+
+    private volatile int maxCacheSize = 10_000;
+
+    /**
+     * Whether the given statement is a read that a replica may serve
+     * @param sql the SQL statement
+     * @return true if the statement is a read, false otherwise
+     */
+    public boolean isRead(final String sql) {
+        final Boolean cached = this.cache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        final boolean read = this.classify(sql);
+        if (this.cache.size() < this.maxCacheSize) {
+            this.cache.put(sql, read);
+        }
+        return read;
+    }
+
+    /**
+     * Classifies the given statement without consulting the cache
+     * @param sql the SQL statement
+     * @return true if the statement is a read, false otherwise
+     */
+    protected boolean classify(final String sql) {
+        final String normalized = normalize(sql);
+        int start = 0;
+        while (start < normalized.length() && (normalized.charAt(start) == '(' || Character.isWhitespace(normalized.charAt(start)))) {
+            start++;
+        }
+        final String statement = normalized.substring(start);
+        final boolean readKeyword = statement.startsWith("SELECT") || statement.startsWith("SHOW")
+          || statement.startsWith("DESC") || statement.startsWith("EXPLAIN") || statement.startsWith("WITH");
+        if (!readKeyword || WRITER_ONLY.matcher(statement).find()) {
+            return false;
+        }
+        if (statement.startsWith("WITH") || statement.startsWith("EXPLAIN")) {
+            return !DML.matcher(statement).find();
+        }
+        return true;
+    }
+
+    /**
+     * Replaces string literals and comments of the given statement with blanks and upper-cases the rest
+     * @param sql the SQL statement
+     * @return the normalized statement
+     */
+    public static String normalize(final String sql) {
+        return LITERALS_AND_COMMENTS.matcher(sql).replaceAll(" ").trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the number of cached classifications
+     * @return the number of cached classifications
+     */
+    public int getCacheSize() {
+        return this.cache.size();
+    }
+
+    /**
+     * Returns the maximum number of cached classifications. Default is 10000
+     * @return the maximum number of cached classifications
+     */
+    public int getMaxCacheSize() {
+        return this.maxCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of cached classifications.  Statements beyond it are classified on every use.
+     * @param maxCacheSize the maximum number of cached classifications
+     */
+    public void setMaxCacheSize(final int maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+}
@@ -0,0 +1,34 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link ReaderSelectionStrategy} that selects readers randomly in proportion to {@link StoppableConnectionProvider#getWeight()}.
+ * Readers with a weight of zero or less are never selected unless every reader has such a weight, in which case the readers are
+ * selected uniformly.
+ */
+public class WeightedReaderSelectionStrategy implements ReaderSelectionStrategy {
+
+    @Override
+    public <T extends StoppableConnectionProvider> T select(final String tenantIdentifier, final List<T> readers) {
+        final int size = readers.size();
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += Math.max(0, readers.get(i).getWeight());
+        }
+        if (total == 0) {
+            return readers.get(ThreadLocalRandom.current().nextInt(size));
+        }
+        int point = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < size; i++) {
+            point -= Math.max(0, readers.get(i).getWeight());
+            if (point < 0) {
+                return readers.get(i);
+            }
+        }
+        return readers.get(size - 1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Records the commit timestamp of the last write per tenant, or per tenant and session if a session key supplier is configured.
+ * Markers older than the retention period are discarded since any healthy reader is expected to have replicated them.
+ */
+public class WriteMarkerTracker {
+
+    /**
+     * Default retention of write markers in milliseconds
+     */
+    public static final long DEFAULT_RETENTION = 300_000L;
+
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final ConcurrentHashMap<String, Long> markers = new ConcurrentHashMap<>();
+    private final AtomicInteger writes = new AtomicInteger();
+
+    private Supplier<String> sessionKeySupplier;
+    private long retentionMillis = DEFAULT_RETENTION;
+
+    /**
+     * Records a write for the given tenant committed now
+     * @param tenantIdentifier the tenant identifier
+     */
+    public void recordWrite(final String tenantIdentifier) {
+        this.markers.merge(this.getKey(tenantIdentifier), System.currentTimeMillis(), Math::max);
+        if (this.writes.incrementAndGet() % PURGE_INTERVAL == 0) {
+            this.purge();
+        }
+    }
+
+    /**
+     * Returns the commit timestamp of the last write recorded for the given tenant
+     * @param tenantIdentifier the tenant identifier
+     * @return the commit timestamp in epoch milliseconds or 0 if no write is retained
+     */
+    public long getLastWrite(final String tenantIdentifier) {
+        final Long marker = this.markers.get(this.getKey(tenantIdentifier));
+        if (marker == null || System.currentTimeMillis() - marker > this.retentionMillis) {
+            return 0L;
+        }
+        return marker;
+    }
+
+    /**
+     * Removes all markers older than the retention period
+     */
+    public void purge() {
+        final long horizon = System.currentTimeMillis() - this.retentionMillis;
+        this.markers.values().removeIf(marker -> marker < horizon);
+    }
+
+    private String getKey(final String tenantIdentifier) {
+        final String sessionKey = this.sessionKeySupplier == null ? null : this.sessionKeySupplier.get();
+        return sessionKey == null ? tenantIdentifier : tenantIdentifier + '\u0000' + sessionKey;
+    }
+
+    /**
+     * Returns the supplier of the current session key. Default is null, i.e. markers are tracked per tenant
+     * @return the supplier of the current session key
+     */
+    public Supplier<String> getSessionKeySupplier() {
+        return this.sessionKeySupplier;
+    }
+
+    /**
+     * Sets the supplier of the current session key, e.g. the {@link jakarta.servlet.http.HttpSession} id, so that markers are
+     * tracked per tenant and session.  If the supplier returns null the marker is tracked per tenant.
+     * @param sessionKeySupplier the supplier of the current session key
+     */
+    public void setSessionKeySupplier(final Supplier<String> sessionKeySupplier) {
+        this.sessionKeySupplier = sessionKeySupplier;
+    }
+
+    /**
+     * Returns the retention of write markers in milliseconds. Default is five minutes
+     * @return the retention of write markers in milliseconds
+     */
+    public long getRetentionMillis() {
+        return this.retentionMillis;
+    }
+
+    /**
+     * Sets the retention of write markers in milliseconds
+     * @param retentionMillis the retention of write markers in milliseconds
+     */
+    public void setRetentionMillis(final long retentionMillis) {
+        this.retentionMillis = retentionMillis;
+    }
+}
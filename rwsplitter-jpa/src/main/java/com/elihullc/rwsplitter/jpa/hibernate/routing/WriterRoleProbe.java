@@ -0,0 +1,31 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Determines whether the server behind a writer connection has been demoted to a read-only instance, e.g. after a failover
+ */
+@FunctionalInterface
+public interface WriterRoleProbe {
+
+    /**
+     * Probe for MySQL and Aurora MySQL using {@code @@innodb_read_only}, which Aurora sets on every instance but the writer
+     */
+    WriterRoleProbe INNODB_READ_ONLY = connection -> {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT @@innodb_read_only")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    };
+
+    /**
+     * Returns whether the server the connection points to is read-only
+     * @param connection a connection from the writer pool
+     * @return true if the server no longer accepts writes, false otherwise
+     * @throws SQLException if the role cannot be determined
+     */
+    boolean isReadOnly(Connection connection) throws SQLException;
+}
@@ -0,0 +1,149 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+
+import java.util.List;
+
+/**
+ * {@link ReaderSelectionStrategy} that keeps each tenant on the same reader, preferring readers in the local availability zone.
+ *
+ * Readers are ranked per tenant by weighted rendezvous hashing, so that each tenant consistently lands on one reader, in
+ * proportion to {@link StoppableConnectionProvider#getWeight()}, and keeps it while other readers come and go.  This keeps the
+ * buffer pool of every reader warm for its tenants.  The highest ranked reader in {@link #getLocalZone()}, see
+ * {@link StoppableConnectionProvider#getZone()}, is selected unless its outstanding connections reach
+ * {@link #getSpillOverThreshold()} of its maximum pool size, in which case the next ranked local reader is tried and then the readers
+ * in other zones.  When every reader is that busy the least busy one is selected.  Readers that failed are already excluded by the
+ * {@link ReaderHealthMonitor}, so their tenants spill over the same way.
+ *
+ * Readers with a weight of zero or less are never selected unless every reader has such a weight.
+ */
+public class ZoneAwareReaderSelectionStrategy implements ReaderSelectionStrategy {
+
+    private final String localZone;
+
+    private volatile double spillOverThreshold = 0.8;
+
+    /**
+     * Creates a strategy preferring readers in the given zone
+     * @param localZone the availability zone of this node, e.g. {@code us-east-1a}, or null to rank all readers alike
+     */
+    public ZoneAwareReaderSelectionStrategy(final String localZone) {
+        this.localZone = localZone;
+    }
+
+    @Override
+    public <T extends StoppableConnectionProvider> T select(final String tenantIdentifier, final List<T> readers) {
+        final int size = readers.size();
+        boolean weighted = false;
+        for (int i = 0; i < size && !weighted; i++) {
+            weighted = readers.get(i).getWeight() > 0;
+        }
+        final double threshold = this.spillOverThreshold;
+        final int tenantHash = tenantIdentifier.hashCode();
+        T local = null;
+        T remote = null;
+        T leastBusy = null;
+        double localScore = Double.MAX_VALUE;
+        double remoteScore = Double.MAX_VALUE;
+        double leastLoad = Double.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            final T reader = readers.get(i);
+            final int weight = weighted ? reader.getWeight() : 1;
+            if (weight <= 0) {
+                continue;
+            }
+            final double load = getLoad(reader);
+            if (load >= threshold) {
+                if (load < leastLoad) {
+                    leastBusy = reader;
+                    leastLoad = load;
+                }
+                continue;
+            }
+            final double score = getScore(tenantHash, reader, weight);
+            if (this.isLocal(reader)) {
+                if (score < localScore) {
+                    local = reader;
+                    localScore = score;
+                }
+            } else if (score < remoteScore) {
+                remote = reader;
+                remoteScore = score;
+            }
+        }
+        return local != null ? local : remote != null ? remote : leastBusy;
+    }
+
+    /**
+     * Whether the given reader is in the local zone
+     * @param reader the reader
+     * @return true if the reader's zone equals the local zone, false otherwise
+     */
+    protected boolean isLocal(final StoppableConnectionProvider reader) {
+        return this.localZone == null || this.localZone.equals(reader.getZone());
+    }
+
+    /**
+     * Returns the rendezvous score of the given reader for a tenant, the lowest score winning
+     * @param tenantHash the hash code of the tenant identifier
+     * @param reader the reader
+     * @param weight the positive weight of the reader
+     * @return the score of the reader
+     */
+    private static double getScore(final int tenantHash, final StoppableConnectionProvider reader, final int weight) {
+        long hash = ((long)tenantHash << 32) ^ (getKey(reader) & 0xFFFFFFFFL);
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        final double uniform = ((hash >>> 11) + 0.5) * 0x1.0p-53;
+        return -Math.log(uniform) / weight;
+    }
+
+    /**
+     * Returns a key identifying the given reader that is stable across rebuilds of its pool, i.e. the HikariCP pool name without
+     * its generation
+     * @param reader the reader
+     * @return the key of the reader
+     */
+    private static int getKey(final StoppableConnectionProvider reader) {
+        final String poolName = HikariPools.getBasePoolName(reader);
+        return poolName == null ? System.identityHashCode(reader) : poolName.hashCode();
+    }
+
+    /**
+     * Returns the outstanding connections of the given reader relative to its maximum pool size
+     * @param reader the reader
+     * @return the load of the reader or 0 if it is not backed by HikariCP
+     */
+    private static double getLoad(final StoppableConnectionProvider reader) {
+        final int maximum = HikariPools.getMaximumPoolSize(reader);
+        return maximum == 0 ? 0 : (double)LeastOutstandingReaderSelectionStrategy.getOutstandingConnections(reader) / maximum;
+    }
+
+    /**
+     * Returns the availability zone of this node
+     * @return the local zone or null if all readers are ranked alike
+     */
+    public String getLocalZone() {
+        return this.localZone;
+    }
+
+    /**
+     * Returns the fraction of its maximum pool size a reader's outstanding connections may reach before its tenants spill over to
+     * other readers. Default is 0.8
+     * @return the spill over threshold
+     */
+    public double getSpillOverThreshold() {
+        return this.spillOverThreshold;
+    }
+
+    /**
+     * Sets the fraction of its maximum pool size a reader's outstanding connections may reach before its tenants spill over to
+     * other readers
+     * @param spillOverThreshold the spill over threshold
+     */
+    public void setSpillOverThreshold(final double spillOverThreshold) {
+        this.spillOverThreshold = spillOverThreshold;
+    }
+}
@@ -0,0 +1,45 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import java.util.List;
+
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class ScopedValueContextEngineTest {
+
+    private ContextEngine engine;
+
+    @BeforeClass
+    public void setUp() {
+        if (!ScopedValueContextEngine.isAvailable()) {
+            throw new SkipException("java.lang.ScopedValue is not available");
+        }
+        this.engine = new ScopedValueContextEngine();
+    }
+
+    @Test
+    public void unboundValuesHaveDefaults() {
+        assertNull(this.engine.getTenant());
+        assertEquals(this.engine.getAllTenants(), List.of());
+        assertEquals(this.engine.getRole(), DatabaseRole.WRITER);
+    }
+
+    @Test
+    public void scopedBindingsNestAndUnbind() {
+        this.engine.withTenant("outer", () -> this.engine.withTenant("inner", () -> {
+            assertEquals(this.engine.getAllTenants(), List.of("outer", "inner"));
+            return this.engine.withRole(DatabaseRole.READER, () -> {
+                assertEquals(this.engine.getRole(), DatabaseRole.READER);
+                return null;
+            });
+        }));
+        assertNull(this.engine.getTenant());
+        assertEquals(this.engine.getRole(), DatabaseRole.WRITER);
+    }
+}
@@ -0,0 +1,82 @@
+package com.elihullc.rwsplitter.jpa.context;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class ThreadLocalContextEngineTest {
+
+    private final ThreadLocalContextEngine engine = new ThreadLocalContextEngine();
+
+    @Test
+    public void scopedBindingsNestAndUnbind() {
+        this.engine.withTenant("outer", () -> this.engine.withTenant("inner", () -> {
+            assertEquals(this.engine.getTenant(), "inner");
+            assertEquals(this.engine.getAllTenants(), List.of("outer", "inner"));
+            return this.engine.withRole(DatabaseRole.READER, () -> {
+                assertEquals(this.engine.getRole(), DatabaseRole.READER);
+                return null;
+            });
+        }));
+        assertNull(this.engine.getTenant());
+        assertEquals(this.engine.getRole(), DatabaseRole.WRITER);
+        assertTrue(this.engine.isUnbound());
+    }
+
+    @Test
+    public void imperativeTenantsUnbindWhenPopped() {
+        this.engine.pushTenant("a");
+        this.engine.pushTenant("b");
+        this.engine.popTenant();
+        assertFalse(this.engine.isUnbound());
+        this.engine.popTenant();
+        assertTrue(this.engine.isUnbound());
+        this.engine.popTenant();
+        assertTrue(this.engine.isUnbound());
+    }
+
+    @Test
+    public void clearingInsideScopeDoesNotRebind() {
+        this.engine.withTenant("a", () -> {
+            this.engine.clearTenants();
+            this.engine.pushTenant("b");
+            return null;
+        });
+        assertEquals(this.engine.getTenant(), "b");
+        this.engine.clearTenants();
+        assertTrue(this.engine.isUnbound());
+    }
+
+    @Test
+    public void settingRoleReplacesAndResetReturnsToWriter() {
+        for (int i = 0; i < 3; i++) {
+            this.engine.setRole(DatabaseRole.READER);
+        }
+        assertEquals(this.engine.getRole(), DatabaseRole.READER);
+        this.engine.resetRole();
+        assertEquals(this.engine.getRole(), DatabaseRole.WRITER);
+        assertTrue(this.engine.isUnbound());
+    }
+
+    @Test
+    public void settingRoleInsideScopeEndsWithScope() {
+        this.engine.setRole(DatabaseRole.READER);
+        this.engine.withRole(DatabaseRole.WRITER, () -> {
+            this.engine.setRole(DatabaseRole.READER);
+            assertEquals(this.engine.getRole(), DatabaseRole.READER);
+            this.engine.resetRole();
+            assertEquals(this.engine.getRole(), DatabaseRole.WRITER);
+            return null;
+        });
+        assertEquals(this.engine.getRole(), DatabaseRole.READER);
+        this.engine.resetRole();
+        assertTrue(this.engine.isUnbound());
+    }
+}
@@ -0,0 +1,157 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2ConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class AdaptivePoolSizerTest {
+
+    private final List<Connection> held = new ArrayList<>();
+
+    private SpringMultiTenantConnectionProvider<H2ConnectionProvider> provider;
+    private AdaptivePoolSizer sizer;
+    private StoppableConnectionProvider writer;
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        this.release();
+        this.sizer.close();
+        this.provider.close();
+    }
+
+    private void createPool(final int maximumPoolSize) {
+        this.provider = new SpringMultiTenantConnectionProvider<>(new SpringTenantIdentifierResolver()) {
+
+            @Override
+            protected H2ConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+                return new H2ConnectionProvider("pool-sizer-" + tenantIdentifier, false, 1, maximumPoolSize);
+            }
+
+            @Override
+            protected H2ConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+                return new H2ConnectionProvider("pool-sizer-" + tenantIdentifier, true, 1, maximumPoolSize);
+            }
+        };
+        // scheduled runs never happen during a test, resize() is driven by hand
+        this.sizer = new AdaptivePoolSizer(this.provider, Duration.ofHours(1));
+        this.writer = this.provider.getConnectionProvider("t1");
+    }
+
+    private void hold(final int connections) throws SQLException {
+        while (this.held.size() < connections) {
+            this.held.add(this.writer.getConnection());
+        }
+    }
+
+    private void release() throws SQLException {
+        for (Connection connection : this.held) {
+            this.writer.closeConnection(connection);
+        }
+        this.held.clear();
+    }
+
+    private int getMaximumPoolSize() {
+        return HikariPools.getConfigMXBean(this.writer).getMaximumPoolSize();
+    }
+
+    @Test
+    public void growsOnlyAfterConsecutiveRunsUnderPressure() throws SQLException {
+        this.createPool(4);
+        this.hold(4);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 4);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 5);
+    }
+
+    @Test
+    public void pressureIsResetByARunWithoutPressure() throws SQLException {
+        this.createPool(4);
+        this.hold(4);
+        this.sizer.resize();
+        this.release();
+        this.hold(3);
+        // 3 of 4 is between the shrink and grow thresholds
+        this.sizer.resize();
+        this.hold(4);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 4);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 5);
+    }
+
+    @Test
+    public void shrinksOnlyAfterConsecutiveIdleRuns() {
+        this.createPool(8);
+        this.sizer.setShrinkAfter(3);
+        this.sizer.resize();
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 8);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 6);
+    }
+
+    @Test
+    public void doesNotShrinkBelowWhatPeakDemandNeeds() throws SQLException {
+        this.createPool(8);
+        this.sizer.setShrinkAfter(2);
+        // a peak of 6 of 8 is between the shrink and grow thresholds and needs ceil(6 / 0.9) = 7 connections
+        this.hold(6);
+        this.sizer.resize();
+        this.release();
+        this.sizer.resize();
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 7);
+    }
+
+    @Test
+    public void doesNotShrinkBelowFloor() {
+        this.createPool(4);
+        this.sizer.setShrinkAfter(1);
+        this.sizer.setFloor(DatabaseRole.WRITER, 3);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 3);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 3);
+    }
+
+    @Test
+    public void clampsToCeiling() throws SQLException {
+        this.createPool(6);
+        this.sizer.setCeiling(DatabaseRole.WRITER, 4);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 4);
+        this.hold(4);
+        this.sizer.resize();
+        this.sizer.resize();
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 4);
+    }
+
+    @Test
+    public void doesNotGrowOnceBudgetIsExhausted() throws SQLException {
+        this.createPool(4);
+        this.sizer.setMaxTotalConnections(4);
+        this.hold(4);
+        this.sizer.resize();
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 4);
+        this.sizer.setMaxTotalConnections(5);
+        // the exhausted budget reset the pressure, which has to build up again
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 4);
+        this.sizer.resize();
+        assertEquals(this.getMaximumPoolSize(), 5);
+    }
+}
@@ -0,0 +1,73 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2ConnectionProvider;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ConnectionProviderDrainerTest {
+
+    @Test
+    public void drainsOnOneThread() throws Exception {
+        final int threadsBefore = countThreads("rwsplitter-drain");
+        final ConnectionProviderDrainer drainer = new ConnectionProviderDrainer(StoppableConnectionProvider::stop);
+        final List<H2ConnectionProvider> providers = new ArrayList<>();
+        final List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5; i++) {
+                final H2ConnectionProvider provider = new H2ConnectionProvider("drain-one-thread", false, 0, 2);
+                connections.add(provider.getConnection());
+                providers.add(provider);
+                drainer.drainAsync(List.of(provider), Duration.ofMinutes(1));
+            }
+            assertEquals(countThreads("rwsplitter-drain") - threadsBefore, 1);
+            assertEquals(drainer.getDrainingCount(), 5);
+            for (int i = 0; i < providers.size(); i++) {
+                providers.get(i).closeConnection(connections.get(i));
+            }
+            for (int i = 0; i < 50 && drainer.getDrainingCount() > 0; i++) {
+                Thread.sleep(20L);
+            }
+            assertEquals(drainer.getDrainingCount(), 0);
+            providers.forEach(provider -> assertTrue(isStopped(provider)));
+        } finally {
+            drainer.close();
+        }
+    }
+
+    @Test
+    public void closeStopsDrainingProviders() throws Exception {
+        final ConnectionProviderDrainer drainer = new ConnectionProviderDrainer(StoppableConnectionProvider::stop);
+        final H2ConnectionProvider draining = new H2ConnectionProvider("drain-close", false, 0, 2);
+        draining.getConnection();
+        drainer.drainAsync(List.of(draining), Duration.ofMinutes(1));
+        assertFalse(isStopped(draining));
+
+        drainer.close();
+
+        assertTrue(isStopped(draining));
+        final H2ConnectionProvider late = new H2ConnectionProvider("drain-close", false, 0, 2);
+        late.getConnection();
+        drainer.drainAsync(List.of(late), Duration.ofMinutes(1));
+        assertTrue(isStopped(late));
+    }
+
+    private static boolean isStopped(final StoppableConnectionProvider provider) {
+        return provider.unwrap(HikariDataSource.class).isClosed();
+    }
+
+    private static int countThreads(final String threadName) {
+        return (int)Thread.getAllStackTraces().keySet().stream()
+          .filter(thread -> thread.getName().equals(threadName) && thread.isAlive())
+          .count();
+    }
+}
@@ -0,0 +1,103 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2ConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2SharedPoolMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.TenantHostDirectory;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Set;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ConnectionProviderEvictorTest {
+
+    private SpringMultiTenantConnectionProvider<?> provider;
+    private ConnectionProviderEvictor evictor;
+
+    @AfterMethod
+    public void tearDown() {
+        this.evictor.close();
+        this.provider.close();
+    }
+
+    private void createSharedPool() {
+        final TenantHostDirectory directory = new TenantHostDirectory() {
+
+            @Override
+            public String getHost(final String tenantIdentifier) {
+                return "evictor-shared";
+            }
+
+            @Override
+            public String getSchema(final String tenantIdentifier) {
+                return "PUBLIC";
+            }
+        };
+        this.provider = new H2SharedPoolMultiTenantConnectionProvider(directory, 5);
+        this.evictor = new ConnectionProviderEvictor(this.provider, Duration.ofHours(1));
+    }
+
+    @Test
+    public void sharedPoolCountsOnceTowardsBudget() throws Exception {
+        this.createSharedPool();
+        for (String tenant : new String[] {"a", "b", "c"}) {
+            this.provider.getConnectionProvider(tenant);
+        }
+        this.evictor.setMaxTotalConnections(5);
+        this.evictor.evict();
+        assertEquals(this.provider.getTenantIdentifiers(), Set.of("a", "b", "c"));
+        // evicting tenants borrowing from the shared pool frees nothing, so none are evicted
+        this.evictor.setMaxTotalConnections(4);
+        this.evictor.evict();
+        assertEquals(this.provider.getTenantIdentifiers(), Set.of("a", "b", "c"));
+    }
+
+    @Test
+    public void sharedPoolTenantsAreNotDrained() throws Exception {
+        this.createSharedPool();
+        this.evictor.setDrainTimeout(Duration.ofSeconds(30));
+        this.provider.getConnectionProvider("a");
+        Thread.sleep(10L);
+        final Connection connection = this.provider.getConnection("b");
+        try {
+            this.evictor.setMaxTenants(1);
+            final long start = System.nanoTime();
+            this.evictor.evict();
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+            assertEquals(this.provider.getTenantIdentifiers(), Set.of("b"));
+            assertTrue(connection.isValid(1));
+        } finally {
+            this.provider.releaseConnection("b", connection);
+        }
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOwnedPoolsOverBudget() throws Exception {
+        this.provider = new SpringMultiTenantConnectionProvider<H2ConnectionProvider>(new SpringTenantIdentifierResolver()) {
+
+            @Override
+            protected H2ConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+                return new H2ConnectionProvider("evictor-" + tenantIdentifier, false, 1, 4);
+            }
+
+            @Override
+            protected H2ConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+                return new H2ConnectionProvider("evictor-" + tenantIdentifier, true, 1, 4);
+            }
+        };
+        this.evictor = new ConnectionProviderEvictor(this.provider, Duration.ofHours(1));
+        this.provider.getConnectionProvider("a");
+        Thread.sleep(10L);
+        this.provider.getConnectionProvider("b");
+        this.evictor.setMaxTotalConnections(4);
+        this.evictor.evict();
+        assertEquals(this.provider.getTenantIdentifiers(), Set.of("b"));
+        assertFalse(this.provider.getTenantIdentifiers().contains("a"));
+    }
+}
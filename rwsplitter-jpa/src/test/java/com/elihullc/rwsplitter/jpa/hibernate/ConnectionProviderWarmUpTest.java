@@ -0,0 +1,72 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2ConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ConnectionProviderWarmUpTest {
+
+    @Test
+    public void warmsUpEveryTenantAndRole() {
+        final StubMultiTenantConnectionProvider provider = new StubMultiTenantConnectionProvider(2);
+        final ConnectionProviderWarmUp warmUp = new ConnectionProviderWarmUp(provider, List.of("t1", "t2"));
+        warmUp.setBlockStartup(true);
+        warmUp.start();
+        assertTrue(warmUp.isReady());
+        assertEquals(provider.getCreated("t1").size(), 3);
+        assertEquals(provider.getCreated("t2").size(), 3);
+        for (StubConnectionProvider created : provider.getCreated("t1")) {
+            assertEquals(created.getOpenedConnections(), 1);
+            assertEquals(created.getOpenConnections(), 0);
+        }
+        provider.close();
+    }
+
+    @Test
+    public void isNotRunningOnceStopped() {
+        final StubMultiTenantConnectionProvider provider = new StubMultiTenantConnectionProvider(1);
+        final ConnectionProviderWarmUp warmUp = new ConnectionProviderWarmUp(provider, List.of("t1"));
+        warmUp.setDeadline(Duration.ofSeconds(5));
+        assertFalse(warmUp.isRunning());
+        warmUp.start();
+        assertTrue(warmUp.isRunning());
+        warmUp.stop();
+        assertFalse(warmUp.isRunning());
+        assertTrue(warmUp.isReady());
+        provider.close();
+    }
+
+    @Test
+    public void opensMinimumIdleConnections() throws Exception {
+        final SpringMultiTenantConnectionProvider<H2ConnectionProvider> provider =
+          new SpringMultiTenantConnectionProvider<>(new SpringTenantIdentifierResolver()) {
+
+              @Override
+              protected H2ConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+                  return new H2ConnectionProvider("warm-up-" + tenantIdentifier, false, 3, 5);
+              }
+
+              @Override
+              protected H2ConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+                  return new H2ConnectionProvider("warm-up-" + tenantIdentifier, true, 3, 5);
+              }
+          };
+        try {
+            provider.warmUp("t1", DatabaseRole.WRITER, true);
+            final StoppableConnectionProvider writer = provider.getConnectionProvider("t1");
+            assertTrue(HikariPools.getPoolMXBean(writer).getTotalConnections() >= 3);
+            assertEquals(HikariPools.getActiveConnections(writer), 0);
+        } finally {
+            provider.close();
+        }
+    }
+}
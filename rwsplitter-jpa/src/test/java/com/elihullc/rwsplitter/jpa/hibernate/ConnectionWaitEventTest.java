@@ -0,0 +1,68 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.jfr.ConnectionWaitEvent;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class ConnectionWaitEventTest {
+
+    private StubMultiTenantConnectionProvider provider;
+
+    @BeforeMethod
+    public void setUp() {
+        this.provider = new StubMultiTenantConnectionProvider(0);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    @Test
+    public void failedWaitIsRecorded() throws Exception {
+        final List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(ConnectionWaitEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            final Connection connection = this.provider.getConnection("connection-wait");
+            this.provider.releaseConnection("connection-wait", connection);
+            this.provider.getCreated("connection-wait").get(0).setFailure(
+              new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms."));
+            expectThrows(SQLException.class, () -> this.provider.getConnection("connection-wait"));
+            recording.stop();
+            final Path file = Files.createTempFile("connection-wait", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file).stream()
+                  .filter(e -> e.getEventType().getName().equals("com.elihullc.rwsplitter.ConnectionWait"))
+                  .filter(e -> "connection-wait".equals(e.getString("tenant")))
+                  .toList();
+            } finally {
+                Files.delete(file);
+            }
+        }
+        assertEquals(events.size(), 2);
+        assertFalse(events.get(0).getBoolean("failed"));
+        assertTrue(events.get(1).getBoolean("failed"));
+        assertEquals(events.get(1).getString("role"), "WRITER");
+    }
+}
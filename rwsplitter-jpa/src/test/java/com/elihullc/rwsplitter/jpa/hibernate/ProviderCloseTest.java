@@ -0,0 +1,59 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ConsistencyMode;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderHealthMonitor;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ProviderCloseTest {
+
+    @Test
+    public void closeStopsMonitorThreads() throws Exception {
+        final StubMultiTenantConnectionProvider provider = new StubMultiTenantConnectionProvider(1);
+        provider.setConsistencyMode(ConsistencyMode.READ_YOUR_WRITES);
+        provider.setReaderHealthMonitor(new ReaderHealthMonitor());
+        provider.setWriterFailoverDetector(new WriterFailoverDetector(provider));
+        provider.getConnectionProvider("t1");
+        assertTrue(isAlive("rwsplitter-replication-lag"));
+        assertTrue(isAlive("rwsplitter-reader-health"));
+
+        provider.close();
+
+        assertTrue(awaitStopped("rwsplitter-replication-lag"));
+        assertTrue(awaitStopped("rwsplitter-reader-health"));
+        assertTrue(awaitStopped("rwsplitter-writer-failover"));
+        assertTrue(provider.getCreated("t1").get(0).isStopped());
+    }
+
+    static boolean awaitStopped(final String threadName) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (!isAlive(threadName)) {
+                return true;
+            }
+            Thread.sleep(20L);
+        }
+        return false;
+    }
+
+    static boolean isAlive(final String threadName) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals(threadName) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void replacingCreatedLagMonitorClosesIt() throws Exception {
+        final StubMultiTenantConnectionProvider provider = new StubMultiTenantConnectionProvider(1);
+        provider.setConsistencyMode(ConsistencyMode.READ_YOUR_WRITES);
+        provider.setReplicationLagMonitor(null);
+        assertTrue(awaitStopped("rwsplitter-replication-lag"));
+        assertFalse(isAlive("rwsplitter-replication-lag"));
+        provider.close();
+    }
+}
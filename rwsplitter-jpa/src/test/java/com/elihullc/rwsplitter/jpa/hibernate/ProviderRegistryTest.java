@@ -0,0 +1,100 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.HibernateException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class ProviderRegistryTest {
+
+    @Test
+    public void valueCreatedAfterClearIsHandedToDetachedValueHandler() throws Exception {
+        final ProviderRegistry<Object> registry = new ProviderRegistry<>();
+        final List<Object> detached = Collections.synchronizedList(new ArrayList<>());
+        registry.setDetachedValueHandler(detached::add);
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Object value = new Object();
+        final Thread creator = new Thread(() -> registry.get("tenant", key -> {
+            creating.countDown();
+            await(release);
+            return value;
+        }));
+        creator.start();
+        creating.await();
+
+        assertTrue(registry.clear().isEmpty());
+        release.countDown();
+        creator.join();
+
+        assertEquals(detached, List.of(value));
+        assertNull(registry.getIfPresent("tenant"));
+    }
+
+    @Test
+    public void valueIsReleasedOnceWhenClearRacesCreation() throws Exception {
+        final ProviderRegistry<Object> registry = new ProviderRegistry<>();
+        final AtomicInteger released = new AtomicInteger();
+        registry.setDetachedValueHandler(value -> released.incrementAndGet());
+        for (int i = 0; i < 2_000; i++) {
+            released.set(0);
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final Thread creator = new Thread(() -> registry.get("tenant", key -> {
+                await(barrier);
+                return new Object();
+            }));
+            creator.start();
+            await(barrier);
+            released.addAndGet(registry.clear().size());
+            creator.join();
+            released.addAndGet(registry.clear().size());
+
+            assertEquals(released.get(), 1, "iteration " + i);
+        }
+    }
+
+    @Test
+    public void failedCreationIsDroppedOnceItsBackoffHasPassed() throws InterruptedException {
+        final ProviderRegistry<Object> registry = new ProviderRegistry<>();
+        registry.setBackoffMillis(50L, 50L);
+
+        expectThrows(HibernateException.class, () -> registry.get("deleted", key -> {
+            throw new HibernateException("no such tenant");
+        }));
+        assertEquals(registry.getSlotCount(), 1);
+        Thread.sleep(100L);
+        expectThrows(HibernateException.class, () -> registry.get("other", key -> {
+            throw new HibernateException("unavailable");
+        }));
+
+        assertEquals(registry.getSlotCount(), 1);
+        final HibernateException e = expectThrows(HibernateException.class, () -> registry.get("other", key -> new Object()));
+        assertTrue(e.getMessage().contains("retrying after backoff"), e.getMessage());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(final CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
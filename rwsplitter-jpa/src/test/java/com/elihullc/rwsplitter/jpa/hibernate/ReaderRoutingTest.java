@@ -0,0 +1,167 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderFailoverPolicy;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ConsistencyMode;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderHealthMonitor;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReplicationLagMonitor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class ReaderRoutingTest {
+
+    private StubMultiTenantConnectionProvider provider;
+
+    @BeforeMethod
+    public void setUp() {
+        this.provider = new StubMultiTenantConnectionProvider(2);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    @Test
+    public void writerByDefault() throws Exception {
+        assertSame(this.provider.getConnectionProvider("t1"), this.provider.getCreated("t1").get(0));
+    }
+
+    @Test
+    public void readersRoundRobin() throws Exception {
+        final Set<StoppableConnectionProvider> selected = new HashSet<>();
+        ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> {
+            for (int i = 0; i < 4; i++) {
+                final StoppableConnectionProvider reader = this.provider.getConnectionProvider("t1");
+                assertEquals(reader.isReadOnly(), true);
+                selected.add(reader);
+            }
+            return null;
+        });
+        assertEquals(selected.size(), 2);
+    }
+
+    @Test
+    public void tenantWithoutReadersUsesWriter() throws Exception {
+        this.provider.setReaders(0);
+        final Connection connection = ContextEngines.getEngine().withRole(DatabaseRole.READER,
+          () -> this.provider.getConnection("t1"));
+        assertFalse(connection.isReadOnly());
+        this.provider.releaseConnection("t1", connection);
+        assertEquals(this.provider.getCreated("t1").size(), 1);
+        assertEquals(this.provider.getCreated("t1").get(0).getOpenConnections(), 0);
+        assertSame(this.provider.getOrCreateReaderConnectionProvider("t1"), this.provider.getCreated("t1").get(0));
+    }
+
+    @Test
+    public void tenantWithoutReadersUsesWriterWithReadersOnlyPolicy() throws Exception {
+        this.provider.setReaders(0);
+        this.provider.setReaderFailoverPolicy(ReaderFailoverPolicy.READERS_ONLY);
+        final StoppableConnectionProvider selected = ContextEngines.getEngine().withRole(DatabaseRole.READER,
+          () -> this.provider.getConnectionProvider("t1"));
+        assertFalse(selected.isReadOnly());
+    }
+
+    @Test
+    public void releaseWithReadersOnlyPolicyAfterBreakersOpened() throws Exception {
+        final ReaderHealthMonitor healthMonitor = new ReaderHealthMonitor(3_600_000L);
+        this.provider.setReaderHealthMonitor(healthMonitor);
+        this.provider.setReaderFailoverPolicy(ReaderFailoverPolicy.READERS_ONLY);
+        ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> {
+            final Connection connection = this.provider.getConnection("t1");
+            for (StubConnectionProvider reader : this.provider.getCreated("t1")) {
+                for (int i = 0; i < healthMonitor.getFailureThreshold(); i++) {
+                    healthMonitor.recordFailure(reader);
+                }
+            }
+            expectThrows(RuntimeException.class, () -> this.provider.getConnectionProvider("t1"));
+            this.provider.releaseConnection("t1", connection);
+            assertTrue(connection.isClosed());
+            return null;
+        });
+        for (StubConnectionProvider created : this.provider.getCreated("t1")) {
+            assertEquals(created.getOpenConnections(), 0);
+        }
+    }
+
+    @Test
+    public void exhaustedReaderPoolDoesNotOpenBreaker() throws Exception {
+        final ReaderHealthMonitor healthMonitor = new ReaderHealthMonitor(3_600_000L);
+        healthMonitor.setFailureThreshold(1);
+        this.provider.setReaderHealthMonitor(healthMonitor);
+        this.provider.setReaders(1);
+        ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> {
+            final StubConnectionProvider reader = (StubConnectionProvider)this.provider.getConnectionProvider("t1");
+            reader.setFailure(new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms."));
+            expectThrows(SQLException.class, () -> this.provider.getConnection("t1"));
+            assertTrue(healthMonitor.isAvailable(reader));
+            reader.setFailure(new SQLException("Connection refused"));
+            expectThrows(SQLException.class, () -> this.provider.getConnection("t1"));
+            assertFalse(healthMonitor.isAvailable(reader));
+            return null;
+        });
+    }
+
+    @Test
+    public void replacedLagMonitorStopsSamplingReaders() throws Exception {
+        final AtomicInteger samples = new AtomicInteger();
+        final SamplingMonitor first = new SamplingMonitor(samples);
+        this.provider.setReplicationLagMonitor(first);
+        ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> this.provider.getConnectionProvider("t1"));
+        first.sampleNow();
+        assertEquals(samples.get(), 2);
+
+        final SamplingMonitor second = new SamplingMonitor(samples);
+        this.provider.setReplicationLagMonitor(second);
+        first.sampleNow();
+        assertEquals(samples.get(), 2);
+        second.sampleNow();
+        assertEquals(samples.get(), 4);
+
+        this.provider.setReplicationLagMonitor(null);
+        second.sampleNow();
+        assertEquals(samples.get(), 4);
+        assertNull(this.provider.getReplicationLagMonitor());
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void createdLagMonitorClosedWhenBackToEventual() {
+        this.provider.setConsistencyMode(ConsistencyMode.READ_YOUR_WRITES);
+        assertTrue(this.provider.getReplicationLagMonitor() != null);
+        this.provider.setConsistencyMode(ConsistencyMode.EVENTUAL);
+        assertNull(this.provider.getReplicationLagMonitor());
+    }
+
+    private static final class SamplingMonitor extends ReplicationLagMonitor {
+
+        private SamplingMonitor(final AtomicInteger samples) {
+            super(connection -> {
+                samples.incrementAndGet();
+                return 0L;
+            }, 3_600_000L);
+        }
+
+        private void sampleNow() {
+            this.sample();
+        }
+    }
+}
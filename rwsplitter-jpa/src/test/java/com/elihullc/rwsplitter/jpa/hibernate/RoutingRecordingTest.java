@@ -0,0 +1,65 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.metrics.RoutingMetrics;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.RoutingReason;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class RoutingRecordingTest {
+
+    private final List<String> routed = new ArrayList<>();
+    private StubMultiTenantConnectionProvider provider;
+
+    @BeforeMethod
+    public void setUp() {
+        this.routed.clear();
+        this.provider = new StubMultiTenantConnectionProvider(1);
+        this.provider.setRoutingMetrics(new RoutingMetrics() {
+            @Override
+            public void routed(final String tenantIdentifier, final DatabaseRole role, final RoutingReason reason) {
+                RoutingRecordingTest.this.routed.add(tenantIdentifier + ":" + role + ":" + reason);
+            }
+        });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    @Test
+    public void checkoutAndReleaseRecordOneDecision() throws Exception {
+        final Connection connection = this.provider.getConnection("t1");
+        this.provider.releaseConnection("t1", connection);
+        assertEquals(this.routed, List.of("t1:WRITER:DEFAULT"));
+    }
+
+    @Test
+    public void lookingUpProviderRecordsNothing() {
+        this.provider.getConnectionProvider("t1");
+        assertTrue(this.routed.isEmpty());
+    }
+
+    @Test
+    public void releaseUnderOtherRoleDoesNotCreateProviders() throws Exception {
+        final Connection connection = this.provider.getConnection("t1");
+        ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> {
+            this.provider.releaseConnection("t1", connection);
+            return null;
+        });
+        assertEquals(this.provider.getCreated("t1").size(), 1);
+        assertEquals(this.provider.getCreated("t1").get(0).getOpenConnections(), 0);
+        assertEquals(this.routed.size(), 1);
+    }
+}
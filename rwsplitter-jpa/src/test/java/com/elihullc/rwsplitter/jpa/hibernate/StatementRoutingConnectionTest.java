@@ -0,0 +1,91 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.routing.StatementClassifier;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class StatementRoutingConnectionTest {
+
+    private static Connection connection(final AtomicBoolean closed, final SQLException closeFailure) {
+        return connection(closed, closeFailure, new AtomicInteger());
+    }
+
+    private static Connection connection(final AtomicBoolean closed, final SQLException closeFailure, final AtomicInteger prepared) {
+        return (Connection)Proxy.newProxyInstance(StatementRoutingConnectionTest.class.getClassLoader(),
+          new Class<?>[] { Connection.class }, (proxy, method, args) -> switch (method.getName()) {
+              case "getAutoCommit" -> true;
+              case "prepareStatement" -> {
+                  prepared.incrementAndGet();
+                  yield null;
+              }
+              case "close" -> {
+                  closed.set(true);
+                  if (closeFailure != null) {
+                      throw closeFailure;
+                  }
+                  yield null;
+              }
+              default -> null;
+          });
+    }
+
+    @Test
+    public void writerClosedWhenClosingReaderFails() throws Exception {
+        final AtomicBoolean writerClosed = new AtomicBoolean();
+        final AtomicBoolean readerClosed = new AtomicBoolean();
+        final SQLException readerFailure = new SQLException("reader");
+        final Connection connection = StatementRoutingConnection.wrap(connection(writerClosed, null), new StatementClassifier(),
+          () -> connection(readerClosed, readerFailure));
+        connection.prepareStatement("SELECT 1");
+
+        final SQLException e = expectThrows(SQLException.class, connection::close);
+
+        assertSame(e, readerFailure);
+        assertTrue(readerClosed.get());
+        assertTrue(writerClosed.get());
+    }
+
+    @Test
+    public void readerFailureSuppressedByWriterFailure() throws Exception {
+        final SQLException readerFailure = new SQLException("reader");
+        final SQLException writerFailure = new SQLException("writer");
+        final Connection connection = StatementRoutingConnection.wrap(connection(new AtomicBoolean(), writerFailure),
+          new StatementClassifier(), () -> connection(new AtomicBoolean(), readerFailure));
+        connection.prepareStatement("SELECT 1");
+
+        final SQLException e = expectThrows(SQLException.class, connection::close);
+
+        assertSame(e, writerFailure);
+        assertEquals(e.getSuppressed().length, 1);
+        assertSame(e.getSuppressed()[0], readerFailure);
+    }
+
+    @Test
+    public void readsStayOnWriterWhenReaderCannotBeAcquired() throws Exception {
+        final AtomicInteger writerPrepared = new AtomicInteger();
+        final AtomicInteger attempts = new AtomicInteger();
+        final Connection connection = StatementRoutingConnection.wrap(connection(new AtomicBoolean(), null, writerPrepared),
+          new StatementClassifier(), () -> {
+              attempts.incrementAndGet();
+              throw new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms.");
+          });
+
+        connection.prepareStatement("SELECT 1");
+        connection.prepareStatement("SELECT 2");
+
+        assertEquals(writerPrepared.get(), 2);
+        assertEquals(attempts.get(), 1);
+    }
+}
@@ -0,0 +1,143 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link StoppableConnectionProvider} handing out connection proxies that only track whether they are open, for tests that exercise
+ * routing without a database
+ */
+public class StubConnectionProvider implements StoppableConnectionProvider {
+
+    private final String name;
+    private final boolean readOnly;
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger open = new AtomicInteger();
+
+    private volatile boolean stopped;
+    private volatile SQLException failure;
+    private volatile String zone;
+    private volatile int weight = 1;
+
+    public StubConnectionProvider(final String name, final boolean readOnly) {
+        this.name = name;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+        this.opened.incrementAndGet();
+        this.open.incrementAndGet();
+        final boolean[] closed = new boolean[1];
+        return (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+          (proxy, method, args) -> {
+              switch (method.getName()) {
+                  case "close":
+                      if (!closed[0]) {
+                          closed[0] = true;
+                          this.open.decrementAndGet();
+                      }
+                      return null;
+                  case "isClosed":
+                      return closed[0];
+                  case "isReadOnly":
+                      return this.readOnly;
+                  case "isValid":
+                      return !closed[0];
+                  case "getAutoCommit":
+                      return true;
+                  case "toString":
+                      return this.name + " connection";
+                  case "hashCode":
+                      return System.identityHashCode(proxy);
+                  case "equals":
+                      return proxy == args[0];
+                  default:
+                      return method.getReturnType() == boolean.class ? Boolean.FALSE
+                        : method.getReturnType() == int.class ? 0 : null;
+              }
+          });
+    }
+
+    @Override
+    public void closeConnection(final Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+
+    @Override
+    public int getWeight() {
+        return this.weight;
+    }
+
+    public void setWeight(final int weight) {
+        this.weight = weight;
+    }
+
+    @Override
+    public String getZone() {
+        return this.zone;
+    }
+
+    public void setZone(final String zone) {
+        this.zone = zone;
+    }
+
+    @Override
+    public void stop() {
+        this.stopped = true;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(final Class<?> unwrapType) {
+        return unwrapType.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> unwrapType) {
+        return unwrapType.isInstance(this) ? unwrapType.cast(this) : null;
+    }
+
+    /**
+     * Makes every subsequent {@link #getConnection()} fail with the given exception
+     * @param failure the exception or null to succeed again
+     */
+    public void setFailure(final SQLException failure) {
+        this.failure = failure;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getOpenedConnections() {
+        return this.opened.get();
+    }
+
+    public int getOpenConnections() {
+        return this.open.get();
+    }
+
+    public boolean isStopped() {
+        return this.stopped;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -0,0 +1,72 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link SpringMultiTenantConnectionProvider} creating a {@link StubConnectionProvider} writer and a configurable number of
+ * {@link StubConnectionProvider} readers per tenant, keeping every provider created
+ */
+public class StubMultiTenantConnectionProvider extends SpringMultiTenantConnectionProvider<StubConnectionProvider> {
+
+    private final List<StubConnectionProvider> created = new CopyOnWriteArrayList<>();
+
+    private volatile int readers;
+
+    public StubMultiTenantConnectionProvider(final int readers) {
+        super(new SpringTenantIdentifierResolver());
+        this.readers = readers;
+    }
+
+    @Override
+    protected StubConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+        final StubConnectionProvider writer = new StubConnectionProvider(tenantIdentifier + "-writer", false);
+        this.created.add(writer);
+        return writer;
+    }
+
+    @Override
+    protected StubConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+        return this.createReaderConnectionProviders(tenantIdentifier).get(0);
+    }
+
+    @Override
+    protected List<StubConnectionProvider> createReaderConnectionProviders(final String tenantIdentifier) {
+        final List<StubConnectionProvider> list = new ArrayList<>();
+        for (int i = 0; i < this.readers; i++) {
+            final StubConnectionProvider reader = new StubConnectionProvider(tenantIdentifier + "-reader" + i, true);
+            this.created.add(reader);
+            list.add(reader);
+        }
+        return list;
+    }
+
+    public void setReaders(final int readers) {
+        this.readers = readers;
+    }
+
+    /**
+     * Returns the connection providers created for the given tenant, in creation order
+     * @param tenantIdentifier the tenant identifier
+     * @return the connection providers created for the tenant
+     */
+    public List<StubConnectionProvider> getCreated(final String tenantIdentifier) {
+        final List<StubConnectionProvider> list = new ArrayList<>();
+        for (StubConnectionProvider provider : this.created) {
+            if (provider.getName().startsWith(tenantIdentifier + "-")) {
+                list.add(provider);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns the live connection providers of the given tenant
+     * @param tenantIdentifier the tenant identifier
+     * @return the live writer and reader connection providers of the tenant
+     */
+    public List<StubConnectionProvider> getLive(final String tenantIdentifier) {
+        return this.getConnectionProviders(tenantIdentifier);
+    }
+}
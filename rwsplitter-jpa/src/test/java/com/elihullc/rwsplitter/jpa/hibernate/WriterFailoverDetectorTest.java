@@ -0,0 +1,164 @@
+package com.elihullc.rwsplitter.jpa.hibernate;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.DemotableConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.DemotableDriver;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.SchemaSwitchingConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.SharedPoolMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.TenantHostDirectory;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.WriterRoleProbe;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class WriterFailoverDetectorTest {
+
+    private SpringMultiTenantConnectionProvider<?> provider;
+    private WriterFailoverDetector detector;
+
+    @AfterMethod
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    private void createDedicatedPools(final long checkIntervalMillis) {
+        this.provider = new SpringMultiTenantConnectionProvider<DemotableConnectionProvider>(new SpringTenantIdentifierResolver()) {
+
+            @Override
+            protected DemotableConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+                return new DemotableConnectionProvider(tenantIdentifier, false, 1, 1);
+            }
+
+            @Override
+            protected DemotableConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+                return new DemotableConnectionProvider(tenantIdentifier, true, 1, 1);
+            }
+        };
+        this.setDetector(checkIntervalMillis);
+    }
+
+    private void createSharedPool(final String host) {
+        final TenantHostDirectory directory = new TenantHostDirectory() {
+
+            @Override
+            public String getHost(final String tenantIdentifier) {
+                return host;
+            }
+
+            @Override
+            public String getSchema(final String tenantIdentifier) {
+                return "PUBLIC";
+            }
+        };
+        final SharedPoolMultiTenantConnectionProvider<DemotableConnectionProvider> shared =
+          new SharedPoolMultiTenantConnectionProvider<>(new SpringTenantIdentifierResolver(), directory) {
+
+              @Override
+              protected DemotableConnectionProvider createMasterHostConnectionProvider(final String host) {
+                  return new DemotableConnectionProvider(host, false, 1, 1);
+              }
+
+              @Override
+              protected DemotableConnectionProvider createReaderHostConnectionProvider(final String host) {
+                  return new DemotableConnectionProvider(host, true, 1, 1);
+              }
+          };
+        shared.setUseCatalog(false);
+        this.provider = shared;
+        this.setDetector(3_600_000L);
+    }
+
+    private void setDetector(final long checkIntervalMillis) {
+        this.detector = new WriterFailoverDetector(this.provider, WriterRoleProbe.INNODB_READ_ONLY, checkIntervalMillis);
+        this.detector.setMinCheckInterval(Duration.ZERO);
+        this.provider.setWriterFailoverDetector(this.detector);
+    }
+
+    private void execute(final String tenantIdentifier, final String sql) throws SQLException {
+        final Connection connection = this.provider.getConnection(tenantIdentifier);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } finally {
+            this.provider.releaseConnection(tenantIdentifier, connection);
+        }
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 250 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(20L);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    public void demotedWriterIsRebuiltAfterReadOnlyError() throws Exception {
+        this.createDedicatedPools(3_600_000L);
+        this.execute("demote-error", "CREATE TABLE item (id INT)");
+        final StoppableConnectionProvider demoted = this.provider.getConnectionProvider("demote-error");
+
+        DemotableDriver.demote("demote-error");
+        final SQLException e = expectThrows(SQLException.class, () -> this.execute("demote-error", "INSERT INTO item VALUES (1)"));
+        assertEquals(e.getErrorCode(), WriterFailoverDetector.ER_OPTION_PREVENTS_STATEMENT);
+
+        await(() -> this.provider.getConnectionProvider("demote-error") != demoted);
+        this.execute("demote-error", "INSERT INTO item VALUES (2)");
+        await(() -> demoted.unwrap(HikariDataSource.class).isClosed());
+    }
+
+    @Test
+    public void demotedWriterIsRebuiltWithoutWrites() throws Exception {
+        this.createDedicatedPools(50L);
+        this.execute("demote-idle", "CREATE TABLE item (id INT)");
+        final StoppableConnectionProvider demoted = this.provider.getConnectionProvider("demote-idle");
+
+        DemotableDriver.demote("demote-idle");
+
+        await(() -> this.provider.getConnectionProvider("demote-idle") != demoted);
+        this.execute("demote-idle", "INSERT INTO item VALUES (1)");
+    }
+
+    @Test
+    public void demotedSharedPoolIsRebuiltForAllTenants() throws Exception {
+        this.createSharedPool("demote-shared");
+        this.execute("a", "CREATE TABLE item (id INT)");
+        final SchemaSwitchingConnectionProvider a = (SchemaSwitchingConnectionProvider)this.provider.getConnectionProvider("a");
+        final SchemaSwitchingConnectionProvider b = (SchemaSwitchingConnectionProvider)this.provider.getConnectionProvider("b");
+        final StoppableConnectionProvider demoted = a.getSharedProvider();
+        assertTrue(b.getSharedProvider() == demoted);
+
+        DemotableDriver.demote("demote-shared");
+        expectThrows(SQLException.class, () -> this.execute("a", "INSERT INTO item VALUES (1)"));
+
+        await(() -> demoted.unwrap(HikariDataSource.class).isClosed());
+        final SchemaSwitchingConnectionProvider rebuilt = (SchemaSwitchingConnectionProvider)this.provider.getConnectionProvider("b");
+        assertNotSame(rebuilt, b);
+        assertNotSame(rebuilt.getSharedProvider(), demoted);
+        this.execute("b", "INSERT INTO item VALUES (2)");
+    }
+
+    @Test
+    public void removedTenantsAreForgotten() throws Exception {
+        this.createDedicatedPools(3_600_000L);
+        this.execute("forgotten", "SELECT 1");
+        this.detector.requestCheck("forgotten");
+        await(() -> this.detector.getCheckedTenants().contains("forgotten"));
+
+        for (StoppableConnectionProvider removed : this.provider.removeConnectionProviders("forgotten")) {
+            removed.stop();
+        }
+        this.detector.checkAll();
+        assertEquals(this.detector.getCheckedTenants(), Set.of());
+    }
+}
@@ -0,0 +1,141 @@
+package com.elihullc.rwsplitter.jpa.hibernate.cache;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.ConnectionProviderEvictor;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class QueryResultCacheTest {
+
+    private SpringMultiTenantConnectionProvider<H2ConnectionProvider> provider;
+    private QueryResultCache cache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        this.provider = new SpringMultiTenantConnectionProvider<>(new SpringTenantIdentifierResolver()) {
+
+            @Override
+            protected H2ConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+                return new H2ConnectionProvider(tenantIdentifier, false, 1, 2);
+            }
+
+            @Override
+            protected H2ConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+                return new H2ConnectionProvider(tenantIdentifier, true, 1, 2);
+            }
+        };
+        this.cache = new QueryResultCache();
+        this.cache.setWriteQuietPeriod(Duration.ZERO);
+        this.provider.setQueryResultCache(this.cache);
+        final Connection connection = this.provider.getConnection("cache-a");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS settings (name VARCHAR(32), setting_value VARCHAR(32))");
+            statement.execute("CREATE TABLE IF NOT EXISTS item (id INT)");
+            statement.execute("DELETE FROM settings");
+            statement.execute("INSERT INTO settings VALUES ('theme', 'dark')");
+            connection.commit();
+        } finally {
+            this.provider.releaseConnection("cache-a", connection);
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    private void query(final String sql) throws SQLException {
+        ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> {
+            final Connection connection = this.provider.getConnection("cache-a");
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rs.getObject(1);
+                }
+            } finally {
+                this.provider.releaseConnection("cache-a", connection);
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void onlyAllowedTablesAreCached() throws Exception {
+        this.query("SELECT setting_value FROM settings");
+        this.query("SELECT setting_value FROM settings");
+        assertEquals(this.cache.getHitCount(), 0L);
+        assertEquals(this.cache.getEntryCount(), 0);
+
+        this.cache.setTables(List.of("SETTINGS"));
+        this.query("SELECT setting_value FROM settings");
+        this.query("SELECT setting_value FROM settings");
+        assertEquals(this.cache.getHitCount(), 1L);
+        this.query("SELECT s.setting_value FROM settings s JOIN item i ON i.id = 1");
+        this.query("SELECT s.setting_value FROM settings s JOIN item i ON i.id = 1");
+        assertEquals(this.cache.getHitCount(), 1L);
+    }
+
+    @Test
+    public void evictedTenantIsDropped() throws Exception {
+        this.cache.setTables(List.of("settings"));
+        this.query("SELECT setting_value FROM settings");
+        assertTrue(this.cache.getSize("cache-a") > 0L);
+        assertEquals(this.cache.getTenantCount(), 1);
+
+        final ConnectionProviderEvictor evictor = new ConnectionProviderEvictor(this.provider, Duration.ofHours(1));
+        try {
+            evictor.setIdleTimeout(Duration.ZERO);
+            evictor.evict();
+        } finally {
+            evictor.close();
+        }
+
+        assertEquals(this.cache.getTenantCount(), 0);
+        assertEquals(this.cache.getSize(), 0L);
+    }
+
+    @Test
+    public void removedTenantIsCachedAgain() throws Exception {
+        this.cache.setTables(List.of("settings"));
+        this.query("SELECT setting_value FROM settings");
+        this.cache.remove("cache-a");
+        assertEquals(this.cache.getTenantCount(), 0);
+        assertEquals(this.cache.getEntryCount(), 0);
+        this.query("SELECT setting_value FROM settings");
+        this.query("SELECT setting_value FROM settings");
+        assertEquals(this.cache.getEntryCount(), 1);
+        assertEquals(this.cache.getHitCount(), 1L);
+    }
+
+    @Test
+    public void writeInvalidates() throws Exception {
+        this.cache.setTables(List.of("settings"));
+        this.query("SELECT setting_value FROM settings");
+        assertEquals(this.cache.getEntryCount(), 1);
+        final Connection connection = this.provider.getConnection("cache-a");
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE settings SET setting_value = 'light'");
+            connection.commit();
+        } finally {
+            this.provider.releaseConnection("cache-a", connection);
+        }
+        assertEquals(this.cache.getEntryCount(), 0);
+    }
+}
@@ -0,0 +1,32 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import com.zaxxer.hikari.hibernate.HikariConfigurationUtil;
+
+import java.io.Serial;
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+
+/**
+ * {@link H2ConnectionProvider} connecting through the {@link DemotableDriver} so that tests can demote its database
+ */
+public class DemotableConnectionProvider extends H2ConnectionProvider {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public DemotableConnectionProvider(final String database, final boolean readOnly, final int minimumPoolSize,
+      final int maximumPoolSize) {
+        super(database, readOnly, minimumPoolSize, maximumPoolSize);
+    }
+
+    @Override
+    protected Map<String, Object> getDataSourceProperties(final String tenantIdentifier) {
+        final Map<String, Object> props = super.getDataSourceProperties(tenantIdentifier);
+        final String pre = HikariConfigurationUtil.CONFIG_PREFIX;
+        props.keySet().removeIf(key -> key.equals(pre + "dataSourceClassName") || key.startsWith(pre + "dataSource."));
+        props.put(AvailableSettings.DRIVER, DemotableDriver.class.getName());
+        props.put(AvailableSettings.URL, DemotableDriver.URL_PREFIX + tenantIdentifier);
+        return props;
+    }
+}
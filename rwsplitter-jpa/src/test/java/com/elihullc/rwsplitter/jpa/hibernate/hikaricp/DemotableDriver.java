@@ -0,0 +1,146 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * JDBC {@link Driver} for URLs {@code jdbc:demotable:<database>} backed by an in-memory H2 database, simulating the old writer of an
+ * Aurora cluster after a failover.  Connections opened before {@link #demote(String)} behave like connections to the demoted
+ * instance: writes fail with MySQL error 1290 and {@code SELECT @@innodb_read_only} returns true.  Connections opened afterwards
+ * reach the new writer.
+ */
+public class DemotableDriver implements Driver {
+
+    /**
+     * URL prefix accepted by this driver
+     */
+    public static final String URL_PREFIX = "jdbc:demotable:";
+
+    private static final ConcurrentHashMap<String, Integer> FAILOVERS = new ConcurrentHashMap<>();
+
+    /**
+     * Demotes the instances every connection to the given database opened so far points to
+     * @param database the database
+     */
+    public static void demote(final String database) {
+        FAILOVERS.merge(database, 1, Integer::sum);
+    }
+
+    @Override
+    public Connection connect(final String url, final Properties info) throws SQLException {
+        if (!this.acceptsURL(url)) {
+            return null;
+        }
+        final String database = url.substring(URL_PREFIX.length());
+        final Connection connection = new org.h2.Driver().connect("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", info);
+        return (Connection)proxy(Connection.class, new Instance(database, FAILOVERS.getOrDefault(database, 0)), connection, null);
+    }
+
+    private static Object proxy(final Class<?> type, final Instance instance, final Object delegate, final String sql) {
+        return Proxy.newProxyInstance(DemotableDriver.class.getClassLoader(), new Class<?>[] { type },
+          new Handler(instance, delegate, sql));
+    }
+
+    @Override
+    public boolean acceptsURL(final String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(final String url, final Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * Database instance a connection was opened against
+     */
+    private record Instance(String database, int failovers) {
+
+        boolean isDemoted() {
+            return FAILOVERS.getOrDefault(this.database, 0) > this.failovers;
+        }
+    }
+
+    /**
+     * Handler of connections and of the statements they create, rejecting writes and answering the read-only probe once demoted
+     */
+    private record Handler(Instance instance, Object delegate, String sql) implements InvocationHandler {
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object[] arguments = args;
+            String statementSql = this.sql;
+            if (args != null && args.length > 0 && args[0] instanceof String text
+              && (method.getName().startsWith("execute") || method.getName().startsWith("prepare"))) {
+                statementSql = text;
+                if (text.contains("@@innodb_read_only")) {
+                    arguments = args.clone();
+                    arguments[0] = "SELECT " + this.instance.isDemoted();
+                }
+            }
+            if (method.getName().startsWith("execute") && this.instance.isDemoted() && isWrite(statementSql)) {
+                throw new SQLException("The MySQL server is running with the --read-only option so it cannot execute this statement",
+                  "HY000", 1290);
+            }
+            final Object result;
+            try {
+                result = method.invoke(this.delegate, arguments);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy(method.getReturnType(), this.instance, result, statementSql);
+            }
+            return result;
+        }
+
+        private static boolean isWrite(final String sql) {
+            if (sql == null) {
+                return false;
+            }
+            final String verb = sql.stripLeading().toUpperCase(Locale.ROOT);
+            return verb.startsWith("INSERT") || verb.startsWith("UPDATE") || verb.startsWith("DELETE") || verb.startsWith("MERGE")
+              || verb.startsWith("CREATE") || verb.startsWith("ALTER") || verb.startsWith("DROP");
+        }
+    }
+}
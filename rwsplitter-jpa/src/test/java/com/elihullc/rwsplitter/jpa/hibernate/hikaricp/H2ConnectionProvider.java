@@ -0,0 +1,60 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import java.io.Serial;
+
+/**
+ * {@link HikariCPDataSourceConnectionProvider} backed by a named in-memory H2 database, standing in for MySQL in tests
+ */
+public class H2ConnectionProvider extends HikariCPDataSourceConnectionProvider {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String database;
+    private final boolean readOnly;
+    private final int minimumPoolSize;
+    private final int maximumPoolSize;
+
+    public H2ConnectionProvider(final String database, final boolean readOnly, final int minimumPoolSize, final int maximumPoolSize) {
+        this.database = database;
+        this.readOnly = readOnly;
+        this.minimumPoolSize = minimumPoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.initialize(database);
+    }
+
+    @Override
+    protected String getDatabasePassword() {
+        return "";
+    }
+
+    @Override
+    protected String getDatabaseUser() {
+        return "sa";
+    }
+
+    @Override
+    protected String getDatabaseURL() {
+        return "jdbc:h2:mem:" + this.database + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Override
+    protected String getDataSourceClassName() {
+        return "org.h2.jdbcx.JdbcDataSource";
+    }
+
+    @Override
+    protected int getMinimumPoolSize() {
+        return this.minimumPoolSize;
+    }
+
+    @Override
+    protected int getMaximumPoolSize() {
+        return this.maximumPoolSize;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return this.readOnly;
+    }
+}
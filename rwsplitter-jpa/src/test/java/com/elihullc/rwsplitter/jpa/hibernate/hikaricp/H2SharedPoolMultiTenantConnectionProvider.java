@@ -0,0 +1,32 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+
+import java.io.Serial;
+
+/**
+ * {@link SharedPoolMultiTenantConnectionProvider} whose hosts are in-memory H2 databases, switching tenants to the PUBLIC schema
+ */
+public class H2SharedPoolMultiTenantConnectionProvider extends SharedPoolMultiTenantConnectionProvider<H2ConnectionProvider> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int maximumPoolSize;
+
+    public H2SharedPoolMultiTenantConnectionProvider(final TenantHostDirectory hostDirectory, final int maximumPoolSize) {
+        super(new SpringTenantIdentifierResolver(), hostDirectory);
+        this.maximumPoolSize = maximumPoolSize;
+        this.setUseCatalog(false);
+    }
+
+    @Override
+    protected H2ConnectionProvider createMasterHostConnectionProvider(final String host) {
+        return new H2ConnectionProvider(host, false, 1, this.maximumPoolSize);
+    }
+
+    @Override
+    protected H2ConnectionProvider createReaderHostConnectionProvider(final String host) {
+        return new H2ConnectionProvider(host, true, 1, this.maximumPoolSize);
+    }
+}
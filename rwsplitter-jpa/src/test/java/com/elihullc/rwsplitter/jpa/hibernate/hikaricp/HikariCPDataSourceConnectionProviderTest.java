@@ -0,0 +1,28 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class HikariCPDataSourceConnectionProviderTest {
+
+    @Test
+    public void rebuiltPoolGetsNextGeneration() {
+        final H2ConnectionProvider first = new H2ConnectionProvider("generation", false, 0, 2);
+        final H2ConnectionProvider rebuilt = new H2ConnectionProvider("generation", false, 0, 2);
+        try {
+            assertEquals(HikariPools.getConfigMXBean(first).getPoolName(), "generation Master Data Source");
+            assertEquals(HikariPools.getConfigMXBean(rebuilt).getPoolName(), "generation Master Data Source #2");
+            assertEquals(HikariPools.getBasePoolName(rebuilt), HikariPools.getBasePoolName(first));
+        } finally {
+            first.stop();
+        }
+        final H2ConnectionProvider next = new H2ConnectionProvider("generation", false, 0, 2);
+        try {
+            assertEquals(HikariPools.getConfigMXBean(next).getPoolName(), "generation Master Data Source");
+        } finally {
+            rebuilt.stop();
+            next.stop();
+        }
+    }
+}
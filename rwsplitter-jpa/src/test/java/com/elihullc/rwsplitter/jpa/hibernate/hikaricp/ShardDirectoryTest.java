@@ -0,0 +1,101 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class ShardDirectoryTest {
+
+    private final AtomicReference<ShardMap> source = new AtomicReference<>();
+
+    private ShardDirectory directory;
+    private H2SharedPoolMultiTenantConnectionProvider provider;
+
+    @BeforeMethod
+    public void setUp() {
+        this.source.set(new ShardMap(1L, Map.of("shard-a", 1, "shard-b", 1), Map.of("pinned", "shard-a")));
+        this.directory = new ShardDirectory(this.source::get) {
+
+            @Override
+            public String getSchema(final String tenantIdentifier) {
+                return "PUBLIC";
+            }
+        };
+        this.provider = new H2SharedPoolMultiTenantConnectionProvider(this.directory, 2);
+        this.provider.start();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.provider.close();
+        this.directory.close();
+    }
+
+    @Test
+    public void addingAShardOnlyMovesTenantsToIt() {
+        final ShardMap before = new ShardMap(1L, Map.of("s1", 1, "s2", 1), Map.of("pinned", "s1"));
+        final ShardMap after = new ShardMap(2L, Map.of("s1", 1, "s2", 1, "s3", 1), Map.of("pinned", "s1"));
+        int moved = 0;
+        for (int i = 0; i < 1000; i++) {
+            final String tenant = "tenant" + i;
+            if (!before.getShard(tenant).equals(after.getShard(tenant))) {
+                assertEquals(after.getShard(tenant), "s3");
+                moved++;
+            }
+        }
+        assertTrue(moved > 200 && moved < 500, "moved " + moved);
+        assertEquals(after.getShard("pinned"), "s1");
+    }
+
+    @Test
+    public void olderVersionIsIgnored() {
+        this.source.set(new ShardMap(1L, Map.of("shard-b", 1), Map.of()));
+        assertFalse(this.directory.refresh());
+        assertEquals(this.directory.getShardMap().getShards(), Set.of("shard-a", "shard-b"));
+    }
+
+    @Test
+    public void tenantsMoveToTheirNewShard() {
+        final Map<String, StoppableConnectionProvider> writers = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            writers.put("tenant" + i, this.provider.getConnectionProvider("tenant" + i));
+        }
+        writers.put("pinned", this.provider.getConnectionProvider("pinned"));
+        assertEquals(this.provider.getHostConnectionProviderCount(), 2);
+
+        this.source.set(new ShardMap(2L, Map.of("shard-b", 1, "shard-c", 0), Map.of("pinned", "shard-c")));
+        assertTrue(this.directory.refresh());
+
+        assertEquals(this.provider.getHostConnectionProviderCount(), 1);
+        StoppableConnectionProvider shardB = null;
+        for (Map.Entry<String, StoppableConnectionProvider> entry : writers.entrySet()) {
+            final StoppableConnectionProvider writer = this.provider.getConnectionProvider(entry.getKey());
+            if (entry.getKey().equals("pinned")) {
+                assertNotEquals(writer.getPoolOwner(), entry.getValue().getPoolOwner());
+            } else if (shardB == null) {
+                shardB = writer.getPoolOwner();
+            } else {
+                assertSame(writer.getPoolOwner(), shardB);
+            }
+        }
+        assertEquals(this.provider.getHostConnectionProviderCount(), 2);
+        for (Map.Entry<String, StoppableConnectionProvider> entry : writers.entrySet()) {
+            if (entry.getValue().getPoolOwner() == shardB) {
+                assertSame(this.provider.getConnectionProvider(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderHealthMonitor;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReplicationLagMonitor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class SharedPoolMultiTenantConnectionProviderTest {
+
+    private H2SharedPoolMultiTenantConnectionProvider provider;
+
+    @BeforeMethod
+    public void setUp() {
+        this.provider = new H2SharedPoolMultiTenantConnectionProvider(new TenantHostDirectory() {
+
+            @Override
+            public String getHost(final String tenantIdentifier) {
+                return "shared-pool-" + (tenantIdentifier.compareTo("m") < 0 ? "h1" : "h2");
+            }
+
+            @Override
+            public String getSchema(final String tenantIdentifier) {
+                return "PUBLIC";
+            }
+        }, 5);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.provider.close();
+    }
+
+    private StoppableConnectionProvider getReader(final String tenantIdentifier) throws Exception {
+        return ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> this.provider.getConnectionProvider(tenantIdentifier));
+    }
+
+    @Test
+    public void tenantsOfAHostShareItsPool() throws Exception {
+        final StoppableConnectionProvider a = this.getReader("a");
+        final StoppableConnectionProvider b = this.getReader("b");
+        final StoppableConnectionProvider z = this.getReader("z");
+        assertNotSame(a, b);
+        assertSame(a.getPoolOwner(), b.getPoolOwner());
+        assertNotSame(a.getPoolOwner(), z.getPoolOwner());
+        assertFalse(a.isPoolOwner());
+        assertEquals(this.provider.getHostConnectionProviderCount(), 2);
+    }
+
+    @Test
+    public void healthIsKeptPerHostPool() throws Exception {
+        final ReaderHealthMonitor healthMonitor = new ReaderHealthMonitor(3_600_000L);
+        this.provider.setReaderHealthMonitor(healthMonitor);
+        final StoppableConnectionProvider a = this.getReader("a");
+        final StoppableConnectionProvider b = this.getReader("b");
+        final StoppableConnectionProvider z = this.getReader("z");
+        for (int i = 0; i < healthMonitor.getFailureThreshold(); i++) {
+            healthMonitor.recordFailure(a);
+        }
+        assertEquals(healthMonitor.getState(b), ReaderHealthMonitor.State.OPEN);
+        assertEquals(healthMonitor.getState(z), ReaderHealthMonitor.State.CLOSED);
+    }
+
+    @Test
+    public void replicationLagIsSampledOncePerHostPool() throws Exception {
+        final AtomicInteger samples = new AtomicInteger();
+        final var lagMonitor = new ReplicationLagMonitor(connection -> {
+            samples.incrementAndGet();
+            return 0L;
+        }, 3_600_000L) {
+
+            void sampleNow() {
+                this.sample();
+            }
+        };
+        this.provider.setReplicationLagMonitor(lagMonitor);
+        for (String tenant : new String[] {"a", "b", "c", "x", "y", "z"}) {
+            this.getReader(tenant);
+        }
+        lagMonitor.sampleNow();
+        assertEquals(samples.get(), 2);
+    }
+}
@@ -0,0 +1,82 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp.implementation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.amazon.awssdk.services.ssm.SsmClient;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersByPathResponse;
+import software.amazon.awssdk.services.ssm.model.GetParametersRequest;
+import software.amazon.awssdk.services.ssm.model.GetParametersResponse;
+import software.amazon.awssdk.services.ssm.model.Parameter;
+import software.amazon.awssdk.services.ssm.paginators.GetParametersByPathIterable;
+
+/**
+ * {@link SsmClient} standing in for SSM Parameter Store in tests, serving parameters from memory with the same limit of
+ * {@value SystemsManagerConfigurationSource#MAX_NAMES_PER_REQUEST} parameters per call and counting calls
+ */
+public class InMemorySsmClient implements SsmClient {
+
+    private final Map<String, String> parameters = new ConcurrentSkipListMap<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    public void putParameter(final String name, final String value) {
+        this.parameters.put(name, value);
+    }
+
+    public int getCalls() {
+        return this.calls.get();
+    }
+
+    @Override
+    public GetParametersResponse getParameters(final GetParametersRequest request) {
+        this.calls.incrementAndGet();
+        if (request.names().size() > SystemsManagerConfigurationSource.MAX_NAMES_PER_REQUEST) {
+            throw new IllegalArgumentException("Too many names: " + request.names().size());
+        }
+        final List<Parameter> found = new ArrayList<>();
+        for (String name : request.names()) {
+            final String value = this.parameters.get(name);
+            if (value != null) {
+                found.add(Parameter.builder().name(name).value(value).build());
+            }
+        }
+        return GetParametersResponse.builder().parameters(found).build();
+    }
+
+    @Override
+    public GetParametersByPathResponse getParametersByPath(final GetParametersByPathRequest request) {
+        this.calls.incrementAndGet();
+        final String path = request.path().endsWith("/") ? request.path() : request.path() + "/";
+        final List<String> names = this.parameters.keySet().stream()
+          .filter(name -> name.startsWith(path))
+          .toList();
+        final int from = request.nextToken() == null ? 0 : Integer.parseInt(request.nextToken());
+        final int to = Math.min(names.size(), from + SystemsManagerConfigurationSource.MAX_NAMES_PER_REQUEST);
+        final List<Parameter> page = new ArrayList<>();
+        for (String name : names.subList(from, to)) {
+            page.add(Parameter.builder().name(name).value(this.parameters.get(name)).build());
+        }
+        return GetParametersByPathResponse.builder()
+          .parameters(page)
+          .nextToken(to < names.size() ? String.valueOf(to) : null)
+          .build();
+    }
+
+    @Override
+    public GetParametersByPathIterable getParametersByPathPaginator(final GetParametersByPathRequest request) {
+        return new GetParametersByPathIterable(this, request);
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
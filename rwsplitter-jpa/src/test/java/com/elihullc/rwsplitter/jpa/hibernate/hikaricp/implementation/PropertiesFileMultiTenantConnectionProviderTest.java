@@ -0,0 +1,87 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp.implementation;
+
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class PropertiesFileMultiTenantConnectionProviderTest {
+
+    private final List<Set<String>> rebuilt = new ArrayList<>();
+
+    private Path directory;
+    private PropertiesFileMultiTenantConnectionProvider provider;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("rwsplitter-config");
+        this.rebuilt.clear();
+        this.provider = new PropertiesFileMultiTenantConnectionProvider(new SpringTenantIdentifierResolver()) {
+
+            @Override
+            protected void rebuild(final Set<String> tenantIdentifiers) {
+                PropertiesFileMultiTenantConnectionProviderTest.this.rebuilt.add(tenantIdentifiers);
+            }
+        };
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        this.provider.close();
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.directory);
+    }
+
+    private PropertiesFileConfigurationSource createSource(final String name, final String url) throws IOException {
+        final Path file = this.directory.resolve(name);
+        Files.writeString(file, "t1.database.url=" + url + "\n");
+        return new PropertiesFileConfigurationSource(file);
+    }
+
+    private void change(final PropertiesFileConfigurationSource source, final String name, final String url) throws IOException {
+        Files.writeString(this.directory.resolve(name), "t1.database.url=" + url + "\n");
+        source.reload();
+    }
+
+    @Test
+    public void settingTheSameSourceAgainListensOnce() throws IOException {
+        final PropertiesFileConfigurationSource source = this.createSource("a.properties", "jdbc:a");
+        this.provider.setConfigurationSource(source);
+        this.provider.setConfigurationSource(source);
+
+        this.change(source, "a.properties", "jdbc:b");
+        assertEquals(this.rebuilt, List.of(Set.of("t1")));
+    }
+
+    @Test
+    public void replacedSourceIsNoLongerListenedTo() throws IOException {
+        final PropertiesFileConfigurationSource first = this.createSource("a.properties", "jdbc:a");
+        final PropertiesFileConfigurationSource second = this.createSource("b.properties", "jdbc:a");
+        this.provider.setConfigurationSource(first);
+        this.provider.setConfigurationSource(second);
+
+        this.change(first, "a.properties", "jdbc:b");
+        assertEquals(this.rebuilt, List.of());
+        this.change(second, "b.properties", "jdbc:b");
+        assertEquals(this.rebuilt, List.of(Set.of("t1")));
+
+        this.provider.setConfigurationSource(null);
+        this.change(second, "b.properties", "jdbc:c");
+        assertEquals(this.rebuilt, List.of(Set.of("t1")));
+    }
+}
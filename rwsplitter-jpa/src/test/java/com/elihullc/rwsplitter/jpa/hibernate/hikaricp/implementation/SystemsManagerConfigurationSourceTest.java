@@ -0,0 +1,123 @@
+package com.elihullc.rwsplitter.jpa.hibernate.hikaricp.implementation;
+
+import com.elihullc.rwsplitter.jpa.hibernate.ConnectionProviderWarmUp;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class SystemsManagerConfigurationSourceTest {
+
+    private InMemorySsmClient ssm;
+    private SystemsManagerConfigurationSource source;
+
+    @BeforeMethod
+    public void setUp() {
+        this.ssm = new InMemorySsmClient();
+        this.source = new SystemsManagerConfigurationSource(this.ssm);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.source.close();
+    }
+
+    private static List<String> tenants(final int count) {
+        final List<String> tenants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tenants.add("tenant" + i);
+        }
+        return tenants;
+    }
+
+    private void putConsolidated(final String name, final String tenant) {
+        this.ssm.putParameter(name, "database.url=jdbc:h2:mem:ssm-" + tenant + ";DB_CLOSE_DELAY=-1\n"
+          + "database.user=sa\n"
+          + "database.password=\n"
+          + "database.dataSourceClassName=org.h2.jdbcx.JdbcDataSource\n");
+    }
+
+    @Test
+    public void consolidatedParametersBatchTenTenantsPerCall() {
+        this.source.setConsolidated(true);
+        final List<String> tenants = tenants(25);
+        tenants.forEach(tenant -> this.putConsolidated(tenant, tenant));
+        this.source.prefetch(tenants);
+        assertEquals(this.ssm.getCalls(), 3);
+        for (String tenant : tenants) {
+            assertEquals(this.source.getProperties(tenant).getProperty("database.user"), "sa");
+        }
+        assertEquals(this.ssm.getCalls(), 3);
+    }
+
+    @Test
+    public void perKeyParametersBatchAsManyTenantsAsKeysAllow() {
+        this.source.setParameterKeys(List.of("database.url", "database.user"));
+        final List<String> tenants = tenants(10);
+        for (String tenant : tenants) {
+            this.ssm.putParameter(tenant + ".database.url", "jdbc:h2:mem:" + tenant);
+            this.ssm.putParameter(tenant + ".database.user", "sa");
+        }
+        this.source.prefetch(tenants);
+        assertEquals(this.ssm.getCalls(), 2);
+        assertEquals(this.source.getProperties("tenant7").getProperty("database.url"), "jdbc:h2:mem:tenant7");
+        assertEquals(this.ssm.getCalls(), 2);
+    }
+
+    @Test
+    public void refreshReloadsPrefetchedTenantsNotReadYet() {
+        this.source.setConsolidated(true);
+        this.putConsolidated("tenant0", "before");
+        this.source.prefetch(List.of("tenant0"));
+        this.putConsolidated("tenant0", "after");
+        this.source.setRefreshInterval(Duration.ZERO);
+        this.source.refresh();
+        assertEquals(this.source.getProperties("tenant0").getProperty("database.url"), "jdbc:h2:mem:ssm-after;DB_CLOSE_DELAY=-1");
+        assertEquals(this.ssm.getCalls(), 2);
+    }
+
+    @Test
+    public void refreshAfterPrefetchAllPicksUpNewTenants() {
+        this.source.setPathPrefix("/rwsplitter");
+        this.source.setConsolidated(true);
+        for (String tenant : tenants(12)) {
+            this.putConsolidated("/rwsplitter/" + tenant, tenant);
+        }
+        this.source.prefetchAll();
+        assertEquals(this.ssm.getCalls(), 2);
+        this.putConsolidated("/rwsplitter/added", "added");
+        this.source.setRefreshInterval(Duration.ZERO);
+        this.source.refresh();
+        assertEquals(this.ssm.getCalls(), 4);
+        assertEquals(this.source.getProperties("added").getProperty("database.url"), "jdbc:h2:mem:ssm-added;DB_CLOSE_DELAY=-1");
+        assertEquals(this.ssm.getCalls(), 4);
+    }
+
+    @Test
+    public void warmUpPrefetchesTenants() {
+        this.source.setConsolidated(true);
+        final List<String> tenants = tenants(12);
+        tenants.forEach(tenant -> this.putConsolidated(tenant, tenant));
+        SystemsManagerConfigurationSource.setSharedInstance(this.source);
+        final SystemsManagerMultiTenantConnectionProvider provider =
+          new SystemsManagerMultiTenantConnectionProvider(new SpringTenantIdentifierResolver());
+        try {
+            final ConnectionProviderWarmUp warmUp = new ConnectionProviderWarmUp(provider, tenants);
+            warmUp.setOpenConnections(false);
+            warmUp.setBlockStartup(true);
+            warmUp.start();
+            assertEquals(provider.getTenantIdentifiers().size(), 12);
+            assertEquals(this.ssm.getCalls(), 2);
+        } finally {
+            provider.close();
+            SystemsManagerConfigurationSource.setSharedInstance(null);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.elihullc.rwsplitter.jpa.hibernate.metrics;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.RoutingReason;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class MicrometerRoutingMetricsTest {
+
+    private static Set<String> tenantTags(final SimpleMeterRegistry registry) {
+        return registry.find("rwsplitter.routing").counters().stream()
+          .map(counter -> counter.getId().getTag("tenant"))
+          .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void tenantsBeyondLimitShareOtherTag() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final MicrometerRoutingMetrics metrics = new MicrometerRoutingMetrics(registry, 2);
+        for (String tenant : List.of("a", "a", "b", "c", "d")) {
+            metrics.routed(tenant, DatabaseRole.WRITER, RoutingReason.DEFAULT);
+        }
+        assertEquals(tenantTags(registry), Set.of("a", "b", MicrometerRoutingMetrics.OTHER_TENANTS));
+        assertEquals(registry.get("rwsplitter.routing").tag("tenant", MicrometerRoutingMetrics.OTHER_TENANTS).counter().count(), 2.0);
+    }
+
+    @Test
+    public void concurrentFirstSightingsUseOneSlotPerTenant() throws Exception {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final MicrometerRoutingMetrics metrics = new MicrometerRoutingMetrics(registry, 2);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                metrics.routed("a", DatabaseRole.WRITER, RoutingReason.DEFAULT);
+                metrics.routed("b", DatabaseRole.WRITER, RoutingReason.DEFAULT);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(tenantTags(registry), Set.of("a", "b"));
+    }
+
+    @Test
+    public void routingCountersAreRegisteredOnFirstUse() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final MicrometerRoutingMetrics metrics = new MicrometerRoutingMetrics(registry);
+        metrics.routed("a", DatabaseRole.READER, RoutingReason.DATABASE_ROLE);
+        metrics.routed("a", DatabaseRole.READER, RoutingReason.DATABASE_ROLE);
+        final List<Counter> counters = new ArrayList<>(registry.find("rwsplitter.routing").counters());
+        assertEquals(counters.size(), 1);
+        assertEquals(counters.get(0).count(), 2.0);
+    }
+
+    @Test
+    public void percentileHistogramOnlyForAggregateByDefault() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final Map<String, Boolean> histograms = new HashMap<>();
+        registry.config().meterFilter(new MeterFilter() {
+
+            @Override
+            public DistributionStatisticConfig configure(final Meter.Id id, final DistributionStatisticConfig config) {
+                if (id.getName().equals("rwsplitter.connection.acquire")) {
+                    histograms.merge(id.getTag("tenant"), Boolean.TRUE.equals(config.isPercentileHistogram()), Boolean::logicalAnd);
+                }
+                return config;
+            }
+        });
+        final MicrometerRoutingMetrics metrics = new MicrometerRoutingMetrics(registry, 1);
+        metrics.connectionAcquired("a", DatabaseRole.WRITER, 1_000_000L);
+        metrics.connectionAcquired("b", DatabaseRole.WRITER, 1_000_000L);
+        assertEquals(histograms, Map.of("a", false, MicrometerRoutingMetrics.OTHER_TENANTS, true));
+
+        final MicrometerRoutingMetrics all = new MicrometerRoutingMetrics(registry, 2);
+        all.setPublishPercentileHistogram(true);
+        all.connectionAcquired("c", DatabaseRole.WRITER, 1_000_000L);
+        assertTrue(histograms.get("c"));
+    }
+}
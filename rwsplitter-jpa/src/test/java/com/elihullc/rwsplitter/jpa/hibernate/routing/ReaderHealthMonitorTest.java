@@ -0,0 +1,96 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StubConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class ReaderHealthMonitorTest {
+
+    private ReaderHealthMonitor monitor;
+
+    @BeforeMethod
+    public void setUp() {
+        this.monitor = new ReaderHealthMonitor(3_600_000L);
+        this.monitor.setFailureThreshold(2);
+        this.monitor.setOpenDuration(Duration.ZERO);
+        this.monitor.setProbeTimeout(Duration.ofMillis(200));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        this.monitor.close();
+    }
+
+    private void probeAndWait() throws InterruptedException {
+        this.monitor.probe();
+        Thread.sleep(400L);
+    }
+
+    @Test
+    public void breakerOpensAfterThresholdAndClosesAfterSuccessfulProbe() throws Exception {
+        final StubConnectionProvider reader = new StubConnectionProvider("reader", true);
+        this.monitor.register(reader);
+        this.monitor.recordFailure(reader);
+        assertTrue(this.monitor.isAvailable(reader));
+        this.monitor.recordFailure(reader);
+        assertEquals(this.monitor.getState(reader), ReaderHealthMonitor.State.OPEN);
+        assertFalse(this.monitor.isAvailable(reader));
+        this.probeAndWait();
+        assertEquals(this.monitor.getState(reader), ReaderHealthMonitor.State.CLOSED);
+    }
+
+    @Test
+    public void failedProbeReopensHalfOpenBreaker() throws Exception {
+        final StubConnectionProvider reader = new StubConnectionProvider("reader", true);
+        this.monitor.register(reader);
+        this.monitor.recordFailure(reader);
+        this.monitor.recordFailure(reader);
+        reader.setFailure(new SQLException("Connection refused"));
+        this.probeAndWait();
+        assertEquals(this.monitor.getState(reader), ReaderHealthMonitor.State.OPEN);
+    }
+
+    @Test
+    public void exhaustedPoolIsInconclusive() throws Exception {
+        final StubConnectionProvider reader = new StubConnectionProvider("reader", true);
+        this.monitor.register(reader);
+        reader.setFailure(new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms."));
+        this.probeAndWait();
+        this.probeAndWait();
+        assertEquals(this.monitor.getState(reader), ReaderHealthMonitor.State.CLOSED);
+        reader.setFailure(new SQLTransientConnectionException("Connection is not available", "08S01", new SQLException("down")));
+        this.probeAndWait();
+        this.probeAndWait();
+        assertEquals(this.monitor.getState(reader), ReaderHealthMonitor.State.OPEN);
+    }
+
+    @Test
+    public void saturatedPoolIsNotProbed() throws Exception {
+        final H2ConnectionProvider reader = new H2ConnectionProvider("health-saturated", true, 1, 1);
+        try {
+            this.monitor.register(reader);
+            final Connection connection = reader.getConnection();
+            try {
+                this.probeAndWait();
+                this.probeAndWait();
+                assertEquals(this.monitor.getState(reader), ReaderHealthMonitor.State.CLOSED);
+            } finally {
+                reader.closeConnection(connection);
+            }
+        } finally {
+            reader.stop();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class StatementClassifierTest {
+
+    private final StatementClassifier classifier = new StatementClassifier();
+
+    @Test
+    public void plainSelectIsRead() {
+        assertTrue(this.classifier.isRead("select * from item where id = ?"));
+        assertTrue(this.classifier.isRead("SELECT * FROM item WHERE name = 'for update'"));
+    }
+
+    @Test
+    public void lockingSelectIsWrite() {
+        assertFalse(this.classifier.isRead("select * from item where id = ? for update"));
+        assertFalse(this.classifier.isRead("select * from item where id = ? for share"));
+        assertFalse(this.classifier.isRead("select * from item where id = ? lock in share mode"));
+        assertFalse(this.classifier.isRead("select * from item where id = ? for no key update"));
+        assertFalse(this.classifier.isRead("select * from item where id = ? FOR  KEY\nSHARE"));
+    }
+
+    @Test
+    public void dataModifyingCteIsWrite() {
+        assertFalse(this.classifier.isRead("with moved as (delete from item returning *) select * from moved"));
+    }
+}
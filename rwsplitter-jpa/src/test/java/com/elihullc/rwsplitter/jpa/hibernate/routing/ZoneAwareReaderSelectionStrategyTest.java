@@ -0,0 +1,211 @@
+package com.elihullc.rwsplitter.jpa.hibernate.routing;
+
+import com.elihullc.rwsplitter.jpa.hibernate.StoppableConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.StubConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.H2ConnectionProvider;
+
+import java.io.Serial;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+public class ZoneAwareReaderSelectionStrategyTest {
+
+    private final List<ZonedReader> pools = new ArrayList<>();
+    private final Map<StoppableConnectionProvider, List<Connection>> held = new HashMap<>();
+
+    @AfterMethod
+    public void tearDown() throws SQLException {
+        for (Map.Entry<StoppableConnectionProvider, List<Connection>> entry : this.held.entrySet()) {
+            for (Connection connection : entry.getValue()) {
+                entry.getKey().closeConnection(connection);
+            }
+        }
+        this.held.clear();
+        this.pools.forEach(ZonedReader::stop);
+        this.pools.clear();
+    }
+
+    private static List<StubConnectionProvider> createReaders(final int count, final String... zones) {
+        final List<StubConnectionProvider> readers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final StubConnectionProvider reader = new StubConnectionProvider("reader-" + i, true);
+            reader.setZone(zones[i % zones.length]);
+            readers.add(reader);
+        }
+        return readers;
+    }
+
+    private static List<String> createTenants(final int count) {
+        final List<String> tenants = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            tenants.add("tenant-" + i);
+        }
+        return tenants;
+    }
+
+    private static Map<String, StubConnectionProvider> selectAll(final ReaderSelectionStrategy strategy, final List<String> tenants,
+      final List<StubConnectionProvider> readers) {
+        final Map<String, StubConnectionProvider> selected = new HashMap<>();
+        for (String tenant : tenants) {
+            selected.put(tenant, strategy.select(tenant, readers));
+        }
+        return selected;
+    }
+
+    private ZonedReader createPool(final String database, final String zone) {
+        final ZonedReader reader = new ZonedReader(database, zone);
+        this.pools.add(reader);
+        return reader;
+    }
+
+    private void hold(final StoppableConnectionProvider reader, final int connections) throws SQLException {
+        final List<Connection> connectionsHeld = this.held.computeIfAbsent(reader, r -> new ArrayList<>());
+        for (int i = 0; i < connections; i++) {
+            connectionsHeld.add(reader.getConnection());
+        }
+    }
+
+    private void closeOne(final StoppableConnectionProvider reader) throws SQLException {
+        final List<Connection> connections = this.held.get(reader);
+        reader.closeConnection(connections.remove(connections.size() - 1));
+    }
+
+    @Test
+    public void tenantsKeepTheirReaderAcrossReordersAndRemovals() {
+        final ZoneAwareReaderSelectionStrategy strategy = new ZoneAwareReaderSelectionStrategy("zone-a");
+        final List<StubConnectionProvider> readers = createReaders(5, "zone-a");
+        final List<String> tenants = createTenants(200);
+        final Map<String, StubConnectionProvider> selected = selectAll(strategy, tenants, readers);
+        assertEquals(new HashSet<>(selected.values()).size(), 5);
+
+        final List<StubConnectionProvider> shuffled = new ArrayList<>(readers);
+        Collections.shuffle(shuffled, new Random(42L));
+        assertEquals(selectAll(strategy, tenants, shuffled), selected);
+
+        final StubConnectionProvider removed = readers.get(2);
+        shuffled.remove(removed);
+        final Map<String, StubConnectionProvider> reselected = selectAll(strategy, tenants, shuffled);
+        for (String tenant : tenants) {
+            if (selected.get(tenant) == removed) {
+                assertNotEquals(reselected.get(tenant), removed);
+            } else {
+                assertSame(reselected.get(tenant), selected.get(tenant), tenant);
+            }
+        }
+    }
+
+    @Test
+    public void prefersLocalZone() {
+        final ZoneAwareReaderSelectionStrategy strategy = new ZoneAwareReaderSelectionStrategy("zone-a");
+        final List<StubConnectionProvider> readers = createReaders(6, "zone-a", "zone-b");
+        final Map<String, StubConnectionProvider> selected = selectAll(strategy, createTenants(100), readers);
+        for (StubConnectionProvider reader : selected.values()) {
+            assertEquals(reader.getZone(), "zone-a");
+        }
+    }
+
+    @Test
+    public void ranksAllReadersAlikeWithoutLocalZone() {
+        final ZoneAwareReaderSelectionStrategy strategy = new ZoneAwareReaderSelectionStrategy(null);
+        final List<StubConnectionProvider> readers = createReaders(6, "zone-a", "zone-b");
+        final Set<String> zones = new HashSet<>();
+        for (StubConnectionProvider reader : selectAll(strategy, createTenants(100), readers).values()) {
+            zones.add(reader.getZone());
+        }
+        assertEquals(zones, Set.of("zone-a", "zone-b"));
+    }
+
+    @Test
+    public void excludesReadersWithoutWeight() {
+        final ZoneAwareReaderSelectionStrategy strategy = new ZoneAwareReaderSelectionStrategy(null);
+        final List<StubConnectionProvider> readers = createReaders(3, "zone-a");
+        readers.get(0).setWeight(0);
+        readers.get(1).setWeight(-1);
+        for (StubConnectionProvider reader : selectAll(strategy, createTenants(50), readers).values()) {
+            assertSame(reader, readers.get(2));
+        }
+        // without any weighted reader every reader is selected alike
+        readers.get(2).setWeight(0);
+        assertEquals(new HashSet<>(selectAll(strategy, createTenants(50), readers).values()).size(), 3);
+    }
+
+    @Test
+    public void spillsOverToNextLocalReaderThenToRemoteReaders() throws SQLException {
+        final ZoneAwareReaderSelectionStrategy strategy = new ZoneAwareReaderSelectionStrategy("zone-a");
+        final List<ZonedReader> readers = List.of(this.createPool("zone-local-1", "zone-a"),
+          this.createPool("zone-local-2", "zone-a"), this.createPool("zone-remote", "zone-b"));
+        final ZonedReader preferred = strategy.select("tenant", readers);
+        assertEquals(preferred.getZone(), "zone-a");
+
+        // 4 of 5 connections reach the default spill over threshold of 0.8
+        this.hold(preferred, 3);
+        assertSame(strategy.select("tenant", readers), preferred);
+        this.hold(preferred, 1);
+        final ZonedReader next = strategy.select("tenant", readers);
+        assertNotEquals(next, preferred);
+        assertEquals(next.getZone(), "zone-a");
+
+        this.hold(next, 4);
+        final ZonedReader remote = strategy.select("tenant", readers);
+        assertEquals(remote.getZone(), "zone-b");
+
+        // with every reader that busy the least busy one is selected
+        this.hold(remote, 4);
+        this.hold(preferred, 1);
+        this.hold(remote, 1);
+        assertSame(strategy.select("tenant", readers), next);
+
+        this.closeOne(preferred);
+        this.closeOne(preferred);
+        assertSame(strategy.select("tenant", readers), preferred);
+    }
+
+    @Test
+    public void spillOverThresholdIsConfigurable() throws SQLException {
+        final ZoneAwareReaderSelectionStrategy strategy = new ZoneAwareReaderSelectionStrategy("zone-a");
+        strategy.setSpillOverThreshold(0.4);
+        final List<ZonedReader> readers = List.of(this.createPool("zone-threshold-1", "zone-a"),
+          this.createPool("zone-threshold-2", "zone-a"));
+        final ZonedReader preferred = strategy.select("tenant", readers);
+        this.hold(preferred, 1);
+        assertSame(strategy.select("tenant", readers), preferred);
+        this.hold(preferred, 1);
+        assertNotEquals(strategy.select("tenant", readers), preferred);
+    }
+
+    /**
+     * Read-only H2 pool of at most 5 connections in the given zone
+     */
+    private static final class ZonedReader extends H2ConnectionProvider {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final String zone;
+
+        private ZonedReader(final String database, final String zone) {
+            super(database, true, 1, 5);
+            this.zone = zone;
+        }
+
+        @Override
+        public String getZone() {
+            return this.zone;
+        }
+    }
+}
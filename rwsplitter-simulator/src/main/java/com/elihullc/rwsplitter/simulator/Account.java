@@ -0,0 +1,40 @@
+package com.elihullc.rwsplitter.simulator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Entity read and updated by the simulated workload
+ */
+@Entity
+@Table(name = "ACCOUNT")
+public class Account {
+
+    @Id
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "NAME")
+    private String name;
+
+    @Column(name = "BALANCE")
+    private long balance;
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public long getBalance() {
+        return this.balance;
+    }
+
+    public void setBalance(final long balance) {
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,61 @@
+package com.elihullc.rwsplitter.simulator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * {@link InvocationHandler} for {@link Connection}s and their {@link Statement}s that injects the faults configured in
+ * {@link FaultInjector}: statements wait for the database's latency or fail during an outage, and connections fail validation
+ * during an outage so that HikariCP evicts them.
+ */
+final class FaultInjectingConnection implements InvocationHandler {
+
+    private final Object target;
+    private final int database;
+
+    private FaultInjectingConnection(final Object target, final int database) {
+        this.target = target;
+        this.database = database;
+    }
+
+    /**
+     * Wraps the given connection
+     * @param connection the connection
+     * @param database {@link FaultInjector#WRITER} or the index of a replica
+     * @return the wrapping connection
+     */
+    static Connection wrap(final Connection connection, final int database) {
+        return (Connection)Proxy.newProxyInstance(FaultInjectingConnection.class.getClassLoader(), new Class<?>[] {Connection.class},
+          new FaultInjectingConnection(connection, database));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+        if (name.equals("isValid") && FaultInjector.isDown(this.database)) {
+            return false;
+        }
+        if (name.startsWith("execute")) {
+            FaultInjector.beforeStatement(this.database);
+        }
+        final Object result;
+        try {
+            result = method.invoke(this.target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        if (!(proxy instanceof Connection) || !(result instanceof Statement)) {
+            return result;
+        }
+        final Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+          : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return Proxy.newProxyInstance(FaultInjectingConnection.class.getClassLoader(), new Class<?>[] {type},
+          new FaultInjectingConnection(result, this.database));
+    }
+}
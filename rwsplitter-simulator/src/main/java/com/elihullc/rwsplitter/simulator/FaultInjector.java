@@ -0,0 +1,89 @@
+package com.elihullc.rwsplitter.simulator;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Latency and outages injected into the simulated databases, keyed by database: {@link #WRITER} or the index of a replica.  The
+ * state is global as {@link SimulatedDataSource}s are instantiated by HikariCP.
+ */
+public final class FaultInjector {
+
+    /**
+     * Key of the writer databases
+     */
+    public static final int WRITER = -1;
+
+    private static final ConcurrentHashMap<Integer, Long> LATENCIES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Boolean> OUTAGES = new ConcurrentHashMap<>();
+
+    private FaultInjector() {
+    }
+
+    /**
+     * Sets the latency added to every statement executed on the given database
+     * @param database {@link #WRITER} or the index of a replica
+     * @param nanos the latency in nanoseconds, 0 for none
+     */
+    public static void setLatency(final int database, final long nanos) {
+        LATENCIES.put(database, nanos);
+    }
+
+    /**
+     * Starts or ends an outage of the given database.  During an outage new connections are refused, existing connections fail
+     * validation and every statement fails.
+     * @param database {@link #WRITER} or the index of a replica
+     * @param down true to start an outage, false to end it
+     */
+    public static void setDown(final int database, final boolean down) {
+        OUTAGES.put(database, down);
+    }
+
+    /**
+     * Whether the given database suffers an outage
+     * @param database {@link #WRITER} or the index of a replica
+     * @return true if the database is down, false otherwise
+     */
+    public static boolean isDown(final int database) {
+        return OUTAGES.getOrDefault(database, Boolean.FALSE);
+    }
+
+    /**
+     * Fails if the given database is down
+     * @param database {@link #WRITER} or the index of a replica
+     * @throws SQLException if the database is down
+     */
+    static void checkAvailable(final int database) throws SQLException {
+        if (isDown(database)) {
+            throw new SQLTransientConnectionException("Simulated outage of database " + database, "08S01");
+        }
+    }
+
+    /**
+     * Fails if the given database is down and waits for its latency otherwise
+     * @param database {@link #WRITER} or the index of a replica
+     * @throws SQLException if the database is down
+     */
+    static void beforeStatement(final int database) throws SQLException {
+        checkAvailable(database);
+        final long latency = LATENCIES.getOrDefault(database, 0L);
+        if (latency > 0) {
+            final long deadline = System.nanoTime() + latency;
+            long remaining = latency;
+            while (remaining > 0) {
+                LockSupport.parkNanos(remaining);
+                remaining = deadline - System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Removes all injected faults
+     */
+    public static void reset() {
+        LATENCIES.clear();
+        OUTAGES.clear();
+    }
+}
@@ -0,0 +1,91 @@
+package com.elihullc.rwsplitter.simulator;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds with a relative error of about 3%.  Every power of two is split into 32 linear
+ * sub-buckets.  Instances are not thread-safe: record into one histogram per thread and {@link #add(LatencyHistogram)} them up.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    /**
+     * Records a latency
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        this.counts[indexOf(value)]++;
+        this.total++;
+        this.max = Math.max(this.max, value);
+    }
+
+    /**
+     * Adds the latencies recorded by the given histogram to this one
+     * @param other the other histogram
+     */
+    public void add(final LatencyHistogram other) {
+        for (int i = 0; i < this.counts.length; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.total += other.total;
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * Returns the number of recorded latencies
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        return this.total;
+    }
+
+    /**
+     * Returns the highest recorded latency
+     * @return the highest latency in nanoseconds
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the latency at the given percentile
+     * @param percentile the percentile between 0 and 100, e.g. 99.9
+     * @return the upper bound of the bucket holding the percentile in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentile(final double percentile) {
+        if (this.total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long)Math.ceil(this.total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    private static int indexOf(final long value) {
+        if (value < SUB_BUCKETS) {
+            return (int)value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return exponent * SUB_BUCKETS + (int)(value >>> exponent);
+    }
+
+    private static long upperBoundOf(final int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKETS - 1;
+        final long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << exponent) - 1;
+    }
+}
@@ -0,0 +1,99 @@
+package com.elihullc.rwsplitter.simulator;
+
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariCPDataSourceConnectionProvider;
+import com.zaxxer.hikari.hibernate.HikariConfigurationUtil;
+
+import java.io.Serial;
+import java.util.Map;
+
+/**
+ * {@link HikariCPDataSourceConnectionProvider} connecting to a tenant's in-memory H2 database through a
+ * {@link SimulatedDataSource}.  Writer and replicas share the database, i.e. replication is instantaneous, but each has its own
+ * pool and faults.
+ */
+public class SimulatedConnectionProvider extends HikariCPDataSourceConnectionProvider {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int database;
+    private final int maximumPoolSize;
+    private final int minimumPoolSize;
+    private String url;
+
+    /**
+     * Creates a connection provider for the given tenant's writer or one of its replicas
+     * @param tenantIdentifier the tenant identifier
+     * @param database {@link FaultInjector#WRITER} or the index of a replica
+     * @param settings the settings of the simulation
+     */
+    public SimulatedConnectionProvider(final String tenantIdentifier, final int database, final SimulatorSettings settings) {
+        this.database = database;
+        this.maximumPoolSize = settings.getMaximumPoolSize();
+        this.minimumPoolSize = settings.getMinimumPoolSize();
+        this.initialize(tenantIdentifier);
+    }
+
+    /**
+     * Returns the URL of the given tenant's in-memory database
+     * @param tenantIdentifier the tenant identifier
+     * @return the URL of the tenant's database
+     */
+    public static String getUrl(final String tenantIdentifier) {
+        return "jdbc:h2:mem:" + tenantIdentifier + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Override
+    protected void beforeConfiguration(final String tenantIdentifier) {
+        super.beforeConfiguration(tenantIdentifier);
+        this.url = getUrl(tenantIdentifier);
+    }
+
+    @Override
+    protected Map<String, Object> getDataSourceProperties(final String tenantIdentifier) {
+        final Map<String, Object> props = super.getDataSourceProperties(tenantIdentifier);
+        props.put(HikariConfigurationUtil.CONFIG_PREFIX + "dataSource.database", String.valueOf(this.database));
+        return props;
+    }
+
+    @Override
+    protected String getDataSourceName(final String tenantIdentifier) {
+        return this.isReadOnly() ? tenantIdentifier + " Reader " + (this.database + 1) + " Data Source"
+          : super.getDataSourceName(tenantIdentifier);
+    }
+
+    @Override
+    protected int getMaximumPoolSize() {
+        return this.maximumPoolSize;
+    }
+
+    @Override
+    protected int getMinimumPoolSize() {
+        return this.minimumPoolSize;
+    }
+
+    @Override
+    protected String getDatabasePassword() {
+        return "";
+    }
+
+    @Override
+    protected String getDatabaseUser() {
+        return "sa";
+    }
+
+    @Override
+    protected String getDatabaseURL() {
+        return this.url;
+    }
+
+    @Override
+    protected String getDataSourceClassName() {
+        return SimulatedDataSource.class.getName();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return this.database != FaultInjector.WRITER;
+    }
+}
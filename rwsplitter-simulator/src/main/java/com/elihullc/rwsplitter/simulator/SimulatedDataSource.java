@@ -0,0 +1,113 @@
+package com.elihullc.rwsplitter.simulator;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link DataSource} connecting to an in-memory H2 database through {@link DriverManager} and injecting the faults configured in
+ * {@link FaultInjector} for its database.  Configured by HikariCP through its {@code dataSource.*} properties.
+ */
+public class SimulatedDataSource implements DataSource {
+
+    private String url;
+    private String user;
+    private String password;
+    private int database = FaultInjector.WRITER;
+    private PrintWriter logWriter;
+    private int loginTimeout;
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return this.getConnection(this.user, this.password);
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        FaultInjector.checkAvailable(this.database);
+        return FaultInjectingConnection.wrap(DriverManager.getConnection(this.url, username, password), this.database);
+    }
+
+    public String getUrl() {
+        return this.url;
+    }
+
+    public void setUrl(final String url) {
+        this.url = url;
+    }
+
+    public String getUser() {
+        return this.user;
+    }
+
+    public void setUser(final String user) {
+        this.user = user;
+    }
+
+    public String getPassword() {
+        return this.password;
+    }
+
+    public void setPassword(final String password) {
+        this.password = password;
+    }
+
+    /**
+     * Returns the database whose faults are injected: {@link FaultInjector#WRITER} or the index of a replica
+     * @return the database whose faults are injected
+     */
+    public int getDatabase() {
+        return this.database;
+    }
+
+    /**
+     * Sets the database whose faults are injected
+     * @param database {@link FaultInjector#WRITER} or the index of a replica
+     */
+    public void setDatabase(final int database) {
+        this.database = database;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return this.logWriter;
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return this.loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,146 @@
+package com.elihullc.rwsplitter.simulator;
+
+import com.elihullc.rwsplitter.jpa.hibernate.SpringMultiTenantConnectionProvider;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+import com.elihullc.rwsplitter.jpa.hibernate.hikaricp.HikariPools;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.io.Serial;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link SpringMultiTenantConnectionProvider} backed by one in-memory H2 database per tenant, with a writer pool and one pool per
+ * simulated replica.  The {@code ACCOUNT} table of a tenant is created and filled before its first pool is created.
+ */
+public class SimulatedMultiTenantConnectionProvider extends SpringMultiTenantConnectionProvider<SimulatedConnectionProvider> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final transient SimulatorSettings settings;
+    private final transient ConcurrentHashMap<String, Boolean> initializedTenants = new ConcurrentHashMap<>();
+
+    public SimulatedMultiTenantConnectionProvider(final SpringTenantIdentifierResolver tenantIdentifierResolver,
+      final SimulatorSettings settings) {
+        super(tenantIdentifierResolver);
+        this.settings = settings;
+    }
+
+    @Override
+    protected SimulatedConnectionProvider createMasterConnectionProvider(final String tenantIdentifier) {
+        this.initialize(tenantIdentifier);
+        return new SimulatedConnectionProvider(tenantIdentifier, FaultInjector.WRITER, this.settings);
+    }
+
+    @Override
+    protected SimulatedConnectionProvider createReaderConnectionProvider(final String tenantIdentifier) {
+        return this.createReaderConnectionProviders(tenantIdentifier).get(0);
+    }
+
+    @Override
+    protected List<SimulatedConnectionProvider> createReaderConnectionProviders(final String tenantIdentifier) {
+        this.initialize(tenantIdentifier);
+        final List<SimulatedConnectionProvider> readers = new ArrayList<>(this.settings.getReaders());
+        for (int i = 0; i < this.settings.getReaders(); i++) {
+            readers.add(new SimulatedConnectionProvider(tenantIdentifier, i, this.settings));
+        }
+        return readers;
+    }
+
+    /**
+     * Creates and fills the {@code ACCOUNT} table of the given tenant unless already done
+     * @param tenantIdentifier the tenant identifier
+     */
+    private void initialize(final String tenantIdentifier) {
+        this.initializedTenants.computeIfAbsent(tenantIdentifier, tenant -> {
+            try (Connection connection = DriverManager.getConnection(SimulatedConnectionProvider.getUrl(tenant), "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS ACCOUNT (ID BIGINT PRIMARY KEY, NAME VARCHAR(64), BALANCE BIGINT)");
+                statement.execute("INSERT INTO ACCOUNT SELECT X, 'account-' || X, 0 FROM SYSTEM_RANGE(1, "
+                  + this.settings.getRowsPerTenant() + ") WHERE NOT EXISTS (SELECT 1 FROM ACCOUNT)");
+            } catch (SQLException e) {
+                throw new IllegalStateException("Unable to initialize the database of tenant " + tenant, e);
+            }
+            return Boolean.TRUE;
+        });
+    }
+
+    /**
+     * Returns a snapshot of the pools of all live tenants
+     * @return the pool statistics
+     */
+    public PoolStatistics getPoolStatistics() {
+        final PoolStatistics statistics = new PoolStatistics();
+        for (String tenant : this.getTenantIdentifiers()) {
+            statistics.tenants++;
+            for (SimulatedConnectionProvider provider : this.getConnectionProviders(tenant)) {
+                statistics.pools++;
+                statistics.maximumConnections += HikariPools.getMaximumPoolSize(provider);
+                final HikariPoolMXBean pool = HikariPools.getPoolMXBean(provider);
+                if (pool != null) {
+                    statistics.connections += pool.getTotalConnections();
+                    statistics.activeConnections += pool.getActiveConnections();
+                }
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Snapshot of the pools of all live tenants
+     */
+    public static final class PoolStatistics {
+
+        private int tenants;
+        private int pools;
+        private int maximumConnections;
+        private int connections;
+        private int activeConnections;
+
+        /**
+         * Returns the number of tenants with at least one pool
+         * @return the number of live tenants
+         */
+        public int getTenants() {
+            return this.tenants;
+        }
+
+        /**
+         * Returns the number of pools
+         * @return the number of pools
+         */
+        public int getPools() {
+            return this.pools;
+        }
+
+        /**
+         * Returns the sum of the maximum sizes of all pools
+         * @return the sum of the maximum pool sizes
+         */
+        public int getMaximumConnections() {
+            return this.maximumConnections;
+        }
+
+        /**
+         * Returns the number of open connections
+         * @return the number of open connections
+         */
+        public int getConnections() {
+            return this.connections;
+        }
+
+        /**
+         * Returns the number of connections in use
+         * @return the number of active connections
+         */
+        public int getActiveConnections() {
+            return this.activeConnections;
+        }
+    }
+}
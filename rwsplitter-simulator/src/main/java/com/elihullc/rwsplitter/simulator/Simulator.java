@@ -0,0 +1,273 @@
+package com.elihullc.rwsplitter.simulator;
+
+import com.elihullc.rwsplitter.jpa.DatabaseRole;
+import com.elihullc.rwsplitter.jpa.context.ContextEngines;
+import com.elihullc.rwsplitter.jpa.hibernate.ConnectionProviderEvictor;
+import com.elihullc.rwsplitter.jpa.hibernate.SpringTenantIdentifierResolver;
+import com.elihullc.rwsplitter.jpa.hibernate.routing.ReaderHealthMonitor;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+
+/**
+ * Drives a {@link SimulatedMultiTenantConnectionProvider} through Hibernate with a multi-tenant workload and reports throughput,
+ * latency percentiles, pool counts and memory per tenant.  Tenants are drawn from a Zipf distribution, operations are reads on a
+ * replica or read-modify-write transactions on the writer, and replicas can be slowed down or taken down, see
+ * {@link SimulatorSettings} for the {@code simulator.*} system properties.
+ */
+public final class Simulator {
+
+    private final SimulatorSettings settings;
+    private final ZipfDistribution tenantPopularity;
+    private final List<Worker> workers = new ArrayList<>();
+
+    private volatile boolean running = true;
+    private volatile boolean measuring;
+
+    private Simulator(final SimulatorSettings settings) {
+        this.settings = settings;
+        this.tenantPopularity = new ZipfDistribution(settings.getTenants(), settings.getZipfExponent());
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        final SimulatorSettings settings = new SimulatorSettings();
+        System.out.println("Simulating " + settings);
+        new Simulator(settings).run();
+    }
+
+    private void run() throws InterruptedException {
+        this.injectLatencies();
+        final SpringTenantIdentifierResolver resolver = new SpringTenantIdentifierResolver();
+        final SimulatedMultiTenantConnectionProvider provider = new SimulatedMultiTenantConnectionProvider(resolver, this.settings);
+        final ReaderHealthMonitor healthMonitor = new ReaderHealthMonitor();
+        provider.setReaderHealthMonitor(healthMonitor);
+        ConnectionProviderEvictor evictor = null;
+        if (this.settings.getMaxTenants() > 0) {
+            evictor = new ConnectionProviderEvictor(provider);
+            evictor.setMaxTenants(this.settings.getMaxTenants());
+        }
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "simulator-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final PeakPools peak = new PeakPools();
+        try (SessionFactory sessionFactory = buildSessionFactory(provider, resolver)) {
+            final long baselineHeap = getUsedHeapAfterGc();
+            final List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < this.settings.getThreads(); i++) {
+                final Worker worker = new Worker(sessionFactory, new Random(this.settings.getSeed() + i));
+                this.workers.add(worker);
+                final Thread thread = new Thread(worker, "simulator-worker-" + i);
+                thread.start();
+                threads.add(thread);
+            }
+            Thread.sleep(this.settings.getWarmup().toMillis());
+            this.measuring = true;
+            final long start = System.nanoTime();
+            this.scheduleOutage(scheduler);
+            scheduler.scheduleAtFixedRate(() -> peak.sample(provider.getPoolStatistics()), 0, 1, TimeUnit.SECONDS);
+            Thread.sleep(this.settings.getDuration().toMillis());
+            this.measuring = false;
+            final long elapsed = System.nanoTime() - start;
+            final SimulatedMultiTenantConnectionProvider.PoolStatistics pools = provider.getPoolStatistics();
+            this.running = false;
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            scheduler.shutdownNow();
+            this.report(elapsed, pools, peak, getUsedHeapAfterGc() - baselineHeap);
+        } finally {
+            scheduler.shutdownNow();
+            if (evictor != null) {
+                evictor.close();
+            }
+            healthMonitor.close();
+            provider.close();
+            FaultInjector.reset();
+        }
+    }
+
+    private void injectLatencies() {
+        FaultInjector.setLatency(FaultInjector.WRITER, this.settings.getWriterLatency().toNanos());
+        for (int i = 0; i < this.settings.getReaders(); i++) {
+            FaultInjector.setLatency(i, i == this.settings.getSlowReplica() ? this.settings.getSlowReplicaLatency().toNanos()
+              : this.settings.getReplicaLatency().toNanos());
+        }
+    }
+
+    private void scheduleOutage(final ScheduledExecutorService scheduler) {
+        final int replica = this.settings.getOutageReplica();
+        if (replica < 0) {
+            return;
+        }
+        final long start = this.settings.getOutageStart().toMillis();
+        scheduler.schedule(() -> {
+            System.out.println("Replica " + replica + " down");
+            FaultInjector.setDown(replica, true);
+        }, start, TimeUnit.MILLISECONDS);
+        scheduler.schedule(() -> {
+            System.out.println("Replica " + replica + " up");
+            FaultInjector.setDown(replica, false);
+        }, start + this.settings.getOutageDuration().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static SessionFactory buildSessionFactory(final SimulatedMultiTenantConnectionProvider provider,
+      final SpringTenantIdentifierResolver resolver) {
+        final StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+          .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+          .applySetting(AvailableSettings.ALLOW_METADATA_ON_BOOT, "false")
+          .applySetting(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, provider)
+          .applySetting(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, resolver)
+          .build();
+        return new MetadataSources(registry)
+          .addAnnotatedClass(Account.class)
+          .buildMetadata()
+          .buildSessionFactory();
+    }
+
+    private void report(final long elapsedNanos, final SimulatedMultiTenantConnectionProvider.PoolStatistics pools,
+      final PeakPools peak, final long heapBytes) {
+        final LatencyHistogram reads = new LatencyHistogram();
+        final LatencyHistogram writes = new LatencyHistogram();
+        long errors = 0;
+        for (Worker worker : this.workers) {
+            reads.add(worker.reads);
+            writes.add(worker.writes);
+            errors += worker.errors;
+        }
+        final LatencyHistogram all = new LatencyHistogram();
+        all.add(reads);
+        all.add(writes);
+        final double seconds = elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%nThroughput: %.0f ops/s (%d reads, %d writes, %d errors in %.1f s)%n",
+          all.getCount() / seconds, reads.getCount(), writes.getCount(), errors, seconds);
+        System.out.printf(Locale.ROOT, "%-8s %10s %10s %10s %10s%n", "Latency", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        printLatencies("reads", reads);
+        printLatencies("writes", writes);
+        printLatencies("all", all);
+        System.out.printf(Locale.ROOT, "Pools: %d tenants, %d pools, %d connections open (peak %d), %d active, %d maximum (peak %d)%n",
+          pools.getTenants(), pools.getPools(), pools.getConnections(), peak.connections, pools.getActiveConnections(),
+          pools.getMaximumConnections(), peak.maximumConnections);
+        System.out.printf(Locale.ROOT, "Memory: %.1f MiB heap above baseline, %.1f KiB per live tenant, %d threads%n",
+          heapBytes / 1048576.0, pools.getTenants() == 0 ? 0.0 : heapBytes / 1024.0 / pools.getTenants(),
+          ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private static void printLatencies(final String name, final LatencyHistogram histogram) {
+        System.out.printf(Locale.ROOT, "%-8s %10.3f %10.3f %10.3f %10.3f%n", name, histogram.getPercentile(50) / 1e6,
+          histogram.getPercentile(99) / 1e6, histogram.getPercentile(99.9) / 1e6, histogram.getMax() / 1e6);
+    }
+
+    private static void rollback(final Transaction transaction) {
+        if (transaction.isActive()) {
+            transaction.rollback();
+        }
+    }
+
+    private static long getUsedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Client thread issuing operations against random tenants and recording their latency while measuring
+     */
+    private final class Worker implements Runnable {
+
+        private final SessionFactory sessionFactory;
+        private final Random random;
+        private final LatencyHistogram reads = new LatencyHistogram();
+        private final LatencyHistogram writes = new LatencyHistogram();
+        private long errors;
+
+        private Worker(final SessionFactory sessionFactory, final Random random) {
+            this.sessionFactory = sessionFactory;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            final SimulatorSettings settings = Simulator.this.settings;
+            while (Simulator.this.running) {
+                final String tenant = "tenant" + Simulator.this.tenantPopularity.sample(this.random);
+                final long id = 1 + this.random.nextInt(settings.getRowsPerTenant());
+                final boolean read = this.random.nextDouble() < settings.getReadRatio();
+                final long start = System.nanoTime();
+                try {
+                    if (read) {
+                        this.read(tenant, id);
+                    } else {
+                        this.write(tenant, id);
+                    }
+                    if (Simulator.this.measuring) {
+                        (read ? this.reads : this.writes).record(System.nanoTime() - start);
+                    }
+                } catch (RuntimeException e) {
+                    if (Simulator.this.measuring) {
+                        this.errors++;
+                    }
+                }
+            }
+        }
+
+        private void read(final String tenant, final long id) {
+            ContextEngines.getEngine().withRole(DatabaseRole.READER, () -> {
+                try (Session session = this.sessionFactory.withOptions().tenantIdentifier((Object)tenant).openSession()) {
+                    session.setDefaultReadOnly(true);
+                    final Transaction transaction = session.beginTransaction();
+                    try {
+                        final Account account = session.find(Account.class, id);
+                        transaction.commit();
+                        return account;
+                    } catch (RuntimeException e) {
+                        rollback(transaction);
+                        throw e;
+                    }
+                }
+            });
+        }
+
+        private void write(final String tenant, final long id) {
+            try (Session session = this.sessionFactory.withOptions().tenantIdentifier((Object)tenant).openSession()) {
+                final Transaction transaction = session.beginTransaction();
+                try {
+                    final Account account = session.find(Account.class, id);
+                    account.setBalance(account.getBalance() + 1);
+                    transaction.commit();
+                } catch (RuntimeException e) {
+                    rollback(transaction);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Highest pool counts sampled while measuring
+     */
+    private static final class PeakPools {
+
+        private volatile int connections;
+        private volatile int maximumConnections;
+
+        private void sample(final SimulatedMultiTenantConnectionProvider.PoolStatistics statistics) {
+            this.connections = Math.max(this.connections, statistics.getConnections());
+            this.maximumConnections = Math.max(this.maximumConnections, statistics.getMaximumConnections());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.elihullc.rwsplitter.simulator;
+
+import java.time.Duration;
+
+/**
+ * Settings of a simulation, read from {@code simulator.*} system properties
+ */
+public final class SimulatorSettings {
+
+    private final int tenants = Integer.getInteger("simulator.tenants", 5000);
+    private final int threads = Integer.getInteger("simulator.threads", 32);
+    private final Duration warmup = Duration.ofSeconds(Long.getLong("simulator.warmupSeconds", 10));
+    private final Duration duration = Duration.ofSeconds(Long.getLong("simulator.durationSeconds", 60));
+    private final double zipfExponent = Double.parseDouble(System.getProperty("simulator.zipfExponent", "1.0"));
+    private final double readRatio = Double.parseDouble(System.getProperty("simulator.readRatio", "0.9"));
+    private final int readers = Integer.getInteger("simulator.readers", 2);
+    private final int maximumPoolSize = Integer.getInteger("simulator.maximumPoolSize", 4);
+    private final int minimumPoolSize = Integer.getInteger("simulator.minimumPoolSize", 0);
+    private final int rowsPerTenant = Integer.getInteger("simulator.rowsPerTenant", 100);
+    private final Duration writerLatency = Duration.ofMillis(Long.getLong("simulator.writerLatencyMillis", 0));
+    private final Duration replicaLatency = Duration.ofMillis(Long.getLong("simulator.replicaLatencyMillis", 0));
+    private final int slowReplica = Integer.getInteger("simulator.slowReplica", -1);
+    private final Duration slowReplicaLatency = Duration.ofMillis(Long.getLong("simulator.slowReplicaLatencyMillis", 50));
+    private final int outageReplica = Integer.getInteger("simulator.outageReplica", -1);
+    private final Duration outageStart = Duration.ofSeconds(Long.getLong("simulator.outageStartSeconds", 20));
+    private final Duration outageDuration = Duration.ofSeconds(Long.getLong("simulator.outageDurationSeconds", 10));
+    private final int maxTenants = Integer.getInteger("simulator.maxTenants", 0);
+    private final long seed = Long.getLong("simulator.seed", 42L);
+
+    /**
+     * Returns the number of tenants. Default is 5000
+     * @return the number of tenants
+     */
+    public int getTenants() {
+        return this.tenants;
+    }
+
+    /**
+     * Returns the number of client threads. Default is 32
+     * @return the number of client threads
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Returns the time the workload runs before measuring. Default is 10 seconds
+     * @return the warm-up time
+     */
+    public Duration getWarmup() {
+        return this.warmup;
+    }
+
+    /**
+     * Returns the time the workload is measured. Default is 60 seconds
+     * @return the measured time
+     */
+    public Duration getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Returns the exponent of the Zipf distribution of tenant popularity, 0 being uniform. Default is 1.0
+     * @return the Zipf exponent
+     */
+    public double getZipfExponent() {
+        return this.zipfExponent;
+    }
+
+    /**
+     * Returns the fraction of operations that are reads. Default is 0.9
+     * @return the fraction of reads
+     */
+    public double getReadRatio() {
+        return this.readRatio;
+    }
+
+    /**
+     * Returns the number of replicas of every tenant. Default is 2
+     * @return the number of replicas
+     */
+    public int getReaders() {
+        return this.readers;
+    }
+
+    /**
+     * Returns the maximum size of every pool. Default is 4
+     * @return the maximum pool size
+     */
+    public int getMaximumPoolSize() {
+        return this.maximumPoolSize;
+    }
+
+    /**
+     * Returns the minimum idle connections of every pool. Default is 0
+     * @return the minimum pool size
+     */
+    public int getMinimumPoolSize() {
+        return this.minimumPoolSize;
+    }
+
+    /**
+     * Returns the number of rows in the table of every tenant. Default is 100
+     * @return the number of rows per tenant
+     */
+    public int getRowsPerTenant() {
+        return this.rowsPerTenant;
+    }
+
+    /**
+     * Returns the latency added to every statement on writers. Default is none
+     * @return the writer latency
+     */
+    public Duration getWriterLatency() {
+        return this.writerLatency;
+    }
+
+    /**
+     * Returns the latency added to every statement on replicas. Default is none
+     * @return the replica latency
+     */
+    public Duration getReplicaLatency() {
+        return this.replicaLatency;
+    }
+
+    /**
+     * Returns the index of the replica with {@link #getSlowReplicaLatency()} instead. Default is -1, i.e. none
+     * @return the index of the slow replica
+     */
+    public int getSlowReplica() {
+        return this.slowReplica;
+    }
+
+    /**
+     * Returns the latency added to every statement on the slow replica. Default is 50 ms
+     * @return the slow replica latency
+     */
+    public Duration getSlowReplicaLatency() {
+        return this.slowReplicaLatency;
+    }
+
+    /**
+     * Returns the index of the replica that suffers an outage. Default is -1, i.e. none
+     * @return the index of the failing replica
+     */
+    public int getOutageReplica() {
+        return this.outageReplica;
+    }
+
+    /**
+     * Returns the time after the start of the measurement at which the outage begins. Default is 20 seconds
+     * @return the start of the outage
+     */
+    public Duration getOutageStart() {
+        return this.outageStart;
+    }
+
+    /**
+     * Returns the length of the outage. Default is 10 seconds
+     * @return the length of the outage
+     */
+    public Duration getOutageDuration() {
+        return this.outageDuration;
+    }
+
+    /**
+     * Returns the maximum number of tenants with open pools, enforced by a
+     * {@link com.elihullc.rwsplitter.jpa.hibernate.ConnectionProviderEvictor}. Default is 0, i.e. unlimited
+     * @return the maximum number of tenants with open pools
+     */
+    public int getMaxTenants() {
+        return this.maxTenants;
+    }
+
+    /**
+     * Returns the seed of the random workload. Default is 42
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    @Override
+    public String toString() {
+        return "tenants=" + this.tenants + ", threads=" + this.threads + ", warmup=" + this.warmup.toSeconds() + "s, duration="
+          + this.duration.toSeconds() + "s, zipfExponent=" + this.zipfExponent + ", readRatio=" + this.readRatio + ", readers="
+          + this.readers + ", maximumPoolSize=" + this.maximumPoolSize + ", minimumPoolSize=" + this.minimumPoolSize
+          + ", writerLatency=" + this.writerLatency.toMillis() + "ms, replicaLatency=" + this.replicaLatency.toMillis()
+          + "ms, slowReplica=" + this.slowReplica + " (" + this.slowReplicaLatency.toMillis() + "ms), outageReplica="
+          + this.outageReplica + " (at " + this.outageStart.toSeconds() + "s for " + this.outageDuration.toSeconds()
+          + "s), maxTenants=" + this.maxTenants;
+    }
+}
@@ -0,0 +1,49 @@
+package com.elihullc.rwsplitter.simulator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distribution over the ranks {@code 0} to {@code n - 1}, rank {@code k} being drawn with a probability proportional to
+ * {@code 1 / (k + 1)^exponent}.  Samples are drawn by a binary search over the precomputed cumulative distribution.
+ */
+public final class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    /**
+     * Creates a distribution over {@code n} ranks
+     * @param n the number of ranks
+     * @param exponent the exponent, 0 being uniform
+     */
+    public ZipfDistribution(final int n, final double exponent) {
+        this.cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            this.cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            this.cumulative[k] /= sum;
+        }
+    }
+
+    /**
+     * Draws a rank
+     * @param random the source of randomness
+     * @return a rank between 0 and {@code n - 1}
+     */
+    public int sample(final Random random) {
+        final int index = Arrays.binarySearch(this.cumulative, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, this.cumulative.length - 1);
+    }
+
+    /**
+     * Returns the probability of the given rank
+     * @param rank the rank
+     * @return the probability of the rank
+     */
+    public double getProbability(final int rank) {
+        return rank == 0 ? this.cumulative[0] : this.cumulative[rank] - this.cumulative[rank - 1];
+    }
+}